@@ -136,6 +136,9 @@ public class DremioConfig extends NestedConfig {
   // datastore
   public static final String DATASTORE_TYPE = "services.datastore.type";
   public static final String DATASTORE_CONFIG = "services.datastore.config";
+  public static final String DATASTORE_NEAR_CACHE_SIZE_LONG = "services.datastore.near_cache.size";
+  public static final String DATASTORE_NEAR_CACHE_EXPIRATION_SECONDS_LONG = "services.datastore.near_cache.expiration_seconds";
+  public static final String DATASTORE_NEAR_CACHE_RENEWAL_SECONDS_LONG = "services.datastore.near_cache.renewal_seconds";
 
   private final Config unresolved;
   private final Config reference;
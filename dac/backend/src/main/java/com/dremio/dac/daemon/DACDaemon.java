@@ -16,6 +16,7 @@
 package com.dremio.dac.daemon;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.EnumSet;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
@@ -100,6 +101,8 @@ public final class DACDaemon implements AutoCloseable {
         .withSabotValue(ExecConstants.ZK_CONNECTION, incomingConfig.getString(DremioConfig.ZOOKEEPER_QUORUM))
         .withSabotValue(ExecConstants.INITIAL_USER_PORT, incomingConfig.getString(DremioConfig.CLIENT_PORT_INT))
         .withSabotValue(ExecConstants.SPILL_DIRS, incomingConfig.getList(DremioConfig.SPILLING_PATH_STRING))
+        .withSabotValue(ExecConstants.PERSISTENT_CODE_CACHE_PATH_CONFIG,
+          Paths.get(incomingConfig.getString(DremioConfig.LOCAL_WRITE_PATH_STRING), "codecache").toString())
         .withSabotValue(ExecConstants.REGISTRATION_ADDRESS, incomingConfig.getString(DremioConfig.REGISTRATION_ADDRESS))
         .withSabotValue(ExecConstants.ZK_SESSION_TIMEOUT, incomingConfig.getString(DremioConfig.ZK_CLIENT_SESSION_TIMEOUT))
         .withSabotValue(ExecConstants.MASTERLESS_MODE, incomingConfig.getBoolean(DremioConfig.ENABLE_MASTERLESS_BOOL));
@@ -72,6 +72,12 @@ public class KVStoreProviderHelper {
         config.put(LocalKVStoreProvider.CONFIG_VALIDATEOCC, "true");
         config.put(LocalKVStoreProvider.CONFIG_TIMED, "true");
         config.put(LocalKVStoreProvider.CONFIG_BASEDIRECTORY, dremioConfig.getString(DremioConfig.DB_PATH_STRING));
+        config.put(RemoteKVStoreProvider.CONFIG_NEAR_CACHE_SIZE,
+          dremioConfig.getLong(DremioConfig.DATASTORE_NEAR_CACHE_SIZE_LONG));
+        config.put(RemoteKVStoreProvider.CONFIG_NEAR_CACHE_EXPIRATION_SECONDS,
+          dremioConfig.getLong(DremioConfig.DATASTORE_NEAR_CACHE_EXPIRATION_SECONDS_LONG));
+        config.put(RemoteKVStoreProvider.CONFIG_NEAR_CACHE_RENEWAL_SECONDS,
+          dremioConfig.getLong(DremioConfig.DATASTORE_NEAR_CACHE_RENEWAL_SECONDS_LONG));
         // fall through to TEST_CLUSTER_DB
       case TEST_CLUSTER_DB:
         boolean isCoordinator = dremioConfig.getBoolean(DremioConfig.ENABLE_COORDINATOR_BOOL);
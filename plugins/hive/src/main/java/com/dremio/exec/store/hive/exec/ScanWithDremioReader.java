@@ -21,10 +21,12 @@ import java.util.Collections;
 import java.util.List;
 
 import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.mapred.FileSplit;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
 
 import com.dremio.common.AutoCloseables;
 import com.dremio.common.exceptions.UserException;
@@ -36,6 +38,7 @@ import com.dremio.exec.store.dfs.FileSystemWrapper;
 import com.dremio.exec.store.dfs.implicit.CompositeReaderConfig;
 import com.dremio.exec.store.hive.HiveUtilities;
 import com.dremio.exec.store.parquet.ParquetFilterCondition;
+import com.dremio.exec.store.parquet.ParquetFooterCache;
 import com.dremio.exec.store.parquet.ParquetReaderFactory;
 import com.dremio.exec.store.parquet.ParquetScanFilter;
 import com.dremio.exec.store.parquet.SingletonParquetFooterCache;
@@ -86,6 +89,7 @@ class ScanWithDremioReader {
       final UserGroupInformation currentUGI = UserGroupInformation.getCurrentUser();
       final List<HiveParquetSplit> sortedSplits = Lists.newArrayList();
       final SingletonParquetFooterCache footerCache = new SingletonParquetFooterCache();
+      final boolean useSharedFooterCache = options.getOption(ExecConstants.PARQUET_FOOTER_CACHE);
 
       for (DatasetSplit split : config.getSplits()) {
         sortedSplits.add(new HiveParquetSplit(split));
@@ -115,7 +119,17 @@ class ScanWithDremioReader {
               final FileSystemWrapper fs = ImpersonationUtil.createFileSystem(ImpersonationUtil.getProcessUserName(), jobConf, split.getFileSplit().getPath());
 
               final RecordReader innerReader;
-              try (FSDataInputStream is = fs.open(split.fileSplit.getPath())) {
+              try {
+                final ParquetMetadata footer;
+                if (useSharedFooterCache) {
+                  final FileStatus status = fs.getFileStatus(split.fileSplit.getPath());
+                  footer = ParquetFooterCache.getInstance(context.getConfig())
+                    .getFooter(fs, split.fileSplit.getPath(), status.getLen(), status.getModificationTime());
+                } else {
+                  try (FSDataInputStream is = fs.open(split.fileSplit.getPath())) {
+                    footer = footerCache.getFooter(is, split.fileSplit.getPath().toString(), -1, fs);
+                  }
+                }
                 innerReader = new FileSplitParquetRecordReader(
                     context,
                     readerFactory,
@@ -123,7 +137,7 @@ class ScanWithDremioReader {
                     compositeReader.getInnerColumns(),
                     conditions,
                     split.getFileSplit(),
-                    footerCache.getFooter(is, split.fileSplit.getPath().toString(), -1, fs),
+                    footer,
                     jobConf,
                     vectorize,
                     config.getSchema(),
@@ -31,6 +31,7 @@ import org.apache.arrow.vector.complex.writer.BaseWriter.*;
 import org.apache.arrow.vector.complex.writer.*;
 import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.arrow.vector.types.pojo.ArrowType.Decimal;
+import org.apache.arrow.vector.types.pojo.ArrowType.FixedSizeBinary;
 import com.dremio.common.types.TypeProtos.MajorType;
 import com.dremio.common.util.ObjectType;
 
@@ -231,7 +232,7 @@ public class BasicTypeHelper {
       return new DecimalVector(field.getName(), allocator, dec.getPrecision(), dec.getScale());
       <#else>
       <#if minor.class == "FixedSizeBinary">
-      return new ${minor.class}Vector(field.getName(), allocator, WIDTH_ESTIMATE);
+      return new ${minor.class}Vector(field.getName(), allocator, ((FixedSizeBinary) field.getType()).getByteWidth());
       <#else>
       return new ${minor.class}Vector(field.getName(), allocator);
       </#if>
@@ -135,6 +135,8 @@ public final class ${className} extends BaseValueVectorHelper {
           .setValueCount(vector.valueCount)
           <#if  minor.class == "Bit">
           .setBufferLength(getValidityBufferSizeFromCount(vector.valueCount))
+          <#elseif minor.class == "FixedSizeBinary">
+          .setBufferLength(vector.valueCount * vector.getByteWidth())
           <#else>
           .setBufferLength(vector.valueCount * ${type.width})
           </#if>
@@ -265,6 +267,8 @@ public final class ${className} extends BaseValueVectorHelper {
     final int valueCount = metadata.getValueCount();
     <#if  minor.class == "Bit">
     final int expectedLength = getValidityBufferSizeFromCount(valueCount);
+    <#elseif minor.class == "FixedSizeBinary">
+    final int expectedLength = valueCount * vector.getByteWidth();
     <#else>
     final int expectedLength = valueCount * ${type.width};
     </#if>
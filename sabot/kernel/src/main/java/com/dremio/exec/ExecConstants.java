@@ -56,6 +56,7 @@ public interface ExecConstants {
   String INCOMING_BUFFER_SIZE = "dremio.exec.buffer.size";
   String SPOOLING_BUFFER_DELETE = "dremio.exec.buffer.spooling.delete";
   String SPOOLING_BUFFER_SIZE = "dremio.exec.buffer.spooling.size";
+  String SPOOLING_BUFFER_COMPRESSION = "dremio.exec.buffer.spooling.compression";
   String BATCH_PURGE_THRESHOLD = "dremio.exec.sort.purge.threshold";
   String SPILL_DIRS = "dremio.exec.sort.external.spill.directories";
   String HTTP_ENABLE = "dremio.exec.http.enabled";
@@ -67,6 +68,8 @@ public interface ExecConstants {
   DoubleValidator SPILL_DISK_SPACE_LIMIT_PERCENTAGE = new RangeDoubleValidator("dremio.exec.spill.limit.percentage", 0.0, 100.0, DefaultSpillServiceOptions.MIN_DISK_SPACE_PCT);
   PositiveLongValidator SPILL_SWEEP_INTERVAL = new PositiveLongValidator("dremio.exec.spill.sweep.interval", Long.MAX_VALUE, DefaultSpillServiceOptions.SPILL_SWEEP_INTERVAL);
   PositiveLongValidator SPILL_SWEEP_THRESHOLD = new PositiveLongValidator("dremio.exec.spill.sweep.threshold", Long.MAX_VALUE, DefaultSpillServiceOptions.SPILL_SWEEP_THRESHOLD);
+  // codec used to compress spilled buffers (see SpillCompression)
+  EnumeratedStringValidator SPILL_COMPRESSION = new EnumeratedStringValidator("dremio.exec.spill.compression", "snappy", "none", "snappy", "deflate");
 
   // Set this value to set the execution preference
   // Default value to use in the operators (for now, only projector and filter use this default)
@@ -78,6 +81,17 @@ public interface ExecConstants {
   // Splits are enabled when this is set to true and QUERY_EXEC_OPTION is set to Gandiva
   BooleanValidator SPLIT_ENABLED = new BooleanValidator("exec.expression.split.enabled", true);
 
+  // Manual tuning knob: sub-expressions whose cumulative cost (the static cost of the functions they call, as
+  // returned by LogicalExpression.getCumulativeCost) is below this value are evaluated with their parent in the non
+  // preferred code generator instead of being split out, which saves writing their result to an intermediate vector.
+  // Nothing measures the cost of a split at runtime. 0 disables the threshold and keeps every split.
+  RangeLongValidator SPLIT_MIN_COST = new RangeLongValidator("exec.expression.split.min_cost", 0, Integer.MAX_VALUE, 0);
+
+  // Number of rows the Java expressions of an operator are interpreted for before their code is compiled, so small
+  // queries don't pay the compilation. 0 to always compile.
+  RangeLongValidator EXPRESSION_INTERPRETER_MAX_ROWS =
+    new RangeLongValidator("exec.expression.interpreter.max_rows", 0, Integer.MAX_VALUE, 0);
+
   // Whether or not to replace a group of ORs with a set operation.
   BooleanValidator FAST_OR_ENABLE = new BooleanValidator("exec.operator.orfast", true);
 
@@ -120,6 +134,20 @@ public interface ExecConstants {
   BooleanValidator ENABLE_VECTORIZED_HASHAGG = new BooleanValidator("exec.operator.aggregate.vectorize", true);
   BooleanValidator ENABLE_VECTORIZED_HASHJOIN = new BooleanValidator("exec.operator.join.vectorize", true);
   BooleanValidator ENABLE_VECTORIZED_HASHJOIN_SPECIFIC = new BooleanValidator("exec.operator.join.vectorize.specific", false);
+  // number of radix partitions of the generic vectorized hash join table, each partition is a separate hash table.
+  PowerOfTwoLongValidator VECTORIZED_HASHJOIN_NUM_PARTITIONS = new PowerOfTwoLongValidator("exec.operator.join.vectorize.num_partitions", 64, 1);
+  // when the build side of the vectorized hash join runs out of memory, fall back to a partitioned (grace) join on disk.
+  BooleanValidator ENABLE_VECTORIZED_HASHJOIN_SPILL = new BooleanValidator("exec.operator.join.vectorize.spill", false);
+  PowerOfTwoLongValidator VECTORIZED_HASHJOIN_SPILL_PARTITIONS = new PowerOfTwoLongValidator("exec.operator.join.vectorize.spill.num_partitions", 256, 16);
+  // testing only: spill once the in-memory build side holds this many batches.
+  PositiveLongValidator VECTORIZED_HASHJOIN_SPILL_DEBUG_MAX_BATCHES = new PositiveLongValidator("exec.operator.join.vectorize.spill.debug_max_batches", Integer.MAX_VALUE, Integer.MAX_VALUE);
+  // push a filter built from the join keys of the vectorized hash join build side down to the probe side scan.
+  BooleanValidator ENABLE_RUNTIME_FILTER = new BooleanValidator("exec.operator.join.runtime_filter", false);
+  PowerOfTwoLongValidator RUNTIME_FILTER_BLOOM_BITS = new PowerOfTwoLongValidator("exec.operator.join.runtime_filter.bloom_bits", 1 << 26, 1 << 21);
+  // send the current top-n threshold on the leading sort key to the scan feeding the top-n.
+  BooleanValidator ENABLE_TOPN_RUNTIME_FILTER = new BooleanValidator("exec.operator.topn.runtime_filter", false);
+  // skip incoming records that can't make it into the top-n using normalized keys, before adding their batch.
+  BooleanValidator TOPN_EARLY_REJECTION = new BooleanValidator("exec.operator.topn.early_rejection", true);
   BooleanValidator ENABLE_VECTORIZED_COPIER = new BooleanValidator("exec.operator.copier.vectorize", true);
   BooleanValidator ENABLE_VECTORIZED_PARTITIONER = new BooleanValidator("exec.operator.partitioner.vectorize", true);
   BooleanValidator DEBUG_HASHJOIN_INSERTION = new BooleanValidator("exec.operator.join.debug-insertion", false);
@@ -318,6 +346,12 @@ public interface ExecConstants {
 
   String BOOTSTRAP_STORAGE_PLUGINS_FILE = "bootstrap-storage-plugins.json";
   String MAX_LOADING_CACHE_SIZE_CONFIG = "dremio.exec.compile.cache_max_size";
+  String PERSISTENT_CODE_CACHE_ENABLED_CONFIG = "dremio.exec.compile.persistent_cache.enabled";
+  String PERSISTENT_CODE_CACHE_PATH_CONFIG = "dremio.exec.compile.persistent_cache.path";
+  String PERSISTENT_CODE_CACHE_MAX_ENTRIES_CONFIG = "dremio.exec.compile.persistent_cache.max_entries";
+  String PARQUET_FOOTER_CACHE_MAX_BYTES_CONFIG = "dremio.exec.storage.parquet.footer_cache.max_bytes";
+  String PLAN_CACHE_MAX_ENTRIES_CONFIG = "dremio.exec.planner.plan_cache.max_entries";
+  String PARTITION_INDEX_CACHE_MAX_ENTRIES_CONFIG = "dremio.exec.planner.partition_index_cache.max_entries";
 
   String ENABLE_WINDOW_FUNCTIONS = "window.enable";
   OptionValidator ENABLE_WINDOW_FUNCTIONS_VALIDATOR = new BooleanValidator(ENABLE_WINDOW_FUNCTIONS, true);
@@ -339,6 +373,11 @@ public interface ExecConstants {
   PositiveLongValidator PARTITION_SENDER_MAX_MEM = new PositiveLongValidator("exec.partitioner.mem.max", Integer.MAX_VALUE, 100*1024*1024);
   PositiveLongValidator PARTITION_SENDER_MAX_BATCH_SIZE = new PositiveLongValidator("exec.partitioner.batch.size.max", Integer.MAX_VALUE, 1024*1024);
 
+  // codec used to compress the batches the broadcast and vectorized partition senders send (see ExchangeCompression)
+  EnumeratedStringValidator EXCHANGE_COMPRESSION = new EnumeratedStringValidator("exec.exchange.compression", "none", "none", "snappy");
+  // batches are sent uncompressed when compression doesn't bring them below this fraction of their size
+  DoubleValidator EXCHANGE_COMPRESSION_MAX_RATIO = new RangeDoubleValidator("exec.exchange.compression.max_ratio", 0.0, 1.0, 0.9);
+
   BooleanValidator DEBUG_QUERY_PROFILE = new BooleanValidator("dremio.profile.debug_columns", false);
 
   PositiveLongValidator LAYOUT_REFRESH_MAX_ATTEMPTS = new PositiveLongValidator("layout.refresh.max.attempts", Integer.MAX_VALUE, 3);
@@ -358,6 +397,17 @@ public interface ExecConstants {
   LongValidator PARQUET_MULTI_STREAM_SIZE_LIMIT = new LongValidator("store.parquet.multi_stream_limit", 1024*1024);
   BooleanValidator PARQUET_MULTI_STREAM_SIZE_LIMIT_ENABLE = new BooleanValidator("store.parquet.multi_stream_limit.enable", true);
   BooleanValidator PARQUET_CACHED_ENTITY_SET_FILE_SIZE = new BooleanValidator("store.parquet.set_file_length",true);
+  // read the column chunks of a row group with a few large background reads, and start reading the next row group
+  // while the current one is decoded
+  BooleanValidator PARQUET_PREFETCH = new BooleanValidator("store.parquet.prefetch", true);
+  // column chunks separated by at most this many bytes are read together
+  RangeLongValidator PARQUET_PREFETCH_MAX_GAP = new RangeLongValidator("store.parquet.prefetch.max_gap_bytes", 0, Integer.MAX_VALUE, 1024 * 1024);
+  // row groups whose projected column chunks don't fit in this budget are streamed
+  PositiveLongValidator PARQUET_PREFETCH_MAX_BYTES = new PositiveLongValidator("store.parquet.prefetch.max_bytes", Integer.MAX_VALUE, 64 * 1024 * 1024);
+  // skip the row groups and pages whose column statistics show none of their rows match the pushed down filter
+  BooleanValidator PARQUET_STATS_PRUNING = new BooleanValidator("store.parquet.stats_pruning", true);
+  // share the parsed footers across the scans of a node, see PARQUET_FOOTER_CACHE_MAX_BYTES_CONFIG for its size
+  BooleanValidator PARQUET_FOOTER_CACHE = new BooleanValidator("store.parquet.footer_cache.enabled", true);
   LongValidator RESULTS_MAX_AGE_IN_DAYS = new LongValidator("results.max.age_in_days", 30);
   //Configuration used for testing or debugging
   LongValidator DEBUG_RESULTS_MAX_AGE_IN_MILLISECONDS = new LongValidator("debug.results.max.age_in_milliseconds", 0);
@@ -373,6 +423,21 @@ public interface ExecConstants {
 
   PositiveLongValidator EXTERNAL_SORT_BATCHSIZE_MULTIPLIER = new PositiveLongValidator("exec.operator.sort.external.batchsize_multiplier", Character.MAX_VALUE, 2);
 
+  // sort each batch on normalized key prefixes of the leading sort key, only calling generated comparisons for ties
+  BooleanValidator EXTERNAL_SORT_NORMALIZED_KEYS = new BooleanValidator("exec.operator.sort.external.normalized_keys", true);
+
+  // read the next batch of each spilled run in the background while the current one is being merged
+  BooleanValidator EXTERNAL_SORT_PREFETCH_SPILLED_BATCHES = new BooleanValidator("exec.operator.sort.external.prefetch_spilled_batches", true);
+
+  // maximum number of disjoint groups of spilled runs merged concurrently when consolidating
+  PositiveLongValidator EXTERNAL_SORT_MERGE_PARALLELISM = new PositiveLongValidator("exec.operator.sort.external.merge_parallelism", 16, 2);
+
+  // number of threads of the slicing task pool, 0 to use one thread per core (read when the pool is created)
+  RangeLongValidator SLICING_THREAD_COUNT = new RangeLongValidator("exec.slicing.thread_count", 0, 1024, 0);
+
+  // time a task runs on a slicing thread before the thread picks the next task to run
+  PositiveLongValidator SLICING_QUANTUM_MS = new PositiveLongValidator("exec.slicing.quantum_ms", 1000, 10);
+
   LongValidator VOTING_SCHEDULE = new PositiveLongValidator("vote.schedule.millis", Long.MAX_VALUE, 0);
   PositiveLongValidator LAST_SEARCH_REINDEX  = new PositiveLongValidator("dac.search.last_reindex",  Long.MAX_VALUE, 0);
   PositiveLongValidator SEARCH_MANAGER_REFRESH_MILLIS  = new PositiveLongValidator("dac.search.refresh",  Long.MAX_VALUE, TimeUnit.MINUTES.toMillis(1));
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.cache;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+
+import com.google.common.base.Preconditions;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Spill format shared by the operators writing buffers to spill files (external sort, hash aggregation, hash join and
+ * spooling exchange buffers).
+ *
+ * A buffer is written as a sequence of chunks of at most {@link #CHUNK_SIZE} raw bytes:
+ *
+ *    <raw length(4), stored length(4), codec id(1), crc32 of raw bytes(4), stored bytes>
+ *
+ * Each chunk is compressed with the configured codec, unless the buffer belongs to a column that doesn't compress
+ * well or compression doesn't save at least an eighth of the chunk, in which case it is stored as is. The checksum of
+ * the raw bytes is verified when reading back, so corrupted spill files fail the query instead of returning wrong
+ * results.
+ *
+ * Reading only relies on the total length of the data to read, so the chunks of consecutive buffers can be read back
+ * into a single buffer. A codec can be used to write and read concurrently from different threads.
+ */
+public class SpillBufferCodec {
+
+  public static final int CHUNK_SIZE = 32 * 1024;
+  static final int CHUNK_HEADER_LENGTH = 13;
+
+  /*
+   * Reusable buffers for raw and stored chunk bytes, to avoid GC churn (safe to do since I/O operations are blocking)
+   */
+  private static final ThreadLocal<byte[]> RAW_BUFFER = new ThreadLocal<byte[]>() {
+    @Override
+    protected byte[] initialValue() {
+      return new byte[CHUNK_SIZE];
+    }
+  };
+
+  private static final ThreadLocal<byte[]> STORED_BUFFER = new ThreadLocal<byte[]>() {
+    @Override
+    protected byte[] initialValue() {
+      int maxLength = CHUNK_SIZE;
+      for (SpillCompression compression : SpillCompression.values()) {
+        maxLength = Math.max(maxLength, compression.maxCompressedLength(CHUNK_SIZE));
+      }
+      return new byte[maxLength];
+    }
+  };
+
+  private static final ThreadLocal<byte[]> HEADER_BUFFER = new ThreadLocal<byte[]>() {
+    @Override
+    protected byte[] initialValue() {
+      return new byte[CHUNK_HEADER_LENGTH];
+    }
+  };
+
+  private final SpillCompression compression;
+
+  public SpillBufferCodec(SpillCompression compression) {
+    this.compression = Preconditions.checkNotNull(compression);
+  }
+
+  public SpillCompression getCompression() {
+    return compression;
+  }
+
+  /**
+   * Write length bytes of the buffer starting at offset.
+   *
+   * @param compress whether to try compressing the data, false for columns that won't compress well.
+   * @return number of bytes written to the stream
+   */
+  public long write(ByteBuf buf, int offset, int length, boolean compress, OutputStream output) throws IOException {
+    final byte[] raw = RAW_BUFFER.get();
+    final byte[] stored = STORED_BUFFER.get();
+    final byte[] header = HEADER_BUFFER.get();
+    final boolean tryCompress = compress && compression != SpillCompression.NONE;
+    final CRC32 crc = new CRC32();
+
+    long written = 0;
+    for (int posn = 0; posn < length; posn += CHUNK_SIZE) {
+      final int rawLength = Math.min(CHUNK_SIZE, length - posn);
+      buf.getBytes(offset + posn, raw, 0, rawLength);
+
+      SpillCompression codec = SpillCompression.NONE;
+      byte[] chunk = raw;
+      int storedLength = rawLength;
+      if (tryCompress) {
+        final int compressedLength = compression.compress(raw, rawLength, stored);
+        if (compressedLength < rawLength - (rawLength >> 3)) {
+          codec = compression;
+          chunk = stored;
+          storedLength = compressedLength;
+        }
+      }
+
+      crc.reset();
+      crc.update(raw, 0, rawLength);
+      PlatformDependent.putInt(header, 0, rawLength);
+      PlatformDependent.putInt(header, 4, storedLength);
+      header[8] = codec.getId();
+      PlatformDependent.putInt(header, 9, (int) crc.getValue());
+
+      output.write(header, 0, CHUNK_HEADER_LENGTH);
+      output.write(chunk, 0, storedLength);
+      written += CHUNK_HEADER_LENGTH + storedLength;
+    }
+    return written;
+  }
+
+  /**
+   * Read length raw bytes into the buffer, starting at its writer index and moving it forward.
+   */
+  public void read(InputStream input, ByteBuf buf, int length) throws IOException {
+    final byte[] raw = RAW_BUFFER.get();
+    final byte[] stored = STORED_BUFFER.get();
+    final byte[] header = HEADER_BUFFER.get();
+    final CRC32 crc = new CRC32();
+
+    int remaining = length;
+    while (remaining > 0) {
+      readFully(input, header, CHUNK_HEADER_LENGTH);
+      final int rawLength = PlatformDependent.getInt(header, 0);
+      final int storedLength = PlatformDependent.getInt(header, 4);
+      final SpillCompression codec = SpillCompression.fromId(header[8]);
+      final int checksum = PlatformDependent.getInt(header, 9);
+      if (rawLength <= 0 || rawLength > Math.min(CHUNK_SIZE, remaining) || storedLength < 0 || storedLength > stored.length) {
+        throw new IOException(String.format("Invalid spilled chunk header (raw length %d, stored length %d, remaining %d)",
+            rawLength, storedLength, remaining));
+      }
+
+      if (codec == SpillCompression.NONE) {
+        if (storedLength != rawLength) {
+          throw new IOException("Invalid stored chunk length " + storedLength + ", expected " + rawLength);
+        }
+        readFully(input, raw, storedLength);
+      } else {
+        readFully(input, stored, storedLength);
+        final int uncompressedLength = codec.decompress(stored, storedLength, raw, rawLength);
+        if (uncompressedLength != rawLength) {
+          throw new IOException("Invalid uncompressed chunk length " + uncompressedLength + ", expected " + rawLength);
+        }
+      }
+
+      crc.reset();
+      crc.update(raw, 0, rawLength);
+      if ((int) crc.getValue() != checksum) {
+        throw new IOException("Checksum mismatch while reading spilled data, the spill file is corrupted.");
+      }
+
+      buf.writeBytes(raw, 0, rawLength);
+      remaining -= rawLength;
+    }
+  }
+
+  private static void readFully(InputStream input, byte[] buffer, int length) throws IOException {
+    int offset = 0;
+    while (offset < length) {
+      final int numBytesRead = input.read(buffer, offset, length - offset);
+      if (numBytesRead == -1) {
+        throw new EOFException("Unexpected end of stream while reading.");
+      }
+      offset += numBytesRead;
+    }
+  }
+}
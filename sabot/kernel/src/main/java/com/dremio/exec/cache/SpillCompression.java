@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.cache;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.xerial.snappy.Snappy;
+
+import com.dremio.common.types.TypeProtos.MinorType;
+
+/**
+ * Codecs available to compress the chunks of spilled buffers (see {@link SpillBufferCodec}). The id of the codec is
+ * stored with each chunk, so a reader doesn't need to know which codec was used to write a spill file.
+ *
+ * Snappy is fast with a moderate ratio, deflate (at its fastest level) trades some cpu for a better ratio when the
+ * spill disks are the bottleneck.
+ */
+public enum SpillCompression {
+
+  NONE((byte) 0) {
+    @Override
+    public int maxCompressedLength(int length) {
+      return length;
+    }
+
+    @Override
+    public int compress(byte[] input, int length, byte[] output) {
+      System.arraycopy(input, 0, output, 0, length);
+      return length;
+    }
+
+    @Override
+    public int decompress(byte[] input, int length, byte[] output, int maxLength) throws IOException {
+      if (length > maxLength) {
+        throw new IOException("Stored chunk is larger than expected");
+      }
+      System.arraycopy(input, 0, output, 0, length);
+      return length;
+    }
+  },
+
+  SNAPPY((byte) 1) {
+    @Override
+    public int maxCompressedLength(int length) {
+      return Snappy.maxCompressedLength(length);
+    }
+
+    @Override
+    public int compress(byte[] input, int length, byte[] output) throws IOException {
+      return Snappy.compress(input, 0, length, output, 0);
+    }
+
+    @Override
+    public int decompress(byte[] input, int length, byte[] output, int maxLength) throws IOException {
+      if (Snappy.uncompressedLength(input, 0, length) > maxLength) {
+        throw new IOException("Uncompressed chunk is larger than expected");
+      }
+      return Snappy.uncompress(input, 0, length, output, 0);
+    }
+  },
+
+  DEFLATE((byte) 2) {
+    @Override
+    public int maxCompressedLength(int length) {
+      // zlib's deflateBound, with some slack for the stream header and trailer
+      return length + (length >> 3) + (length >> 6) + 16;
+    }
+
+    @Override
+    public int compress(byte[] input, int length, byte[] output) throws IOException {
+      final Deflater deflater = DEFLATER.get();
+      deflater.reset();
+      deflater.setInput(input, 0, length);
+      deflater.finish();
+      int compressedLength = 0;
+      while (!deflater.finished()) {
+        if (compressedLength == output.length) {
+          throw new IOException("Compressed chunk is larger than the output buffer");
+        }
+        compressedLength += deflater.deflate(output, compressedLength, output.length - compressedLength);
+      }
+      return compressedLength;
+    }
+
+    @Override
+    public int decompress(byte[] input, int length, byte[] output, int maxLength) throws IOException {
+      final Inflater inflater = INFLATER.get();
+      inflater.reset();
+      inflater.setInput(input, 0, length);
+      try {
+        int uncompressedLength = 0;
+        while (!inflater.finished()) {
+          final int inflated = inflater.inflate(output, uncompressedLength, maxLength - uncompressedLength);
+          if (inflated == 0 && (inflater.needsInput() || uncompressedLength == maxLength)) {
+            throw new IOException("Corrupted or truncated compressed chunk");
+          }
+          uncompressedLength += inflated;
+        }
+        return uncompressedLength;
+      } catch (DataFormatException e) {
+        throw new IOException("Corrupted compressed chunk", e);
+      }
+    }
+  };
+
+  // deflater/inflater hold native memory, so they are reused by each thread instead of being created per chunk
+  private static final ThreadLocal<Deflater> DEFLATER = new ThreadLocal<Deflater>() {
+    @Override
+    protected Deflater initialValue() {
+      return new Deflater(Deflater.BEST_SPEED);
+    }
+  };
+
+  private static final ThreadLocal<Inflater> INFLATER = new ThreadLocal<Inflater>() {
+    @Override
+    protected Inflater initialValue() {
+      return new Inflater();
+    }
+  };
+
+  private final byte id;
+
+  SpillCompression(byte id) {
+    this.id = id;
+  }
+
+  public byte getId() {
+    return id;
+  }
+
+  /**
+   * Upper bound of the compressed length of length bytes.
+   */
+  public abstract int maxCompressedLength(int length);
+
+  /**
+   * Compress the first length bytes of input into output, which holds at least maxCompressedLength(length) bytes.
+   *
+   * @return the compressed length
+   */
+  public abstract int compress(byte[] input, int length, byte[] output) throws IOException;
+
+  /**
+   * Decompress the first length bytes of input into output, failing if it would produce more than maxLength bytes.
+   *
+   * @return the uncompressed length
+   */
+  public abstract int decompress(byte[] input, int length, byte[] output, int maxLength) throws IOException;
+
+  public static SpillCompression fromId(byte id) throws IOException {
+    for (SpillCompression compression : values()) {
+      if (compression.id == id) {
+        return compression;
+      }
+    }
+    throw new IOException("Unknown spill compression codec " + id);
+  }
+
+  /**
+   * Get the codec from its option value (case insensitive name).
+   */
+  public static SpillCompression fromName(String name) {
+    return valueOf(name.toUpperCase(Locale.ROOT));
+  }
+
+  /**
+   * Whether buffers of a column of the given type are worth compressing. Floating point values rarely have the
+   * repeated byte sequences these codecs look for, so compressing them mostly costs cpu.
+   */
+  public static boolean isCompressible(MinorType type) {
+    switch (type) {
+    case FLOAT4:
+    case FLOAT8:
+      return false;
+    default:
+      return true;
+    }
+  }
+}
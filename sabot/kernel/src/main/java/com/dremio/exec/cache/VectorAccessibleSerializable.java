@@ -20,7 +20,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.util.List;
 
 import org.apache.arrow.memory.BufferAllocator;
@@ -29,7 +28,6 @@ import org.apache.arrow.vector.types.SerializedFieldHelper;
 import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.parquet.hadoop.util.CompatibilityUtil;
-import org.xerial.snappy.Snappy;
 
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
@@ -46,19 +44,20 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 
 import io.netty.buffer.ArrowBuf;
-import io.netty.util.internal.PlatformDependent;
 
 /**
  * A wrapper around a VectorAccessible. Will serialize a VectorAccessible and write to an OutputStream, or can read
  * from an InputStream and construct a new VectorContainer.
+ *
+ * Buffers are written as is, or in the chunked spill format of {@link SpillBufferCodec} (compressed and checksummed)
+ * when a codec is provided. The reader must use a codec iff the writer did.
  */
 public class VectorAccessibleSerializable extends AbstractStreamSerializable {
 //  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(VectorAccessibleSerializable.class);
   static final MetricRegistry metrics = Metrics.getInstance();
   static final String WRITER_TIMER = MetricRegistry.name(VectorAccessibleSerializable.class, "writerTime");
 
-  static final int COMPRESSED_LENGTH_BYTES = 4;
-  public static final int RAW_CHUNK_SIZE_TO_COMPRESS = 32*1024;
+  private static final int IO_BUFFER_SIZE = 64*1024;
 
   /*
    * A reusable buffer for I/O operations to avoid GC churn by creating too many byte arrays
@@ -66,17 +65,7 @@ public class VectorAccessibleSerializable extends AbstractStreamSerializable {
   private static final ThreadLocal<byte[]> REUSABLE_LARGE_BUFFER = new ThreadLocal<byte[]>() {
     @Override
     protected byte[] initialValue() {
-      return new byte[RAW_CHUNK_SIZE_TO_COMPRESS*2];
-    }
-  };
-
-  /*
-   * A reusable buffer for int to array conversions
-   */
-  private static final ThreadLocal<byte[]> REUSABLE_SMALL_BUFFER = new ThreadLocal<byte[]>() {
-    @Override
-    protected byte[] initialValue() {
-      return new byte[Integer.SIZE / Byte.SIZE];
+      return new byte[IO_BUFFER_SIZE];
     }
   };
 
@@ -86,9 +75,8 @@ public class VectorAccessibleSerializable extends AbstractStreamSerializable {
   private int recordCount = -1;
   private BatchSchema.SelectionVectorMode svMode = BatchSchema.SelectionVectorMode.NONE;
   private SelectionVector2 sv2;
-  private final boolean useCodec;
-  /* a separate allocator to be used for allocating buffers for decompressing spill files */
-  private BufferAllocator decompressAllocator;
+  /* codec of the spill format, null if buffers are written as is */
+  private final SpillBufferCodec codec;
 
   private boolean retain = false;
 
@@ -99,23 +87,18 @@ public class VectorAccessibleSerializable extends AbstractStreamSerializable {
   public VectorAccessibleSerializable(BufferAllocator allocator) {
     this.allocator = allocator;
     va = new VectorContainer();
-    this.useCodec = false;
+    this.codec = null;
   }
 
   /**
-   * Decompress the spill files when de-serializing the spilled batch
+   * De-serialize a batch written in the spill format (decompressing and verifying checksums)
    * @param allocator
-   * @param useCodec
-   * @param decompressAllocator
+   * @param codec
    */
-  public VectorAccessibleSerializable(BufferAllocator allocator, boolean useCodec, BufferAllocator decompressAllocator) {
+  public VectorAccessibleSerializable(BufferAllocator allocator, SpillBufferCodec codec) {
     this.allocator = allocator;
     va = new VectorContainer();
-    this.useCodec = useCodec;
-    this.decompressAllocator = decompressAllocator;
-    if (useCodec) {
-      Preconditions.checkArgument((decompressAllocator != null), "decompress allocator can't be null when compressing spill files");
-    }
+    this.codec = Preconditions.checkNotNull(codec);
   }
 
   /**
@@ -124,7 +107,8 @@ public class VectorAccessibleSerializable extends AbstractStreamSerializable {
    * @param allocator
    */
   public VectorAccessibleSerializable(WritableBatch batch, BufferAllocator allocator) {
-    this(batch, null, allocator, false);
+    this(batch, null, null);
+    this.allocator = allocator;
   }
 
   /**
@@ -148,66 +132,20 @@ public class VectorAccessibleSerializable extends AbstractStreamSerializable {
     }
   }
 
-  /* compress the output buffers in 32KB chunks and serialize them as follows
-   *
-   *    <length bytes(4), data bytes, length bytes(4), data bytes ....>
-   *
-   * for every (length,data) pair, first 4 bytes represent the physical length of compressed data.
-   * subsequent bytes represent the actual compressed data.
-   */
-  private void writeCompressedBuf(ArrowBuf buf, OutputStream output) throws IOException {
-    int rawLength = buf.readableBytes();
-    for (int posn = 0; posn < rawLength; posn += RAW_CHUNK_SIZE_TO_COMPRESS) {
-      /* we compress 32KB chunks at a time; the last chunk might be smaller than 32KB */
-      int lengthToCompress = Math.min(RAW_CHUNK_SIZE_TO_COMPRESS, rawLength - posn);
-
-      /* allocate direct buffers to hold raw and compressed data */
-      ByteBuffer rawDirectBuffer = buf.nioBuffer(posn, lengthToCompress);
-      /* Since we don't know the exact size of compressed data, we can
-       * allocate the compressed buffer of same size as raw data. However,
-       * there could be cases where Snappy does not compress the data and the
-       * compressed stream is of size larger (raw data + compression metadata)
-       * than raw data. To handle these cases, we allocate compressed buffer
-       * slightly larger than raw buffer. If we don't do this, Snappy.compress
-       * will segfault.
-       */
-      final int maxCompressedLength = Snappy.maxCompressedLength(lengthToCompress);
-      try (ArrowBuf cBuf = allocator.buffer(maxCompressedLength)) {
-        ByteBuffer compressedDirectBuffer = cBuf.nioBuffer(0, maxCompressedLength);
-        rawDirectBuffer.order(ByteOrder.LITTLE_ENDIAN);
-        compressedDirectBuffer.order(ByteOrder.LITTLE_ENDIAN);
-
-        /* compress */
-        int compressedLength = Snappy.compress(rawDirectBuffer, compressedDirectBuffer);
-
-        /* get compressed data into byte array for serializing to output stream */
-        /* Use current thread buffer (safe to do since I/O operation is blocking) */
-        final byte[] tmpBuffer = REUSABLE_LARGE_BUFFER.get();
-        compressedDirectBuffer.get(tmpBuffer, 0, compressedLength);
-
-        /* serialize the length of compressed data */
-        output.write(getByteArrayFromLEInt(REUSABLE_SMALL_BUFFER.get(), compressedLength));
-        /* serialize the compressed data */
-        output.write(tmpBuffer, 0, compressedLength);
-      }
-    }
-  }
-
   /**
    * Creates a wrapper around batch and sv2 for writing to a stream. sv2 will never be released by this class, and ownership
-   * is maintained by caller. Also indicates whether compression is to be used for spilling the batch.
+   * is maintained by caller. Buffers are written in the spill format if a codec is provided.
    * @param batch
    * @param sv2
-   * @param allocator
+   * @param codec
    */
-  public VectorAccessibleSerializable(WritableBatch batch, SelectionVector2 sv2, BufferAllocator allocator, boolean useCodec) {
-    this.allocator = allocator;
+  public VectorAccessibleSerializable(WritableBatch batch, SelectionVector2 sv2, SpillBufferCodec codec) {
     this.batch = batch;
     if (sv2 != null) {
       this.sv2 = sv2;
       svMode = BatchSchema.SelectionVectorMode.TWO_BYTE;
     }
-    this.useCodec = useCodec;
+    this.codec = codec;
   }
 
   /**
@@ -240,8 +178,8 @@ public class VectorAccessibleSerializable extends AbstractStreamSerializable {
         final ValueVector vector;
         try {
           buf = allocator.buffer(rawDataLength);
-          if (useCodec) {
-            readAndUncompressIntoArrowBuf(input, buf, rawDataLength);
+          if (codec != null) {
+            codec.read(input, buf, rawDataLength);
           } else {
             readIntoArrowBuf(input, buf, rawDataLength);
           }
@@ -311,13 +249,11 @@ public class VectorAccessibleSerializable extends AbstractStreamSerializable {
       }
 
       /* Dump the array of ByteBuf's associated with the value vectors */
-      for (ArrowBuf buf : incomingBuffers) {
-        /* dump the buffer into the OutputStream */
-        if (useCodec) {
-          /* if we are serializing the spilled data, compress the ArrowBufs */
-          writeCompressedBuf(buf, output);
-        }
-        else {
+      if (codec != null) {
+        writeSpillBuffers(batchDef.getFieldList(), incomingBuffers, output);
+      } else {
+        for (ArrowBuf buf : incomingBuffers) {
+          /* dump the buffer into the OutputStream */
           writeBuf(buf, output);
         }
       }
@@ -332,6 +268,30 @@ public class VectorAccessibleSerializable extends AbstractStreamSerializable {
     }
   }
 
+  /**
+   * Write the buffers in the spill format, only trying to compress the buffers of columns that may compress well.
+   * Buffers are in field order, each field owning the buffers adding up to its buffer length.
+   */
+  private void writeSpillBuffers(List<SerializedField> fields, ArrowBuf[] buffers, OutputStream output) throws IOException {
+    int fieldIndex = -1;
+    long fieldRemaining = 0;
+    boolean compress = true;
+    for (ArrowBuf buf : buffers) {
+      final int length = buf.readableBytes();
+      if (length == 0) {
+        continue;
+      }
+      while (fieldRemaining <= 0 && fieldIndex + 1 < fields.size()) {
+        fieldIndex++;
+        final SerializedField field = fields.get(fieldIndex);
+        fieldRemaining = field.getBufferLength();
+        compress = SpillCompression.isCompressible(field.getMajorType().getMinorType());
+      }
+      codec.write(buf, 0, length, compress, output);
+      fieldRemaining -= length;
+    }
+  }
+
   public void clear() {
     if (!retain) {
       batch.clear();
@@ -382,85 +342,6 @@ public class VectorAccessibleSerializable extends AbstractStreamSerializable {
     }
   }
 
-  /* writeCompressedBuf compressed data in 32KB chunks and serialized them in the following manner
-   *
-   *   <length bytes(4), data bytes, length bytes(4), data bytes .......>
-   *
-   * so when reading back compressed data from input stream, we will first read 4 bytes
-   * as this represents the compressed length of a chunk and then we will read the subsequent
-   * bytes (compressed data), uncompress them and append into the output ArrowBuf.
-   */
-  private void readAndUncompressIntoArrowBuf(InputStream inputStream, ArrowBuf outputBuffer, int rawDataLength)
-    throws IOException {
-    int bufferPos = 0;
-
-    /* Use current thread buffer (safe to do since I/O operation is blocking) */
-    final byte[] buffer = REUSABLE_LARGE_BUFFER.get();
-    while(rawDataLength > 0) {
-      /* read the first 4 bytes to get the length of subsequent compressed bytes */
-      int numBytesToRead = COMPRESSED_LENGTH_BYTES;
-      while(numBytesToRead > 0) {
-        final int numBytesRead = inputStream.read(buffer, COMPRESSED_LENGTH_BYTES - numBytesToRead, numBytesToRead);
-        if (numBytesRead == -1 && numBytesToRead > 0) {
-          throw new EOFException("Unexpected end of stream while reading.");
-        }
-        numBytesToRead -= numBytesRead;
-      }
-
-      /* convert the bytes read above to LE Int to get the actual length of compressed data */
-      int compressedLengthToRead = getLEIntFromByteArray(buffer);
-      Preconditions.checkArgument(buffer.length >= compressedLengthToRead, "bad compressed length");
-
-      /* allocate a direct buffer to hold the compressed data */
-      try (ArrowBuf cBuf = decompressAllocator.buffer(compressedLengthToRead)) {
-        ByteBuffer compressedDirectBuffer = cBuf.nioBuffer(0, compressedLengthToRead);
-        compressedDirectBuffer.order(ByteOrder.LITTLE_ENDIAN);
-
-        /* read the compressed bytes */
-        int compressedOffset = 0;
-        while (compressedLengthToRead > 0) {
-          final int numCompressedBytesRead = inputStream.read(buffer, compressedOffset, compressedLengthToRead);
-          if (numCompressedBytesRead == -1) {
-            throw new IOException("ERROR: total length of compressed data read is less than expected");
-          }
-          compressedLengthToRead -= numCompressedBytesRead;
-          compressedOffset += numCompressedBytesRead;
-        }
-        if(compressedOffset != compressedDirectBuffer.limit()) {
-          throw new IOException("ERROR: total length of compressed data read is less than expected");
-        }
-
-        /* load the compressed data from byte array into direct buffer */
-        compressedDirectBuffer.put(buffer, 0, compressedOffset);
-        compressedDirectBuffer.position(0);
-
-        /* for each chunk we decompress, the raw length should be 32KB or less (for the last chunk) */
-        final int rawBufferSize = (rawDataLength >= RAW_CHUNK_SIZE_TO_COMPRESS) ? RAW_CHUNK_SIZE_TO_COMPRESS : rawDataLength;
-
-        /* get the direct buffer to store the uncompressed data */
-        ByteBuffer rawDirectBuffer = outputBuffer.nioBuffer(bufferPos, rawBufferSize);
-        rawDirectBuffer.order(ByteOrder.LITTLE_ENDIAN);
-
-        /* uncompress */
-        int uncompressedLength = Snappy.uncompress(compressedDirectBuffer, rawDirectBuffer);
-
-        /* update state */
-        rawDataLength -= uncompressedLength;
-        bufferPos += uncompressedLength;
-      }
-    }
-    outputBuffer.writerIndex(bufferPos);
-  }
-
-  private int getLEIntFromByteArray(byte[] array) {
-    return PlatformDependent.getInt(array, 0);
-  }
-
-  private byte[] getByteArrayFromLEInt(byte[] array, int value) {
-    PlatformDependent.putInt(array, 0, value);
-    return array;
-  }
-
   public static void readFromStream(FSDataInputStream input, final ArrowBuf outputBuffer, final int bytesToRead) throws IOException{
     final ByteBuffer directBuffer = outputBuffer.nioBuffer(0, bytesToRead);
     int lengthLeftToRead = bytesToRead;
@@ -21,6 +21,7 @@ import java.util.Map.Entry;
 import com.dremio.exec.store.SplitsPointer;
 import com.dremio.service.namespace.DatasetSplitId;
 import com.dremio.service.namespace.dataset.proto.DatasetSplit;
+import com.dremio.service.namespace.dataset.proto.DatasetSplitChunk;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.collect.FluentIterable;
@@ -67,6 +68,11 @@ public abstract class AbstractSplitsPointer implements SplitsPointer {
     return new MaterializedSplitsPointer(splits, getTotalSplitsCount());
   }
 
+  @Override
+  public Iterable<DatasetSplitChunk> getSplitChunks() {
+    return null;
+  }
+
   @Override
   public String computeDigest() {
     return Integer.toString(hashCode());
@@ -24,13 +24,16 @@ import com.dremio.datastore.KVStore.FindByRange;
 import com.dremio.datastore.SearchQueryUtils;
 import com.dremio.datastore.SearchTypes.SearchQuery;
 import com.dremio.exec.store.SplitsPointer;
+import com.dremio.service.namespace.DatasetSplitChunks;
 import com.dremio.service.namespace.DatasetSplitId;
 import com.dremio.service.namespace.NamespaceService;
 import com.dremio.service.namespace.dataset.proto.DatasetConfig;
 import com.dremio.service.namespace.dataset.proto.DatasetSplit;
+import com.dremio.service.namespace.dataset.proto.DatasetSplitChunk;
 import com.dremio.service.namespace.dataset.proto.ReadDefinition;
 import com.dremio.service.namespace.proto.EntityId;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterables;
 
 /**
  * Pointer to a set of splits for a given dataset config/split version.
@@ -43,6 +46,8 @@ public final class DatasetSplitsPointer extends LazySplitsPointer {
 
   private final int splitsCount;
 
+  private volatile Boolean hasChunks;
+
   private DatasetSplitsPointer(NamespaceService namespaceService, EntityId datasetId, long splitVersion, int splitsCount) {
     super(namespaceService, splitsCount);
     this.datasetId = datasetId;
@@ -73,6 +78,23 @@ public final class DatasetSplitsPointer extends LazySplitsPointer {
     return getNamespaceService().findSplits(filter);
   }
 
+  @Override
+  public Iterable<DatasetSplitChunk> getSplitChunks() {
+    if (isMaterialized()) {
+      // splits are already in memory
+      return null;
+    }
+    if (hasChunks == null) {
+      hasChunks = DatasetSplitChunks.hasChunks(getNamespaceService(), datasetId, splitVersion, splitsCount);
+    }
+    if (!hasChunks) {
+      return null;
+    }
+    return Iterables.transform(
+      getNamespaceService().findSplitChunks(DatasetSplitChunks.getChunksRange(datasetId, splitVersion, 0)),
+      Entry::getValue);
+  }
+
   @Override
   protected int computeSplitsCount() {
     return splitsCount;
@@ -53,6 +53,10 @@ abstract class LazySplitsPointer extends AbstractSplitsPointer {
     return namespaceService;
   }
 
+  protected boolean isMaterialized() {
+    return splitsMaterialized;
+  }
+
   @Override
   public void materialize(){
     if(!splitsMaterialized){
@@ -29,6 +29,7 @@ import com.dremio.service.namespace.NamespaceService;
 import com.dremio.service.namespace.SourceTableDefinition;
 import com.dremio.service.namespace.dataset.proto.DatasetConfig;
 import com.dremio.service.namespace.dataset.proto.DatasetSplit;
+import com.dremio.service.namespace.dataset.proto.DatasetSplitChunk;
 import com.dremio.service.namespace.dataset.proto.DatasetType;
 import com.dremio.service.namespace.dataset.proto.ReadDefinition;
 import com.dremio.service.namespace.file.proto.FileConfig;
@@ -121,6 +122,12 @@ public class PartialTableMetadata implements TableMetadata {
     return datasetPointer.getSplits();
   }
 
+  @Override
+  public Iterable<DatasetSplitChunk> getSplitChunks() {
+    loadIfNecessary();
+    return datasetPointer.getSplitChunks();
+  }
+
   @Override
   public double getSplitRatio() throws NamespaceException {
     loadIfNecessary();
@@ -27,6 +27,7 @@ import com.dremio.service.namespace.NamespaceException;
 import com.dremio.service.namespace.NamespaceKey;
 import com.dremio.service.namespace.dataset.proto.DatasetConfig;
 import com.dremio.service.namespace.dataset.proto.DatasetSplit;
+import com.dremio.service.namespace.dataset.proto.DatasetSplitChunk;
 import com.dremio.service.namespace.dataset.proto.DatasetType;
 import com.dremio.service.namespace.dataset.proto.ReadDefinition;
 import com.dremio.service.namespace.file.proto.FileConfig;
@@ -83,6 +84,11 @@ public class TableMetadataImpl implements TableMetadata {
     return splits.getSplitIterable().iterator();
   }
 
+  @Override
+  public Iterable<DatasetSplitChunk> getSplitChunks() {
+    return splits.getSplitChunks();
+  }
+
   @Override
   public TableMetadata prune(SearchQuery partitionFilterQuery) throws NamespaceException {
     SplitsPointer splits2 = splits.prune(partitionFilterQuery);
@@ -169,10 +169,14 @@ public class ClassTransformer {
       final TemplateClassDefinition<?> templateDefinition,
       final String entireClass,
       final String materializedClassName) throws ClassTransformationException {
-    return getExtendedImplementationClass(classLoader, templateDefinition, entireClass, materializedClassName);
+    final ClassBytes[] implementationClasses = compile(classLoader, templateDefinition, entireClass, materializedClassName);
+    return loadImplementationClass(classLoader, templateDefinition, implementationClasses, materializedClassName);
   }
 
-  private Class<?> getExtendedImplementationClass(
+  /**
+   * Compile the generated source of the class and its inner classes
+   */
+  public ClassBytes[] compile(
       final QueryClassLoader classLoader,
       final TemplateClassDefinition<?> templateDefinition,
       final String entireClass,
@@ -186,18 +190,36 @@ public class ClassTransformer {
       long totalBytecodeSize = 0;
       for (ClassBytes clazz : implementationClasses) {
         totalBytecodeSize += clazz.getBytes().length;
+      }
+      logger.debug("Done compiling (bytecode size={}, time:{} millis).", DremioStringUtils.readable(totalBytecodeSize), (System.nanoTime() - t1) / 1000000);
+      return implementationClasses;
+    } catch (CompileException | IOException | ClassNotFoundException e) {
+      throw new ClassTransformationException(String.format("Failure generating transformation classes for value: \n %s", entireClass), e);
+    }
+  }
+
+  /**
+   * Define the compiled classes in the class loader, and load the implementation class
+   */
+  public Class<?> loadImplementationClass(
+      final QueryClassLoader classLoader,
+      final TemplateClassDefinition<?> templateDefinition,
+      final ClassBytes[] implementationClasses,
+      final String materializedClassName) throws ClassTransformationException {
+
+    try {
+      for (ClassBytes clazz : implementationClasses) {
         classLoader.injectByteCode(clazz.getName(), clazz.getBytes());
       }
 
-      Class<?> c = classLoader.findClass(set.generated.dot);
+      Class<?> c = classLoader.findClass(materializedClassName);
       if (templateDefinition.getExternalInterface().isAssignableFrom(c)) {
-        logger.debug("Done compiling (bytecode size={}, time:{} millis).", DremioStringUtils.readable(totalBytecodeSize), (System.nanoTime() - t1) / 1000000);
         return c;
       }
 
       throw new ClassTransformationException("The requested class did not implement the expected interface.");
-    } catch (CompileException | IOException | ClassNotFoundException e) {
-      throw new ClassTransformationException(String.format("Failure generating transformation classes for value: \n %s", entireClass), e);
+    } catch (IOException | ClassNotFoundException e) {
+      throw new ClassTransformationException(String.format("Failure loading transformation class %s", materializedClassName), e);
     }
   }
 
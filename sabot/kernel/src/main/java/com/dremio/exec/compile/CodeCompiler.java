@@ -16,34 +16,69 @@
 package com.dremio.exec.compile;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
-
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
 import com.dremio.common.config.SabotConfig;
 import com.dremio.exec.ExecConstants;
 import com.dremio.exec.exception.ClassTransformationException;
 import com.dremio.exec.expr.CodeGenerator;
+import com.dremio.metrics.Metrics;
 import com.dremio.options.OptionManager;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Lists;
 
 public class CodeCompiler {
-//  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(CodeCompiler.class);
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(CodeCompiler.class);
+
+  private static final MetricRegistry metrics = Metrics.getInstance();
+  private static final Counter MEMORY_HITS = metrics.counter(MetricRegistry.name(CodeCompiler.class, "memoryHits"));
+  private static final Counter PERSISTENT_HITS = metrics.counter(MetricRegistry.name(CodeCompiler.class, "persistentHits"));
+  private static final Counter MISSES = metrics.counter(MetricRegistry.name(CodeCompiler.class, "misses"));
+  private static final Counter COMPILE_MS_SAVED = metrics.counter(MetricRegistry.name(CodeCompiler.class, "compileMsSaved"));
 
   private final ClassTransformer transformer;
   private final ClassCompilerSelector selector;
   private final LoadingCache<CodeGenerator<?>, GeneratedClassEntry> cache;
+  private final PersistentCodeCache persistentCache;
 
   public CodeCompiler(final SabotConfig config, final OptionManager optionManager) {
+    this(config, optionManager, newPersistentCache(config));
+  }
+
+  @VisibleForTesting
+  CodeCompiler(final SabotConfig config, final OptionManager optionManager, final PersistentCodeCache persistentCache) {
     transformer = new ClassTransformer(optionManager);
     selector = new ClassCompilerSelector(config, optionManager);
     final int cacheMaxSize = config.getInt(ExecConstants.MAX_LOADING_CACHE_SIZE_CONFIG);
     cache = CacheBuilder.newBuilder()
         .maximumSize(cacheMaxSize)
         .build(new Loader());
+    this.persistentCache = persistentCache;
+  }
+
+  private static PersistentCodeCache newPersistentCache(SabotConfig config) {
+    if (!config.getBoolean(ExecConstants.PERSISTENT_CODE_CACHE_ENABLED_CONFIG)) {
+      return null;
+    }
+    if (PersistentCodeCache.getBuildFingerprint() == null) {
+      logger.debug("Not running from a packaged build, generated classes will only be cached in memory");
+      return null;
+    }
+    final String path = config.getString(ExecConstants.PERSISTENT_CODE_CACHE_PATH_CONFIG);
+    try {
+      return new PersistentCodeCache(Paths.get(path), config.getInt(ExecConstants.PERSISTENT_CODE_CACHE_MAX_ENTRIES_CONFIG));
+    } catch (IOException e) {
+      logger.warn("Failure while opening the code cache in {}, generated classes will only be cached in memory", path, e);
+      return null;
+    }
   }
 
   @SuppressWarnings("unchecked")
@@ -55,7 +90,13 @@ public class CodeCompiler {
   public <T> List<T> getImplementationClass(final CodeGenerator<?> cg, int instanceNumber) {
     try {
       cg.generate();
-      final GeneratedClassEntry ce = cache.get(cg);
+      GeneratedClassEntry ce = cache.getIfPresent(cg);
+      if (ce != null) {
+        MEMORY_HITS.inc();
+        COMPILE_MS_SAVED.inc(TimeUnit.NANOSECONDS.toMillis(ce.compileNanos));
+      } else {
+        ce = cache.get(cg);
+      }
       List<T> tList = Lists.newArrayList();
       for ( int i = 0; i < instanceNumber; i++) {
         tList.add((T) ce.clazz.newInstance());
@@ -70,17 +111,43 @@ public class CodeCompiler {
     @Override
     public GeneratedClassEntry load(final CodeGenerator<?> cg) throws Exception {
       final QueryClassLoader loader = new QueryClassLoader(selector);
-      final Class<?> c = transformer.getImplementationClass(loader, cg.getDefinition(),
-          cg.getGeneratedCode(), cg.getMaterializedClassName());
-      return new GeneratedClassEntry(c);
+      final String key = persistentCache != null ? PersistentCodeCache.key(cg.getDefinition(), cg.getGenerifiedCode()) : null;
+
+      final PersistentCodeCache.Entry cached = key != null ? persistentCache.get(key) : null;
+      if (cached != null) {
+        try {
+          final Class<?> c = transformer.loadImplementationClass(loader, cg.getDefinition(), cached.getClasses(),
+              cached.getClassName());
+          PERSISTENT_HITS.inc();
+          COMPILE_MS_SAVED.inc(TimeUnit.NANOSECONDS.toMillis(cached.getCompileNanos()));
+          return new GeneratedClassEntry(c, cached.getCompileNanos());
+        } catch (ClassTransformationException | LinkageError e) {
+          logger.warn("Failure while loading cached class {}, compiling it again", cached.getClassName(), e);
+        }
+      }
+
+      MISSES.inc();
+      final long start = System.nanoTime();
+      final QueryClassLoader compileLoader = cached != null ? new QueryClassLoader(selector) : loader;
+      final ClassBytes[] classes = transformer.compile(compileLoader, cg.getDefinition(), cg.getGeneratedCode(),
+          cg.getMaterializedClassName());
+      final long compileNanos = System.nanoTime() - start;
+      final Class<?> c = transformer.loadImplementationClass(compileLoader, cg.getDefinition(), classes,
+          cg.getMaterializedClassName());
+      if (key != null) {
+        persistentCache.put(key, new PersistentCodeCache.Entry(cg.getMaterializedClassName(), classes, compileNanos));
+      }
+      return new GeneratedClassEntry(c, compileNanos);
     }
   }
 
   private class GeneratedClassEntry {
     private final Class<?> clazz;
+    private final long compileNanos;
 
-    public GeneratedClassEntry(final Class<?> clazz) {
+    public GeneratedClassEntry(final Class<?> clazz, final long compileNanos) {
       this.clazz = clazz;
+      this.compileNanos = compileNanos;
     }
   }
 }
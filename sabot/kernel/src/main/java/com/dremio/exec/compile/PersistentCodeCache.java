@@ -0,0 +1,441 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.compile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.CodeSource;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.dremio.common.util.DremioVersionInfo;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Local disk cache of compiled generated classes, so a node doesn't compile again the classes it already compiled
+ * before being restarted.<br>
+ * <br>
+ * Entries are addressed by a hash of the generified source code, of the template class bytecode, of the Dremio version
+ * and of the jar holding the Dremio classes, so a class is never loaded against classes other than the ones it was
+ * compiled for. Each entry is written
+ * to a temporary file then renamed, so concurrent compilers (and nodes sharing the directory) only ever read complete
+ * entries. The oldest entries are deleted once the directory holds more than the maximum number of entries.<br>
+ * <br>
+ * Entries are loaded as classes of the process, so the directory must be owned by the process user and not writable
+ * by anyone else, and each entry is authenticated with an HMAC keyed by a secret stored in the directory. Entries
+ * failing authentication are ignored (and compiled again).
+ */
+public class PersistentCodeCache {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(PersistentCodeCache.class);
+
+  private static final int MAGIC = 0xD2E3C0DE;
+  private static final int FORMAT_VERSION = 2;
+  private static final String SUFFIX = ".classes";
+
+  private static final String MAC_ALGORITHM = "HmacSHA256";
+  private static final String MAC_KEY_FILE = "cache.key";
+  private static final int MAC_KEY_LENGTH = 32;
+  private static final Set<PosixFilePermission> DIRECTORY_PERMISSIONS = PosixFilePermissions.fromString("rwx------");
+  private static final Set<PosixFilePermission> MAC_KEY_PERMISSIONS = PosixFilePermissions.fromString("rw-------");
+  private static final Set<PosixFilePermission> OTHER_WRITE_PERMISSIONS =
+    EnumSet.of(PosixFilePermission.GROUP_WRITE, PosixFilePermission.OTHERS_WRITE);
+  private static final Set<PosixFilePermission> OTHER_PERMISSIONS = EnumSet.of(
+    PosixFilePermission.GROUP_READ, PosixFilePermission.GROUP_WRITE, PosixFilePermission.GROUP_EXECUTE,
+    PosixFilePermission.OTHERS_READ, PosixFilePermission.OTHERS_WRITE, PosixFilePermission.OTHERS_EXECUTE);
+
+  // hash of the bytecode of each template class, computed once per template
+  private static final ConcurrentMap<String, String> TEMPLATE_HASHES = new ConcurrentHashMap<>();
+  private static final String BUILD_FINGERPRINT = computeBuildFingerprint();
+
+  private final Path directory;
+  private final int maxEntries;
+  private final SecretKeySpec macKey;
+  private final AtomicInteger numEntries = new AtomicInteger();
+
+  /**
+   * Compiled classes of a generated class
+   */
+  public static final class Entry {
+    private final String className;
+    private final ClassBytes[] classes;
+    private final long compileNanos;
+
+    public Entry(String className, ClassBytes[] classes, long compileNanos) {
+      this.className = className;
+      this.classes = classes;
+      this.compileNanos = compileNanos;
+    }
+
+    /**
+     * @return name of the implementation class, which the inner classes are named after
+     */
+    public String getClassName() {
+      return className;
+    }
+
+    public ClassBytes[] getClasses() {
+      return classes;
+    }
+
+    /**
+     * @return time it took to compile the classes
+     */
+    public long getCompileNanos() {
+      return compileNanos;
+    }
+  }
+
+  /**
+   * @throws IOException if the directory can't be created, or could be written by other users
+   */
+  public PersistentCodeCache(Path directory, int maxEntries) throws IOException {
+    this.directory = directory;
+    this.maxEntries = maxEntries;
+    checkDirectory(directory);
+    this.macKey = new SecretKeySpec(loadMacKey(directory.resolve(MAC_KEY_FILE)), MAC_ALGORITHM);
+    numEntries.set(listEntries().size());
+    trim();
+  }
+
+  /**
+   * Create the directory, only accessible to the process user, if missing. Check it is owned by the process user and
+   * not writable by others otherwise.
+   */
+  private static void checkDirectory(Path directory) throws IOException {
+    if (!Files.exists(directory, LinkOption.NOFOLLOW_LINKS)) {
+      if (directory.getParent() != null) {
+        Files.createDirectories(directory.getParent());
+      }
+      try {
+        Files.createDirectory(directory, PosixFilePermissions.asFileAttribute(DIRECTORY_PERMISSIONS));
+        // the permissions given at creation are reduced by the umask
+        Files.setPosixFilePermissions(directory, DIRECTORY_PERMISSIONS);
+      } catch (FileAlreadyExistsException e) {
+        // created concurrently, checked below
+      } catch (UnsupportedOperationException e) {
+        throw new IOException("The code cache requires a file system with POSIX permissions", e);
+      }
+    }
+
+    final PosixFileAttributes attributes = readPosixAttributes(directory);
+    if (!attributes.isDirectory()) {
+      throw new IOException(String.format("Code cache %s is not a directory", directory));
+    }
+    checkOwner(directory, attributes);
+    if (!disjoint(attributes.permissions(), OTHER_WRITE_PERMISSIONS)) {
+      throw new IOException(String.format("Code cache directory %s is writable by other users (%s)", directory,
+        PosixFilePermissions.toString(attributes.permissions())));
+    }
+  }
+
+  /**
+   * Read the secret authenticating the entries, creating it if missing.
+   */
+  private static byte[] loadMacKey(Path file) throws IOException {
+    if (!Files.exists(file, LinkOption.NOFOLLOW_LINKS)) {
+      final byte[] key = new byte[MAC_KEY_LENGTH];
+      new SecureRandom().nextBytes(key);
+      final Path tmp = Files.createTempFile(file.getParent(), MAC_KEY_FILE, ".tmp",
+        PosixFilePermissions.asFileAttribute(MAC_KEY_PERMISSIONS));
+      try {
+        Files.write(tmp, key);
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(tmp);
+      }
+    }
+
+    // read back in case another process created it concurrently
+    final PosixFileAttributes attributes = readPosixAttributes(file);
+    if (!attributes.isRegularFile()) {
+      throw new IOException(String.format("Code cache key %s is not a file", file));
+    }
+    checkOwner(file, attributes);
+    if (!disjoint(attributes.permissions(), OTHER_PERMISSIONS)) {
+      throw new IOException(String.format("Code cache key %s is accessible to other users (%s)", file,
+        PosixFilePermissions.toString(attributes.permissions())));
+    }
+    final byte[] key = Files.readAllBytes(file);
+    if (key.length != MAC_KEY_LENGTH) {
+      throw new IOException(String.format("Code cache key %s is invalid", file));
+    }
+    return key;
+  }
+
+  private static PosixFileAttributes readPosixAttributes(Path path) throws IOException {
+    try {
+      return Files.readAttributes(path, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+    } catch (UnsupportedOperationException e) {
+      throw new IOException("The code cache requires a file system with POSIX permissions", e);
+    }
+  }
+
+  private static void checkOwner(Path path, PosixFileAttributes attributes) throws IOException {
+    final UserPrincipal user = path.getFileSystem().getUserPrincipalLookupService()
+      .lookupPrincipalByName(System.getProperty("user.name"));
+    if (!user.equals(attributes.owner())) {
+      throw new IOException(String.format("%s is owned by %s, not by %s", path, attributes.owner().getName(),
+        user.getName()));
+    }
+  }
+
+  private static boolean disjoint(Set<PosixFilePermission> permissions, Set<PosixFilePermission> others) {
+    for (PosixFilePermission permission : others) {
+      if (permissions.contains(permission)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private byte[] mac(String key, byte[] payload) {
+    try {
+      final Mac mac = Mac.getInstance(MAC_ALGORITHM);
+      mac.init(macKey);
+      // entries are bound to their key, so an entry can't be renamed to answer for another one
+      mac.update(key.getBytes(StandardCharsets.UTF_8));
+      return mac.doFinal(payload);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Unable to authenticate code cache entries", e);
+    }
+  }
+
+  /**
+   * Identify the build of the classes the generated code is compiled against, using the size and modification time
+   * of the jar they are packaged in.
+   *
+   * @return the fingerprint, or null if the classes aren't loaded from a jar (like when running from the build
+   *         directories, where they can change without the version changing)
+   */
+  public static String getBuildFingerprint() {
+    return BUILD_FINGERPRINT;
+  }
+
+  private static String computeBuildFingerprint() {
+    try {
+      final CodeSource source = PersistentCodeCache.class.getProtectionDomain().getCodeSource();
+      if (source == null || source.getLocation() == null) {
+        return null;
+      }
+      final File location = new File(source.getLocation().toURI());
+      if (!location.isFile() || !location.getName().endsWith(".jar")) {
+        return null;
+      }
+      return location.getName() + ":" + location.length() + ":" + location.lastModified();
+    } catch (URISyntaxException | SecurityException | IllegalArgumentException e) {
+      logger.debug("Unable to locate the jar of {}", PersistentCodeCache.class, e);
+      return null;
+    }
+  }
+
+  /**
+   * @return the address of the classes compiled from the given generified source code
+   */
+  public static String key(TemplateClassDefinition<?> definition, String generifiedCode) {
+    final Hasher hasher = Hashing.sha256().newHasher()
+      .putString(DremioVersionInfo.getVersion(), StandardCharsets.UTF_8)
+      .putString(String.valueOf(BUILD_FINGERPRINT), StandardCharsets.UTF_8)
+      .putString(definition.getTemplateClassName(), StandardCharsets.UTF_8)
+      .putString(templateHash(definition.getTemplateClassName()), StandardCharsets.UTF_8)
+      .putString(generifiedCode, StandardCharsets.UTF_8);
+    return hasher.hash().toString();
+  }
+
+  private static String templateHash(String templateClassName) {
+    return TEMPLATE_HASHES.computeIfAbsent(templateClassName, name -> {
+      final String resource = name.replace('.', '/') + ".class";
+      try (InputStream is = PersistentCodeCache.class.getClassLoader().getResourceAsStream(resource)) {
+        if (is == null) {
+          return "";
+        }
+        return Hashing.sha256().hashBytes(ByteStreams.toByteArray(is)).toString();
+      } catch (IOException e) {
+        logger.warn("Failure while reading template class {}", name, e);
+        return "";
+      }
+    });
+  }
+
+  /**
+   * @return the cached entry, or null if there is none or it can't be read
+   */
+  public Entry get(String key) {
+    final Path file = directory.resolve(key + SUFFIX);
+    try {
+      final byte[] payload;
+      try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file)))) {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+          logger.warn("Ignoring code cache entry {} with an unknown format", file);
+          return null;
+        }
+        final int payloadLength = in.readInt();
+        if (payloadLength < 0 || payloadLength > in.available()) {
+          logger.warn("Ignoring truncated code cache entry {}", file);
+          return null;
+        }
+        payload = new byte[payloadLength];
+        in.readFully(payload);
+        final byte[] mac = new byte[in.available()];
+        in.readFully(mac);
+        if (!MessageDigest.isEqual(mac, mac(key, payload))) {
+          logger.warn("Ignoring code cache entry {} which fails authentication", file);
+          return null;
+        }
+      }
+
+      final DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+      final String className = in.readUTF();
+      final long compileNanos = in.readLong();
+      final ClassBytes[] classes = new ClassBytes[in.readInt()];
+      for (int i = 0; i < classes.length; i++) {
+        final String name = in.readUTF();
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        classes[i] = new ClassBytes(name, bytes);
+      }
+      // keep the entries in use from being trimmed
+      Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+      return new Entry(className, classes, compileNanos);
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      logger.warn("Failure while reading code cache entry {}", file, e);
+      return null;
+    }
+  }
+
+  /**
+   * Store the entry, replacing any existing one
+   */
+  public void put(String key, Entry entry) {
+    final Path file = directory.resolve(key + SUFFIX);
+    Path tmp = null;
+    try {
+      final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+      try (DataOutputStream out = new DataOutputStream(payload)) {
+        out.writeUTF(entry.className);
+        out.writeLong(entry.compileNanos);
+        out.writeInt(entry.classes.length);
+        for (ClassBytes clazz : entry.classes) {
+          out.writeUTF(clazz.getName());
+          out.writeInt(clazz.getBytes().length);
+          out.write(clazz.getBytes());
+        }
+      }
+
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.size() + 64);
+      try (DataOutputStream out = new DataOutputStream(bytes)) {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(payload.size());
+        payload.writeTo(out);
+        out.write(mac(key, payload.toByteArray()));
+      }
+      tmp = Files.createTempFile(directory, key, ".tmp");
+      Files.write(tmp, bytes.toByteArray());
+      final boolean exists = Files.exists(file);
+      Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      if (!exists && numEntries.incrementAndGet() > maxEntries) {
+        trim();
+      }
+    } catch (IOException e) {
+      logger.warn("Failure while writing code cache entry {}", file, e);
+      if (tmp != null) {
+        try {
+          Files.deleteIfExists(tmp);
+        } catch (IOException ex) {
+          logger.debug("Failure while deleting {}", tmp, ex);
+        }
+      }
+    }
+  }
+
+  private List<Path> listEntries() throws IOException {
+    final List<Path> entries = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+      for (Path path : stream) {
+        entries.add(path);
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * Delete the least recently used entries, down to 90% of the maximum number of entries
+   */
+  private synchronized void trim() {
+    try {
+      final List<Path> entries = listEntries();
+      if (entries.size() <= maxEntries) {
+        numEntries.set(entries.size());
+        return;
+      }
+
+      final Map<Path, Long> lastUsed = new HashMap<>();
+      for (Path path : entries) {
+        try {
+          lastUsed.put(path, Files.getLastModifiedTime(path).toMillis());
+        } catch (IOException e) {
+          lastUsed.put(path, 0L);
+        }
+      }
+      entries.sort(Comparator.comparingLong(lastUsed::get));
+      final int toDelete = entries.size() - maxEntries * 9 / 10;
+      for (int i = 0; i < toDelete; i++) {
+        Files.deleteIfExists(entries.get(i));
+      }
+      numEntries.set(entries.size() - toDelete);
+      logger.debug("Deleted {} code cache entries from {}", toDelete, directory);
+    } catch (IOException e) {
+      logger.warn("Failure while trimming code cache {}", directory, e);
+    }
+  }
+}
@@ -37,4 +37,8 @@ public class ExpressionEvaluationOptions {
   }
 
   public boolean isSplitEnabled() { return options.getOption(ExecConstants.SPLIT_ENABLED); }
+
+  public long getSplitMinCost() { return options.getOption(ExecConstants.SPLIT_MIN_COST); }
+
+  public long getInterpreterMaxRows() { return options.getOption(ExecConstants.EXPRESSION_INTERPRETER_MAX_ROWS); }
 }
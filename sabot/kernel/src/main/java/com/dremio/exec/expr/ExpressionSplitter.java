@@ -80,6 +80,10 @@ public class ExpressionSplitter implements AutoCloseable {
   // is split enabled
   final boolean isSplitEnabled;
 
+  // user set threshold on the static cost of a sub-expression to split it out of a parent evaluated in the non
+  // preferred code generator, 0 to always split
+  final long splitMinCost;
+
   // code generation option
   final SupportedEngines.CodeGenOption codeGenOption;
 
@@ -111,6 +115,7 @@ public class ExpressionSplitter implements AutoCloseable {
 
     this.execPipeline = Lists.newArrayList();
     this.isSplitEnabled = options.isSplitEnabled();
+    this.splitMinCost = options.getSplitMinCost();
     this.instanceCounter = SPLIT_INSTANCE_COUNTER.incrementAndGet();
 
     this.codeGenOption = options.getCodeGenOption();
@@ -192,7 +197,8 @@ public class ExpressionSplitter implements AutoCloseable {
     while (!pendingSplits.isEmpty()) {
       Iterator<ExpressionSplit> iterator = pendingSplits.iterator();
       List<String> doneInThisIteration = Lists.newArrayList();
-      SplitStageExecutor splitStageExecutor = new SplitStageExecutor(context, vectorContainer, preferredEngine, instanceCounter);
+      SplitStageExecutor splitStageExecutor = new SplitStageExecutor(context, vectorContainer, preferredEngine, instanceCounter,
+        options.getInterpreterMaxRows());
 
       while (iterator.hasNext()) {
         ExpressionSplit split = iterator.next();
@@ -315,6 +321,15 @@ public class ExpressionSplitter implements AutoCloseable {
     }
   }
 
+  // number of records evaluated by interpreting Java expressions rather than compiling them
+  public long getInterpretedRecords() {
+    long records = 0;
+    for (SplitStageExecutor executor : execPipeline) {
+      records += executor.interpretedRows;
+    }
+    return records;
+  }
+
   @Override
   public void close() throws Exception {
     for(int i = 0; i < execPipeline.size(); i++) {
@@ -349,6 +364,12 @@ public class ExpressionSplitter implements AutoCloseable {
     }
   }
 
+  // Checks if the static cost of the expression reaches the exec.expression.split.min_cost threshold set by the
+  // user, in which case it is evaluated in the preferred code generator rather than with its parent in the other one
+  boolean isWorthSplitting(LogicalExpression expr) {
+    return splitMinCost == 0 || expr.getCumulativeCost() >= splitMinCost;
+  }
+
   // Create a split at this expression
   // Adds the output field to the schema
   ExpressionSplit splitAndGenerateVectorReadExpression(CodeGenContext expr, SplitDependencyTracker
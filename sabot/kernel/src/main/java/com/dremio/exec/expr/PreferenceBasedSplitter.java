@@ -157,6 +157,9 @@ public class PreferenceBasedSplitter extends AbstractExprVisitor<CodeGenContext,
             // arg can execute at the preferred codegenerator, but it
             // cannot be split at this point
             mustSplitAtArg = false;
+          } else if (!splitter.isWorthSplitting(newArg)) {
+            // arg is too cheap to be worth an intermediate vector, evaluate it with the function
+            mustSplitAtArg = false;
           }
         }
       }
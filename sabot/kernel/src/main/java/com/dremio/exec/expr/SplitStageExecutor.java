@@ -15,6 +15,7 @@
  */
 package com.dremio.exec.expr;
 
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.arrow.gandiva.exceptions.GandivaException;
@@ -30,15 +31,18 @@ import com.dremio.common.expression.LogicalExpression;
 import com.dremio.common.expression.SchemaPath;
 import com.dremio.common.expression.SupportedEngines;
 import com.dremio.common.logical.data.NamedExpression;
+import com.dremio.exec.expr.fn.interpreter.InterpreterEvaluator;
 import com.dremio.exec.record.TypedFieldId;
 import com.dremio.exec.record.VectorAccessible;
 import com.dremio.exec.record.VectorAccessibleComplexWriter;
 import com.dremio.exec.record.VectorContainer;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.op.filter.Filterer;
+import com.dremio.sabot.op.filter.InterpretedFilterer;
 import com.dremio.sabot.op.llvm.NativeFilter;
 import com.dremio.sabot.op.llvm.NativeProjectEvaluator;
 import com.dremio.sabot.op.llvm.NativeProjectorBuilder;
+import com.dremio.sabot.op.project.InterpretedProjector;
 import com.dremio.sabot.op.project.Projector;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.Iterables;
@@ -79,6 +83,14 @@ class SplitStageExecutor implements AutoCloseable {
   // Java evaluator
   Projector javaProjector;
 
+  // Java splits, evaluated by interpretation until enough records have been evaluated to be worth compiling them
+  final List<ValueVectorWriteExpression> javaWrites = Lists.newArrayList();
+  final long interpreterMaxRows;
+  long interpretedRows;
+  boolean javaProjectorInterpreted;
+  // container the complex writers of the Java projector write to, kept to set up the compiled projector later
+  VectorContainer javaOutgoing;
+
   // Vectors for intermediate output
   final List<ValueVector> allocationVectors = Lists.newArrayList();
 
@@ -104,8 +116,10 @@ class SplitStageExecutor implements AutoCloseable {
   final List<ExpressionSplit> splitsForPreferredCodeGen;
   final List<ExpressionSplit> splitsForNonPreferredCodeGen;
 
-  SplitStageExecutor(OperatorContext context, VectorAccessible incoming, SupportedEngines.Engine preferredExecType, long instanceCounter) {
+  SplitStageExecutor(OperatorContext context, VectorAccessible incoming, SupportedEngines.Engine preferredExecType,
+                     long instanceCounter, long interpreterMaxRows) {
     this.context = context;
+    this.interpreterMaxRows = interpreterMaxRows;
     this.incoming = incoming;
     this.preferredEngine = preferredExecType;
     this.hasOriginalExpression = false;
@@ -167,6 +181,7 @@ class SplitStageExecutor implements AutoCloseable {
     boolean useSetSafe = !(vector instanceof FixedWidthVector);
     ValueVectorWriteExpression write = new ValueVectorWriteExpression(fid, expr, useSetSafe);
     cg.addExpr(write, ClassGenerator.BlockCreateMode.NEW_IF_TOO_LARGE, true);
+    javaWrites.add(write);
 
     if (expr instanceof ValueVectorReadExpression) {
       final ValueVectorReadExpression vectorRead = (ValueVectorReadExpression) expr;
@@ -187,8 +202,28 @@ class SplitStageExecutor implements AutoCloseable {
     gandivaCodeGenWatch.stop();
 
     javaCodeGenWatch.start();
-    javaProjector = cg.getCodeGenerator().getImplementationClass();
-    javaProjector.setup(
+    javaProjectorInterpreted = false;
+    javaOutgoing = outgoing;
+    if (canInterpret(javaWrites)) {
+      try {
+        final Projector interpreted = new InterpretedProjector(javaWrites);
+        setupJavaProjector(interpreted, outgoing);
+        javaProjector = interpreted;
+        javaProjectorInterpreted = true;
+        log("Interpreting Java splits for the first {} records", interpreterMaxRows);
+      } catch (Exception e) {
+        log("Unable to interpret Java splits, compiling them {}", e.getMessage());
+      }
+    }
+    if (!javaProjectorInterpreted) {
+      javaProjector = cg.getCodeGenerator().getImplementationClass();
+      setupJavaProjector(javaProjector, outgoing);
+    }
+    javaCodeGenWatch.stop();
+  }
+
+  private void setupJavaProjector(Projector projector, VectorContainer outgoing) {
+    projector.setup(
       context.getFunctionContext(),
       incoming,
       intermediateOutputs,
@@ -203,7 +238,37 @@ class SplitStageExecutor implements AutoCloseable {
         }
       }
     );
-    javaCodeGenWatch.stop();
+  }
+
+  // whether the expressions are worth interpreting, and can be
+  private boolean canInterpret(List<? extends LogicalExpression> exprs) {
+    if (interpreterMaxRows == 0 || exprs.isEmpty()) {
+      return false;
+    }
+    for (LogicalExpression expr : exprs) {
+      final LogicalExpression child = expr instanceof ValueVectorWriteExpression ? ((ValueVectorWriteExpression) expr).getChild() : expr;
+      if (!InterpreterEvaluator.canEvaluate(child)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // compile the Java splits once enough records have been interpreted
+  private void compileIfInterpretedEnough(Stopwatch javaWatch) {
+    if (!javaProjectorInterpreted || interpretedRows < interpreterMaxRows) {
+      return;
+    }
+    log("Compiling Java splits after interpreting {} records", interpretedRows);
+    javaWatch.start();
+    try {
+      final Projector compiled = cg.getCodeGenerator().getImplementationClass();
+      setupJavaProjector(compiled, javaOutgoing);
+      javaProjector = compiled;
+      javaProjectorInterpreted = false;
+    } finally {
+      javaWatch.stop();
+    }
   }
 
   // setup evaluation of projector for all splits
@@ -255,12 +320,30 @@ class SplitStageExecutor implements AutoCloseable {
 
     log("Setting up filter for split in Java {}", finalSplit.getNamedExpression().getExpr());
     javaCodeGenWatch.start();
+    final LogicalExpression condition = finalSplit.getNamedExpression().getExpr();
+    if (canInterpret(Collections.singletonList(condition))) {
+      try {
+        final Filterer interpreted = new InterpretedFilterer(condition);
+        interpreted.setup(context.getClassProducer().getFunctionContext(), incoming, outgoing);
+        javaCodeGenWatch.stop();
+        log("Interpreting filter for the first {} records", interpreterMaxRows);
+        this.filterFunction = new JavaTimedFilter(interpreted, condition, outgoing);
+        return;
+      } catch (Exception e) {
+        log("Unable to interpret filter, compiling it {}", e.getMessage());
+      }
+    }
+    final Filterer javaFilter = compileFilter(condition, outgoing);
+    javaCodeGenWatch.stop();
+    this.filterFunction = new JavaTimedFilter(javaFilter);
+  }
+
+  private Filterer compileFilter(LogicalExpression condition, VectorContainer outgoing) throws Exception {
     final ClassGenerator<Filterer> filterClassGen = context.getClassProducer().createGenerator(Filterer.TEMPLATE_DEFINITION2).getRoot();
-    filterClassGen.addExpr(new ReturnValueExpression(finalSplit.getNamedExpression().getExpr()), ClassGenerator.BlockCreateMode.MERGE, true);
+    filterClassGen.addExpr(new ReturnValueExpression(condition), ClassGenerator.BlockCreateMode.MERGE, true);
     final Filterer javaFilter = filterClassGen.getCodeGenerator().getImplementationClass();
     javaFilter.setup(context.getClassProducer().getFunctionContext(), incoming, outgoing);
-    javaCodeGenWatch.stop();
-    this.filterFunction = new JavaTimedFilter(javaFilter);
+    return javaFilter;
   }
 
   private void allocateNew(int recordsToConsume) {
@@ -306,6 +389,7 @@ class SplitStageExecutor implements AutoCloseable {
 
   void evaluateProjector(int recordsToConsume, Stopwatch javaWatch, Stopwatch gandivaWatch) throws Exception {
     try {
+      compileIfInterpretedEnough(javaWatch);
       allocateNew(recordsToConsume);
 
       gandivaWatch.start();
@@ -314,6 +398,9 @@ class SplitStageExecutor implements AutoCloseable {
       javaWatch.start();
       javaProjector.projectRecords(recordsToConsume);
       javaWatch.stop();
+      if (javaProjectorInterpreted) {
+        interpretedRows += recordsToConsume;
+      }
 
       setValueCount(recordsToConsume);
       transferOut();
@@ -370,17 +457,35 @@ class SplitStageExecutor implements AutoCloseable {
   }
 
   class JavaTimedFilter implements TimedFilterFunction {
-    final Filterer javaFilter;
+    Filterer javaFilter;
+    // set while the filter is interpreted, to compile it later
+    LogicalExpression interpretedCondition;
+    final VectorContainer outgoing;
 
     JavaTimedFilter(Filterer javaFilter) {
+      this(javaFilter, null, null);
+    }
+
+    JavaTimedFilter(Filterer javaFilter, LogicalExpression interpretedCondition, VectorContainer outgoing) {
       this.javaFilter = javaFilter;
+      this.interpretedCondition = interpretedCondition;
+      this.outgoing = outgoing;
     }
 
     @Override
     public Integer apply(Integer recordsToConsume, Stopwatch javaWatch, Stopwatch gandivaWatch) throws Exception {
       javaWatch.start();
       try {
-        return javaFilter.filterBatch(recordsToConsume);
+        if (interpretedCondition != null && interpretedRows >= interpreterMaxRows) {
+          log("Compiling filter after interpreting {} records", interpretedRows);
+          javaFilter = compileFilter(interpretedCondition, outgoing);
+          interpretedCondition = null;
+        }
+        final int records = javaFilter.filterBatch(recordsToConsume);
+        if (interpretedCondition != null) {
+          interpretedRows += recordsToConsume;
+        }
+        return records;
       } finally {
         javaWatch.stop();
       }
@@ -30,6 +30,7 @@ import org.apache.arrow.vector.holders.NullableBitHolder;
 import org.apache.arrow.vector.holders.ValueHolder;
 import org.apache.arrow.vector.types.Types.MinorType;
 
+import com.dremio.common.exceptions.UserException;
 import com.dremio.common.expression.BooleanOperator;
 import com.dremio.common.expression.CompleteType;
 import com.dremio.common.expression.ConvertExpression;
@@ -88,6 +89,155 @@ public class InterpreterEvaluator {
 
   }
 
+  /**
+   * @return true if the expression only uses simple functions, boolean operators, if expressions, scalar constants
+   *         and reads of scalar vectors, which the interpreter can evaluate
+   */
+  public static boolean canEvaluate(LogicalExpression expr) {
+    return expr.accept(new CanEvaluateVisitor(), null);
+  }
+
+  /**
+   * Prepare the expression to be evaluated against the records of the incoming batches. The functions are only
+   * instantiated once.
+   */
+  public static PreparedExpression prepare(FunctionContext functionContext, VectorAccessible incoming, LogicalExpression expr) {
+    expr.accept(new InitVisitor(functionContext), incoming);
+    return new PreparedExpression(expr, new EvalVisitor(incoming, functionContext));
+  }
+
+  /**
+   * Expression ready to be evaluated against any record of the incoming batches
+   */
+  public static final class PreparedExpression {
+    private final LogicalExpression expr;
+    private final EvalVisitor evalVisitor;
+
+    private PreparedExpression(LogicalExpression expr, EvalVisitor evalVisitor) {
+      this.expr = expr;
+      this.evalVisitor = evalVisitor;
+    }
+
+    /**
+     * @return the value of the expression for the record at the given index
+     */
+    public ValueHolder evaluate(int index) {
+      return expr.accept(evalVisitor, index);
+    }
+
+    public LogicalExpression getExpression() {
+      return expr;
+    }
+  }
+
+  private static class CanEvaluateVisitor extends AbstractExprVisitor<Boolean, Void, RuntimeException> {
+
+    private boolean allArgs(Iterable<LogicalExpression> args) {
+      for (LogicalExpression arg : args) {
+        if (!arg.accept(this, null)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public Boolean visitFunctionHolderExpression(FunctionHolderExpression holderExpr, Void value) {
+      if (!(holderExpr instanceof FunctionHolderExpr) || !(holderExpr.getHolder() instanceof SimpleFunctionHolder)
+          || !holderExpr.getCompleteType().isScalar()) {
+        return false;
+      }
+      final SimpleFunctionHolder holder = (SimpleFunctionHolder) holderExpr.getHolder();
+      for (int i = 0; i < holderExpr.args.size(); i++) {
+        if (holder.isFieldReader(i)) {
+          return false;
+        }
+      }
+      return allArgs(holderExpr.args);
+    }
+
+    @Override
+    public Boolean visitBooleanOperator(BooleanOperator op, Void value) {
+      return (op.getName().equals("booleanAnd") || op.getName().equals("booleanOr")) && allArgs(op.args);
+    }
+
+    @Override
+    public Boolean visitIfExpression(IfExpression ifExpr, Void value) {
+      return ifExpr.ifCondition.condition.accept(this, value)
+        && ifExpr.ifCondition.expression.accept(this, value)
+        && ifExpr.elseExpression.accept(this, value);
+    }
+
+    @Override
+    public Boolean visitIntConstant(ValueExpressions.IntExpression intExpr, Void value) {
+      return true;
+    }
+
+    @Override
+    public Boolean visitLongConstant(ValueExpressions.LongExpression intExpr, Void value) {
+      return true;
+    }
+
+    @Override
+    public Boolean visitFloatConstant(ValueExpressions.FloatExpression fExpr, Void value) {
+      return true;
+    }
+
+    @Override
+    public Boolean visitDoubleConstant(ValueExpressions.DoubleExpression dExpr, Void value) {
+      return true;
+    }
+
+    @Override
+    public Boolean visitBooleanConstant(ValueExpressions.BooleanExpression e, Void value) {
+      return true;
+    }
+
+    @Override
+    public Boolean visitDateConstant(ValueExpressions.DateExpression intExpr, Void value) {
+      return true;
+    }
+
+    @Override
+    public Boolean visitTimeConstant(ValueExpressions.TimeExpression intExpr, Void value) {
+      return true;
+    }
+
+    @Override
+    public Boolean visitTimeStampConstant(ValueExpressions.TimeStampExpression intExpr, Void value) {
+      return true;
+    }
+
+    @Override
+    public Boolean visitIntervalYearConstant(ValueExpressions.IntervalYearExpression intExpr, Void value) {
+      return true;
+    }
+
+    @Override
+    public Boolean visitIntervalDayConstant(ValueExpressions.IntervalDayExpression intExpr, Void value) {
+      return true;
+    }
+
+    @Override
+    public Boolean visitQuotedStringConstant(ValueExpressions.QuotedString e, Void value) {
+      return true;
+    }
+
+    @Override
+    public Boolean visitNullConstant(TypedNullConstant e, Void value) {
+      return e.getCompleteType().isScalar();
+    }
+
+    @Override
+    public Boolean visitUnknown(LogicalExpression e, Void value) {
+      if (e instanceof ValueVectorReadExpression) {
+        final ValueVectorReadExpression read = (ValueVectorReadExpression) e;
+        return read.getCompleteType().isScalar() && !read.hasReadPath();
+      }
+      return false;
+    }
+  }
+
   private static class InitVisitor extends AbstractExprVisitor<LogicalExpression, VectorAccessible, RuntimeException> {
 
     private FunctionContext functionContext;
@@ -308,6 +458,8 @@ public class InterpreterEvaluator {
 
         return out;
 
+      } catch (UserException ex) {
+        throw ex;
       } catch (Exception ex) {
         throw new RuntimeException("Error in evaluating function of " + holderExpr.getName(), ex);
       }
@@ -18,6 +18,7 @@ package com.dremio.exec.ops;
 import org.apache.arrow.memory.BufferAllocator;
 
 import com.dremio.exec.expr.fn.FunctionImplementationRegistry;
+import com.dremio.exec.planner.logical.partition.PartitionIndexCache;
 import com.dremio.exec.planner.physical.PlannerSettings;
 import com.dremio.sabot.exec.context.FunctionContext;
 
@@ -39,4 +40,10 @@ public interface OptimizerRulesContext extends FunctionContext {
    * @return PlannerSettings
    */
   public PlannerSettings getPlannerSettings();
+
+  /**
+   * Method returns the partition indexes kept across queries
+   * @return PartitionIndexCache
+   */
+  public PartitionIndexCache getPartitionIndexCache();
 }
@@ -39,6 +39,7 @@ import com.dremio.exec.expr.fn.FunctionErrorContextBuilder;
 import com.dremio.exec.expr.fn.FunctionImplementationRegistry;
 import com.dremio.exec.planner.acceleration.substitution.DefaultSubstitutionProviderFactory;
 import com.dremio.exec.planner.acceleration.substitution.SubstitutionProviderFactory;
+import com.dremio.exec.planner.logical.partition.PartitionIndexCache;
 import com.dremio.exec.planner.physical.PlannerSettings;
 import com.dremio.exec.planner.sql.OperatorTable;
 import com.dremio.exec.proto.CoordExecRPC.QueryContextInformation;
@@ -209,6 +210,11 @@ public class QueryContext implements AutoCloseable, ResourceSchedulingContext, O
     return allocator;
   }
 
+  @Override
+  public PartitionIndexCache getPartitionIndexCache() {
+    return sabotContext.getPartitionIndexCache();
+  }
+
   /**
    * Get the user name of the user who issued the query that is managed by this QueryContext.
    * @return
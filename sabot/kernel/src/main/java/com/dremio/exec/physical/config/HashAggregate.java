@@ -57,21 +57,36 @@ public class HashAggregate extends AbstractSingle implements MemoryCalcConsidere
   private final List<NamedExpression> aggrExprs;
   private final boolean vectorize;
   private final float cardinality;
+  private final boolean partial;
 
   /* testing related parameters */
   private VectorizedHashAggSpillStats spillStats;
 
+  public HashAggregate(PhysicalOperator child,
+                       List<NamedExpression> groupByExprs,
+                       List<NamedExpression> aggrExprs,
+                       boolean vectorize,
+                       float cardinality) {
+    this(child, groupByExprs, aggrExprs, vectorize, cardinality, false);
+  }
+
+  /**
+   * @param partial true if this is the first phase of a two phase aggregation. The output of a partial
+   *                aggregation is aggregated again, so the same group can be output more than once.
+   */
   @JsonCreator
   public HashAggregate(@JsonProperty("child") PhysicalOperator child,
                        @JsonProperty("keys") List<NamedExpression> groupByExprs,
                        @JsonProperty("exprs") List<NamedExpression> aggrExprs,
                        @JsonProperty("vectorize") boolean vectorize,
-                       @JsonProperty("cardinality") float cardinality) {
+                       @JsonProperty("cardinality") float cardinality,
+                       @JsonProperty("partial") boolean partial) {
     super(child);
     this.groupByExprs = groupByExprs;
     this.aggrExprs = aggrExprs;
     this.cardinality = cardinality;
     this.vectorize = vectorize;
+    this.partial = partial;
     this.spillStats = null;
   }
 
@@ -91,6 +106,10 @@ public class HashAggregate extends AbstractSingle implements MemoryCalcConsidere
     return cardinality;
   }
 
+  public boolean isPartial() {
+    return partial;
+  }
+
   @Override
   public <T, X, E extends Throwable> T accept(PhysicalVisitor<T, X, E> physicalVisitor, X value) throws E{
     return physicalVisitor.visitHashAggregate(this, value);
@@ -98,7 +117,7 @@ public class HashAggregate extends AbstractSingle implements MemoryCalcConsidere
 
   @Override
   protected PhysicalOperator getNewWithChild(PhysicalOperator child) {
-    HashAggregate ha = new HashAggregate(child, groupByExprs, aggrExprs, vectorize, cardinality);
+    HashAggregate ha = new HashAggregate(child, groupByExprs, aggrExprs, vectorize, cardinality, partial);
     ha.setMaxAllocation(this.getMaxAllocation());
     return ha;
   }
@@ -61,6 +61,17 @@ public class HashJoinPOP extends AbstractBase implements MemoryCalcConsidered {
   private final List<JoinCondition> conditions;
   private final JoinRelType joinType;
   private final boolean vectorize;
+  private final RuntimeFilterTarget runtimeFilter;
+
+  public HashJoinPOP(
+          PhysicalOperator left,
+          PhysicalOperator right,
+          List<JoinCondition> conditions,
+          JoinRelType joinType,
+          Boolean vectorize
+  ) {
+      this(left, right, conditions, joinType, vectorize, null);
+  }
 
   @JsonCreator
   public HashJoinPOP(
@@ -68,7 +79,8 @@ public class HashJoinPOP extends AbstractBase implements MemoryCalcConsidered {
           @JsonProperty("right") PhysicalOperator right,
           @JsonProperty("conditions") List<JoinCondition> conditions,
           @JsonProperty("joinType") JoinRelType joinType,
-          @JsonProperty("vectorize") Boolean vectorize
+          @JsonProperty("vectorize") Boolean vectorize,
+          @JsonProperty("runtimeFilter") RuntimeFilterTarget runtimeFilter
   ) {
       this.left = left;
       this.right = right;
@@ -76,6 +88,7 @@ public class HashJoinPOP extends AbstractBase implements MemoryCalcConsidered {
       Preconditions.checkArgument(joinType != null, "Join type is missing!");
       this.joinType = joinType;
       this.vectorize = vectorize == null ? false : vectorize;
+      this.runtimeFilter = runtimeFilter;
   }
 
   @Override
@@ -86,7 +99,7 @@ public class HashJoinPOP extends AbstractBase implements MemoryCalcConsidered {
   @Override
   public PhysicalOperator getNewWithChildren(List<PhysicalOperator> children) {
       Preconditions.checkArgument(children.size() == 2);
-      HashJoinPOP hj = new HashJoinPOP(children.get(0), children.get(1), conditions, joinType, vectorize);
+      HashJoinPOP hj = new HashJoinPOP(children.get(0), children.get(1), conditions, joinType, vectorize, runtimeFilter);
       hj.setMaxAllocation(this.getMaxAllocation());
       return hj;
   }
@@ -116,6 +129,10 @@ public class HashJoinPOP extends AbstractBase implements MemoryCalcConsidered {
     return vectorize;
   }
 
+  public RuntimeFilterTarget getRuntimeFilter() {
+    return runtimeFilter;
+  }
+
   @Override
   protected BatchSchema constructSchema(FunctionLookupContext context) {
     SchemaBuilder b = BatchSchema.newBuilder();
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.physical.config;
+
+import java.util.List;
+import java.util.Map;
+
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.common.logical.data.NamedExpression;
+import com.dremio.exec.physical.base.AbstractSingle;
+import com.dremio.exec.physical.base.PhysicalOperator;
+import com.dremio.exec.physical.base.Scan;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Predicates;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Describes the scan on the probe side of a hash join that can receive a runtime filter built from
+ * the join keys of the build side. The scan must run in the same fragment as the join.
+ *
+ * Also used by top-n to push its current threshold on the leading sort key down to its input scan.
+ */
+public class RuntimeFilterTarget {
+
+  private final int probeScanOperatorId;
+  // name of the scan field matching each join condition (or sort key), null if the key isn't a plain scan field.
+  private final List<String> probeScanFields;
+
+  @JsonCreator
+  public RuntimeFilterTarget(
+      @JsonProperty("probeScanOperatorId") int probeScanOperatorId,
+      @JsonProperty("probeScanFields") List<String> probeScanFields) {
+    this.probeScanOperatorId = probeScanOperatorId;
+    this.probeScanFields = probeScanFields;
+  }
+
+  public int getProbeScanOperatorId() {
+    return probeScanOperatorId;
+  }
+
+  public List<String> getProbeScanFields() {
+    return probeScanFields;
+  }
+
+  /**
+   * Look for a scan feeding the given operator within the same fragment, only going through operators
+   * that don't change the key values.
+   *
+   * @param input the input of the operator sending the filter
+   * @param names the names of the key fields in the input, null for keys that aren't plain fields
+   * @return the scan and the names of the key fields in the scan output, or null if there is no such scan.
+   */
+  public static RuntimeFilterTarget find(PhysicalOperator input, List<String> names) {
+    final List<String> scanNames = Lists.newArrayList(names);
+    PhysicalOperator op = input;
+    while (true) {
+      if (op instanceof Scan) {
+        return Iterables.any(scanNames, Predicates.notNull())
+            ? new RuntimeFilterTarget(Short.MAX_VALUE & op.getOperatorId(), scanNames) : null;
+      } else if (op instanceof Project) {
+        final Map<String, String> renames = Maps.newHashMap();
+        for (NamedExpression e : ((Project) op).getExprs()) {
+          if (e.getExpr() instanceof SchemaPath && ((SchemaPath) e.getExpr()).isSimplePath()) {
+            renames.put(e.getRef().getRootSegment().getPath(), ((SchemaPath) e.getExpr()).getRootSegment().getPath());
+          }
+        }
+        for (int i = 0; i < scanNames.size(); i++) {
+          scanNames.set(i, scanNames.get(i) == null ? null : renames.get(scanNames.get(i)));
+        }
+        op = ((Project) op).getChild();
+      } else if (op instanceof Filter || op instanceof SelectionVectorRemover) {
+        op = ((AbstractSingle) op).getChild();
+      } else {
+        return null;
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "RuntimeFilterTarget [probeScanOperatorId=" + probeScanOperatorId + ", probeScanFields=" + probeScanFields + "]";
+  }
+}
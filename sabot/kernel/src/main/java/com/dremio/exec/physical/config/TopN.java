@@ -30,11 +30,18 @@ public class TopN extends Sort {
   static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(TopN.class);
 
   private final int limit;
+  private final RuntimeFilterTarget runtimeFilter;
+
+  public TopN(PhysicalOperator child, List<Ordering> orderings, boolean reverse, int limit) {
+    this(child, orderings, reverse, limit, null);
+  }
 
   @JsonCreator
-  public TopN(@JsonProperty("child") PhysicalOperator child, @JsonProperty("orderings") List<Ordering> orderings, @JsonProperty("reverse") boolean reverse, @JsonProperty("limit") int limit) {
+  public TopN(@JsonProperty("child") PhysicalOperator child, @JsonProperty("orderings") List<Ordering> orderings, @JsonProperty("reverse") boolean reverse, @JsonProperty("limit") int limit,
+      @JsonProperty("runtimeFilter") RuntimeFilterTarget runtimeFilter) {
     super(child, orderings, reverse);
     this.limit = limit;
+    this.runtimeFilter = runtimeFilter;
   }
 
   @Override
@@ -51,6 +58,10 @@ public class TopN extends Sort {
     return limit;
   }
 
+  public RuntimeFilterTarget getRuntimeFilter() {
+    return runtimeFilter;
+  }
+
   @Override
   public <T, X, E extends Throwable> T accept(PhysicalVisitor<T, X, E> physicalVisitor, X value) throws E{
     return physicalVisitor.visitSort(this, value);
@@ -58,7 +69,7 @@ public class TopN extends Sort {
 
   @Override
   protected PhysicalOperator getNewWithChild(PhysicalOperator child) {
-    return new TopN(child, orderings, reverse, limit);
+    return new TopN(child, orderings, reverse, limit, runtimeFilter);
   }
 
   @Override
@@ -133,6 +133,17 @@ public class PlanCaptureAttemptObserver extends AbstractAttemptObserver {
     this.json = text;
   }
 
+  @Override
+  public void planFromCache(List<PlanPhaseProfile> planPhases, String text, String json,
+                            List<UserBitShared.DatasetProfile> datasets) {
+    this.planPhases.addAll(planPhases);
+    this.text = text;
+    this.json = json;
+    if (includeDatasetProfiles) {
+      datasetProfileBuilder.addAll(datasets);
+    }
+  }
+
   @Override
   public void planAccelerated(final SubstitutionInfo info) {
     accelerated = true;
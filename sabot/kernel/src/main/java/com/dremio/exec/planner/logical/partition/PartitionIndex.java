@@ -0,0 +1,526 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner.logical.partition;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.util.NlsString;
+
+import com.dremio.common.types.TypeProtos.MinorType;
+import com.dremio.service.namespace.DatasetSplitChunks;
+import com.dremio.service.namespace.dataset.proto.DatasetSplit;
+import com.dremio.service.namespace.dataset.proto.DatasetSplitChunk;
+import com.dremio.service.namespace.dataset.proto.PartitionValue;
+import com.dremio.service.namespace.dataset.proto.PartitionValueColumn;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.UnsignedBytes;
+
+import io.protostuff.ByteString;
+
+/**
+ * Index of the partition values of the splits of a dataset version, answering partition filters without evaluating
+ * them for each split.<br>
+ * <br>
+ * Splits are numbered in the order of the chunks they are stored in (see {@link DatasetSplitChunks}). Each indexed
+ * partition column keeps its distinct values sorted, and for each split the position of its value among them. A
+ * comparison of the column with a literal looks the literal up in the sorted values, which gives the range of
+ * positions matching the comparison, and selects the splits whose position falls in the range. Filters made of
+ * comparisons (=, <>, <, <=, >, >=, IS [NOT] NULL) of partition columns with literals, combined with AND and OR
+ * (which covers IN lists), are answered. As the conditions pruned on are removed from the filter, the index only
+ * answers filters it selects the exact splits for: other filters are still evaluated for each split.
+ */
+public final class PartitionIndex {
+  private static final Comparator<byte[]> BYTES_COMPARATOR = UnsignedBytes.lexicographicalComparator();
+
+  private final long splitVersion;
+  private final ByteString readSignature;
+  private final Map<String, MinorType> columnTypes;
+  private final int splitCount;
+  private final Map<String, Column> columns;
+
+  private PartitionIndex(long splitVersion, ByteString readSignature, Map<String, MinorType> columnTypes,
+      int splitCount, Map<String, Column> columns) {
+    this.splitVersion = splitVersion;
+    this.readSignature = readSignature;
+    this.columnTypes = ImmutableMap.copyOf(columnTypes);
+    this.splitCount = splitCount;
+    this.columns = ImmutableMap.copyOf(columns);
+  }
+
+  /**
+   * @return true if the index was built for the given dataset version, read signature and column types
+   */
+  boolean isValid(long splitVersion, ByteString readSignature, Map<String, MinorType> columnTypes) {
+    return this.splitVersion == splitVersion
+      && Objects.equals(this.readSignature, readSignature)
+      && this.columnTypes.equals(columnTypes);
+  }
+
+  int getSplitCount() {
+    return splitCount;
+  }
+
+  /**
+   * @return true if the column of the given type can be indexed
+   */
+  static boolean isIndexable(MinorType type) {
+    switch (type) {
+    case INT:
+    case BIGINT:
+    case FLOAT8:
+    case VARCHAR:
+    case BIT:
+      return true;
+    default:
+      return false;
+    }
+  }
+
+  /**
+   * Build the index of the splits of a dataset version.
+   *
+   * @param columnTypes types of the partition columns to index
+   * @param splitCount number of splits of the dataset version
+   */
+  static PartitionIndex build(long splitVersion, ByteString readSignature, Map<String, MinorType> columnTypes,
+      int splitCount, Iterable<DatasetSplitChunk> chunks) {
+    final Map<String, ColumnBuilder> builders = new HashMap<>();
+    for (Map.Entry<String, MinorType> column : columnTypes.entrySet()) {
+      if (isIndexable(column.getValue())) {
+        builders.put(column.getKey(), new ColumnBuilder(column.getValue(), splitCount));
+      }
+    }
+
+    int offset = 0;
+    for (DatasetSplitChunk chunk : chunks) {
+      final int chunkSplitCount = chunk.getSplitCount();
+      Preconditions.checkState(offset + chunkSplitCount <= splitCount, "Expected %s splits, found more in split chunks",
+        splitCount);
+      if (chunk.getPartitionColumnsList() != null) {
+        for (PartitionValueColumn column : chunk.getPartitionColumnsList()) {
+          final ColumnBuilder builder = builders.get(column.getColumn());
+          if (builder != null) {
+            builder.add(offset, column);
+          }
+        }
+      }
+      offset += chunkSplitCount;
+    }
+    Preconditions.checkState(offset == splitCount, "Expected %s splits, found %s in split chunks", splitCount, offset);
+
+    final Map<String, Column> columns = new HashMap<>();
+    for (Map.Entry<String, ColumnBuilder> builder : builders.entrySet()) {
+      final Column column = builder.getValue().build();
+      if (column != null) {
+        columns.put(builder.getKey(), column);
+      }
+    }
+    return new PartitionIndex(splitVersion, readSignature, columnTypes, splitCount, columns);
+  }
+
+  /**
+   * Select the splits matching a filter.
+   *
+   * @param condition the filter
+   * @param fieldNames names of the fields the filter refers to
+   * @return the numbers of the splits matching the filter, or null if the index cannot answer the filter exactly
+   */
+  BitSet select(RexNode condition, List<String> fieldNames) {
+    switch (condition.getKind()) {
+    case AND:
+    case OR: {
+      BitSet result = null;
+      for (RexNode operand : ((RexCall) condition).getOperands()) {
+        final BitSet selected = select(operand, fieldNames);
+        if (selected == null) {
+          return null;
+        }
+        if (result == null) {
+          result = selected;
+        } else if (condition.getKind() == SqlKind.AND) {
+          result.and(selected);
+        } else {
+          result.or(selected);
+        }
+      }
+      return result;
+    }
+
+    case INPUT_REF: {
+      // boolean column
+      final Column column = getColumn(condition, fieldNames);
+      if (column == null || column.type != MinorType.BIT) {
+        return null;
+      }
+      return column.select(SqlKind.EQUALS, Boolean.TRUE);
+    }
+
+    case IS_NULL:
+    case IS_NOT_NULL: {
+      final Column column = getColumn(((RexCall) condition).getOperands().get(0), fieldNames);
+      if (column == null) {
+        return null;
+      }
+      return condition.getKind() == SqlKind.IS_NULL ? column.selectNull() : column.select(0, column.size());
+    }
+
+    case EQUALS:
+    case NOT_EQUALS:
+    case LESS_THAN:
+    case LESS_THAN_OR_EQUAL:
+    case GREATER_THAN:
+    case GREATER_THAN_OR_EQUAL: {
+      final List<RexNode> operands = ((RexCall) condition).getOperands();
+      SqlKind kind = condition.getKind();
+      RexNode columnRef = operands.get(0);
+      RexNode literal = operands.get(1);
+      if (literal instanceof RexInputRef && columnRef instanceof RexLiteral) {
+        columnRef = operands.get(1);
+        literal = operands.get(0);
+        kind = flip(kind);
+      }
+
+      final Column column = getColumn(columnRef, fieldNames);
+      if (column == null || !(literal instanceof RexLiteral)) {
+        return null;
+      }
+      final Object value = column.toKey((RexLiteral) literal);
+      if (value == null) {
+        return null;
+      }
+      return column.select(kind, value);
+    }
+
+    default:
+      return null;
+    }
+  }
+
+  private Column getColumn(RexNode node, List<String> fieldNames) {
+    if (!(node instanceof RexInputRef)) {
+      return null;
+    }
+    return columns.get(fieldNames.get(((RexInputRef) node).getIndex()));
+  }
+
+  private static SqlKind flip(SqlKind kind) {
+    switch (kind) {
+    case LESS_THAN:
+      return SqlKind.GREATER_THAN;
+    case LESS_THAN_OR_EQUAL:
+      return SqlKind.GREATER_THAN_OR_EQUAL;
+    case GREATER_THAN:
+      return SqlKind.LESS_THAN;
+    case GREATER_THAN_OR_EQUAL:
+      return SqlKind.LESS_THAN_OR_EQUAL;
+    default:
+      return kind;
+    }
+  }
+
+  /**
+   * Deserialize the selected splits from the chunks the index was built from.
+   */
+  List<DatasetSplit> getSplits(Iterable<DatasetSplitChunk> chunks, BitSet selected) {
+    final int selectedCount = selected.cardinality();
+    final List<DatasetSplit> splits = new ArrayList<>(selectedCount);
+    int offset = 0;
+    for (DatasetSplitChunk chunk : chunks) {
+      if (selected.nextSetBit(offset) < 0) {
+        break;
+      }
+      final int chunkSplitCount = chunk.getSplitCount();
+      final BitSet chunkSelected = selected.get(offset, offset + chunkSplitCount);
+      if (!chunkSelected.isEmpty()) {
+        splits.addAll(DatasetSplitChunks.decode(chunk, chunkSelected));
+      }
+      offset += chunkSplitCount;
+    }
+    Preconditions.checkState(splits.size() == selectedCount, "Expected %s splits, found %s in split chunks",
+      selectedCount, splits.size());
+    return splits;
+  }
+
+  /**
+   * Sorted distinct values of a column, and position of the value of each split (-1 if null)
+   */
+  private static final class Column {
+    private final MinorType type;
+    private final Object[] values;
+    private final Comparator<Object> comparator;
+    private final int[] positions;
+
+    private Column(MinorType type, Object[] values, Comparator<Object> comparator, int[] positions) {
+      this.type = type;
+      this.values = values;
+      this.comparator = comparator;
+      this.positions = positions;
+    }
+
+    private int size() {
+      return values.length;
+    }
+
+    /**
+     * Convert a literal to a value of the column, the comparisons of the column with the literal being the
+     * comparisons of the column values with it.
+     *
+     * @return the value, or null if the comparison isn't supported
+     */
+    private Object toKey(RexLiteral literal) {
+      final Object value = literal.getValue();
+      if (value == null) {
+        return null;
+      }
+      switch (type) {
+      case INT:
+      case BIGINT:
+        switch (literal.getTypeName()) {
+        case TINYINT:
+        case SMALLINT:
+        case INTEGER:
+        case BIGINT:
+        case DECIMAL:
+          return value instanceof BigDecimal ? value : null;
+        default:
+          return null;
+        }
+
+      case FLOAT8:
+        switch (literal.getTypeName()) {
+        case TINYINT:
+        case SMALLINT:
+        case INTEGER:
+        case BIGINT:
+        case DECIMAL:
+        case FLOAT:
+        case REAL:
+        case DOUBLE:
+          return value instanceof BigDecimal ? normalize(((BigDecimal) value).doubleValue()) : null;
+        default:
+          return null;
+        }
+
+      case VARCHAR:
+        switch (literal.getTypeName()) {
+        case CHAR:
+        case VARCHAR:
+          return value instanceof NlsString ? ((NlsString) value).getValue() : null;
+        default:
+          return null;
+        }
+
+      case BIT:
+        switch (literal.getTypeName()) {
+        case BOOLEAN:
+          return value instanceof Boolean ? value : null;
+        default:
+          return null;
+        }
+
+      default:
+        return null;
+      }
+    }
+
+    private BitSet select(SqlKind kind, Object value) {
+      // positions of the values equal to the given one
+      final int from = bound(value, false);
+      final int to = bound(value, true);
+      switch (kind) {
+      case EQUALS:
+        return select(from, to);
+      case NOT_EQUALS: {
+        final BitSet selected = select(0, from);
+        selected.or(select(to, values.length));
+        return selected;
+      }
+      case LESS_THAN:
+        return select(0, from);
+      case LESS_THAN_OR_EQUAL:
+        return select(0, to);
+      case GREATER_THAN:
+        return select(to, values.length);
+      case GREATER_THAN_OR_EQUAL:
+        return select(from, values.length);
+      default:
+        throw new IllegalArgumentException("Unexpected comparison " + kind);
+      }
+    }
+
+    /**
+     * @return the splits with a value at a position in [from, to)
+     */
+    private BitSet select(int from, int to) {
+      final BitSet selected = new BitSet(positions.length);
+      if (from >= to) {
+        return selected;
+      }
+      for (int i = 0; i < positions.length; i++) {
+        final int position = positions[i];
+        if (position >= from && position < to) {
+          selected.set(i);
+        }
+      }
+      return selected;
+    }
+
+    private BitSet selectNull() {
+      final BitSet selected = new BitSet(positions.length);
+      for (int i = 0; i < positions.length; i++) {
+        if (positions[i] < 0) {
+          selected.set(i);
+        }
+      }
+      return selected;
+    }
+
+    /**
+     * @return the position of the first value greater than (or equal to, if not upper) the given one
+     */
+    private int bound(Object value, boolean upper) {
+      int low = 0;
+      int high = values.length;
+      while (low < high) {
+        final int middle = (low + high) >>> 1;
+        final int comparison = comparator.compare(values[middle], value);
+        if (comparison < 0 || (upper && comparison == 0)) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+  }
+
+  private static Double normalize(double value) {
+    // -0.0 equals 0.0
+    return value == 0.0d ? 0.0d : value;
+  }
+
+  private static final class ColumnBuilder {
+    private final MinorType type;
+    private final Map<Object, Integer> ids = new HashMap<>();
+    private final List<Object> values = new ArrayList<>();
+    // id of the value of each split, in order of appearance
+    private final int[] splitIds;
+    private boolean indexable = true;
+
+    private ColumnBuilder(MinorType type, int splitCount) {
+      this.type = type;
+      this.splitIds = new int[splitCount];
+      Arrays.fill(splitIds, -1);
+    }
+
+    private void add(int offset, PartitionValueColumn column) {
+      final List<PartitionValue> dictionary = column.getDictionaryList();
+      final int[] chunkIds = new int[dictionary == null ? 0 : dictionary.size()];
+      for (int i = 0; i < chunkIds.length; i++) {
+        final Object value = toKey(dictionary.get(i));
+        chunkIds[i] = value == null ? -1 : ids.computeIfAbsent(value, v -> {
+          values.add(v);
+          return values.size() - 1;
+        });
+      }
+
+      final List<Integer> indices = column.getIndicesList();
+      if (indices == null) {
+        return;
+      }
+      for (int i = 0; i < indices.size(); i++) {
+        final int index = indices.get(i);
+        splitIds[offset + i] = index < 0 ? -1 : chunkIds[index];
+      }
+    }
+
+    private Object toKey(PartitionValue value) {
+      // values are read from the same fields as when filling vectors to evaluate filters
+      switch (type) {
+      case INT:
+        return value.getIntValue() == null ? null : BigDecimal.valueOf(value.getIntValue());
+      case BIGINT:
+        return value.getLongValue() == null ? null : BigDecimal.valueOf(value.getLongValue());
+      case FLOAT8:
+        if (value.getDoubleValue() == null) {
+          return null;
+        }
+        if (value.getDoubleValue().isNaN()) {
+          // comparisons with NaN are not ordered like other values
+          indexable = false;
+        }
+        return normalize(value.getDoubleValue());
+      case VARCHAR:
+        return value.getStringValue();
+      case BIT:
+        return value.getBitValue();
+      default:
+        throw new IllegalStateException("Unexpected type " + type);
+      }
+    }
+
+    private Column build() {
+      if (!indexable) {
+        return null;
+      }
+
+      final Comparator<Object> comparator = comparator(type);
+      final Integer[] order = new Integer[values.size()];
+      for (int i = 0; i < order.length; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, (a, b) -> comparator.compare(values.get(a), values.get(b)));
+
+      final Object[] sortedValues = new Object[order.length];
+      final int[] positionOfId = new int[order.length];
+      for (int position = 0; position < order.length; position++) {
+        sortedValues[position] = values.get(order[position]);
+        positionOfId[order[position]] = position;
+      }
+
+      final int[] positions = new int[splitIds.length];
+      for (int i = 0; i < splitIds.length; i++) {
+        positions[i] = splitIds[i] < 0 ? -1 : positionOfId[splitIds[i]];
+      }
+      return new Column(type, sortedValues, comparator, positions);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparator<Object> comparator(MinorType type) {
+      if (type == MinorType.VARCHAR) {
+        // strings are compared on their utf-8 bytes
+        return (a, b) -> BYTES_COMPARATOR.compare(
+          ((String) a).getBytes(StandardCharsets.UTF_8), ((String) b).getBytes(StandardCharsets.UTF_8));
+      }
+      return (a, b) -> ((Comparable<Object>) a).compareTo(b);
+    }
+  }
+}
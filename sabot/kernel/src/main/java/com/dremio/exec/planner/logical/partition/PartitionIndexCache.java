@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner.logical.partition;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.dremio.common.types.TypeProtos.MinorType;
+import com.dremio.exec.store.TableMetadata;
+import com.dremio.service.namespace.dataset.proto.DatasetConfig;
+import com.dremio.service.namespace.dataset.proto.DatasetSplitChunk;
+import com.dremio.service.namespace.dataset.proto.ReadDefinition;
+import com.google.common.base.Stopwatch;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import io.protostuff.ByteString;
+
+/**
+ * Partition indexes of datasets (see {@link PartitionIndex}) kept by a coordinator across queries.<br>
+ * <br>
+ * There is one index per dataset, for its current split version. It is built again when the split version, the read
+ * signature or the types of the partition columns of the dataset change.
+ */
+public class PartitionIndexCache {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(PartitionIndexCache.class);
+
+  private final Cache<String, PartitionIndex> indexes;
+
+  public PartitionIndexCache(long maxEntries) {
+    this.indexes = CacheBuilder.newBuilder()
+      .maximumSize(maxEntries)
+      .softValues()
+      .build();
+  }
+
+  /**
+   * Get the index of all the splits of a table, building it if needed.
+   *
+   * @param columnTypes types of the partition columns of the table
+   * @return the index, or null if the splits of the table are not stored in chunks, or were already pruned
+   */
+  PartitionIndex get(TableMetadata tableMetadata, Map<String, MinorType> columnTypes) {
+    final DatasetConfig config = tableMetadata.getDatasetConfig();
+    final ReadDefinition readDefinition = tableMetadata.getReadDefinition();
+    if (config == null || config.getId() == null || readDefinition == null || readDefinition.getSplitVersion() == null) {
+      return null;
+    }
+
+    // chunks are only available for all the splits of the dataset version, not once they are pruned
+    final Iterable<DatasetSplitChunk> chunks = tableMetadata.getSplitChunks();
+    if (chunks == null) {
+      return null;
+    }
+
+    final String datasetId = config.getId().getId();
+    final long splitVersion = readDefinition.getSplitVersion();
+    final ByteString readSignature = readDefinition.getReadSignature();
+    final PartitionIndex index = indexes.getIfPresent(datasetId);
+    if (index != null) {
+      if (index.isValid(splitVersion, readSignature, columnTypes)) {
+        return index;
+      }
+      indexes.asMap().remove(datasetId, index);
+    }
+
+    final Stopwatch stopwatch = Stopwatch.createStarted();
+    final PartitionIndex newIndex = PartitionIndex.build(splitVersion, readSignature, columnTypes,
+      tableMetadata.getSplitCount(), chunks);
+    logger.debug("Building partition index of {} splits of dataset {} took {} ms", newIndex.getSplitCount(),
+      tableMetadata.getName(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
+    indexes.put(datasetId, newIndex);
+    return newIndex;
+  }
+}
@@ -69,6 +69,7 @@ import com.dremio.common.expression.LogicalExpression;
 import com.dremio.common.expression.SchemaPath;
 import com.dremio.common.types.TypeProtos.DataMode;
 import com.dremio.common.types.TypeProtos.MajorType;
+import com.dremio.common.types.TypeProtos.MinorType;
 import com.dremio.common.types.Types;
 import com.dremio.datastore.SearchQueryUtils;
 import com.dremio.datastore.SearchTypes.SearchQuery;
@@ -95,9 +96,12 @@ import com.dremio.exec.store.dfs.PruneableScan;
 import com.dremio.exec.store.parquet.ParquetFilterCondition;
 import com.dremio.exec.store.parquet.ParquetFilterCondition.FilterProperties;
 import com.dremio.service.Pointer;
+import com.dremio.service.namespace.DatasetSplitChunks;
 import com.dremio.service.namespace.NamespaceException;
 import com.dremio.service.namespace.dataset.proto.DatasetSplit;
+import com.dremio.service.namespace.dataset.proto.DatasetSplitChunk;
 import com.dremio.service.namespace.dataset.proto.PartitionValue;
+import com.dremio.service.namespace.dataset.proto.PartitionValueColumn;
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
@@ -105,6 +109,8 @@ import com.google.common.base.Stopwatch;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
@@ -304,11 +310,6 @@ public abstract class PruneScanRuleBase<T extends ScanRelBase & PruneableScan> e
       Pointer<List<DatasetSplit>> finalSplits){
     final int batchSize = PARTITION_BATCH_SIZE;
 
-    final ImmutableList.Builder<DatasetSplit> selectedSplits = ImmutableList.builder();
-    final Stopwatch miscTimer = Stopwatch.createUnstarted();
-
-
-
     // Convert the condition into an expression
     logger.debug("Attempting to prune {}", pruneCondition);
     LogicalExpression pruningExpression = RexToExpr.toExpr(new ParseContext(settings), scanRel.getRowType(), scanRel.getCluster().getRexBuilder(), pruneCondition);
@@ -324,20 +325,53 @@ public abstract class PruneScanRuleBase<T extends ScanRelBase & PruneableScan> e
       return cacheResult.finalSplits.size() < cacheResult.totalRecords;
     }
 
+    // splits stored in chunks are evaluated a chunk at a time, without deserializing the splits which are not selected
+    final Iterable<DatasetSplitChunk> splitChunks = tableMetadata.getSplitChunks();
+    EvaluationPruningResult result = null;
+    if (splitChunks != null) {
+      result = evalSplitBatches(Iterators.transform(splitChunks.iterator(), ChunkSplitBatch::new), fieldNameMap,
+        partitionColumnsToIdMap, partitionColumnBitSet, settings, pruneCondition, pruningExpression, scanRel);
+      if (result.totalRecords != tableMetadata.getSplitCount()) {
+        // chunks removed while being read (like by the split orphans cleanup), evaluate the splits instead
+        logger.debug("Expected {} splits, found {} in split chunks, evaluating splits one by one",
+          tableMetadata.getSplitCount(), result.totalRecords);
+        result = null;
+      }
+    }
+    if (result == null) {
+      result = evalSplitBatches(Iterators.transform(Iterators.partition(tableMetadata.getSplits(), batchSize), ListSplitBatch::new),
+        fieldNameMap, partitionColumnsToIdMap, partitionColumnBitSet, settings, pruneCondition, pruningExpression, scanRel);
+    }
+
+    // Store results in local cache
+    evalutationPruningCache.put(cacheKey, result);
+
+    finalSplits.value = result.finalSplits;
+    return result.finalSplits.size() < result.totalRecords;
+  }
+
+  private EvaluationPruningResult evalSplitBatches(
+      final Iterator<SplitBatch> batches,
+      final Map<Integer, String> fieldNameMap,
+      final Map<String, Integer> partitionColumnsToIdMap,
+      final BitSet partitionColumnBitSet,
+      PlannerSettings settings,
+      RexNode pruneCondition,
+      LogicalExpression pruningExpression,
+      T scanRel) {
+    final ImmutableList.Builder<DatasetSplit> selectedSplits = ImmutableList.builder();
+    final Stopwatch miscTimer = Stopwatch.createUnstarted();
+
     int batchIndex = 0;
     int recordCount = 0;
     int qualifiedCount = 0;
-    Iterator<DatasetSplit> splitIter = tableMetadata.getSplits();
     LogicalExpression materializedExpr = null;
 
-    do {
+    while (batches.hasNext()) {
       miscTimer.start();
 
-      List<DatasetSplit> splitsInBatch = new ArrayList<>();
-      for(int splitsLoaded = 0; splitsLoaded < batchSize && splitIter.hasNext(); ++splitsLoaded) {
-        final DatasetSplit split = splitIter.next();
-        splitsInBatch.add(split);
-      }
+      final SplitBatch batch = batches.next();
+      final int splitsLoaded = batch.getSplitCount();
 
       logger.debug("Elapsed time to get list of splits for the current batch: {} ms within batchIndex: {}", miscTimer.elapsed(TimeUnit.MILLISECONDS), batchIndex);
       miscTimer.reset();
@@ -369,25 +403,7 @@ public abstract class PruneScanRuleBase<T extends ScanRelBase & PruneableScan> e
         // track how long we spend populating partition column vectors
         miscTimer.start();
 
-        int splitsLoaded = 0;
-        for(DatasetSplit split: splitsInBatch) {
-          if (split.getPartitionValuesList() == null) {
-            ++splitsLoaded;
-            continue;
-          }
-
-          // load partition values
-          for (PartitionValue partitionValue : split.getPartitionValuesList()) {
-            final int columnIndex = partitionColumnsToIdMap.get(partitionValue.getColumn());
-            // TODO (AH) handle invisible columns partitionColumnIdToTypeMap is built from row data type which may or may not have $update column
-            if (partitionColumnIdToTypeMap.containsKey(columnIndex)) {
-              final ValueVector vv = vectors[columnIndex];
-              writePartitionValue(vv, splitsLoaded, partitionValue, partitionColumnIdToTypeMap.get(columnIndex), allocator);
-            }
-          }
-
-          ++splitsLoaded;
-        }
+        batch.writePartitionValues(vectors, partitionColumnsToIdMap, partitionColumnIdToTypeMap, allocator);
         logger.debug("Elapsed time to populate partitioning column vectors: {} ms within batchIndex: {}", miscTimer.elapsed(TimeUnit.MILLISECONDS), batchIndex);
         miscTimer.reset();
 
@@ -408,29 +424,58 @@ public abstract class PruneScanRuleBase<T extends ScanRelBase & PruneableScan> e
 
 
         // Inner loop: within each batch iterate over the each partition in this batch
+        final BitSet selected = new BitSet(splitsLoaded);
         for (int i = 0; i < splitsLoaded; ++i) {
           if (!output.isNull(i) && output.get(i) == 1) {
             // select this partition
             qualifiedCount++;
-            final DatasetSplit split = splitsInBatch.get(i);
-            selectedSplits.add(split);
+            selected.set(i);
           }
           recordCount++;
         }
+        selectedSplits.addAll(batch.getSplits(selected));
 
         logger.debug("Within batch {}: total records: {}, qualified records: {}", batchIndex, recordCount, qualifiedCount);
         batchIndex++;
 
       }
-    } while (splitIter.hasNext());
+    }
 
-    List<DatasetSplit> finalNewSplits = selectedSplits.build();
+    return new EvaluationPruningResult(selectedSplits.build(), recordCount);
+  }
 
-    // Store results in local cache
-    evalutationPruningCache.put(cacheKey, new EvaluationPruningResult(finalNewSplits, recordCount));
+  /**
+   * Select the splits matching the prune condition with the partition index of the dataset.
+   *
+   * @return the selected splits, or null if the index is not available or cannot answer the condition exactly
+   */
+  private List<DatasetSplit> doIndexPruning(RexNode pruneCondition, T scanRel) {
+    final TableMetadata tableMetadata = scanRel.getTableMetadata();
+    final Set<String> partitionColumns = ImmutableSet.copyOf(tableMetadata.getReadDefinition().getPartitionColumnsList());
+    final Map<String, MinorType> columnTypes = Maps.newHashMap();
+    for (Field field : tableMetadata.getSchema()) {
+      if (partitionColumns.contains(field.getName())) {
+        columnTypes.put(field.getName(), CompleteType.fromField(field).toMinorType());
+      }
+    }
 
-    finalSplits.value = finalNewSplits;
-    return qualifiedCount < recordCount;
+    try {
+      final PartitionIndex index = optimizerContext.getPartitionIndexCache().get(tableMetadata, columnTypes);
+      if (index == null) {
+        return null;
+      }
+      final BitSet selected = index.select(pruneCondition, scanRel.getRowType().getFieldNames());
+      if (selected == null) {
+        logger.debug("Partition index cannot answer {}", pruneCondition);
+        return null;
+      }
+      logger.debug("Partition index selected {} out of {} splits", selected.cardinality(), index.getSplitCount());
+      return index.getSplits(tableMetadata.getSplitChunks(), selected);
+    } catch (IllegalStateException e) {
+      // chunks removed while being read (like by the split orphans cleanup), prune without the index
+      logger.debug("Unable to use the partition index of {}", tableMetadata.getName(), e);
+      return null;
+    }
   }
 
   public void doOnMatch(RelOptRuleCall call, Filter filterRel, Project projectRel, T scanRel) {
@@ -507,24 +552,38 @@ public abstract class PruneScanRuleBase<T extends ScanRelBase & PruneableScan> e
       final Pointer<TableMetadata> dataset = new Pointer<>();
       final Pointer<RexNode> outputCondition = new Pointer<>();
 
-      // do index-based pruning
-      Stopwatch stopwatch = Stopwatch.createStarted();
-      final boolean sargPruned = doSargPruning(filterRel, pruneCondition, scanRel, fieldMap, dataset, outputCondition);
-      stopwatch.stop();
-      logger.debug("Partition pruning using search index took {} ms", stopwatch.elapsed(TimeUnit.MILLISECONDS));
+      final boolean sargPruned;
       final boolean evalPruned;
       final List<DatasetSplit> finalNewSplits;
-      if(!outputCondition.value.isAlwaysTrue()){
-        // do interpreter-based evaluation
-        Pointer<List<DatasetSplit>> prunedOutput = new Pointer<>();
-        stopwatch.start();
-        evalPruned = doEvalPruning(filterRel, fieldNameMap, partitionColumnsToIdMap, partitionColumnBitSet, dataset.value, settings, outputCondition.value, scanRel, prunedOutput);
+
+      // do partition index lookups
+      Stopwatch stopwatch = Stopwatch.createStarted();
+      final List<DatasetSplit> indexedSplits = settings.isPartitionIndexEnabled() ? doIndexPruning(pruneCondition, scanRel) : null;
+      stopwatch.stop();
+      if (indexedSplits != null) {
+        logger.debug("Partition pruning using partition index took {} ms", stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        dataset.value = scanRel.getTableMetadata();
+        sargPruned = false;
+        evalPruned = indexedSplits.size() < dataset.value.getSplitCount();
+        finalNewSplits = indexedSplits;
+      } else {
+        // do index-based pruning
+        stopwatch.reset().start();
+        sargPruned = doSargPruning(filterRel, pruneCondition, scanRel, fieldMap, dataset, outputCondition);
         stopwatch.stop();
-        finalNewSplits = prunedOutput.value;
-        logger.debug("Partition pruning using expression evaluation took {} ms", stopwatch.elapsed(TimeUnit.MILLISECONDS));
-      }else {
-        finalNewSplits = ImmutableList.copyOf(dataset.value.getSplits());
-        evalPruned = false;
+        logger.debug("Partition pruning using search index took {} ms", stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        if(!outputCondition.value.isAlwaysTrue()){
+          // do interpreter-based evaluation
+          Pointer<List<DatasetSplit>> prunedOutput = new Pointer<>();
+          stopwatch.start();
+          evalPruned = doEvalPruning(filterRel, fieldNameMap, partitionColumnsToIdMap, partitionColumnBitSet, dataset.value, settings, outputCondition.value, scanRel, prunedOutput);
+          stopwatch.stop();
+          finalNewSplits = prunedOutput.value;
+          logger.debug("Partition pruning using expression evaluation took {} ms", stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        }else {
+          finalNewSplits = ImmutableList.copyOf(dataset.value.getSplits());
+          evalPruned = false;
+        }
       }
 
       final boolean scanUnchangedAfterPruning = !evalPruned && !sargPruned;
@@ -604,6 +663,114 @@ public abstract class PruneScanRuleBase<T extends ScanRelBase & PruneableScan> e
     }
   }
 
+  /**
+   * Splits whose partition values are evaluated together
+   */
+  private interface SplitBatch {
+    int getSplitCount();
+
+    /**
+     * Write the partition values of the splits into the vectors of the partition columns (indexed by column id)
+     */
+    void writePartitionValues(ValueVector[] vectors, Map<String, Integer> partitionColumnsToIdMap,
+        Map<Integer, MajorType> partitionColumnIdToTypeMap, BufferAllocator allocator);
+
+    /**
+     * @return the splits at the given positions of the batch
+     */
+    List<DatasetSplit> getSplits(BitSet selected);
+  }
+
+  private final class ListSplitBatch implements SplitBatch {
+    private final List<DatasetSplit> splits;
+
+    private ListSplitBatch(List<DatasetSplit> splits) {
+      this.splits = splits;
+    }
+
+    @Override
+    public int getSplitCount() {
+      return splits.size();
+    }
+
+    @Override
+    public void writePartitionValues(ValueVector[] vectors, Map<String, Integer> partitionColumnsToIdMap,
+        Map<Integer, MajorType> partitionColumnIdToTypeMap, BufferAllocator allocator) {
+      for (int i = 0; i < splits.size(); i++) {
+        final DatasetSplit split = splits.get(i);
+        if (split.getPartitionValuesList() == null) {
+          continue;
+        }
+
+        // load partition values
+        for (PartitionValue partitionValue : split.getPartitionValuesList()) {
+          final int columnIndex = partitionColumnsToIdMap.get(partitionValue.getColumn());
+          // TODO (AH) handle invisible columns partitionColumnIdToTypeMap is built from row data type which may or may not have $update column
+          if (partitionColumnIdToTypeMap.containsKey(columnIndex)) {
+            final ValueVector vv = vectors[columnIndex];
+            writePartitionValue(vv, i, partitionValue, partitionColumnIdToTypeMap.get(columnIndex), allocator);
+          }
+        }
+      }
+    }
+
+    @Override
+    public List<DatasetSplit> getSplits(BitSet selected) {
+      final List<DatasetSplit> result = new ArrayList<>(selected.cardinality());
+      for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1)) {
+        result.add(splits.get(i));
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Splits of a chunk: partition values are read from the dictionary encoded columns of the chunk, and only the
+   * selected splits are deserialized.
+   */
+  private final class ChunkSplitBatch implements SplitBatch {
+    private final DatasetSplitChunk chunk;
+
+    private ChunkSplitBatch(DatasetSplitChunk chunk) {
+      this.chunk = chunk;
+    }
+
+    @Override
+    public int getSplitCount() {
+      return chunk.getSplitCount();
+    }
+
+    @Override
+    public void writePartitionValues(ValueVector[] vectors, Map<String, Integer> partitionColumnsToIdMap,
+        Map<Integer, MajorType> partitionColumnIdToTypeMap, BufferAllocator allocator) {
+      if (chunk.getPartitionColumnsList() == null) {
+        return;
+      }
+
+      for (PartitionValueColumn column : chunk.getPartitionColumnsList()) {
+        final Integer columnIndex = partitionColumnsToIdMap.get(column.getColumn());
+        if (columnIndex == null || !partitionColumnIdToTypeMap.containsKey(columnIndex)) {
+          continue;
+        }
+        final ValueVector vv = vectors[columnIndex];
+        final MajorType type = partitionColumnIdToTypeMap.get(columnIndex);
+        final List<PartitionValue> dictionary = column.getDictionaryList();
+        final List<Integer> indices = column.getIndicesList();
+        for (int i = 0; i < indices.size(); i++) {
+          final int index = indices.get(i);
+          if (index >= 0) {
+            writePartitionValue(vv, i, dictionary.get(index), type, allocator);
+          }
+        }
+      }
+    }
+
+    @Override
+    public List<DatasetSplit> getSplits(BitSet selected) {
+      return DatasetSplitChunks.decode(chunk, selected);
+    }
+  }
+
   private void writePartitionValue(ValueVector vv, int index, PartitionValue pv, MajorType majorType, BufferAllocator allocator) {
     switch (majorType.getMinorType()) {
       case INT: {
@@ -31,6 +31,8 @@ import com.dremio.exec.planner.acceleration.substitution.SubstitutionInfo;
 import com.dremio.exec.planner.fragment.PlanningSet;
 import com.dremio.exec.planner.physical.Prel;
 import com.dremio.exec.proto.GeneralRPCProtos.Ack;
+import com.dremio.exec.proto.UserBitShared.DatasetProfile;
+import com.dremio.exec.proto.UserBitShared.PlanPhaseProfile;
 import com.dremio.exec.proto.UserBitShared.QueryProfile;
 import com.dremio.exec.rpc.RpcOutcomeListener;
 import com.dremio.exec.work.QueryWorkUnit;
@@ -143,6 +145,11 @@ public abstract class AbstractAttemptObserver implements AttemptObserver {
   public void planJsonPlan(String text) {
   }
 
+  @Override
+  public void planFromCache(List<PlanPhaseProfile> planPhases, String text, String json,
+                            List<DatasetProfile> datasets) {
+  }
+
   @Override
   public void planGenerationTime(long millisTaken) {
   }
@@ -31,6 +31,8 @@ import com.dremio.exec.planner.acceleration.substitution.SubstitutionInfo;
 import com.dremio.exec.planner.fragment.PlanningSet;
 import com.dremio.exec.planner.physical.Prel;
 import com.dremio.exec.proto.GeneralRPCProtos.Ack;
+import com.dremio.exec.proto.UserBitShared.DatasetProfile;
+import com.dremio.exec.proto.UserBitShared.PlanPhaseProfile;
 import com.dremio.exec.proto.UserBitShared.QueryProfile;
 import com.dremio.exec.rpc.RpcOutcomeListener;
 import com.dremio.exec.work.QueryWorkUnit;
@@ -121,6 +123,15 @@ public interface AttemptObserver {
    */
   void planText(String text, long millisTaken);
 
+  /**
+   * The query was not planned, its plan was taken from the plan cache.
+   * @param planPhases Profile of the planning phases recorded when the plan was cached.
+   * @param text Text based explain plan.
+   * @param json Json plan.
+   * @param datasets Profiles of the datasets read by the query.
+   */
+  void planFromCache(List<PlanPhaseProfile> planPhases, String text, String json, List<DatasetProfile> datasets);
+
   void finalPrel(Prel prel);
 
   /**
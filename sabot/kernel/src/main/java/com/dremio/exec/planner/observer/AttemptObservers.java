@@ -32,6 +32,8 @@ import com.dremio.exec.planner.acceleration.substitution.SubstitutionInfo;
 import com.dremio.exec.planner.fragment.PlanningSet;
 import com.dremio.exec.planner.physical.Prel;
 import com.dremio.exec.proto.GeneralRPCProtos.Ack;
+import com.dremio.exec.proto.UserBitShared.DatasetProfile;
+import com.dremio.exec.proto.UserBitShared.PlanPhaseProfile;
 import com.dremio.exec.proto.UserBitShared.QueryProfile;
 import com.dremio.exec.rpc.RpcOutcomeListener;
 import com.dremio.exec.work.QueryWorkUnit;
@@ -206,6 +208,14 @@ public class AttemptObservers implements AttemptObserver {
     }
   }
 
+  @Override
+  public void planFromCache(List<PlanPhaseProfile> planPhases, String text, String json,
+                            List<DatasetProfile> datasets) {
+    for (final AttemptObserver observer : observers) {
+      observer.planFromCache(planPhases, text, json, datasets);
+    }
+  }
+
   @Override
   public void attemptCompletion(UserResult result) {
     for (final AttemptObserver observer : observers) {
@@ -31,6 +31,8 @@ import com.dremio.exec.planner.acceleration.substitution.SubstitutionInfo;
 import com.dremio.exec.planner.fragment.PlanningSet;
 import com.dremio.exec.planner.physical.Prel;
 import com.dremio.exec.proto.GeneralRPCProtos.Ack;
+import com.dremio.exec.proto.UserBitShared.DatasetProfile;
+import com.dremio.exec.proto.UserBitShared.PlanPhaseProfile;
 import com.dremio.exec.proto.UserBitShared.QueryProfile;
 import com.dremio.exec.rpc.RpcOutcomeListener;
 import com.dremio.exec.work.QueryWorkUnit;
@@ -162,6 +164,12 @@ public class DelegatingAttemptObserver implements AttemptObserver {
     observer.planJsonPlan(text);
   }
 
+  @Override
+  public void planFromCache(List<PlanPhaseProfile> planPhases, String text, String json,
+                            List<DatasetProfile> datasets) {
+    observer.planFromCache(planPhases, text, json, datasets);
+  }
+
   @Override
   public void planGenerationTime(long millisTaken) {
     observer.planGenerationTime(millisTaken);
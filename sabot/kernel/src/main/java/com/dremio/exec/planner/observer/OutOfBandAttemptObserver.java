@@ -34,6 +34,8 @@ import com.dremio.exec.planner.acceleration.substitution.SubstitutionInfo;
 import com.dremio.exec.planner.fragment.PlanningSet;
 import com.dremio.exec.planner.physical.Prel;
 import com.dremio.exec.proto.GeneralRPCProtos.Ack;
+import com.dremio.exec.proto.UserBitShared.DatasetProfile;
+import com.dremio.exec.proto.UserBitShared.PlanPhaseProfile;
 import com.dremio.exec.proto.UserBitShared.QueryProfile;
 import com.dremio.exec.rpc.RpcOutcomeListener;
 import com.dremio.exec.work.QueryWorkUnit;
@@ -220,6 +222,17 @@ public class OutOfBandAttemptObserver implements AttemptObserver {
     });
   }
 
+  @Override
+  public void planFromCache(final List<PlanPhaseProfile> planPhases, final String text, final String json,
+                            final List<DatasetProfile> datasets) {
+    serializedExec.execute(new DeferredRunnable() {
+      @Override
+      public void doRun() {
+        innerObserver.planFromCache(planPhases, text, json, datasets);
+      }
+    });
+  }
+
   @Override
   public void planStart(final String rawPlan) {
     serializedExec.execute(new DeferredRunnable(){
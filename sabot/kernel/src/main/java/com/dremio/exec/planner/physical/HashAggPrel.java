@@ -33,6 +33,7 @@ import org.apache.calcite.util.ImmutableBitSet;
 import com.dremio.common.expression.CompleteType;
 import com.dremio.common.expression.LogicalExpression;
 import com.dremio.common.logical.data.NamedExpression;
+import com.dremio.common.types.TypeProtos.MinorType;
 import com.dremio.exec.ExecConstants;
 import com.dremio.exec.expr.ExpressionTreeMaterializer;
 import com.dremio.exec.expr.FunctionHolderExpr;
@@ -43,6 +44,8 @@ import com.dremio.exec.planner.cost.DremioCost;
 import com.dremio.exec.planner.cost.DremioCost.Factory;
 import com.dremio.exec.record.BatchSchema;
 import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
+import com.dremio.options.OptionManager;
+import com.dremio.sabot.op.aggregate.vectorized.VectorizedHashAggOperator;
 import com.google.common.collect.ImmutableList;
 
 public class HashAggPrel extends AggPrelBase implements Prel{
@@ -205,6 +208,35 @@ public class HashAggPrel extends AggPrelBase implements Prel{
 
         return false;
 
+      case "hll":
+        if (!canVectorizeNdv(creator)) {
+          return false;
+        }
+        switch(inputType.toMinorType()){
+        case BIT:
+        case INT:
+        case BIGINT:
+        case FLOAT4:
+        case FLOAT8:
+        case DATE:
+        case TIME:
+        case TIMESTAMP:
+        case INTERVALDAY:
+        case INTERVALYEAR:
+        case VARCHAR:
+        case VARBINARY:
+          continue;
+        }
+
+        return false;
+
+      case "hll_merge":
+        if (canVectorizeNdv(creator) && inputType.toMinorType() == MinorType.VARBINARY) {
+          continue;
+        }
+
+        return false;
+
       default:
         return false;
       }
@@ -213,10 +245,20 @@ public class HashAggPrel extends AggPrelBase implements Prel{
     return true;
   }
 
+  /**
+   * Sketch based accumulators are only available in the spilling version of the vectorized operator.
+   */
+  private static boolean canVectorizeNdv(PhysicalPlanCreator creator) {
+    final OptionManager options = creator.getContext().getOptions();
+    return options.getOption(VectorizedHashAggOperator.VECTORIZED_HASHAGG_NDV)
+      && options.getOption(VectorizedHashAggOperator.VECTORIZED_HASHAGG_USE_SPILLING_OPERATOR);
+  }
+
   @Override
   public PhysicalOperator getPhysicalOperator(PhysicalPlanCreator creator) throws IOException {
     PhysicalOperator child = ((Prel) this.getInput()).getPhysicalOperator(creator);
-    HashAggregate g = new HashAggregate(child, keys, aggExprs, canVectorize(creator, child), 1.0f);
+    HashAggregate g = new HashAggregate(child, keys, aggExprs, canVectorize(creator, child), 1.0f,
+        getOperatorPhase() == OperatorPhase.PHASE_1of2);
     return creator.addMetadata(this, g);
   }
 
@@ -32,14 +32,17 @@ import org.apache.calcite.rex.RexNode;
 
 import com.dremio.common.expression.CompleteType;
 import com.dremio.common.expression.LogicalExpression;
+import com.dremio.common.expression.SchemaPath;
 import com.dremio.common.logical.data.JoinCondition;
 import com.dremio.exec.ExecConstants;
 import com.dremio.exec.expr.ExpressionTreeMaterializer;
 import com.dremio.exec.expr.fn.FunctionLookupContext;
 import com.dremio.exec.physical.base.PhysicalOperator;
 import com.dremio.exec.physical.config.HashJoinPOP;
+import com.dremio.exec.physical.config.RuntimeFilterTarget;
 import com.dremio.exec.record.BatchSchema;
 import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
+import com.dremio.sabot.op.common.hashtable.Comparator;
 import com.dremio.sabot.op.join.JoinUtils;
 import com.dremio.sabot.op.join.JoinUtils.JoinCategory;
 import com.google.common.collect.Lists;
@@ -120,10 +123,35 @@ public class HashJoinPrel  extends JoinPrel {
 
     final boolean vectorize = creator.getContext().getOptions().getOption(ExecConstants.ENABLE_VECTORIZED_HASHJOIN)
         && canVectorize(creator.getContext().getFunctionRegistry(), leftPop, rightPop, conditions);
-    final HashJoinPOP hjoin = new HashJoinPOP(leftPop, rightPop, conditions, jtype, vectorize);
+    final RuntimeFilterTarget runtimeFilter = vectorize
+        && creator.getContext().getOptions().getOption(ExecConstants.ENABLE_RUNTIME_FILTER)
+        ? findRuntimeFilterTarget(leftPop, conditions, jtype) : null;
+    final HashJoinPOP hjoin = new HashJoinPOP(leftPop, rightPop, conditions, jtype, vectorize, runtimeFilter);
     return creator.addMetadata(this, hjoin);
   }
 
+  /**
+   * Look for a scan feeding the probe side of the join within the same fragment, only going through
+   * operators that don't change the key values. Probe rows can only be dropped early if a missing
+   * build key means the probe row won't be part of the output.
+   */
+  private static RuntimeFilterTarget findRuntimeFilterTarget(PhysicalOperator leftPop, List<JoinCondition> conditions, JoinRelType jtype) {
+    if (jtype != JoinRelType.INNER && jtype != JoinRelType.RIGHT) {
+      return null;
+    }
+
+    final List<String> names = Lists.newArrayList();
+    for (JoinCondition c : conditions) {
+      if (JoinUtils.checkAndReturnSupportedJoinComparator(c) != Comparator.EQUALS) {
+        return null;
+      }
+      names.add(c.getLeft() instanceof SchemaPath && ((SchemaPath) c.getLeft()).isSimplePath()
+          ? ((SchemaPath) c.getLeft()).getRootSegment().getPath() : null);
+    }
+
+    return RuntimeFilterTarget.find(leftPop, names);
+  }
+
   private boolean canVectorize(FunctionLookupContext functionLookup, PhysicalOperator leftPop, PhysicalOperator rightPop, List<JoinCondition> conditions){
     BatchSchema left = leftPop.getSchema(functionLookup);
     BatchSchema right = rightPop.getSchema(functionLookup);
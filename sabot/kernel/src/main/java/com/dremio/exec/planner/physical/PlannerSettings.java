@@ -98,6 +98,11 @@ public class PlannerSettings implements Context{
   public static final BooleanValidator ENABLE_DECIMAL_DATA_TYPE = new BooleanValidator(ENABLE_DECIMAL_DATA_TYPE_KEY, false);
   public static final BooleanValidator HEP_OPT = new BooleanValidator("planner.enable_hep_opt", true);
   public static final BooleanValidator ENABLE_PARTITION_PRUNING = new BooleanValidator("planner.enable_partition_pruning", true);
+  /**
+   * Controls whether partition filters are answered by an index of the partition values of the dataset, kept across
+   * queries, before being evaluated for each split.
+   */
+  public static final BooleanValidator ENABLE_PARTITION_INDEX = new BooleanValidator("planner.partition_pruning.index.enabled", true);
   public static final LongValidator PLANNER_MEMORY_LIMIT = new RangeLongValidator("planner.memory_limit",
       INITIAL_OFF_HEAP_ALLOCATION_IN_BYTES, MAX_OFF_HEAP_ALLOCATION_IN_BYTES, DEFAULT_MAX_OFF_HEAP_ALLOCATION_IN_BYTES);
   public static final String UNIONALL_DISTRIBUTE_KEY = "planner.enable_unionall_distribute";
@@ -165,6 +170,12 @@ public class PlannerSettings implements Context{
    */
   public static final BooleanValidator REUSE_PREPARE_HANDLES = new BooleanValidator("planner.reuse_prepare_statement_handles", false);
 
+  /**
+   * Controls whether the plans of queries are kept by the coordinator to be reused by later runs of the same query, as
+   * long as the datasets and reflections they use don't change.
+   */
+  public static final BooleanValidator PLAN_CACHE_ENABLED = new BooleanValidator("planner.plan_cache.enabled", false);
+
   public static final BooleanValidator VERBOSE_PROFILE = new BooleanValidator("planner.verbose_profile", false);
 
   public static final BooleanValidator INCLUDE_DATASET_PROFILE = new BooleanValidator("planner.include_dataset_profile", true);
@@ -441,6 +452,10 @@ public class PlannerSettings implements Context{
     return options.getOption(ENABLE_PARTITION_PRUNING);
   }
 
+  public boolean isPartitionIndexEnabled() {
+    return options.getOption(ENABLE_PARTITION_INDEX);
+  }
+
   public boolean isTrivialSingularOptimized() {
     return options.getOption(ENABLE_TRIVIAL_SINGULAR);
   }
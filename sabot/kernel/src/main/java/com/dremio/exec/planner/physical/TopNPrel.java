@@ -16,6 +16,7 @@
 package com.dremio.exec.planner.physical;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.calcite.plan.RelOptCluster;
@@ -27,7 +28,12 @@ import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.RelWriter;
 import org.apache.calcite.rel.metadata.RelMetadataQuery;
 
+import com.dremio.common.expression.LogicalExpression;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.common.logical.data.Order.Ordering;
+import com.dremio.exec.ExecConstants;
 import com.dremio.exec.physical.base.PhysicalOperator;
+import com.dremio.exec.physical.config.RuntimeFilterTarget;
 import com.dremio.exec.physical.config.TopN;
 import com.dremio.exec.planner.cost.DremioCost;
 import com.dremio.exec.planner.cost.DremioCost.Factory;
@@ -55,10 +61,29 @@ public class TopNPrel extends SinglePrel {
 
     PhysicalOperator childPOP = child.getPhysicalOperator(creator);
 
-    TopN topN = new TopN(childPOP, PrelUtil.getOrdering(this.collation, getInput().getRowType()), false, this.limit);
+    final List<Ordering> orderings = PrelUtil.getOrdering(this.collation, getInput().getRowType());
+    final RuntimeFilterTarget runtimeFilter = creator.getContext().getOptions().getOption(ExecConstants.ENABLE_TOPN_RUNTIME_FILTER)
+        ? findRuntimeFilterTarget(childPOP, orderings) : null;
+    TopN topN = new TopN(childPOP, orderings, false, this.limit, runtimeFilter);
     return creator.addMetadata(this, topN);
   }
 
+  /**
+   * Look for a scan feeding the top-n within the same fragment, that can receive the current threshold
+   * on the leading sort key.
+   */
+  private static RuntimeFilterTarget findRuntimeFilterTarget(PhysicalOperator childPOP, List<Ordering> orderings) {
+    if (orderings.isEmpty()) {
+      return null;
+    }
+
+    final LogicalExpression expr = orderings.get(0).getExpr();
+    if (!(expr instanceof SchemaPath) || !((SchemaPath) expr).isSimplePath()) {
+      return null;
+    }
+    return RuntimeFilterTarget.find(childPOP, Collections.singletonList(((SchemaPath) expr).getRootSegment().getPath()));
+  }
+
   /**
    * Cost of doing Top-N is proportional to M log N where M is the total number of
    * input rows and N is the limit for Top-N.  This makes Top-N preferable to Sort
@@ -15,6 +15,7 @@
  */
 package com.dremio.exec.planner.sql.handlers.commands;
 
+import static com.dremio.exec.planner.physical.PlannerSettings.PLAN_CACHE_ENABLED;
 import static com.dremio.exec.planner.physical.PlannerSettings.REUSE_PREPARE_HANDLES;
 import static com.dremio.exec.planner.physical.PlannerSettings.STORE_QUERY_RESULTS;
 
@@ -373,6 +374,18 @@ public class CommandCreator {
       if(prepare){
         return new HandlerToPreparePlan(context, sqlNode, handler, plans, sql, observer, config);
       }
+      if (handler instanceof NormalHandler && context.getOptions().getOption(PLAN_CACHE_ENABLED)) {
+        final PlanCache planCache = dbContext.getPlanCache();
+        final PlanCache.Key key = PlanCache.newKey(context, sqlNode);
+        // as with prepared statements, later attempts are always planned again
+        final PreparedPlan plan = attemptNumber == 0 ? planCache.get(context.getCatalog(), key) : null;
+        if (plan != null) {
+          return new PrepareToExecution(plan, context, observer, dbContext.getPlanReader(), tunnelCreator,
+            queryResourceManager);
+        }
+        return new HandlerToExec(tunnelCreator, context, dbContext.getPlanReader(), observer, sql, sqlNode,
+          handler, config, queryResourceManager, planCache, key);
+      }
       return new HandlerToExec(tunnelCreator, context, dbContext.getPlanReader(), observer, sql, sqlNode,
         handler, config, queryResourceManager);
     }
@@ -22,6 +22,8 @@ import com.dremio.exec.physical.PhysicalPlan;
 import com.dremio.exec.planner.PhysicalPlanReader;
 import com.dremio.exec.planner.fragment.PlanningSet;
 import com.dremio.exec.planner.observer.AttemptObserver;
+import com.dremio.exec.planner.observer.AttemptObservers;
+import com.dremio.exec.planner.physical.PlannerSettings;
 import com.dremio.exec.planner.sql.handlers.SqlHandlerConfig;
 import com.dremio.exec.planner.sql.handlers.query.SqlToPlanHandler;
 import com.dremio.exec.work.foreman.ExecutionPlan;
@@ -40,6 +42,8 @@ public class HandlerToExec extends AsyncCommand<Object> {
   private final SqlToPlanHandler handler;
   private final String sql;
   private final SqlHandlerConfig config;
+  private final PlanCache planCache;
+  private final PlanCache.Key planCacheKey;
 
   private ExecutionPlan exec;
 
@@ -53,6 +57,25 @@ public class HandlerToExec extends AsyncCommand<Object> {
     SqlToPlanHandler handler,
     SqlHandlerConfig config,
     ResourceAllocator queryResourceManager) {
+    this(tunnelCreator, context, reader, observer, sql, sqlNode, handler, config, queryResourceManager, null, null);
+  }
+
+  /**
+   * @param planCache where to keep the plan for later runs of the query, or null if it shouldn't be kept
+   * @param planCacheKey key of the query in the plan cache
+   */
+  public HandlerToExec(
+    CoordToExecTunnelCreator tunnelCreator,
+    QueryContext context,
+    PhysicalPlanReader reader,
+    AttemptObserver observer,
+    String sql,
+    SqlNode sqlNode,
+    SqlToPlanHandler handler,
+    SqlHandlerConfig config,
+    ResourceAllocator queryResourceManager,
+    PlanCache planCache,
+    PlanCache.Key planCacheKey) {
     super(context, queryResourceManager, observer);
     this.tunnelCreator = tunnelCreator;
     this.reader = reader;
@@ -61,12 +84,25 @@ public class HandlerToExec extends AsyncCommand<Object> {
     this.sql = sql;
     this.handler = handler;
     this.config = config;
+    this.planCache = planCache;
+    this.planCacheKey = planCacheKey;
   }
 
   @Override
   public double plan() throws Exception {
-    observer.planStart(sql);
-    PhysicalPlan plan = handler.getPlan(config, sql, sqlNode);
+    final PhysicalPlan plan;
+    if (planCache == null) {
+      observer.planStart(sql);
+      plan = handler.getPlan(config, sql, sqlNode);
+    } else {
+      final PlanCache.Recorder recorder = new PlanCache.Recorder(
+        context.getOptions().getOption(PlannerSettings.VERBOSE_PROFILE),
+        context.getOptions().getOption(PlannerSettings.INCLUDE_DATASET_PROFILE));
+      final AttemptObservers observers = AttemptObservers.of(observer, recorder);
+      observers.planStart(sql);
+      plan = handler.getPlan(config.cloneWithNewObserver(observers), sql, sqlNode);
+      planCache.put(planCacheKey, context.getQueryId(), context.getQueryUserName(), plan, recorder);
+    }
     final PlanningSet planningSet = allocateResourcesBasedOnPlan(plan);
     exec = ExecutionPlanCreator.getExecutionPlan(context, reader, observer, plan,
       resourceSet, planningSet);
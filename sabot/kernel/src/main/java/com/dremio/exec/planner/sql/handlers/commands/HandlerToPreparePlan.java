@@ -25,6 +25,7 @@ import org.apache.calcite.rel.RelRoot;
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.sql.SqlNode;
 
+import com.dremio.exec.catalog.DremioTable;
 import com.dremio.exec.ops.QueryContext;
 import com.dremio.exec.physical.PhysicalPlan;
 import com.dremio.exec.planner.PlannerPhase;
@@ -37,6 +38,8 @@ import com.dremio.exec.planner.sql.SqlExceptionHelper;
 import com.dremio.exec.planner.sql.handlers.SqlHandlerConfig;
 import com.dremio.exec.planner.sql.handlers.query.SqlToPlanHandler;
 import com.dremio.exec.proto.ExecProtos.ServerPreparedStatementState;
+import com.dremio.exec.proto.UserBitShared.DatasetProfile;
+import com.dremio.exec.proto.UserBitShared.PlanPhaseProfile;
 import com.dremio.exec.proto.UserProtos.CreatePreparedStatementResp;
 import com.dremio.exec.work.foreman.ExecutionPlan;
 import com.google.common.cache.Cache;
@@ -208,6 +211,17 @@ public class HandlerToPreparePlan implements CommandRunner<CreatePreparedStateme
       calls.add(observer -> observer.planJsonPlan(text));
     }
 
+    @Override
+    public void planFromCache(final List<PlanPhaseProfile> planPhases, final String text, final String json,
+                              final List<DatasetProfile> datasets) {
+      calls.add(observer -> observer.planFromCache(planPhases, text, json, datasets));
+    }
+
+    @Override
+    public void tablesCollected(final Iterable<DremioTable> tables) {
+      calls.add(observer -> observer.tablesCollected(tables));
+    }
+
     public void replay(AttemptObserver observer) {
       for(ObserverCall c : calls){
         c.doCall(observer);
@@ -0,0 +1,378 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner.sql.handlers.commands;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelVisitor;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexShuttle;
+import org.apache.calcite.rex.RexSubQuery;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.SqlOperator;
+
+import com.dremio.exec.catalog.Catalog;
+import com.dremio.exec.catalog.DremioTable;
+import com.dremio.exec.ops.QueryContext;
+import com.dremio.exec.physical.PhysicalPlan;
+import com.dremio.exec.planner.PlanCaptureAttemptObserver;
+import com.dremio.exec.planner.acceleration.DremioMaterialization;
+import com.dremio.exec.planner.acceleration.MaterializationDescriptor;
+import com.dremio.exec.planner.acceleration.substitution.SubstitutionInfo;
+import com.dremio.exec.planner.sql.handlers.commands.HandlerToPreparePlan.RecordingObserver;
+import com.dremio.exec.proto.UserBitShared.DatasetProfile;
+import com.dremio.exec.proto.UserBitShared.PlanPhaseProfile;
+import com.dremio.exec.proto.UserBitShared.QueryId;
+import com.dremio.exec.store.sys.accel.AccelerationDetailsPopulator;
+import com.dremio.exec.work.user.SubstitutionSettings;
+import com.dremio.options.OptionValue;
+import com.dremio.sabot.rpc.user.UserSession;
+import com.dremio.service.namespace.NamespaceKey;
+import com.dremio.service.namespace.dataset.proto.DatasetConfig;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Plans of queries kept by a coordinator to be reused by later runs of the same query.<br>
+ * <br>
+ * Plans are keyed by the normalized sql of the query, along with everything planning depends on: the user, the
+ * session settings, the options and the reflections available. An entry also keeps the version of the datasets the
+ * query was planned against, and is dropped when one of them has changed (for example after its metadata is
+ * refreshed), so the query is planned again. Queries calling non-deterministic or context dependent functions (like
+ * NOW() or USER()) are not cached.
+ */
+public class PlanCache {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(PlanCache.class);
+
+  private final Cache<Key, Entry> plans;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong invalidations = new AtomicLong();
+
+  public PlanCache(long maxEntries) {
+    this.plans = CacheBuilder.newBuilder()
+      .maximumSize(maxEntries)
+      .softValues()
+      .build();
+  }
+
+  /**
+   * @return the key of the query, to be computed before the query is planned as planning rewrites the sql node
+   */
+  public static Key newKey(QueryContext context, SqlNode sqlNode) {
+    final UserSession session = context.getSession();
+
+    final SortedMap<String, Object> options = new TreeMap<>();
+    // options are listed from the system level to the query level, so the latter values win
+    for (OptionValue option : context.getOptions()) {
+      options.put(option.getName(), option.getValue());
+    }
+
+    final List<String> materializations = new ArrayList<>();
+    for (MaterializationDescriptor descriptor : context.getMaterializationProvider().get()) {
+      materializations.add(descriptor.getMaterializationId() + ":" + descriptor.getVersion());
+    }
+    Collections.sort(materializations);
+
+    final SubstitutionSettings substitution = session.getSubstitutionSettings();
+    return new Key(
+      sqlNode.toString(),
+      context.getQueryUserName(),
+      Objects.toString(session.getDefaultSchemaPath(), null),
+      session.getCatalogName(),
+      session.isSupportComplexTypes(),
+      substitution == null ? ImmutableList.<String>of() : ImmutableList.copyOf(substitution.getExclusions()),
+      substitution == null ? ImmutableList.<String>of() : ImmutableList.copyOf(substitution.getInclusions()),
+      options,
+      materializations);
+  }
+
+  /**
+   * Look up the plan of a query, checking that the datasets it was planned against haven't changed.
+   *
+   * @return the plan, or null if the query needs to be planned
+   */
+  public PreparedPlan get(Catalog catalog, Key key) {
+    final Entry entry = plans.getIfPresent(key);
+    if (entry == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+
+    for (Map.Entry<NamespaceKey, String> dataset : entry.versions.entrySet()) {
+      if (!dataset.getValue().equals(getCurrentVersion(catalog, dataset.getKey()))) {
+        logger.debug("Dataset {} changed, dropping cached plan", dataset.getKey());
+        plans.asMap().remove(key, entry);
+        invalidations.incrementAndGet();
+        misses.incrementAndGet();
+        return null;
+      }
+    }
+
+    hits.incrementAndGet();
+    return entry.plan;
+  }
+
+  /**
+   * Keep the plan of a query, unless something recorded while planning it prevents its reuse.
+   */
+  public void put(Key key, QueryId prepareId, String username, PhysicalPlan plan, Recorder recorder) {
+    if (!recorder.isCacheable()) {
+      return;
+    }
+    plans.put(key, new Entry(recorder.newPreparedPlan(prepareId, username, plan), recorder.versions));
+  }
+
+  public Stats getStats(String hostname) {
+    final Stats stats = new Stats();
+    stats.hostname = hostname;
+    stats.entries = plans.size();
+    stats.hits = hits.get();
+    stats.misses = misses.get();
+    stats.invalidations = invalidations.get();
+    return stats;
+  }
+
+  private static String getCurrentVersion(Catalog catalog, NamespaceKey path) {
+    try {
+      final DremioTable table = catalog.getTable(path);
+      return table == null ? null : getVersion(table);
+    } catch (RuntimeException e) {
+      // let planning report the failure if there's an actual issue with the dataset
+      logger.debug("Failure while checking dataset {} for cached plan", path, e);
+      return null;
+    }
+  }
+
+  private static String getVersion(DremioTable table) {
+    final DatasetConfig config = table.getDatasetConfig();
+    return config == null ? null : config.getTag();
+  }
+
+  /**
+   * @return true if none of the expressions of the plan calls a non-deterministic or context dependent function
+   */
+  static boolean isDeterministic(RelNode rel) {
+    final NonDeterministicCallFinder finder = new NonDeterministicCallFinder();
+    finder.go(rel);
+    return !finder.found;
+  }
+
+  private static class NonDeterministicCallFinder extends RelVisitor {
+    private boolean found = false;
+
+    private final RexShuttle shuttle = new RexShuttle() {
+      @Override
+      public RexNode visitCall(RexCall call) {
+        final SqlOperator operator = call.getOperator();
+        if (!operator.isDeterministic() || operator.isDynamicFunction()) {
+          found = true;
+        }
+        return super.visitCall(call);
+      }
+
+      @Override
+      public RexNode visitSubQuery(RexSubQuery subQuery) {
+        go(subQuery.rel);
+        return super.visitSubQuery(subQuery);
+      }
+    };
+
+    @Override
+    public void visit(RelNode node, int ordinal, RelNode parent) {
+      node.accept(shuttle);
+      super.visit(node, ordinal, parent);
+    }
+  }
+
+  /**
+   * Captures the profile of the planning of a query, along with what tells whether its plan can be cached.<br>
+   * <br>
+   * Everything kept for later runs of the query is converted to text while the query is planned, so cached entries
+   * don't hold on to the planner or the relational trees, and are safe to use from concurrent queries.
+   */
+  public static class Recorder extends PlanCaptureAttemptObserver {
+    private final Map<NamespaceKey, String> versions = new HashMap<>();
+    private boolean tablesCollected = false;
+    private boolean cacheable = true;
+
+    private String sql;
+    private RelDataType rowType;
+    private SqlNode node;
+    private long validationMillis;
+
+    public Recorder(boolean verbose, boolean includeDatasetProfiles) {
+      super(verbose, includeDatasetProfiles, null, AccelerationDetailsPopulator.NO_OP);
+    }
+
+    @Override
+    public void planStart(String rawPlan) {
+      sql = rawPlan;
+    }
+
+    @Override
+    public void planValidated(RelDataType rowType, SqlNode node, long millisTaken) {
+      // replayed as is, rather than as part of the planning phases
+      this.rowType = rowType;
+      this.node = node;
+      this.validationMillis = millisTaken;
+    }
+
+    @Override
+    public void planConvertedToRel(RelNode converted, long millisTaken) {
+      super.planConvertedToRel(converted, millisTaken);
+      if (!isDeterministic(converted)) {
+        cacheable = false;
+      }
+    }
+
+    @Override
+    public void planSubstituted(DremioMaterialization materialization, List<RelNode> substitutions, RelNode target,
+                                long millisTaken) {
+      // substitutions are reported with the reflections used, which are not kept
+      cacheable = false;
+    }
+
+    @Override
+    public void planAccelerated(SubstitutionInfo info) {
+      cacheable = false;
+    }
+
+    @Override
+    public void tablesCollected(Iterable<DremioTable> tables) {
+      super.tablesCollected(tables);
+      tablesCollected = true;
+      for (DremioTable table : tables) {
+        final String version = getVersion(table);
+        if (version == null) {
+          // changes to the dataset cannot be detected
+          cacheable = false;
+        } else {
+          versions.put(table.getPath(), version);
+        }
+      }
+    }
+
+    boolean isCacheable() {
+      return cacheable && tablesCollected && rowType != null;
+    }
+
+    private PreparedPlan newPreparedPlan(QueryId prepareId, String username, PhysicalPlan plan) {
+      final List<PlanPhaseProfile> planPhases = ImmutableList.copyOf(getPlanPhases());
+      final List<DatasetProfile> datasets = ImmutableList.copyOf(getDatasets());
+      final String text = getText();
+      final String json = getJson();
+
+      final RecordingObserver observer = new RecordingObserver();
+      observer.planStart(sql);
+      observer.planValidated(rowType, node, validationMillis);
+      observer.planFromCache(planPhases, text, json, datasets);
+      return new PreparedPlan(prepareId, username, sql, plan, observer);
+    }
+  }
+
+  private static final class Entry {
+    private final PreparedPlan plan;
+    private final Map<NamespaceKey, String> versions;
+
+    private Entry(PreparedPlan plan, Map<NamespaceKey, String> versions) {
+      this.plan = plan;
+      this.versions = ImmutableMap.copyOf(versions);
+    }
+  }
+
+  /**
+   * Key of a plan.
+   */
+  public static final class Key {
+    private final String sql;
+    private final String username;
+    private final String defaultSchema;
+    private final String catalogName;
+    private final boolean supportComplexTypes;
+    private final List<String> substitutionExclusions;
+    private final List<String> substitutionInclusions;
+    private final SortedMap<String, Object> options;
+    private final List<String> materializations;
+    private final int hashCode;
+
+    Key(String sql, String username, String defaultSchema, String catalogName, boolean supportComplexTypes,
+        List<String> substitutionExclusions, List<String> substitutionInclusions, SortedMap<String, Object> options,
+        List<String> materializations) {
+      this.sql = sql;
+      this.username = username;
+      this.defaultSchema = defaultSchema;
+      this.catalogName = catalogName;
+      this.supportComplexTypes = supportComplexTypes;
+      this.substitutionExclusions = substitutionExclusions;
+      this.substitutionInclusions = substitutionInclusions;
+      this.options = options;
+      this.materializations = materializations;
+      this.hashCode = Objects.hash(sql, username, defaultSchema, catalogName, supportComplexTypes,
+        substitutionExclusions, substitutionInclusions, options, materializations);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      final Key that = (Key) obj;
+      return hashCode == that.hashCode
+        && sql.equals(that.sql)
+        && Objects.equals(username, that.username)
+        && Objects.equals(defaultSchema, that.defaultSchema)
+        && Objects.equals(catalogName, that.catalogName)
+        && supportComplexTypes == that.supportComplexTypes
+        && Objects.equals(substitutionExclusions, that.substitutionExclusions)
+        && Objects.equals(substitutionInclusions, that.substitutionInclusions)
+        && options.equals(that.options)
+        && materializations.equals(that.materializations);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /**
+   * sys.plan_cache entry
+   */
+  public static class Stats {
+    public String hostname;
+    public long entries;
+    public long hits;
+    public long misses;
+    public long invalidations;
+  }
+}
@@ -57,16 +57,27 @@ public class ArrowRecordBatchLoader implements VectorAccessible, Iterable<Vector
   private VectorContainer container;
   private int valueCount;
   private BatchSchema schema;
+  // allocator of the decompressed bodies of compressed batches
+  private final BufferAllocator allocator;
 
   public ArrowRecordBatchLoader(VectorContainer container) {
+    this(container, null);
+  }
+
+  /**
+   * @param allocator allocator to decompress compressed batches with, null if the batches are never compressed
+   */
+  public ArrowRecordBatchLoader(VectorContainer container, BufferAllocator allocator) {
     this.container = container;
     this.schema = container.getSchema();
+    this.allocator = allocator;
   }
 
   public ArrowRecordBatchLoader(BufferAllocator allocator, BatchSchema schema) {
     Preconditions.checkNotNull(allocator);
     this.schema = schema;
     this.container = VectorContainer.create(allocator, schema);
+    this.allocator = allocator;
   }
 
 
@@ -94,8 +105,13 @@ public class ArrowRecordBatchLoader implements VectorAccessible, Iterable<Vector
       if (valueCount == 0) {
         return 0;
       }
-      size = batch.getBody().readableBytes();
-      load(recordBatch, container, batch.getBody());
+      final List<Integer> compressedLengths = batch.getHeader().getCompressedBufferLengthList();
+      if (compressedLengths.isEmpty()) {
+        size = batch.getBody().readableBytes();
+        load(recordBatch, container, batch.getBody());
+      } else {
+        size = loadCompressed(recordBatch, compressedLengths, batch.getBody());
+      }
     } catch (final Throwable cause) {
       // We have to clean up new vectors created here and pass over the actual cause. It is upper layer who should
       // adjudicate to call upper layer specific clean up logic.
@@ -106,6 +122,23 @@ public class ArrowRecordBatchLoader implements VectorAccessible, Iterable<Vector
     return size;
   }
 
+  private int loadCompressed(RecordBatch recordBatch, List<Integer> compressedLengths, ArrowBuf compressedBody) {
+    Preconditions.checkState(allocator != null, "No allocator to decompress a compressed batch");
+    final ArrowBuf body;
+    try {
+      body = ExchangeCompression.decompress(allocator, recordBatch, compressedLengths, compressedBody);
+    } catch (IOException e) {
+      throw new RuntimeException("could not decompress batch for " + schema, e);
+    }
+    try {
+      load(recordBatch, container, body);
+      return body.readableBytes();
+    } finally {
+      // the vectors hold their own references
+      body.release();
+    }
+  }
+
   public static ArrowRecordBatch deserializeRecordBatch(RecordBatch recordBatchFB,
                                                         ArrowBuf body) throws IOException {
     // Now read the body
@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.record;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.arrow.flatbuf.Buffer;
+import org.apache.arrow.flatbuf.RecordBatch;
+import org.apache.arrow.memory.BufferAllocator;
+import org.xerial.snappy.Snappy;
+
+import com.dremio.exec.ExecConstants;
+import com.dremio.options.OptionManager;
+import com.google.common.base.Preconditions;
+
+import io.netty.buffer.ArrowBuf;
+
+/**
+ * Compression of the batches sent between fragments.<br>
+ * <br>
+ * Each buffer of a batch is compressed on its own with snappy, straight from and into direct memory, and the lengths
+ * of the compressed buffers are sent in the batch header. A buffer that doesn't get smaller is sent as is, which the
+ * receiver tells from its compressed length being its actual length. Receivers don't need to be told whether a sender
+ * compresses: they decompress the batches whose header has compressed lengths, once the batch is consumed, so batches
+ * waiting in the receiver's queue stay compressed.<br>
+ * <br>
+ * A sender keeps one instance for the exchange. Batches that don't compress well are sent uncompressed, and after a
+ * few of them in a row compression is suspended for a while, as the data may change along the stream.
+ */
+public class ExchangeCompression {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ExchangeCompression.class);
+
+  // buffers smaller than this (like the validity buffers of small batches) are sent as is
+  private static final int MIN_COMPRESSED_SIZE = 64;
+  // number of consecutive batches not compressing well after which compression is suspended
+  private static final int MAX_POOR_BATCHES = 4;
+  // number of batches sent uncompressed while compression is suspended
+  private static final int SUSPENDED_BATCHES = 64;
+
+  private final BufferAllocator allocator;
+  private final double maxRatio;
+
+  private int poorBatches;
+  private int suspendedBatches;
+
+  public ExchangeCompression(BufferAllocator allocator, double maxRatio) {
+    this.allocator = allocator;
+    this.maxRatio = maxRatio;
+  }
+
+  /**
+   * @return the compression of the batches a sender sends, or null if they are sent uncompressed
+   */
+  public static ExchangeCompression create(OptionManager options, BufferAllocator allocator) {
+    if ("none".equalsIgnoreCase(options.getOption(ExecConstants.EXCHANGE_COMPRESSION))) {
+      return null;
+    }
+    return new ExchangeCompression(allocator, options.getOption(ExecConstants.EXCHANGE_COMPRESSION_MAX_RATIO));
+  }
+
+  /**
+   * Compress the buffers of a batch. The given buffers are left untouched.
+   *
+   * @return the buffers to send instead, or null if the batch should be sent uncompressed
+   */
+  public List<ArrowBuf> compress(List<ArrowBuf> buffers) {
+    if (suspendedBatches > 0) {
+      suspendedBatches--;
+      return null;
+    }
+
+    final List<ArrowBuf> compressed = new ArrayList<>(buffers.size());
+    long length = 0;
+    long compressedLength = 0;
+    try {
+      for (ArrowBuf buffer : buffers) {
+        final ArrowBuf compressedBuffer = compress(buffer);
+        compressed.add(compressedBuffer);
+        length += buffer.readableBytes();
+        compressedLength += compressedBuffer.readableBytes();
+      }
+    } catch (IOException e) {
+      release(compressed);
+      logger.warn("Failure while compressing a batch, sending it uncompressed", e);
+      return null;
+    } catch (RuntimeException e) {
+      release(compressed);
+      throw e;
+    }
+
+    if (compressedLength > length * maxRatio) {
+      release(compressed);
+      if (++poorBatches == MAX_POOR_BATCHES) {
+        logger.debug("Batches don't compress well, suspending compression for {} batches", SUSPENDED_BATCHES);
+        poorBatches = 0;
+        suspendedBatches = SUSPENDED_BATCHES;
+      }
+      return null;
+    }
+    poorBatches = 0;
+    return compressed;
+  }
+
+  private ArrowBuf compress(ArrowBuf buffer) throws IOException {
+    final int length = buffer.readableBytes();
+    if (length >= MIN_COMPRESSED_SIZE) {
+      final ArrowBuf compressed = allocator.buffer(Snappy.maxCompressedLength(length));
+      try {
+        final int compressedLength = Snappy.compress(buffer.nioBuffer(buffer.readerIndex(), length),
+          compressed.nioBuffer(0, compressed.capacity()));
+        if (compressedLength < length) {
+          compressed.writerIndex(compressedLength);
+          return compressed;
+        }
+      } catch (IOException | RuntimeException e) {
+        compressed.release();
+        throw e;
+      }
+      compressed.release();
+    }
+    // sent as is
+    buffer.retain();
+    return buffer;
+  }
+
+  private static void release(List<ArrowBuf> buffers) {
+    for (ArrowBuf buffer : buffers) {
+      buffer.release();
+    }
+  }
+
+  /**
+   * Decompress the body of a batch into a new buffer, laid out as described by the arrow metadata of the batch.
+   *
+   * @param compressedLengths lengths of the buffers in the compressed body
+   * @return the decompressed body, owned by the caller
+   */
+  public static ArrowBuf decompress(BufferAllocator allocator, RecordBatch recordBatch, List<Integer> compressedLengths,
+      ArrowBuf body) throws IOException {
+    Preconditions.checkArgument(compressedLengths.size() == recordBatch.buffersLength(),
+      "Expected %s compressed buffers, found %s", recordBatch.buffersLength(), compressedLengths.size());
+    long length = 0;
+    for (int i = 0; i < recordBatch.buffersLength(); i++) {
+      final Buffer buffer = recordBatch.buffers(i);
+      length = Math.max(length, buffer.offset() + buffer.length());
+    }
+    if ((int) length != length) {
+      throw new IOException("Cannot currently decompress record batches over 2GB");
+    }
+
+    final ArrowBuf decompressed = allocator.buffer((int) length);
+    try {
+      int compressedOffset = 0;
+      for (int i = 0; i < recordBatch.buffersLength(); i++) {
+        final Buffer buffer = recordBatch.buffers(i);
+        final int bufferLength = (int) buffer.length();
+        final int compressedLength = compressedLengths.get(i);
+        if (compressedLength == bufferLength) {
+          decompressed.setBytes((int) buffer.offset(), body, compressedOffset, bufferLength);
+        } else {
+          final ByteBuffer input = body.nioBuffer(compressedOffset, compressedLength);
+          if (Snappy.uncompressedLength(input) != bufferLength) {
+            throw new IOException("Compressed buffer " + i + " doesn't have the expected length " + bufferLength);
+          }
+          Snappy.uncompress(input, decompressed.nioBuffer((int) buffer.offset(), bufferLength));
+        }
+        compressedOffset += compressedLength;
+      }
+      decompressed.writerIndex((int) length);
+      return decompressed;
+    } catch (IOException | RuntimeException e) {
+      decompressed.release();
+      throw e;
+    }
+  }
+}
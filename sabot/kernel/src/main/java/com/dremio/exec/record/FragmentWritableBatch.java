@@ -62,6 +62,39 @@ public class FragmentWritableBatch{
     );
   }
 
+  /**
+   * Create a batch, compressed if compression is enabled and the batch compresses well.
+   *
+   * @param compression compression of the exchange, null to send the batch uncompressed
+   */
+  public static FragmentWritableBatch create(
+    final QueryId queryId,
+    final int sendMajorFragmentId,
+    final int sendMinorFragmentId,
+    final int receiveMajorFragmentId,
+    final VectorAccessible batch,
+    final ExchangeCompression compression,
+    final int receiveMinorFragmentId) {
+
+    ArrowRecordBatch recordBatch = getArrowRecordBatch(batch);
+    List<ArrowBuf> compressedBuffers = compression == null ? null : compression.compress(recordBatch.getBuffers());
+
+    FragmentWritableBatch writableBatch = new FragmentWritableBatch(
+      queryId,
+      sendMajorFragmentId,
+      sendMinorFragmentId,
+      receiveMajorFragmentId,
+      recordBatch,
+      compressedBuffers,
+      receiveMinorFragmentId
+    );
+    if (compressedBuffers != null) {
+      // the compressed buffers are sent instead
+      recordBatch.close();
+    }
+    return writableBatch;
+  }
+
   public static ArrowRecordBatch getArrowRecordBatch(final VectorAccessible batch) {
     VectorSchemaRoot root = getVectorSchemaRoot(batch);
     VectorUnloader unloader = new VectorUnloader(root, false, false);
@@ -100,7 +133,23 @@ public class FragmentWritableBatch{
       final int receiveMajorFragmentId,
       ArrowRecordBatch recordBatch,
       final int... receiveMinorFragmentId){
-    this.buffers = recordBatch.getBuffers().toArray(new ByteBuf[0]);
+    this(queryId, sendMajorFragmentId, sendMinorFragmentId, receiveMajorFragmentId, recordBatch, null,
+      receiveMinorFragmentId);
+  }
+
+  /**
+   * @param compressedBuffers buffers of the record batch once compressed (see {@link ExchangeCompression}), sent
+   *                          instead of the buffers of the record batch. null to send the batch uncompressed.
+   */
+  public FragmentWritableBatch(
+      final QueryId queryId,
+      final int sendMajorFragmentId,
+      final int sendMinorFragmentId,
+      final int receiveMajorFragmentId,
+      ArrowRecordBatch recordBatch,
+      List<ArrowBuf> compressedBuffers,
+      final int... receiveMinorFragmentId){
+    this.buffers = (compressedBuffers != null ? compressedBuffers : recordBatch.getBuffers()).toArray(new ByteBuf[0]);
     this.recordCount = recordBatch.getLength();
     FlatBufferBuilder fbbuilder = new FlatBufferBuilder();
     fbbuilder.finish(recordBatch.writeTo(fbbuilder));
@@ -116,6 +165,12 @@ public class FragmentWritableBatch{
       builder.addReceivingMinorFragmentId(i);
     }
 
+    if (compressedBuffers != null) {
+      for (final ArrowBuf buf : compressedBuffers) {
+        builder.addCompressedBufferLength(buf.readableBytes());
+      }
+    }
+
     this.header = builder.build();
   }
 
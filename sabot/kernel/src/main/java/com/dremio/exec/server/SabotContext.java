@@ -35,10 +35,13 @@ import com.dremio.datastore.KVStoreProvider;
 import com.dremio.exec.catalog.ConnectionReader;
 import com.dremio.exec.catalog.ViewCreatorFactory;
 import com.dremio.exec.catalog.ViewCreatorFactory.ViewCreator;
+import com.dremio.exec.ExecConstants;
 import com.dremio.exec.compile.CodeCompiler;
 import com.dremio.exec.expr.fn.FunctionImplementationRegistry;
 import com.dremio.exec.planner.PhysicalPlanReader;
+import com.dremio.exec.planner.logical.partition.PartitionIndexCache;
 import com.dremio.exec.planner.observer.QueryObserverFactory;
+import com.dremio.exec.planner.sql.handlers.commands.PlanCache;
 import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 import com.dremio.exec.server.options.SystemOptionManager;
 import com.dremio.exec.store.CatalogService;
@@ -71,6 +74,8 @@ public class SabotContext implements AutoCloseable {
   private final Provider<WorkStats> workStatsProvider;
   private final Provider<RunningQueryProvider> runningQueriesProvider;
   private final CodeCompiler compiler;
+  private final PlanCache planCache;
+  private final PartitionIndexCache partitionIndexCache;
   private final ScanResult classpathScan;
   private final LogicalPlanPersistence lpPersistence;
   private volatile Provider<MaterializationDescriptorProvider> materializationProvider;
@@ -134,6 +139,8 @@ public class SabotContext implements AutoCloseable {
     this.systemOptions = new SystemOptionManager(classpathScan, lpPersistence, provider);
     this.functionRegistry = new FunctionImplementationRegistry(config, classpathScan, systemOptions);
     this.compiler = new CodeCompiler(config, systemOptions);
+    this.planCache = new PlanCache(config.getLong(ExecConstants.PLAN_CACHE_MAX_ENTRIES_CONFIG));
+    this.partitionIndexCache = new PartitionIndexCache(config.getLong(ExecConstants.PARTITION_INDEX_CACHE_MAX_ENTRIES_CONFIG));
 
     this.kvStoreProvider = kvStoreProvider;
     this.namespaceServiceFactory = namespaceServiceFactory;
@@ -251,6 +258,14 @@ public class SabotContext implements AutoCloseable {
     return compiler;
   }
 
+  public PlanCache getPlanCache() {
+    return planCache;
+  }
+
+  public PartitionIndexCache getPartitionIndexCache() {
+    return partitionIndexCache;
+  }
+
   public LogicalPlanPersistence getLpPersistence() {
     return lpPersistence;
   }
@@ -23,6 +23,7 @@ import org.apache.arrow.memory.OutOfMemoryException;
 import org.apache.arrow.vector.ValueVector;
 
 import com.dremio.common.exceptions.ExecutionSetupException;
+import com.dremio.exec.proto.ExecProtos.RuntimeFilter;
 import com.dremio.sabot.driver.SchemaChangeMutator;
 import com.dremio.sabot.op.scan.OutputMutator;
 
@@ -56,4 +57,14 @@ public interface RecordReader extends AutoCloseable {
    */
   @Nonnull
   SchemaChangeMutator getSchemaChangeMutator();
+
+  /**
+   * Provide a filter on the values of some fields, built from the build side of a hash join. Records
+   * not matching the filter are dropped by the scan, but readers may use it to skip data altogether.
+   * Filters can be added before {@link #setup(OutputMutator)} or at any time while reading.
+   *
+   * @param filter the runtime filter
+   */
+  default void addRuntimeFilter(RuntimeFilter filter) {
+  }
 }
@@ -17,6 +17,7 @@ package com.dremio.exec.store;
 
 import com.dremio.datastore.SearchTypes;
 import com.dremio.service.namespace.dataset.proto.DatasetSplit;
+import com.dremio.service.namespace.dataset.proto.DatasetSplitChunk;
 import com.google.common.base.Predicate;
 
 /**
@@ -60,6 +61,12 @@ public interface SplitsPointer extends SplitsKey {
    */
   Iterable<DatasetSplit> getSplitIterable();
 
+  /**
+   * Iterable for the chunks holding the splits.
+   * @return the chunks, or null if the splits are not available as chunks
+   */
+  Iterable<DatasetSplitChunk> getSplitChunks();
+
 
   /**
    * Materialize this splits in this split pointer if they aren't already
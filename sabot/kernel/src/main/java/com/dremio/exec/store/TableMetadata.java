@@ -25,6 +25,7 @@ import com.dremio.service.namespace.NamespaceException;
 import com.dremio.service.namespace.NamespaceKey;
 import com.dremio.service.namespace.dataset.proto.DatasetConfig;
 import com.dremio.service.namespace.dataset.proto.DatasetSplit;
+import com.dremio.service.namespace.dataset.proto.DatasetSplitChunk;
 import com.dremio.service.namespace.dataset.proto.DatasetType;
 import com.dremio.service.namespace.dataset.proto.ReadDefinition;
 import com.dremio.service.namespace.file.proto.FileConfig;
@@ -72,6 +73,13 @@ public interface TableMetadata {
 
   Iterator<DatasetSplit> getSplits();
 
+  /**
+   * Get the splits stored in chunks, along with their partition values by column
+   *
+   * @return the chunks of all the splits, or null if the splits are not available as chunks
+   */
+  Iterable<DatasetSplitChunk> getSplitChunks();
+
   double getSplitRatio() throws NamespaceException;
 
   int getSplitCount();
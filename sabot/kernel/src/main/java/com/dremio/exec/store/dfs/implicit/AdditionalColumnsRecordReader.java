@@ -26,6 +26,7 @@ import org.apache.arrow.vector.ValueVector;
 import com.dremio.common.AutoCloseables;
 import com.dremio.common.exceptions.ExecutionSetupException;
 import com.dremio.common.exceptions.UserException;
+import com.dremio.exec.proto.ExecProtos.RuntimeFilter;
 import com.dremio.exec.store.RecordReader;
 import com.dremio.sabot.driver.SchemaChangeMutator;
 import com.dremio.sabot.op.scan.OutputMutator;
@@ -70,6 +71,11 @@ public class AdditionalColumnsRecordReader implements RecordReader {
     return inner.getSchemaChangeMutator();
   }
 
+  @Override
+  public void addRuntimeFilter(RuntimeFilter filter) {
+    inner.addRuntimeFilter(filter);
+  }
+
   @Override
   public void allocate(Map<String, ValueVector> vectorMap) throws OutOfMemoryException {
     inner.allocate(vectorMap);
@@ -0,0 +1,357 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.hadoop.fs.ByteBufferReadable;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PositionedReadable;
+import org.apache.hadoop.fs.Seekable;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.util.CompatibilityUtil;
+
+import com.dremio.common.AutoCloseables;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
+
+import io.netty.buffer.ArrowBuf;
+
+/**
+ * Reads the column chunks of a row group with as few reads as possible: chunks separated by at most maxGap bytes are
+ * merged into a single range, and all the ranges are read one after the other by a background task as soon as
+ * {@link #start()} is called. The page readers then read the chunks from memory, and only wait if the range holding
+ * their chunk isn't loaded yet.<br>
+ * <br>
+ * The ranges are only prefetched if their total size is under the memory budget, otherwise the chunks are streamed
+ * from the file as before.
+ */
+public class ColumnChunkPrefetcher implements AutoCloseable {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ColumnChunkPrefetcher.class);
+
+  private final FileSystem fs;
+  private final Path path;
+  private final BufferAllocator allocator;
+  private final ExecutorService executor;
+  private final ParquetReaderStats stats;
+  private final List<Range> ranges;
+
+  private boolean started;
+  private Future<?> task;
+  private volatile boolean closed;
+
+  /**
+   * Contiguous part of the file, holding one or more column chunks
+   */
+  static final class Range {
+    private final long start;
+    private long end;
+    private ArrowBuf buffer;
+    private final SettableFuture<Void> loaded = SettableFuture.create();
+
+    Range(long start, long end) {
+      this.start = start;
+      this.end = end;
+    }
+
+    long getStart() {
+      return start;
+    }
+
+    long getEnd() {
+      return end;
+    }
+
+    int length() {
+      return (int) (end - start);
+    }
+  }
+
+  /**
+   * @param executor executor running the reads, or null to read each range the first time it's accessed
+   * @param chunks column chunks to prefetch
+   * @param maxGap maximum number of bytes between two chunks read by the same range
+   * @param maxBytes memory budget, nothing is prefetched if the ranges don't fit
+   */
+  public ColumnChunkPrefetcher(FileSystem fs, Path path, BufferAllocator allocator, ExecutorService executor,
+      List<ColumnChunkMetaData> chunks, long maxGap, long maxBytes, ParquetReaderStats stats) {
+    this.fs = fs;
+    this.path = path;
+    this.allocator = allocator;
+    this.executor = executor;
+    this.stats = stats;
+
+    final List<Range> coalesced = coalesce(chunks, maxGap);
+    long totalBytes = 0;
+    for (Range range : coalesced) {
+      totalBytes += range.length();
+    }
+    this.ranges = totalBytes <= maxBytes ? coalesced : Collections.<Range>emptyList();
+  }
+
+  /**
+   * Merge the ranges of the chunks separated by at most maxGap bytes
+   */
+  static List<Range> coalesce(List<ColumnChunkMetaData> chunks, long maxGap) {
+    final List<ColumnChunkMetaData> sorted = new ArrayList<>(chunks);
+    sorted.sort(Comparator.comparingLong(ColumnChunkMetaData::getStartingPos));
+
+    final List<Range> ranges = new ArrayList<>();
+    Range current = null;
+    for (ColumnChunkMetaData chunk : sorted) {
+      final long start = chunk.getStartingPos();
+      final long end = start + chunk.getTotalSize();
+      if (current != null && start - current.end <= maxGap && end - current.start <= Integer.MAX_VALUE) {
+        current.end = Math.max(current.end, end);
+      } else {
+        current = new Range(start, end);
+        ranges.add(current);
+      }
+    }
+    return ranges;
+  }
+
+  /**
+   * Allocate the buffers of the ranges and start reading them in the background
+   */
+  public void start() {
+    Preconditions.checkState(!started, "prefetch already started");
+    started = true;
+    if (ranges.isEmpty()) {
+      return;
+    }
+    for (Range range : ranges) {
+      range.buffer = allocator.buffer(range.length());
+      stats.numCoalescedReads++;
+      stats.totalCoalescedReadBytes += range.length();
+    }
+    if (executor != null) {
+      task = executor.submit(this::loadAll);
+    }
+  }
+
+  private void loadAll() {
+    Throwable failure = null;
+    try (FSDataInputStream input = fs.open(path)) {
+      for (Range range : ranges) {
+        if (closed) {
+          break;
+        }
+        load(input, range);
+      }
+    } catch (Throwable t) {
+      failure = t;
+    } finally {
+      // fail the ranges left if the file couldn't be opened or the prefetcher was closed
+      for (Range range : ranges) {
+        range.loaded.setException(failure != null ? failure : new IOException("Prefetch of " + path + " was cancelled"));
+      }
+    }
+  }
+
+  private void load(FSDataInputStream input, Range range) {
+    try {
+      input.seek(range.start);
+      final ByteBuffer dest = range.buffer.nioBuffer(0, range.length());
+      int remaining = range.length();
+      while (remaining > 0) {
+        final int read = CompatibilityUtil.getBuf(input, dest, remaining);
+        if (read < 0) {
+          throw new EOFException("Reached the end of " + path + " while reading " + range.start + "-" + range.end);
+        }
+        remaining -= read;
+      }
+      range.loaded.set(null);
+    } catch (Throwable t) {
+      range.loaded.setException(t);
+    }
+  }
+
+  /**
+   * @return a stream reading the column chunk from memory, or null if the chunk isn't prefetched
+   */
+  public FSDataInputStream getStream(ColumnChunkMetaData chunk) throws IOException {
+    if (!started) {
+      return null;
+    }
+    final long start = chunk.getStartingPos();
+    final long end = start + chunk.getTotalSize();
+    for (Range range : ranges) {
+      if (range.start <= start && end <= range.end) {
+        return new FSDataInputStream(new RangeInputStream(range));
+      }
+    }
+    return null;
+  }
+
+  private ArrowBuf waitFor(Range range) throws IOException {
+    if (!range.loaded.isDone()) {
+      final long startWait = System.nanoTime();
+      if (executor == null) {
+        try (FSDataInputStream input = fs.open(path)) {
+          load(input, range);
+        }
+      }
+      try {
+        Futures.getChecked(range.loaded, IOException.class);
+      } finally {
+        stats.numPrefetchStalls++;
+        stats.timePrefetchStalls += System.nanoTime() - startWait;
+      }
+    } else {
+      Futures.getChecked(range.loaded, IOException.class);
+    }
+    return range.buffer;
+  }
+
+  @Override
+  public void close() throws Exception {
+    closed = true;
+    if (task != null) {
+      // the buffers can't be released while the task writes into them
+      try {
+        task.get();
+      } catch (ExecutionException e) {
+        logger.debug("Prefetch of {} failed", path, e);
+      }
+    }
+    final List<AutoCloseable> buffers = new ArrayList<>();
+    for (Range range : ranges) {
+      buffers.add(range.buffer);
+      range.buffer = null;
+    }
+    AutoCloseables.close(buffers);
+  }
+
+  /**
+   * Stream over a prefetched range. Positions are offsets in the file, like for the streams opened on the file.
+   */
+  private final class RangeInputStream extends InputStream implements Seekable, PositionedReadable,
+      ByteBufferReadable {
+    private final Range range;
+    private long position;
+
+    private RangeInputStream(Range range) {
+      this.range = range;
+      this.position = range.start;
+    }
+
+    private int index(long pos) throws IOException {
+      if (pos < range.start || pos > range.end) {
+        throw new EOFException("Position " + pos + " is outside of the prefetched range " + range.start + "-"
+          + range.end + " of " + path);
+      }
+      return (int) (pos - range.start);
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (position >= range.end) {
+        return -1;
+      }
+      final ArrowBuf buffer = waitFor(range);
+      return buffer.getByte(index(position++)) & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      final int read = read(position, b, off, len);
+      if (read > 0) {
+        position += read;
+      }
+      return read;
+    }
+
+    @Override
+    public int read(ByteBuffer buf) throws IOException {
+      if (position >= range.end) {
+        return -1;
+      }
+      final int length = (int) Math.min(buf.remaining(), range.end - position);
+      final ByteBuffer dest = buf.duplicate();
+      dest.limit(dest.position() + length);
+      waitFor(range).getBytes(index(position), dest);
+      buf.position(buf.position() + length);
+      position += length;
+      return length;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      final long skipped = Math.max(0, Math.min(n, range.end - position));
+      position += skipped;
+      return skipped;
+    }
+
+    @Override
+    public int available() {
+      return (int) (range.end - position);
+    }
+
+    @Override
+    public int read(long pos, byte[] b, int off, int len) throws IOException {
+      if (pos >= range.end) {
+        return -1;
+      }
+      final int length = (int) Math.min(len, range.end - pos);
+      waitFor(range).getBytes(index(pos), b, off, length);
+      return length;
+    }
+
+    @Override
+    public void readFully(long pos, byte[] b, int off, int len) throws IOException {
+      if (read(pos, b, off, len) != len) {
+        throw new EOFException("Reached the end of the prefetched range " + range.start + "-" + range.end
+          + " of " + path);
+      }
+    }
+
+    @Override
+    public void readFully(long pos, byte[] b) throws IOException {
+      readFully(pos, b, 0, b.length);
+    }
+
+    @Override
+    public void seek(long pos) throws IOException {
+      index(pos);
+      position = pos;
+    }
+
+    @Override
+    public long getPos() {
+      return position;
+    }
+
+    @Override
+    public boolean seekToNewSource(long targetPos) {
+      return false;
+    }
+  }
+}
@@ -17,11 +17,16 @@ package com.dremio.exec.store.parquet;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+
+import com.dremio.common.AutoCloseables;
+import com.google.common.collect.Iterables;
 
 /**
  * Provides input streams with one of two policies: reuse a single stream, or create a new stream each time stream() is called
@@ -34,6 +39,7 @@ public class InputStreamProvider implements AutoCloseable {
   private final boolean singleStream;
 
   private final List<FSDataInputStream> streams = new ArrayList<>();
+  private ColumnChunkPrefetcher prefetcher;
 
   public InputStreamProvider(FileSystem fs, Path path, boolean singleStream) {
     this.fs = fs;
@@ -55,13 +61,29 @@ public class InputStreamProvider implements AutoCloseable {
     return stream;
   }
 
+  /**
+   * Read the column chunks prefetched by the given prefetcher from memory. The prefetcher is closed with this provider.
+   */
+  public void setPrefetcher(ColumnChunkPrefetcher prefetcher) {
+    this.prefetcher = prefetcher;
+  }
+
+  /**
+   * @return a stream reading the given column chunk from memory, or null if it isn't prefetched
+   */
+  public FSDataInputStream prefetchedStream(ColumnChunkMetaData chunk) throws IOException {
+    return prefetcher != null ? prefetcher.getStream(chunk) : null;
+  }
+
+  public FileSystem getFileSystem() {
+    return fs;
+  }
+
   public boolean singleStream() {
     return singleStream;
   }
 
-  public void close() throws IOException {
-    for (FSDataInputStream stream : streams) {
-      stream.close();
-    }
+  public void close() throws Exception {
+    AutoCloseables.close(Iterables.concat(streams, Collections.singletonList(prefetcher)));
   }
 }
@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.dremio.common.config.SabotConfig;
+import com.dremio.exec.ExecConstants;
+import com.dremio.metrics.Metrics;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Node-wide cache of the parsed parquet footers, shared by all the scans running on the node. Footers are identified
+ * by the path, length and modification time of their file, so a rewritten file is read again, and are evicted based
+ * on an estimate of their heap size.
+ */
+public class ParquetFooterCache {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ParquetFooterCache.class);
+
+  // rough heap usage of the parsed metadata, including the thrift strings and the statistics
+  private static final int FOOTER_OVERHEAD_BYTES = 1024;
+  private static final int FIELD_BYTES = 256;
+  private static final int BLOCK_BYTES = 128;
+  private static final int COLUMN_CHUNK_BYTES = 512;
+
+  private static volatile ParquetFooterCache instance;
+
+  private final Cache<Key, ParquetMetadata> cache;
+  private final AtomicLong weight = new AtomicLong();
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter evictions;
+
+  ParquetFooterCache(long maxBytes) {
+    final MetricRegistry metrics = Metrics.getInstance();
+    this.hits = metrics.counter(MetricRegistry.name(ParquetFooterCache.class, "hits"));
+    this.misses = metrics.counter(MetricRegistry.name(ParquetFooterCache.class, "misses"));
+    this.evictions = metrics.counter(MetricRegistry.name(ParquetFooterCache.class, "evictions"));
+    Metrics.registerGauge(MetricRegistry.name(ParquetFooterCache.class, "estimatedBytes"), new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return weight.get();
+      }
+    });
+
+    this.cache = CacheBuilder.newBuilder()
+      .maximumWeight(maxBytes)
+      .weigher(new Weigher<Key, ParquetMetadata>() {
+        @Override
+        public int weigh(Key key, ParquetMetadata footer) {
+          return key.weight;
+        }
+      })
+      .removalListener(new RemovalListener<Key, ParquetMetadata>() {
+        @Override
+        public void onRemoval(RemovalNotification<Key, ParquetMetadata> notification) {
+          weight.addAndGet(-notification.getKey().weight);
+          if (notification.getCause() == RemovalCause.SIZE) {
+            evictions.inc();
+          }
+        }
+      })
+      .build();
+  }
+
+  /**
+   * @return the cache shared by the scans of this node, sized by {@link ExecConstants#PARQUET_FOOTER_CACHE_MAX_BYTES_CONFIG}
+   */
+  public static ParquetFooterCache getInstance(SabotConfig config) {
+    if (instance == null) {
+      synchronized (ParquetFooterCache.class) {
+        if (instance == null) {
+          instance = new ParquetFooterCache(config.getLong(ExecConstants.PARQUET_FOOTER_CACHE_MAX_BYTES_CONFIG));
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Get the footer of the given version of the file, reading it if it isn't cached yet. Concurrent requests for the
+   * same footer only read it once.
+   *
+   * @param fileLength length of the file
+   * @param modificationTime modification time of the file
+   */
+  public ParquetMetadata getFooter(final FileSystem fs, final Path path, final long fileLength,
+      long modificationTime) throws IOException {
+    final Key key = new Key(path.toString(), fileLength, modificationTime);
+    final boolean[] loaded = {false};
+    try {
+      final ParquetMetadata footer = cache.get(key, () -> {
+        loaded[0] = true;
+        final ParquetMetadata read;
+        try (FSDataInputStream is = fs.open(path)) {
+          read = SingletonParquetFooterCache.readFooter(is, key.path, fileLength, fs);
+        }
+        key.weight = estimateSize(read);
+        weight.addAndGet(key.weight);
+        return read;
+      });
+      (loaded[0] ? misses : hits).inc();
+      return footer;
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), IOException.class);
+      throw new IOException("Failed to read parquet footer for file " + path, e.getCause());
+    }
+  }
+
+  /**
+   * Drop all the cached footers
+   */
+  public void invalidateAll() {
+    cache.invalidateAll();
+    logger.debug("Parquet footer cache cleared");
+  }
+
+  long estimatedBytes() {
+    return weight.get();
+  }
+
+  /**
+   * @return an estimate of the heap used by the parsed footer
+   */
+  static int estimateSize(ParquetMetadata footer) {
+    long size = FOOTER_OVERHEAD_BYTES;
+    size += (long) FIELD_BYTES * footer.getFileMetaData().getSchema().getColumns().size();
+    for (Map.Entry<String, String> entry : footer.getFileMetaData().getKeyValueMetaData().entrySet()) {
+      size += 2L * (entry.getKey().length() + (entry.getValue() == null ? 0 : entry.getValue().length()));
+    }
+    for (BlockMetaData block : footer.getBlocks()) {
+      size += BLOCK_BYTES + (long) COLUMN_CHUNK_BYTES * block.getColumns().size();
+    }
+    return (int) Math.min(size, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Version of a file. The weight is only known once the footer is read, and isn't part of the identity.
+   */
+  private static final class Key {
+    private final String path;
+    private final long length;
+    private final long modificationTime;
+    private int weight;
+
+    private Key(String path, long length, long modificationTime) {
+      this.path = path;
+      this.length = length;
+      this.modificationTime = modificationTime;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final Key that = (Key) o;
+      return length == that.length && modificationTime == that.modificationTime && path.equals(that.path);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(path, length, modificationTime);
+    }
+  }
+}
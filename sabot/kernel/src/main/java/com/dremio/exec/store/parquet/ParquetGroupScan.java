@@ -77,6 +77,7 @@ public class ParquetGroupScan extends AbstractFileGroupScan {
     ParquetDatasetSplitScanXAttr scanXAttr = new ParquetDatasetSplitScanXAttr();
     scanXAttr.setPath(fullXAttr.getPath());
     scanXAttr.setFileLength(fullXAttr.getUpdateKey().getLength());
+    scanXAttr.setLastModificationTime(fullXAttr.getUpdateKey().getLastModificationTime());
     scanXAttr.setStart(fullXAttr.getStart());
     scanXAttr.setLength(fullXAttr.getLength());
     scanXAttr.setRowGroupIndex(fullXAttr.getRowGroupIndex());
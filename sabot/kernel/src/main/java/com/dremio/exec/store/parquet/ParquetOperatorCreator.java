@@ -17,10 +17,12 @@ package com.dremio.exec.store.parquet;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.Path;
 import org.apache.parquet.hadoop.CodecFactory;
 import org.apache.parquet.hadoop.metadata.ParquetMetadata;
@@ -46,7 +48,6 @@ import com.dremio.service.namespace.file.proto.ParquetDatasetSplitScanXAttr;
 import com.dremio.service.namespace.file.proto.ParquetFileConfig;
 import com.google.common.base.Function;
 import com.google.common.base.Stopwatch;
-import com.google.common.collect.FluentIterable;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
@@ -89,15 +90,16 @@ public class ParquetOperatorCreator implements Creator<ParquetSubScan> {
     final CompositeReaderConfig readerConfig = CompositeReaderConfig.getCompound(config.getSchema(), config.getColumns(), config.getPartitionColumns());
     final List<ParquetDatasetSplit> sortedSplits = Lists.newArrayList();
     final SingletonParquetFooterCache footerCache = new SingletonParquetFooterCache();
+    final boolean useSharedFooterCache = context.getOptions().getOption(ExecConstants.PARQUET_FOOTER_CACHE);
 
     for (DatasetSplit split : config.getSplits()) {
       sortedSplits.add(new ParquetDatasetSplit(split));
     }
     Collections.sort(sortedSplits);
 
-    FluentIterable < RecordReader > readers = FluentIterable.from(sortedSplits).transform(new Function<ParquetDatasetSplit, RecordReader>() {
+    final Function<ParquetDatasetSplit, SplitReader> createReader = new Function<ParquetDatasetSplit, SplitReader>() {
       @Override
-      public RecordReader apply(ParquetDatasetSplit split) {
+      public SplitReader apply(ParquetDatasetSplit split) {
 
         boolean useSingleStream =
           // option is set for single stream
@@ -111,12 +113,18 @@ public class ParquetOperatorCreator implements Creator<ParquetSubScan> {
         try {
           Path p = new Path(split.getSplitXAttr().getPath());
           Long length = split.getSplitXAttr().getFileLength();
-          if (length == null || !context.getOptions().getOption(ExecConstants.PARQUET_CACHED_ENTITY_SET_FILE_SIZE)) {
-            length = fs.getFileStatus(p).getLen();
+          Long modificationTime = split.getSplitXAttr().getLastModificationTime();
+          if (length == null || (useSharedFooterCache && modificationTime == null)
+              || !context.getOptions().getOption(ExecConstants.PARQUET_CACHED_ENTITY_SET_FILE_SIZE)) {
+            final FileStatus status = fs.getFileStatus(p);
+            length = status.getLen();
+            modificationTime = status.getModificationTime();
           }
           InputStreamProvider inputStreamProvider = new InputStreamProvider(fs, p, useSingleStream);
 
-          final ParquetMetadata footer = footerCache.getFooter(inputStreamProvider.stream(), split.getSplitXAttr().getPath(), length, fs);
+          final ParquetMetadata footer = useSharedFooterCache
+            ? ParquetFooterCache.getInstance(context.getConfig()).getFooter(fs, p, length, modificationTime)
+            : footerCache.getFooter(inputStreamProvider.stream(), split.getSplitXAttr().getPath(), length, fs);
 
           final SchemaDerivationHelper schemaHelper = SchemaDerivationHelper.builder()
               .readInt96AsTimeStamp(readInt96AsTimeStamp)
@@ -140,19 +148,77 @@ public class ParquetOperatorCreator implements Creator<ParquetSubScan> {
             enableDetailedTracing,
             inputStreamProvider
           );
-          return readerConfig.wrapIfNecessary(context.getAllocator(), inner, split.getDatasetSplit());
+          return new SplitReader(inner, readerConfig.wrapIfNecessary(context.getAllocator(), inner, split.getDatasetSplit()));
         } catch (IOException e) {
           throw UserException.dataReadError(e).addContext("Failure opening parquet file").addContext("File", split.getSplitXAttr().getPath()).build(logger);
         }
 
       }
-    });
+    };
 
-    final ScanOperator scan = new ScanOperator(fragmentExecContext.getSchemaUpdater(), config, context, readers.iterator(), globalDictionaries);
+    final boolean prefetch = context.getOptions().getOption(ExecConstants.PARQUET_PREFETCH);
+    final ScanOperator scan = new ScanOperator(fragmentExecContext.getSchemaUpdater(), config, context,
+      new PrefetchingReaderIterator(sortedSplits.iterator(), createReader, prefetch), globalDictionaries);
     logger.debug("Took {} ms to create Parquet Scan SqlOperatorImpl.", watch.elapsed(TimeUnit.MILLISECONDS));
     return scan;
   }
 
+  private static class SplitReader {
+    private final UnifiedParquetReader inner;
+    private final RecordReader reader;
+
+    SplitReader(UnifiedParquetReader inner, RecordReader reader) {
+      this.inner = inner;
+      this.reader = reader;
+    }
+  }
+
+  /**
+   * Creates the reader of the next split as soon as the current one is handed to the scan, so the column chunks of
+   * the next row group are read while the current one is decoded. The reader created ahead is closed with the scan
+   * if it's never used.
+   */
+  private static class PrefetchingReaderIterator implements Iterator<RecordReader>, AutoCloseable {
+    private final Iterator<ParquetDatasetSplit> splits;
+    private final Function<ParquetDatasetSplit, SplitReader> createReader;
+    private final boolean prefetch;
+    private SplitReader next;
+
+    PrefetchingReaderIterator(Iterator<ParquetDatasetSplit> splits,
+        Function<ParquetDatasetSplit, SplitReader> createReader, boolean prefetch) {
+      this.splits = splits;
+      this.createReader = createReader;
+      this.prefetch = prefetch;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null || splits.hasNext();
+    }
+
+    @Override
+    public RecordReader next() {
+      final SplitReader current = next != null ? next : createReader.apply(splits.next());
+      next = null;
+      if (prefetch && splits.hasNext()) {
+        // make sure the current row group is read first
+        current.inner.prefetch();
+        next = createReader.apply(splits.next());
+        next.inner.prefetch();
+      }
+      return current.reader;
+    }
+
+    @Override
+    public void close() throws Exception {
+      if (next != null) {
+        final RecordReader reader = next.reader;
+        next = null;
+        reader.close();
+      }
+    }
+  }
+
   private static class ParquetDatasetSplit implements Comparable {
     private final DatasetSplit datasetSplit;
     private final ParquetDatasetSplitScanXAttr splitXAttr;
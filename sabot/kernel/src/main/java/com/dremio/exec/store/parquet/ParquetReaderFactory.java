@@ -21,6 +21,7 @@ import org.apache.arrow.vector.SimpleIntVector;
 import org.apache.parquet.hadoop.CodecFactory;
 import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
 import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.schema.Type;
 
 import com.dremio.common.expression.SchemaPath;
 import com.dremio.exec.store.RecordReader;
@@ -30,6 +31,27 @@ public interface ParquetReaderFactory {
 
   boolean isSupported(ColumnChunkMetaData chunk);
 
+  /**
+   * @return true if the readers of this factory can read the given top level field of the file schema
+   */
+  default boolean isSupported(Type field) {
+    return true;
+  }
+
+  /**
+   * @return true if the readers of this factory can read the given top level field from the given column chunk
+   */
+  default boolean isSupported(Type field, ColumnChunkMetaData chunk) {
+    return true;
+  }
+
+  /**
+   * @return true if the readers of this factory can apply the given filter condition
+   */
+  default boolean isSupported(ParquetFilterCondition condition) {
+    return true;
+  }
+
   RecordReader newReader(OperatorContext context,
       List<SchemaPath> columns,
       String path,
@@ -38,6 +38,11 @@ public class ParquetReaderStats {
   public long timeDictPagesDecompressed;
   public long timePagesDecompressed;
 
+  public long numCoalescedReads;
+  public long totalCoalescedReadBytes;
+  public long numPrefetchStalls;
+  public long timePrefetchStalls;
+
   public ParquetReaderStats() {
   }
 
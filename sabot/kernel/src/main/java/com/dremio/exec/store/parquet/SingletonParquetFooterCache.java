@@ -96,7 +96,7 @@ public class SingletonParquetFooterCache {
     }
   }
 
-  private ParquetMetadata readFooter(FSDataInputStream file, String path, long fileLength, FileSystem fs) throws IOException {
+  static ParquetMetadata readFooter(FSDataInputStream file, String path, long fileLength, FileSystem fs) throws IOException {
     return readFooter(file, path, fileLength, ParquetMetadataConverter.NO_FILTER, fs);
   }
 
@@ -21,9 +21,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.arrow.memory.OutOfMemoryException;
 import org.apache.arrow.vector.FixedWidthVector;
@@ -32,6 +35,7 @@ import org.apache.arrow.vector.ValueVector;
 import org.apache.hadoop.fs.BlockLocation;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.statistics.Statistics;
 import org.apache.parquet.hadoop.CodecFactory;
 import org.apache.parquet.hadoop.metadata.BlockMetaData;
 import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
@@ -45,10 +49,15 @@ import com.dremio.common.AutoCloseables;
 import com.dremio.common.config.SabotConfig;
 import com.dremio.common.exceptions.ExecutionSetupException;
 import com.dremio.common.expression.SchemaPath;
+import com.dremio.exec.ExecConstants;
 import com.dremio.exec.planner.physical.visitor.GlobalDictionaryFieldInfo;
+import com.dremio.exec.proto.ExecProtos.RuntimeFilter;
+import com.dremio.exec.proto.ExecProtos.RuntimeFilterColumn;
 import com.dremio.exec.record.BatchSchema;
 import com.dremio.exec.store.AbstractRecordReader;
 import com.dremio.exec.store.RecordReader;
+import com.dremio.exec.store.parquet.columnar.ColumnarParquetReaderFactory;
+import com.dremio.exec.store.parquet.columnar.StatisticsFilter;
 import com.dremio.exec.store.parquet.columnreaders.DeprecatedParquetVectorizedReader;
 import com.dremio.exec.store.parquet2.ParquetRowiseReader;
 import com.dremio.exec.util.ColumnUtils;
@@ -88,6 +97,10 @@ public class UnifiedParquetReader implements RecordReader {
   private final Map<String, ValueVector> vectorizedMap = new HashMap<>();
   private final Map<String, ValueVector> nonVectorizedMap = new HashMap<>();
   private InputStreamProvider inputStreamProvider;
+  private final List<RuntimeFilter> runtimeFilters = new ArrayList<>();
+  private boolean skipRowGroup;
+  private final ParquetReaderStats parquetReaderStats = new ParquetReaderStats();
+  private ColumnChunkPrefetcher prefetcher;
 
   public UnifiedParquetReader(
       OperatorContext context,
@@ -125,11 +138,18 @@ public class UnifiedParquetReader implements RecordReader {
 
   @Override
   public void setup(OutputMutator output) throws ExecutionSetupException {
-    computeLocality(footer);
+    if (canSkipRowGroup() || isFilteredOutByStatistics()) {
+      // the output vectors were already created by the scan from the table schema.
+      skipRowGroup = true;
+      context.getStats().addLongStat(Metric.NUM_ROW_GROUPS_PRUNED, 1);
+      return;
+    }
 
-    splitColumns(footer, vectorizableReaderColumns, nonVectorizableReaderColumns);
+    computeLocality(footer);
 
+    prefetch();
 
+    splitColumns(footer, vectorizableReaderColumns, nonVectorizableReaderColumns);
 
     final ExecutionPath execPath = getExecutionPath();
     delegates = execPath.getReaders(this);
@@ -154,6 +174,141 @@ public class UnifiedParquetReader implements RecordReader {
     context.getStats().setLongStat(Metric.FILTER_EXISTS, filterConditions != null && filterConditions.size() > 0 ? 1 : 0);
   }
 
+  /**
+   * Start reading the projected column chunks of the row group in the background. Called when setting up the reader,
+   * or earlier while the previous row group is still being read.
+   */
+  public void prefetch() {
+    if (prefetcher != null || !context.getOptions().getOption(ExecConstants.PARQUET_PREFETCH)
+        || (globalDictionaryFieldInfoMap != null && !globalDictionaryFieldInfoMap.isEmpty())
+        || isFilteredOutByStatistics()) {
+      return;
+    }
+
+    final BlockMetaData block = footer.getBlocks().get(readEntry.getRowGroupIndex());
+    final Set<String> names = new HashSet<>();
+    for (SchemaPath path : getResolvedColumns(block.getColumns())) {
+      names.add(path.getRootSegment().getPath().toLowerCase());
+    }
+    final List<ColumnChunkMetaData> chunks = new ArrayList<>();
+    for (ColumnChunkMetaData c : block.getColumns()) {
+      if (names.contains(c.getPath().iterator().next().toLowerCase())) {
+        chunks.add(c);
+      }
+    }
+    if (chunks.isEmpty()) {
+      return;
+    }
+
+    prefetcher = new ColumnChunkPrefetcher(fs, new Path(readEntry.getPath()), context.getAllocator(), getExecutor(),
+      chunks, context.getOptions().getOption(ExecConstants.PARQUET_PREFETCH_MAX_GAP),
+      context.getOptions().getOption(ExecConstants.PARQUET_PREFETCH_MAX_BYTES), parquetReaderStats);
+    inputStreamProvider.setPrefetcher(prefetcher);
+    prefetcher.start();
+  }
+
+  /**
+   * Executor used to prefetch the column chunks, or null if the context doesn't provide one.
+   */
+  private ExecutorService getExecutor() {
+    try {
+      return context.getExecutor();
+    } catch (UnsupportedOperationException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public void addRuntimeFilter(RuntimeFilter filter) {
+    // only used when setting up, records are filtered by the scan once reading started.
+    runtimeFilters.add(filter);
+  }
+
+  /**
+   * Check the column statistics of the row group against the runtime filters. The row group can be
+   * skipped if none of its values for a filtered column can match a build side key.
+   */
+  private boolean canSkipRowGroup() {
+    if (runtimeFilters.isEmpty()) {
+      return false;
+    }
+
+    final BlockMetaData block = footer.getBlocks().get(readEntry.getRowGroupIndex());
+    final MessageType schema = footer.getFileMetaData().getSchema();
+    for (RuntimeFilter filter : runtimeFilters) {
+      for (RuntimeFilterColumn column : filter.getColumnList()) {
+        if (column.getKeyCount() == 0) {
+          return true;
+        }
+        if (!column.hasMin() || !column.hasMax()) {
+          continue;
+        }
+
+        for (ColumnChunkMetaData c : block.getColumns()) {
+          final String name = c.getPath().iterator().next();
+          if (c.getPath().size() != 1 || !name.equalsIgnoreCase(column.getName())
+              || !hasJoinKeyValues(c.getType(), schema.getType(name).getOriginalType())) {
+            continue;
+          }
+
+          final Statistics<?> stats = c.getStatistics();
+          if (stats == null || !stats.hasNonNullValue()) {
+            continue;
+          }
+          final long min = ((Number) stats.genericGetMin()).longValue();
+          final long max = ((Number) stats.genericGetMax()).longValue();
+          if (max < column.getMin() || min > column.getMax()) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Check the column statistics of the row group against the pushed down filter condition. The row group can be
+   * skipped if none of the values of the filtered column can match.
+   */
+  private boolean isFilteredOutByStatistics() {
+    if (filterConditions == null || filterConditions.isEmpty()
+        || !context.getOptions().getOption(ExecConstants.PARQUET_STATS_PRUNING)) {
+      return false;
+    }
+
+    final ParquetFilterCondition condition = filterConditions.get(0);
+    final String filterColumn = condition.getPath().getRootSegment().getPath();
+    final BlockMetaData block = footer.getBlocks().get(readEntry.getRowGroupIndex());
+    final MessageType schema = footer.getFileMetaData().getSchema();
+    for (ColumnChunkMetaData c : block.getColumns()) {
+      if (c.getPath().size() != 1 || !c.getPath().iterator().next().equalsIgnoreCase(filterColumn)) {
+        continue;
+      }
+      final Type type = schema.getType(c.getPath().toArray());
+      if (!type.isPrimitive()) {
+        return false;
+      }
+      final StatisticsFilter statisticsFilter = StatisticsFilter.of(condition, type.asPrimitiveType(),
+        schemaHelper.getDateCorruptionStatus());
+      return statisticsFilter != null && statisticsFilter.canDrop(c.getStatistics(), c.getValueCount());
+    }
+    return false;
+  }
+
+  /**
+   * Whether the values stored in the column are the ones read in the join key vector.
+   */
+  private static boolean hasJoinKeyValues(PrimitiveType.PrimitiveTypeName type, OriginalType originalType) {
+    switch (type) {
+    case INT64:
+      return originalType == null || originalType == OriginalType.INT_64 || originalType == OriginalType.TIMESTAMP_MILLIS;
+    case INT32:
+      return originalType == null || originalType == OriginalType.INT_32;
+    default:
+      return false;
+    }
+  }
+
   // No reason to use delegates since Parquet always uses the default schema change mutator.
   @Override
   public SchemaChangeMutator getSchemaChangeMutator() {
@@ -216,6 +371,10 @@ public class UnifiedParquetReader implements RecordReader {
 
   @Override
   public int next() {
+    if (skipRowGroup) {
+      return 0;
+    }
+
     // need to make sure number of rows in batch is the same for all the readers
     int count = -1;
     for (RecordReader recordReader : delegates) {
@@ -238,6 +397,15 @@ public class UnifiedParquetReader implements RecordReader {
       AutoCloseables.close(delegateReader);
     }
     AutoCloseables.close(inputStreamProvider);
+
+    if (prefetcher != null) {
+      context.getStats().addLongStat(Metric.NUM_COALESCED_READS, parquetReaderStats.numCoalescedReads);
+      context.getStats().addLongStat(Metric.COALESCED_READ_BYTES, parquetReaderStats.totalCoalescedReadBytes);
+      context.getStats().addLongStat(Metric.NUM_PREFETCH_STALLS, parquetReaderStats.numPrefetchStalls);
+      context.getStats().addLongStat(Metric.PREFETCH_STALL_MS,
+        TimeUnit.NANOSECONDS.toMillis(parquetReaderStats.timePrefetchStalls));
+      prefetcher = null;
+    }
   }
 
   private void splitColumns(final ParquetMetadata footer,
@@ -260,8 +428,10 @@ public class UnifiedParquetReader implements RecordReader {
     MessageType schema = footer.getFileMetaData().getSchema();
     for (Type parquetField : schema.getFields()) {
       if (fields.containsKey(parquetField.getName()) &&
-        (parquetField.asPrimitiveType().getOriginalType() != OriginalType.DECIMAL
-        && parquetField.isPrimitive()
+        (parquetField.isPrimitive()
+          && readerFactory.isSupported(parquetField)
+          && readerFactory.isSupported(parquetField, fields.get(parquetField.getName()))
+          && parquetField.asPrimitiveType().getOriginalType() != OriginalType.DECIMAL
           && (parquetField.asPrimitiveType().getPrimitiveTypeName() != PrimitiveType.PrimitiveTypeName.INT96 ||
           schemaHelper.readInt96AsTimeStamp()))) {
         vectorizableTypes.add(parquetField);
@@ -329,7 +499,8 @@ public class UnifiedParquetReader implements RecordReader {
     if (filterConditions == null || filterConditions.isEmpty()) {
       return true;
     }
-    return isConditionSet(vectorizableColumns, nonVectorizableColumns);
+    return isConditionSet(vectorizableColumns, nonVectorizableColumns)
+      && readerFactory.isSupported(filterConditions.get(0));
   }
 
   private boolean isConditionSet(List<SchemaPath> vectorizableColumns, List<SchemaPath> nonVectorizableColumns) {
@@ -516,6 +687,6 @@ public class UnifiedParquetReader implements RecordReader {
   }
 
   public static ParquetReaderFactory getReaderFactory(SabotConfig config){
-    return config.getInstance("dremio.plugins.parquet.factory", ParquetReaderFactory.class, ParquetReaderFactory.NONE);
+    return config.getInstance("dremio.plugins.parquet.factory", ParquetReaderFactory.class, ColumnarParquetReaderFactory.class);
   }
 }
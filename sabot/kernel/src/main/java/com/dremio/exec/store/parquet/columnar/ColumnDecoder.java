@@ -0,0 +1,441 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.columnar;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.SimpleIntVector;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.column.page.DataPage;
+import org.apache.parquet.column.page.DataPageV1;
+import org.apache.parquet.column.page.DataPageV2;
+import org.apache.parquet.column.page.DictionaryPage;
+import org.apache.parquet.column.page.PageReader;
+import org.apache.parquet.hadoop.ColumnChunkIncReadStore.ColumnChunkIncPageReader;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+
+import com.google.common.base.Preconditions;
+
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Decodes the pages of a flat column chunk into its output vector.<br>
+ * <br>
+ * Definition levels and dictionary ids are decoded in bulk, and runs of non null values are handed to the type
+ * specific subclasses which copy them straight into the vector buffers. All the rows are written in order, starting
+ * at index 0 of the vector for each batch.
+ */
+abstract class ColumnDecoder {
+
+  // maximum number of levels/ids decoded at once
+  private static final int CHUNK_SIZE = 4096;
+
+  protected final String name;
+  private final FieldVector vector;
+  private final ColumnDescriptor descriptor;
+  private final PageReader pageReader;
+  private final int maxDefinitionLevel;
+  private long rowsRemaining;
+
+  private boolean dictionaryRead;
+  private boolean hasDictionary;
+
+  private ColumnPredicate predicate;
+  private StatisticsFilter statisticsFilter;
+  private boolean allPagesDictionaryEncoded;
+  private boolean[] dictionaryMatches;
+  private boolean dictionaryHasMatch;
+  private int pagesSkipped;
+
+  // current page
+  private int pageRowsRemaining;
+  private RleBitPackedDecoder definitionLevels;
+  private RleBitPackedDecoder dictionaryIds;
+
+  private final int[] levels = new int[CHUNK_SIZE];
+  private final int[] ids = new int[CHUNK_SIZE];
+
+  ColumnDecoder(String name, FieldVector vector, ColumnDescriptor descriptor, PageReader pageReader, long rowCount) {
+    Preconditions.checkArgument(descriptor.getMaxRepetitionLevel() == 0, "column %s is repeated", name);
+    this.name = name;
+    this.vector = vector;
+    this.descriptor = descriptor;
+    this.pageReader = pageReader;
+    this.maxDefinitionLevel = descriptor.getMaxDefinitionLevel();
+    this.rowsRemaining = rowCount;
+  }
+
+  /**
+   * Only keep the values matching the predicate when reading with {@link #readFiltered(int, SimpleIntVector)}
+   *
+   * @param statisticsFilter filter skipping the pages whose statistics show none of their values match, or null
+   * @param allPagesDictionaryEncoded true if all the data pages of the chunk are dictionary encoded, so the chunk can
+   *                                  be skipped entirely if none of the dictionary entries match
+   */
+  void setPredicate(ColumnPredicate predicate, StatisticsFilter statisticsFilter, boolean allPagesDictionaryEncoded) {
+    Preconditions.checkArgument(predicate.isBinary() == (descriptor.getType() == PrimitiveTypeName.BINARY),
+      "filter literal can't be compared to the values of column %s", name);
+    this.predicate = predicate;
+    this.statisticsFilter = statisticsFilter;
+    this.allPagesDictionaryEncoded = allPagesDictionaryEncoded;
+  }
+
+  /**
+   * @return number of pages skipped without being decoded when reading with a predicate
+   */
+  int getPagesSkipped() {
+    return pagesSkipped;
+  }
+
+  /**
+   * Called before writing the first row of a batch
+   *
+   * @param count maximum number of rows of the batch
+   */
+  void startBatch(int count) {
+    while (vector.getValueCapacity() < count) {
+      vector.reAlloc();
+    }
+  }
+
+  /**
+   * Called once all the rows of a batch are written
+   */
+  void endBatch(int count) {
+    vector.setValueCount(count);
+  }
+
+  /**
+   * Read the next count rows, and write them at index..index+count-1 of the vector
+   */
+  void read(int index, int count) throws IOException {
+    while (count > 0) {
+      if (pageRowsRemaining == 0) {
+        readPage();
+      }
+      final int n = Math.min(Math.min(count, pageRowsRemaining), CHUNK_SIZE);
+      readRows(index, n);
+      pageRowsRemaining -= n;
+      rowsRemaining -= n;
+      index += n;
+      count -= n;
+    }
+  }
+
+  /**
+   * Skip the next count rows
+   */
+  void skip(int count) throws IOException {
+    while (count > 0) {
+      if (pageRowsRemaining == 0) {
+        readPage();
+      }
+      if (count >= pageRowsRemaining) {
+        // the rest of the page is skipped, no need to decode it
+        count -= pageRowsRemaining;
+        rowsRemaining -= pageRowsRemaining;
+        pageRowsRemaining = 0;
+        continue;
+      }
+      final int n = Math.min(count, CHUNK_SIZE);
+      int numValues = n;
+      if (definitionLevels != null) {
+        definitionLevels.readInts(levels, 0, n);
+        numValues = 0;
+        for (int i = 0; i < n; i++) {
+          if (levels[i] == maxDefinitionLevel) {
+            numValues++;
+          }
+        }
+      }
+      if (dictionaryIds != null) {
+        dictionaryIds.skip(numValues);
+      } else {
+        skipPlainValues(numValues);
+      }
+      pageRowsRemaining -= n;
+      rowsRemaining -= n;
+      count -= n;
+    }
+  }
+
+  /**
+   * Read the rows following the deltas produced by the filtered column: skip deltas[i] rows, then write the next row
+   * at index i.
+   */
+  void readWithDeltas(SimpleIntVector deltas, int count) throws IOException {
+    int index = 0;
+    while (index < count) {
+      final int delta = deltas.get(index);
+      if (delta > 0) {
+        skip(delta);
+      }
+      // read consecutive matches at once
+      int run = 1;
+      while (index + run < count && deltas.get(index + run) == 0) {
+        run++;
+      }
+      read(index, run);
+      index += run;
+    }
+  }
+
+  /**
+   * Read rows until maxMatches rows match the predicate or the column is exhausted. Only the matching rows are
+   * written to the vector, and deltas[i] is set to the number of rows skipped before the i-th match.
+   *
+   * @return number of matching rows
+   */
+  int readFiltered(int maxMatches, SimpleIntVector deltas) throws IOException {
+    Preconditions.checkState(predicate != null, "no predicate set for column %s", name);
+    int matches = 0;
+    int skipped = 0;
+    while (matches < maxMatches && rowsRemaining > 0) {
+      if (pageRowsRemaining == 0) {
+        final int pageSkipped = skipPageByStatistics();
+        if (pageSkipped > 0) {
+          skipped += pageSkipped;
+          rowsRemaining -= pageSkipped;
+          pagesSkipped++;
+          continue;
+        }
+
+        readPage();
+        if (dictionaryIds != null && !dictionaryHasMatch) {
+          if (allPagesDictionaryEncoded) {
+            // none of the values of the chunk can match, and the following rows are never read by the other columns
+            rowsRemaining = 0;
+            pageRowsRemaining = 0;
+            pagesSkipped++;
+            break;
+          }
+          // none of the dictionary entries match, the page can be skipped without decoding its values
+          skipped += pageRowsRemaining;
+          rowsRemaining -= pageRowsRemaining;
+          pageRowsRemaining = 0;
+          pagesSkipped++;
+          continue;
+        }
+      }
+
+      pageRowsRemaining--;
+      rowsRemaining--;
+      // null values never match
+      final boolean match = (definitionLevels == null || definitionLevels.readInt() == maxDefinitionLevel)
+        && (dictionaryIds != null ? filterDictionaryValue(matches) : filterPlainValue(predicate, matches));
+      if (match) {
+        setValid(matches, 1);
+        deltas.setSafe(matches, skipped);
+        skipped = 0;
+        matches++;
+      } else {
+        skipped++;
+      }
+    }
+    return matches;
+  }
+
+  /**
+   * Skip the next page without reading it if its statistics show none of its values match
+   *
+   * @return number of rows skipped, 0 if the page must be read
+   */
+  private int skipPageByStatistics() {
+    if (statisticsFilter == null || !(pageReader instanceof ColumnChunkIncPageReader)) {
+      return 0;
+    }
+    return ((ColumnChunkIncPageReader) pageReader).skipPageIf(statisticsFilter::canDrop);
+  }
+
+  private boolean filterDictionaryValue(int index) {
+    final int id = dictionaryIds.readInt();
+    if (!dictionaryMatches[id]) {
+      return false;
+    }
+    writeDictionaryValue(index, id);
+    return true;
+  }
+
+  private void readRows(int index, int count) {
+    if (definitionLevels == null) {
+      setValid(index, count);
+      readValues(index, count);
+      return;
+    }
+
+    definitionLevels.readInts(levels, 0, count);
+    int i = 0;
+    while (i < count) {
+      final int start = i;
+      if (levels[i] == maxDefinitionLevel) {
+        while (i < count && levels[i] == maxDefinitionLevel) {
+          i++;
+        }
+        setValid(index + start, i - start);
+        readValues(index + start, i - start);
+      } else {
+        while (i < count && levels[i] != maxDefinitionLevel) {
+          i++;
+        }
+        setNulls(index + start, i - start);
+      }
+    }
+  }
+
+  private void readValues(int index, int count) {
+    if (dictionaryIds != null) {
+      dictionaryIds.readInts(ids, 0, count);
+      writeDictionaryValues(index, ids, count);
+    } else {
+      readPlainValues(index, count);
+    }
+  }
+
+  private void readPage() throws IOException {
+    if (!dictionaryRead) {
+      dictionaryRead = true;
+      final DictionaryPage dictionaryPage = pageReader.readDictionaryPage();
+      if (dictionaryPage != null) {
+        readDictionary(dictionaryPage);
+      }
+    }
+
+    final DataPage page = pageReader.readPage();
+    Preconditions.checkState(page != null, "column %s ended before the end of the row group", name);
+    pageRowsRemaining = page.getValueCount();
+    definitionLevels = null;
+    dictionaryIds = null;
+
+    if (page instanceof DataPageV1) {
+      final DataPageV1 pageV1 = (DataPageV1) page;
+      final ByteBuffer bytes = pageV1.getBytes().toByteBuffer().slice().order(ByteOrder.LITTLE_ENDIAN);
+      int offset = 0;
+      if (maxDefinitionLevel > 0) {
+        if (pageV1.getDlEncoding() != Encoding.RLE) {
+          throw new UnsupportedOperationException("Unsupported definition level encoding " + pageV1.getDlEncoding()
+            + " for column " + name);
+        }
+        // RLE encoded levels are prefixed by their length
+        final int length = bytes.getInt(0);
+        definitionLevels = new RleBitPackedDecoder(bytes, 4, 4 + length, bitWidth(maxDefinitionLevel));
+        offset = 4 + length;
+      }
+      initValues(bytes, offset, pageV1.getValueEncoding());
+    } else {
+      final DataPageV2 pageV2 = (DataPageV2) page;
+      if (maxDefinitionLevel > 0) {
+        final ByteBuffer levelBytes = pageV2.getDefinitionLevels().toByteBuffer().slice();
+        definitionLevels = new RleBitPackedDecoder(levelBytes, 0, levelBytes.limit(), bitWidth(maxDefinitionLevel));
+      }
+      initValues(pageV2.getData().toByteBuffer().slice().order(ByteOrder.LITTLE_ENDIAN), 0, pageV2.getDataEncoding());
+    }
+  }
+
+  private void readDictionary(DictionaryPage page) throws IOException {
+    final ByteBuffer bytes = page.getBytes().toByteBuffer().slice().order(ByteOrder.LITTLE_ENDIAN);
+    final int size = page.getDictionarySize();
+    initDictionary(bytes, size);
+    hasDictionary = true;
+
+    if (predicate != null) {
+      // evaluate the predicate once per dictionary entry, rows then only need to look up their id
+      dictionaryMatches = new boolean[size];
+      for (int i = 0; i < size; i++) {
+        dictionaryMatches[i] = testDictionaryValue(predicate, i);
+        dictionaryHasMatch |= dictionaryMatches[i];
+      }
+    }
+  }
+
+  private void initValues(ByteBuffer bytes, int offset, Encoding encoding) {
+    switch (encoding) {
+    case PLAIN_DICTIONARY:
+    case RLE_DICTIONARY:
+      Preconditions.checkState(hasDictionary, "dictionary encoded page without dictionary in column %s", name);
+      // ids are prefixed by their bit width
+      dictionaryIds = new RleBitPackedDecoder(bytes, offset + 1, bytes.limit(), bytes.get(offset) & 0xFF);
+      break;
+    default:
+      initPlainValues(bytes, offset, encoding);
+    }
+  }
+
+  private static int bitWidth(int maxLevel) {
+    return 32 - Integer.numberOfLeadingZeros(maxLevel);
+  }
+
+  private void setValid(int index, int count) {
+    setBits(vector.getValidityBufferAddress(), index, count, true);
+  }
+
+  /**
+   * Mark the rows index..index+count-1 as null
+   */
+  protected void setNulls(int index, int count) {
+    setBits(vector.getValidityBufferAddress(), index, count, false);
+  }
+
+  static void setBits(long address, int index, int count, boolean value) {
+    for (int i = index; i < index + count; i++) {
+      final long byteAddress = address + (i >>> 3);
+      final int mask = 1 << (i & 7);
+      final byte current = PlatformDependent.getByte(byteAddress);
+      PlatformDependent.putByte(byteAddress, (byte) (value ? current | mask : current & ~mask));
+    }
+  }
+
+  /**
+   * Copy length bytes of src, starting at srcIndex, to the direct memory address dst
+   */
+  static void copy(ByteBuffer src, int srcIndex, long dst, int length) {
+    if (src.isDirect()) {
+      PlatformDependent.copyMemory(PlatformDependent.directBufferAddress(src) + srcIndex, dst, length);
+    } else {
+      PlatformDependent.copyMemory(src.array(), src.arrayOffset() + srcIndex, dst, length);
+    }
+  }
+
+  /**
+   * Decode the dictionary entries, stored with the PLAIN encoding
+   */
+  protected abstract void initDictionary(ByteBuffer bytes, int size);
+
+  protected abstract boolean testDictionaryValue(ColumnPredicate predicate, int id);
+
+  protected abstract void writeDictionaryValues(int index, int[] ids, int count);
+
+  protected abstract void writeDictionaryValue(int index, int id);
+
+  /**
+   * Start decoding the values of a page that isn't dictionary encoded
+   */
+  protected abstract void initPlainValues(ByteBuffer bytes, int offset, Encoding encoding);
+
+  protected abstract void readPlainValues(int index, int count);
+
+  protected abstract void skipPlainValues(int count);
+
+  /**
+   * Decode the next value and write it at index if it matches the predicate
+   *
+   * @return true if the value matches
+   */
+  protected abstract boolean filterPlainValue(ColumnPredicate predicate, int index);
+}
@@ -0,0 +1,539 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.columnar;
+
+import java.nio.ByteBuffer;
+
+import org.apache.arrow.vector.BaseVariableWidthVector;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateMilliVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeMilliVector;
+import org.apache.arrow.vector.TimeStampMilliVector;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.column.page.PageReader;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.joda.time.DateTimeConstants;
+
+import com.dremio.common.expression.CompleteType;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.exec.exception.SchemaChangeException;
+import com.dremio.exec.store.parquet.ParquetReaderUtility;
+import com.dremio.exec.store.parquet.ParquetReaderUtility.DateCorruptionStatus;
+import com.dremio.exec.store.parquet.SchemaDerivationHelper;
+import com.dremio.sabot.op.common.ht2.Reallocators;
+import com.dremio.sabot.op.common.ht2.Reallocators.Reallocator;
+import com.dremio.sabot.op.scan.OutputMutator;
+
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * {@link ColumnDecoder} implementations for each supported parquet type. The output vectors are the same as the ones
+ * created by the row-wise reader for the same column.
+ */
+final class ColumnDecoders {
+
+  private ColumnDecoders() {
+  }
+
+  static ColumnDecoder newDecoder(OutputMutator output, String name, PrimitiveType type, ColumnDescriptor descriptor,
+      PageReader pageReader, long rowCount, SchemaDerivationHelper schemaHelper) throws SchemaChangeException {
+    final OriginalType originalType = type.getOriginalType();
+    switch (type.getPrimitiveTypeName()) {
+    case BOOLEAN:
+      return new BooleanDecoder(name, output.addField(CompleteType.BIT.toField(name), BitVector.class),
+        descriptor, pageReader, rowCount);
+    case INT32:
+      if (originalType == OriginalType.DATE) {
+        return new DateDecoder(name, output.addField(CompleteType.DATE.toField(name), DateMilliVector.class),
+          descriptor, pageReader, rowCount, schemaHelper.getDateCorruptionStatus());
+      } else if (originalType == OriginalType.TIME_MILLIS) {
+        return new FixedWidthDecoder(name, output.addField(CompleteType.TIME.toField(name), TimeMilliVector.class),
+          descriptor, pageReader, rowCount);
+      }
+      return new FixedWidthDecoder(name, output.addField(CompleteType.INT.toField(name), IntVector.class),
+        descriptor, pageReader, rowCount);
+    case INT64:
+      if (originalType == OriginalType.TIMESTAMP_MILLIS) {
+        return new FixedWidthDecoder(name,
+          output.addField(CompleteType.TIMESTAMP.toField(name), TimeStampMilliVector.class),
+          descriptor, pageReader, rowCount);
+      }
+      return new FixedWidthDecoder(name, output.addField(CompleteType.BIGINT.toField(name), BigIntVector.class),
+        descriptor, pageReader, rowCount);
+    case FLOAT:
+      return new FixedWidthDecoder(name, output.addField(CompleteType.FLOAT.toField(name), Float4Vector.class),
+        descriptor, pageReader, rowCount);
+    case DOUBLE:
+      return new FixedWidthDecoder(name, output.addField(CompleteType.DOUBLE.toField(name), Float8Vector.class),
+        descriptor, pageReader, rowCount);
+    case BINARY:
+      if (originalType == OriginalType.UTF8 || schemaHelper.isVarChar(SchemaPath.getSimplePath(name))) {
+        return new BinaryDecoder(name, output.addField(CompleteType.VARCHAR.toField(name), VarCharVector.class),
+          descriptor, pageReader, rowCount);
+      }
+      return new BinaryDecoder(name, output.addField(CompleteType.VARBINARY.toField(name), VarBinaryVector.class),
+        descriptor, pageReader, rowCount);
+    default:
+      throw new UnsupportedOperationException("Unsupported type: " + type);
+    }
+  }
+
+  /**
+   * Convert the number of days since epoch of an INT32 DATE value to milliseconds, correcting the dates written by
+   * older versions of Drill if necessary
+   */
+  static long dateToMillis(int days, DateCorruptionStatus corruptionStatus) {
+    switch (corruptionStatus) {
+    case META_SHOWS_CORRUPTION:
+      return (days - ParquetReaderUtility.CORRECT_CORRUPT_DATE_SHIFT) * DateTimeConstants.MILLIS_PER_DAY;
+    case META_SHOWS_NO_CORRUPTION:
+      return days * (long) DateTimeConstants.MILLIS_PER_DAY;
+    case META_UNCLEAR_TEST_VALUES:
+      if (days > ParquetReaderUtility.DATE_CORRUPTION_THRESHOLD) {
+        return (days - ParquetReaderUtility.CORRECT_CORRUPT_DATE_SHIFT) * DateTimeConstants.MILLIS_PER_DAY;
+      }
+      return days * (long) DateTimeConstants.MILLIS_PER_DAY;
+    default:
+      throw new IllegalStateException(String.format("Issue setting up parquet reader for date type, " +
+        "unrecognized date corruption status %s.", corruptionStatus));
+    }
+  }
+
+  private static void checkPlain(Encoding encoding, String name) {
+    if (encoding != Encoding.PLAIN) {
+      throw new UnsupportedOperationException("Unsupported encoding " + encoding + " for column " + name);
+    }
+  }
+
+  /**
+   * INT32, INT64, FLOAT and DOUBLE columns, whose values are copied as is to the vector
+   */
+  private static class FixedWidthDecoder extends ColumnDecoder {
+    private final FieldVector vector;
+    private final PrimitiveTypeName type;
+    private final int width;
+
+    // raw values of the dictionary entries
+    private long[] dictionary;
+
+    private ByteBuffer page;
+    private int position;
+
+    FixedWidthDecoder(String name, FieldVector vector, ColumnDescriptor descriptor, PageReader pageReader,
+        long rowCount) {
+      super(name, vector, descriptor, pageReader, rowCount);
+      this.vector = vector;
+      this.type = descriptor.getType();
+      this.width = type == PrimitiveTypeName.INT32 || type == PrimitiveTypeName.FLOAT ? 4 : 8;
+    }
+
+    private long get(ByteBuffer bytes, int index) {
+      return width == 4 ? bytes.getInt(index) : bytes.getLong(index);
+    }
+
+    private void put(int index, long value) {
+      final long address = vector.getDataBufferAddress() + (long) index * width;
+      if (width == 4) {
+        PlatformDependent.putInt(address, (int) value);
+      } else {
+        PlatformDependent.putLong(address, value);
+      }
+    }
+
+    private boolean test(ColumnPredicate predicate, long value) {
+      switch (type) {
+      case FLOAT:
+        return predicate.test((double) Float.intBitsToFloat((int) value));
+      case DOUBLE:
+        return predicate.test(Double.longBitsToDouble(value));
+      default:
+        return predicate.test(value);
+      }
+    }
+
+    @Override
+    protected void initDictionary(ByteBuffer bytes, int size) {
+      dictionary = new long[size];
+      for (int i = 0; i < size; i++) {
+        dictionary[i] = get(bytes, i * width);
+      }
+    }
+
+    @Override
+    protected boolean testDictionaryValue(ColumnPredicate predicate, int id) {
+      return test(predicate, dictionary[id]);
+    }
+
+    @Override
+    protected void writeDictionaryValues(int index, int[] ids, int count) {
+      long address = vector.getDataBufferAddress() + (long) index * width;
+      if (width == 4) {
+        for (int i = 0; i < count; i++, address += 4) {
+          PlatformDependent.putInt(address, (int) dictionary[ids[i]]);
+        }
+      } else {
+        for (int i = 0; i < count; i++, address += 8) {
+          PlatformDependent.putLong(address, dictionary[ids[i]]);
+        }
+      }
+    }
+
+    @Override
+    protected void writeDictionaryValue(int index, int id) {
+      put(index, dictionary[id]);
+    }
+
+    @Override
+    protected void initPlainValues(ByteBuffer bytes, int offset, Encoding encoding) {
+      checkPlain(encoding, name);
+      page = bytes;
+      position = offset;
+    }
+
+    @Override
+    protected void readPlainValues(int index, int count) {
+      // PLAIN values are stored little endian, like in the vector
+      copy(page, position, vector.getDataBufferAddress() + (long) index * width, count * width);
+      position += count * width;
+    }
+
+    @Override
+    protected void skipPlainValues(int count) {
+      position += count * width;
+    }
+
+    @Override
+    protected boolean filterPlainValue(ColumnPredicate predicate, int index) {
+      final long value = get(page, position);
+      position += width;
+      if (!test(predicate, value)) {
+        return false;
+      }
+      put(index, value);
+      return true;
+    }
+  }
+
+  /**
+   * INT32 DATE columns: the number of days since epoch is converted to milliseconds, correcting the dates written by
+   * older versions of Drill if necessary (see DRILL-4203)
+   */
+  private static class DateDecoder extends ColumnDecoder {
+    private final DateMilliVector vector;
+    private final DateCorruptionStatus corruptionStatus;
+
+    private long[] dictionary;
+
+    private ByteBuffer page;
+    private int position;
+
+    DateDecoder(String name, DateMilliVector vector, ColumnDescriptor descriptor, PageReader pageReader,
+        long rowCount, DateCorruptionStatus corruptionStatus) {
+      super(name, vector, descriptor, pageReader, rowCount);
+      this.vector = vector;
+      this.corruptionStatus = corruptionStatus;
+    }
+
+    private long toMillis(int days) {
+      return dateToMillis(days, corruptionStatus);
+    }
+
+    private void put(int index, long millis) {
+      PlatformDependent.putLong(vector.getDataBufferAddress() + index * 8L, millis);
+    }
+
+    @Override
+    protected void initDictionary(ByteBuffer bytes, int size) {
+      dictionary = new long[size];
+      for (int i = 0; i < size; i++) {
+        dictionary[i] = toMillis(bytes.getInt(i * 4));
+      }
+    }
+
+    @Override
+    protected boolean testDictionaryValue(ColumnPredicate predicate, int id) {
+      return predicate.test(dictionary[id]);
+    }
+
+    @Override
+    protected void writeDictionaryValues(int index, int[] ids, int count) {
+      for (int i = 0; i < count; i++) {
+        put(index + i, dictionary[ids[i]]);
+      }
+    }
+
+    @Override
+    protected void writeDictionaryValue(int index, int id) {
+      put(index, dictionary[id]);
+    }
+
+    @Override
+    protected void initPlainValues(ByteBuffer bytes, int offset, Encoding encoding) {
+      checkPlain(encoding, name);
+      page = bytes;
+      position = offset;
+    }
+
+    @Override
+    protected void readPlainValues(int index, int count) {
+      for (int i = 0; i < count; i++, position += 4) {
+        put(index + i, toMillis(page.getInt(position)));
+      }
+    }
+
+    @Override
+    protected void skipPlainValues(int count) {
+      position += count * 4;
+    }
+
+    @Override
+    protected boolean filterPlainValue(ColumnPredicate predicate, int index) {
+      final long millis = toMillis(page.getInt(position));
+      position += 4;
+      if (!predicate.test(millis)) {
+        return false;
+      }
+      put(index, millis);
+      return true;
+    }
+  }
+
+  /**
+   * BOOLEAN columns, bit-packed with the PLAIN encoding or RLE encoded in data pages v2
+   */
+  private static class BooleanDecoder extends ColumnDecoder {
+    private final BitVector vector;
+
+    private ByteBuffer page;
+    private long bitPosition;
+    private RleBitPackedDecoder rleValues;
+
+    BooleanDecoder(String name, BitVector vector, ColumnDescriptor descriptor, PageReader pageReader,
+        long rowCount) {
+      super(name, vector, descriptor, pageReader, rowCount);
+      this.vector = vector;
+    }
+
+    private boolean next() {
+      if (rleValues != null) {
+        return rleValues.readInt() != 0;
+      }
+      final int b = page.get((int) (bitPosition >>> 3));
+      final boolean value = ((b >>> (bitPosition & 7)) & 1) != 0;
+      bitPosition++;
+      return value;
+    }
+
+    @Override
+    protected void initDictionary(ByteBuffer bytes, int size) {
+      throw noDictionary();
+    }
+
+    @Override
+    protected boolean testDictionaryValue(ColumnPredicate predicate, int id) {
+      throw noDictionary();
+    }
+
+    @Override
+    protected void writeDictionaryValues(int index, int[] ids, int count) {
+      throw noDictionary();
+    }
+
+    @Override
+    protected void writeDictionaryValue(int index, int id) {
+      throw noDictionary();
+    }
+
+    // ColumnarParquetReaderFactory leaves dictionary encoded boolean columns to the row-wise reader
+    private IllegalStateException noDictionary() {
+      return new IllegalStateException("Dictionary encoding isn't supported for boolean column " + name);
+    }
+
+    @Override
+    protected void initPlainValues(ByteBuffer bytes, int offset, Encoding encoding) {
+      page = bytes;
+      if (encoding == Encoding.RLE) {
+        // RLE encoded values are prefixed by their length
+        final int length = bytes.getInt(offset);
+        rleValues = new RleBitPackedDecoder(bytes, offset + 4, offset + 4 + length, 1);
+      } else {
+        checkPlain(encoding, name);
+        rleValues = null;
+        bitPosition = offset * 8L;
+      }
+    }
+
+    @Override
+    protected void readPlainValues(int index, int count) {
+      final long address = vector.getDataBufferAddress();
+      for (int i = 0; i < count; i++) {
+        setBits(address, index + i, 1, next());
+      }
+    }
+
+    @Override
+    protected void skipPlainValues(int count) {
+      if (rleValues != null) {
+        rleValues.skip(count);
+      } else {
+        bitPosition += count;
+      }
+    }
+
+    @Override
+    protected boolean filterPlainValue(ColumnPredicate predicate, int index) {
+      final boolean value = next();
+      if (!predicate.test(value ? 1L : 0L)) {
+        return false;
+      }
+      setBits(vector.getDataBufferAddress(), index, 1, value);
+      return true;
+    }
+  }
+
+  /**
+   * BINARY columns, read as VARCHAR or VARBINARY. The values are appended to the data buffer of the vector, which is
+   * grown as needed.
+   */
+  private static class BinaryDecoder extends ColumnDecoder {
+    private final BaseVariableWidthVector vector;
+    private final Reallocator reallocator;
+
+    // length of the data written in the current batch
+    private int dataLength;
+
+    private ByteBuffer dictionary;
+    private int[] dictionaryOffsets;
+    private int[] dictionaryLengths;
+
+    private ByteBuffer page;
+    private int position;
+
+    BinaryDecoder(String name, BaseVariableWidthVector vector, ColumnDescriptor descriptor, PageReader pageReader,
+        long rowCount) {
+      super(name, vector, descriptor, pageReader, rowCount);
+      this.vector = vector;
+      this.reallocator = Reallocators.getReallocator(vector);
+    }
+
+    @Override
+    void startBatch(int count) {
+      super.startBatch(count);
+      dataLength = 0;
+      PlatformDependent.putInt(vector.getOffsetBufferAddress(), 0);
+    }
+
+    @Override
+    void endBatch(int count) {
+      // all the offsets are set, make sure setValueCount() doesn't overwrite them
+      vector.setLastSet(count - 1);
+      super.endBatch(count);
+    }
+
+    private void write(int index, ByteBuffer src, int srcIndex, int length) {
+      final long address = reallocator.ensure(dataLength + length);
+      copy(src, srcIndex, address + dataLength, length);
+      dataLength += length;
+      PlatformDependent.putInt(vector.getOffsetBufferAddress() + (index + 1) * 4L, dataLength);
+    }
+
+    @Override
+    protected void setNulls(int index, int count) {
+      super.setNulls(index, count);
+      final long offsetAddress = vector.getOffsetBufferAddress();
+      for (int i = index; i < index + count; i++) {
+        PlatformDependent.putInt(offsetAddress + (i + 1) * 4L, dataLength);
+      }
+    }
+
+    @Override
+    protected void initDictionary(ByteBuffer bytes, int size) {
+      // the dictionary page buffer stays valid until the column chunk is closed
+      dictionary = bytes;
+      dictionaryOffsets = new int[size];
+      dictionaryLengths = new int[size];
+      int offset = 0;
+      for (int i = 0; i < size; i++) {
+        final int length = bytes.getInt(offset);
+        dictionaryOffsets[i] = offset + 4;
+        dictionaryLengths[i] = length;
+        offset += 4 + length;
+      }
+    }
+
+    @Override
+    protected boolean testDictionaryValue(ColumnPredicate predicate, int id) {
+      return predicate.test(dictionary, dictionaryOffsets[id], dictionaryLengths[id]);
+    }
+
+    @Override
+    protected void writeDictionaryValues(int index, int[] ids, int count) {
+      for (int i = 0; i < count; i++) {
+        final int id = ids[i];
+        write(index + i, dictionary, dictionaryOffsets[id], dictionaryLengths[id]);
+      }
+    }
+
+    @Override
+    protected void writeDictionaryValue(int index, int id) {
+      write(index, dictionary, dictionaryOffsets[id], dictionaryLengths[id]);
+    }
+
+    @Override
+    protected void initPlainValues(ByteBuffer bytes, int offset, Encoding encoding) {
+      checkPlain(encoding, name);
+      page = bytes;
+      position = offset;
+    }
+
+    @Override
+    protected void readPlainValues(int index, int count) {
+      for (int i = 0; i < count; i++) {
+        final int length = page.getInt(position);
+        write(index + i, page, position + 4, length);
+        position += 4 + length;
+      }
+    }
+
+    @Override
+    protected void skipPlainValues(int count) {
+      for (int i = 0; i < count; i++) {
+        position += 4 + page.getInt(position);
+      }
+    }
+
+    @Override
+    protected boolean filterPlainValue(ColumnPredicate predicate, int index) {
+      final int length = page.getInt(position);
+      final boolean match = predicate.test(page, position + 4, length);
+      if (match) {
+        write(index, page, position + 4, length);
+      }
+      position += 4 + length;
+      return match;
+    }
+  }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.columnar;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.dremio.common.expression.FunctionCall;
+import com.dremio.common.expression.LogicalExpression;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.common.expression.ValueExpressions.BooleanExpression;
+import com.dremio.common.expression.ValueExpressions.DateExpression;
+import com.dremio.common.expression.ValueExpressions.DoubleExpression;
+import com.dremio.common.expression.ValueExpressions.FloatExpression;
+import com.dremio.common.expression.ValueExpressions.IntExpression;
+import com.dremio.common.expression.ValueExpressions.LongExpression;
+import com.dremio.common.expression.ValueExpressions.QuotedString;
+import com.dremio.common.expression.ValueExpressions.TimeExpression;
+import com.dremio.common.expression.ValueExpressions.TimeStampExpression;
+
+/**
+ * Comparison between a column and a literal, evaluated by the columnar reader on the decoded values (or once per
+ * dictionary entry for dictionary encoded pages). Null values never match.
+ */
+final class ColumnPredicate {
+
+  enum Comparison {
+    EQUAL, NOT_EQUAL, LESS_THAN, LESS_THAN_OR_EQUAL, GREATER_THAN, GREATER_THAN_OR_EQUAL;
+
+    private Comparison reverse() {
+      switch (this) {
+      case LESS_THAN:
+        return GREATER_THAN;
+      case LESS_THAN_OR_EQUAL:
+        return GREATER_THAN_OR_EQUAL;
+      case GREATER_THAN:
+        return LESS_THAN;
+      case GREATER_THAN_OR_EQUAL:
+        return LESS_THAN_OR_EQUAL;
+      default:
+        return this;
+      }
+    }
+
+    private static Comparison fromFunctionName(String name) {
+      switch (name) {
+      case "equal":
+        return EQUAL;
+      case "not_equal":
+        return NOT_EQUAL;
+      case "less_than":
+        return LESS_THAN;
+      case "less_than_or_equal_to":
+        return LESS_THAN_OR_EQUAL;
+      case "greater_than":
+        return GREATER_THAN;
+      case "greater_than_or_equal_to":
+        return GREATER_THAN_OR_EQUAL;
+      default:
+        return null;
+      }
+    }
+  }
+
+  private enum LiteralType {INTEGRAL, FLOATING_POINT, BINARY}
+
+  private final Comparison comparison;
+  private final LiteralType literalType;
+  private final long longValue;
+  private final double doubleValue;
+  private final byte[] bytesValue;
+
+  private ColumnPredicate(Comparison comparison, long longValue) {
+    this.comparison = comparison;
+    this.literalType = LiteralType.INTEGRAL;
+    this.longValue = longValue;
+    this.doubleValue = longValue;
+    this.bytesValue = null;
+  }
+
+  private ColumnPredicate(Comparison comparison, double doubleValue) {
+    this.comparison = comparison;
+    this.literalType = LiteralType.FLOATING_POINT;
+    this.longValue = 0;
+    this.doubleValue = doubleValue;
+    this.bytesValue = null;
+  }
+
+  private ColumnPredicate(Comparison comparison, byte[] bytesValue) {
+    this.comparison = comparison;
+    this.literalType = LiteralType.BINARY;
+    this.longValue = 0;
+    this.doubleValue = 0;
+    this.bytesValue = bytesValue;
+  }
+
+  /**
+   * @return the predicate, or null if the expression isn't a comparison between a column and a literal
+   */
+  static ColumnPredicate of(LogicalExpression expr) {
+    if (!(expr instanceof FunctionCall)) {
+      return null;
+    }
+    final FunctionCall call = (FunctionCall) expr;
+    Comparison comparison = Comparison.fromFunctionName(call.getName());
+    if (comparison == null || call.args.size() != 2) {
+      return null;
+    }
+
+    LogicalExpression literal = call.args.get(1);
+    if (!(call.args.get(0) instanceof SchemaPath)) {
+      if (!(call.args.get(1) instanceof SchemaPath)) {
+        return null;
+      }
+      // literal on the left side
+      literal = call.args.get(0);
+      comparison = comparison.reverse();
+    }
+
+    if (literal instanceof IntExpression) {
+      return new ColumnPredicate(comparison, ((IntExpression) literal).getInt());
+    } else if (literal instanceof LongExpression) {
+      return new ColumnPredicate(comparison, ((LongExpression) literal).getLong());
+    } else if (literal instanceof DateExpression) {
+      return new ColumnPredicate(comparison, ((DateExpression) literal).getDate());
+    } else if (literal instanceof TimeExpression) {
+      return new ColumnPredicate(comparison, ((TimeExpression) literal).getTime());
+    } else if (literal instanceof TimeStampExpression) {
+      return new ColumnPredicate(comparison, ((TimeStampExpression) literal).getTimeStamp());
+    } else if (literal instanceof BooleanExpression) {
+      return new ColumnPredicate(comparison, ((BooleanExpression) literal).getBoolean() ? 1L : 0L);
+    } else if (literal instanceof FloatExpression) {
+      return new ColumnPredicate(comparison, (double) ((FloatExpression) literal).getFloat());
+    } else if (literal instanceof DoubleExpression) {
+      return new ColumnPredicate(comparison, ((DoubleExpression) literal).getDouble());
+    } else if (literal instanceof QuotedString) {
+      return new ColumnPredicate(comparison, ((QuotedString) literal).getString().getBytes(StandardCharsets.UTF_8));
+    }
+    return null;
+  }
+
+  /**
+   * @return true if the literal can be compared to the values of a binary column, false if it can be compared to the
+   * values of a numeric column
+   */
+  boolean isBinary() {
+    return literalType == LiteralType.BINARY;
+  }
+
+  boolean test(long value) {
+    if (literalType == LiteralType.FLOATING_POINT) {
+      return test((double) value);
+    }
+    return matches(Long.compare(value, longValue));
+  }
+
+  boolean test(double value) {
+    // primitive comparisons, so NaN only matches NOT_EQUAL
+    switch (comparison) {
+    case EQUAL:
+      return value == doubleValue;
+    case NOT_EQUAL:
+      return value != doubleValue;
+    case LESS_THAN:
+      return value < doubleValue;
+    case LESS_THAN_OR_EQUAL:
+      return value <= doubleValue;
+    case GREATER_THAN:
+      return value > doubleValue;
+    case GREATER_THAN_OR_EQUAL:
+      return value >= doubleValue;
+    default:
+      throw new IllegalStateException("Unexpected comparison " + comparison);
+    }
+  }
+
+  /**
+   * Compare length bytes of buffer, starting at index, to the literal, as unsigned bytes.
+   */
+  boolean test(ByteBuffer buffer, int index, int length) {
+    final int n = Math.min(length, bytesValue.length);
+    int cmp = 0;
+    for (int i = 0; i < n && cmp == 0; i++) {
+      cmp = Integer.compare(buffer.get(index + i) & 0xFF, bytesValue[i] & 0xFF);
+    }
+    if (cmp == 0) {
+      cmp = Integer.compare(length, bytesValue.length);
+    }
+    return matches(cmp);
+  }
+
+  /**
+   * @return false if none of the values between min and max (inclusive) can match
+   */
+  boolean mayMatch(long min, long max) {
+    if (literalType == LiteralType.FLOATING_POINT) {
+      return mayMatch((double) min, (double) max);
+    }
+    return rangeMatches(Long.compare(min, longValue), Long.compare(max, longValue));
+  }
+
+  /**
+   * @return false if none of the values between min and max (inclusive) can match
+   */
+  boolean mayMatch(double min, double max) {
+    // NaN values aren't ordered, and aren't always accounted for by the statistics
+    if (Double.isNaN(min) || Double.isNaN(max) || Double.isNaN(doubleValue) || comparison == Comparison.NOT_EQUAL) {
+      return true;
+    }
+    return rangeMatches(compare(min, doubleValue), compare(max, doubleValue));
+  }
+
+  // primitive comparison, so -0.0 and 0.0 are equal like when testing the values
+  private static int compare(double a, double b) {
+    return a < b ? -1 : (a > b ? 1 : 0);
+  }
+
+  /**
+   * @param minCmp comparison of the minimum value to the literal
+   * @param maxCmp comparison of the maximum value to the literal
+   */
+  private boolean rangeMatches(int minCmp, int maxCmp) {
+    switch (comparison) {
+    case EQUAL:
+      return minCmp <= 0 && maxCmp >= 0;
+    case NOT_EQUAL:
+      return minCmp != 0 || maxCmp != 0;
+    case LESS_THAN:
+      return minCmp < 0;
+    case LESS_THAN_OR_EQUAL:
+      return minCmp <= 0;
+    case GREATER_THAN:
+      return maxCmp > 0;
+    case GREATER_THAN_OR_EQUAL:
+      return maxCmp >= 0;
+    default:
+      throw new IllegalStateException("Unexpected comparison " + comparison);
+    }
+  }
+
+  private boolean matches(int cmp) {
+    switch (comparison) {
+    case EQUAL:
+      return cmp == 0;
+    case NOT_EQUAL:
+      return cmp != 0;
+    case LESS_THAN:
+      return cmp < 0;
+    case LESS_THAN_OR_EQUAL:
+      return cmp <= 0;
+    case GREATER_THAN:
+      return cmp > 0;
+    case GREATER_THAN_OR_EQUAL:
+      return cmp >= 0;
+    default:
+      throw new IllegalStateException("Unexpected comparison " + comparison);
+    }
+  }
+}
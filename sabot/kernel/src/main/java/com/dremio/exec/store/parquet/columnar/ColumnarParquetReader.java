@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.columnar;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.arrow.vector.SimpleIntVector;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.hadoop.CodecFactory;
+import org.apache.parquet.hadoop.ColumnChunkIncReadStore;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.Type;
+
+import com.dremio.common.exceptions.ExecutionSetupException;
+import com.dremio.common.exceptions.UserException;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.store.parquet.AbstractParquetReader;
+import com.dremio.exec.store.parquet.InputStreamProvider;
+import com.dremio.exec.store.parquet.ParquetFilterCondition;
+import com.dremio.exec.store.parquet.SchemaDerivationHelper;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.op.scan.OutputMutator;
+import com.dremio.sabot.op.scan.ScanOperator.Metric;
+import com.google.common.base.Preconditions;
+
+/**
+ * Parquet reader decoding whole pages of flat primitive columns directly into arrow vectors.<br>
+ * <br>
+ * If a filter condition is set, the filtered column is read first and only the matching rows are kept. The other
+ * columns then skip the rows that didn't match using the deltas vector, which is shared with the row-wise reader
+ * reading the remaining columns of the row group.
+ */
+public class ColumnarParquetReader extends AbstractParquetReader {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ColumnarParquetReader.class);
+
+  private final String path;
+  private final CodecFactory codecFactory;
+  private final List<ParquetFilterCondition> conditions;
+  private final ParquetMetadata footer;
+  private final int rowGroupIndex;
+  private final SchemaDerivationHelper schemaHelper;
+  private final InputStreamProvider inputStreamProvider;
+
+  private ColumnChunkIncReadStore pageReadStore;
+  private final List<ColumnDecoder> decoders = new ArrayList<>();
+  // decoder of the filtered column, null if there is no filter
+  private ColumnDecoder filterDecoder;
+  // true if the filtered column isn't in the file: its values are all null, so none of the rows match
+  private boolean filterMatchesNothing;
+  private long rowCount;
+  private long totalRead;
+
+  public ColumnarParquetReader(OperatorContext context, List<SchemaPath> columns, String path,
+      CodecFactory codecFactory, List<ParquetFilterCondition> conditions, ParquetMetadata footer, int rowGroupIndex,
+      SimpleIntVector deltas, SchemaDerivationHelper schemaHelper, InputStreamProvider inputStreamProvider) {
+    super(context, columns, deltas);
+    this.path = path;
+    this.codecFactory = codecFactory;
+    this.conditions = conditions;
+    this.footer = footer;
+    this.rowGroupIndex = rowGroupIndex;
+    this.schemaHelper = schemaHelper;
+    this.inputStreamProvider = inputStreamProvider;
+  }
+
+  @Override
+  public void setup(OutputMutator output) throws ExecutionSetupException {
+    try {
+      final BlockMetaData block = footer.getBlocks().get(rowGroupIndex);
+      final MessageType schema = footer.getFileMetaData().getSchema();
+      rowCount = block.getRowCount();
+
+      final Map<String, ColumnChunkMetaData> chunks = new HashMap<>();
+      for (ColumnChunkMetaData chunk : block.getColumns()) {
+        if (chunk.getPath().size() == 1) {
+          chunks.put(chunk.getPath().iterator().next().toLowerCase(), chunk);
+        }
+      }
+
+      pageReadStore = new ColumnChunkIncReadStore(rowCount, codecFactory, context.getAllocator(),
+        inputStreamProvider.getFileSystem(), new Path(path), inputStreamProvider);
+
+      final SchemaPath filterPath = deltas != null ? conditions.get(0).getPath() : null;
+      for (SchemaPath column : getColumns()) {
+        final String name = column.getRootSegment().getPath();
+        final ColumnChunkMetaData chunk = chunks.get(name.toLowerCase());
+        Preconditions.checkState(chunk != null, "column %s not found in row group %s", name, rowGroupIndex);
+        final String[] columnPath = chunk.getPath().toArray();
+        final Type type = schema.getType(columnPath);
+        final ColumnDescriptor descriptor = schema.getColumnDescription(columnPath);
+
+        pageReadStore.addColumn(descriptor, chunk);
+        final ColumnDecoder decoder = ColumnDecoders.newDecoder(output, type.getName(), type.asPrimitiveType(),
+          descriptor, pageReadStore.getPageReader(descriptor), rowCount, schemaHelper);
+        if (filterPath != null && filterPath.getRootSegment().getPath().equalsIgnoreCase(name)) {
+          final ColumnPredicate predicate = ColumnPredicate.of(conditions.get(0).getExpr());
+          final StatisticsFilter statisticsFilter = context.getOptions().getOption(ExecConstants.PARQUET_STATS_PRUNING)
+            ? StatisticsFilter.of(predicate, type.asPrimitiveType(), schemaHelper.getDateCorruptionStatus()) : null;
+          decoder.setPredicate(predicate, statisticsFilter, isDictionaryEncoded(chunk));
+          filterDecoder = decoder;
+        }
+        decoders.add(decoder);
+      }
+
+      if (deltas != null) {
+        deltas.allocateNew();
+        filterMatchesNothing = filterDecoder == null;
+      }
+    } catch (Exception e) {
+      handleAndRaise("Failure in setting up reader", e);
+    }
+  }
+
+  /**
+   * Whether all the data pages of the chunk are dictionary encoded. Only known for the chunks written with the v1
+   * encodings: PLAIN is listed if the writer fell back to it, while the v2 dictionary pages are PLAIN encoded.
+   */
+  private static boolean isDictionaryEncoded(ColumnChunkMetaData chunk) {
+    return chunk.getEncodings().contains(Encoding.PLAIN_DICTIONARY) && !chunk.getEncodings().contains(Encoding.PLAIN);
+  }
+
+  protected void handleAndRaise(String s, Exception e) {
+    close();
+    String message = "Error in parquet reader (columnar).\nMessage: " + s +
+      "\nParquet Metadata: " + footer;
+    throw new RuntimeException(message, e);
+  }
+
+  @Override
+  public int next() {
+    int count = 0;
+    try {
+      if (filterMatchesNothing) {
+        deltas.setValueCount(0);
+        return 0;
+      }
+
+      if (filterDecoder != null) {
+        for (ColumnDecoder decoder : decoders) {
+          decoder.startBatch((int) numRowsPerBatch);
+        }
+        count = filterDecoder.readFiltered((int) numRowsPerBatch, deltas);
+        deltas.setValueCount(count);
+        for (ColumnDecoder decoder : decoders) {
+          if (decoder != filterDecoder) {
+            decoder.readWithDeltas(deltas, count);
+          }
+        }
+      } else {
+        count = (int) Math.min(numRowsPerBatch, rowCount - totalRead);
+        for (ColumnDecoder decoder : decoders) {
+          decoder.startBatch(count);
+          decoder.read(0, count);
+        }
+      }
+
+      for (ColumnDecoder decoder : decoders) {
+        decoder.endBatch(count);
+      }
+      totalRead += count;
+      return count;
+    } catch (Throwable t) {
+      throw UserException.dataReadError(t)
+          .message("Failed to read data from parquet file")
+          .addContext("File path", path)
+          .addContext("Rowgroup index", rowGroupIndex)
+          .addContext("Filter present", filterDecoder != null ? "yes" : "no")
+          .addContext("Max no. of rows trying to read", numRowsPerBatch)
+          .addContext("No. of rows read so far in current iteration", count)
+          .addContext("No. of rows read so far in current rowgroup", totalRead)
+          .addContext("Max no. rows in current rowgroup", rowCount)
+          .build(logger);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (filterDecoder != null) {
+      context.getStats().addLongStat(Metric.NUM_PAGES_PRUNED, filterDecoder.getPagesSkipped());
+      filterDecoder = null;
+    }
+    try {
+      if (pageReadStore != null) {
+        pageReadStore.close();
+        pageReadStore = null;
+      }
+    } catch (IOException e) {
+      logger.warn("Failure while closing PageReadStore", e);
+    }
+    if (deltas != null) {
+      deltas.close();
+    }
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.columnar;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.arrow.vector.SimpleIntVector;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.hadoop.CodecFactory;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.schema.Type;
+
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.exec.store.RecordReader;
+import com.dremio.exec.store.parquet.InputStreamProvider;
+import com.dremio.exec.store.parquet.ParquetFilterCondition;
+import com.dremio.exec.store.parquet.ParquetReaderFactory;
+import com.dremio.exec.store.parquet.SchemaDerivationHelper;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Creates {@link ColumnarParquetReader}s for the flat primitive columns it can decode. The other columns are read by
+ * the row-wise reader.
+ */
+public class ColumnarParquetReaderFactory implements ParquetReaderFactory {
+
+  // BIT_PACKED is only supported for the levels of required columns, which are never read
+  private static final ImmutableSet<Encoding> SUPPORTED_ENCODINGS = ImmutableSet.of(
+    Encoding.PLAIN, Encoding.RLE, Encoding.BIT_PACKED, Encoding.PLAIN_DICTIONARY, Encoding.RLE_DICTIONARY);
+  private static final ImmutableSet<Encoding> DICTIONARY_ENCODINGS = ImmutableSet.of(
+    Encoding.PLAIN_DICTIONARY, Encoding.RLE_DICTIONARY);
+
+  @Override
+  public boolean isSupported(ColumnChunkMetaData chunk) {
+    if (chunk.getPath().size() != 1 || !SUPPORTED_ENCODINGS.containsAll(chunk.getEncodings())) {
+      return false;
+    }
+    switch (chunk.getType()) {
+    case BOOLEAN:
+      // boolean columns have no dictionary decoder
+      return Collections.disjoint(chunk.getEncodings(), DICTIONARY_ENCODINGS);
+    case INT32:
+    case INT64:
+    case FLOAT:
+    case DOUBLE:
+    case BINARY:
+      return true;
+    default:
+      return false;
+    }
+  }
+
+  @Override
+  public boolean isSupported(Type field) {
+    return field.isPrimitive() && field.getRepetition() != Type.Repetition.REPEATED;
+  }
+
+  @Override
+  public boolean isSupported(Type field, ColumnChunkMetaData chunk) {
+    // old writers bit pack the definition levels of optional columns, only RLE levels are decoded
+    return field.getRepetition() == Type.Repetition.REQUIRED || !chunk.getEncodings().contains(Encoding.BIT_PACKED);
+  }
+
+  @Override
+  public boolean isSupported(ParquetFilterCondition condition) {
+    return ColumnPredicate.of(condition.getExpr()) != null;
+  }
+
+  @Override
+  public RecordReader newReader(OperatorContext context, List<SchemaPath> columns, String path,
+      CodecFactory codecFactory, List<ParquetFilterCondition> conditions, boolean enableDetailedTracing,
+      ParquetMetadata footer, int rowGroupIndex, SimpleIntVector deltas, SchemaDerivationHelper schemaHelper,
+      InputStreamProvider inputStreamProvider) {
+    return new ColumnarParquetReader(context, columns, path, codecFactory, conditions, footer, rowGroupIndex, deltas,
+      schemaHelper, inputStreamProvider);
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.columnar;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Decoder of the parquet RLE/bit-packing hybrid encoding, used for definition levels, dictionary ids and booleans.<br>
+ * <br>
+ * The input is a sequence of runs, each starting with a varint header: either a value repeated header/2 times (RLE
+ * run), or header/2 groups of 8 values packed on bitWidth bits each, least significant bit first (bit-packed run).
+ */
+final class RleBitPackedDecoder {
+
+  private final ByteBuffer buffer;
+  private final int bitWidth;
+  private final int byteWidth;
+  private final long mask;
+  private final int limit;
+  private int position;
+
+  // current run
+  private boolean rle;
+  private int remaining;
+  private int rleValue;
+  private long packedBitOffset;
+
+  /**
+   * @param buffer encoded data
+   * @param offset index of the first run in buffer
+   * @param limit index of the end of the encoded data in buffer
+   * @param bitWidth number of bits of each value
+   */
+  RleBitPackedDecoder(ByteBuffer buffer, int offset, int limit, int bitWidth) {
+    Preconditions.checkArgument(bitWidth >= 0 && bitWidth <= 32, "invalid bit width %s", bitWidth);
+    this.buffer = buffer;
+    this.position = offset;
+    this.limit = limit;
+    this.bitWidth = bitWidth;
+    this.byteWidth = (bitWidth + 7) / 8;
+    this.mask = (1L << bitWidth) - 1;
+  }
+
+  int readInt() {
+    if (remaining == 0) {
+      readNextRun();
+    }
+    remaining--;
+    if (rle) {
+      return rleValue;
+    }
+    final int value = unpack(packedBitOffset);
+    packedBitOffset += bitWidth;
+    return value;
+  }
+
+  /**
+   * Decode the next count values into dest
+   */
+  void readInts(int[] dest, int offset, int count) {
+    while (count > 0) {
+      if (remaining == 0) {
+        readNextRun();
+      }
+      final int n = Math.min(count, remaining);
+      if (rle) {
+        Arrays.fill(dest, offset, offset + n, rleValue);
+      } else {
+        for (int i = 0; i < n; i++) {
+          dest[offset + i] = unpack(packedBitOffset);
+          packedBitOffset += bitWidth;
+        }
+      }
+      remaining -= n;
+      offset += n;
+      count -= n;
+    }
+  }
+
+  void skip(int count) {
+    while (count > 0) {
+      if (remaining == 0) {
+        readNextRun();
+      }
+      final int n = Math.min(count, remaining);
+      if (!rle) {
+        packedBitOffset += (long) n * bitWidth;
+      }
+      remaining -= n;
+      count -= n;
+    }
+  }
+
+  private void readNextRun() {
+    Preconditions.checkState(position < limit, "no more values to decode");
+    final int header = readUnsignedVarInt();
+    if ((header & 1) == 0) {
+      rle = true;
+      remaining = header >>> 1;
+      int value = 0;
+      for (int i = 0; i < byteWidth; i++) {
+        value |= (buffer.get(position++) & 0xFF) << (i * 8);
+      }
+      rleValue = value;
+    } else {
+      rle = false;
+      final int groups = header >>> 1;
+      remaining = groups * 8;
+      packedBitOffset = position * 8L;
+      // the last run of a page may be truncated: missing bytes are read as zeros
+      position = (int) Math.min(limit, position + (long) groups * bitWidth);
+    }
+  }
+
+  private int readUnsignedVarInt() {
+    int value = 0;
+    int shift = 0;
+    int b;
+    do {
+      b = buffer.get(position++) & 0xFF;
+      value |= (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+
+  private int unpack(long bitOffset) {
+    final int index = (int) (bitOffset >>> 3);
+    final int shift = (int) (bitOffset & 7);
+    final int numBytes = (shift + bitWidth + 7) >>> 3;
+    long bits = 0;
+    for (int i = 0; i < numBytes && index + i < limit; i++) {
+      bits |= (long) (buffer.get(index + i) & 0xFF) << (i * 8);
+    }
+    return (int) ((bits >>> shift) & mask);
+  }
+}
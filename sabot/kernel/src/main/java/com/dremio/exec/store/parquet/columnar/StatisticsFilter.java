@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.columnar;
+
+import org.apache.parquet.column.statistics.DoubleStatistics;
+import org.apache.parquet.column.statistics.FloatStatistics;
+import org.apache.parquet.column.statistics.IntStatistics;
+import org.apache.parquet.column.statistics.LongStatistics;
+import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+
+import com.dremio.exec.store.parquet.ParquetFilterCondition;
+import com.dremio.exec.store.parquet.ParquetReaderUtility.DateCorruptionStatus;
+
+/**
+ * Checks the min/max statistics of a row group or of a page against a filter condition, to skip the row groups and
+ * pages none of whose values can match without reading them.<br>
+ * <br>
+ * Only numeric, date and time columns are supported: the statistics of binary columns are computed with a signed
+ * byte comparison by this version of parquet, which doesn't match the order of the values.
+ */
+public final class StatisticsFilter {
+
+  private final ColumnPredicate predicate;
+  private final PrimitiveTypeName type;
+  private final boolean isDate;
+  private final DateCorruptionStatus corruptionStatus;
+
+  private StatisticsFilter(ColumnPredicate predicate, PrimitiveType type, DateCorruptionStatus corruptionStatus) {
+    this.predicate = predicate;
+    this.type = type.getPrimitiveTypeName();
+    this.isDate = type.getOriginalType() == OriginalType.DATE;
+    this.corruptionStatus = corruptionStatus;
+  }
+
+  /**
+   * @return the filter, or null if the statistics of the column can't be used to evaluate the condition
+   */
+  public static StatisticsFilter of(ParquetFilterCondition condition, PrimitiveType type,
+      DateCorruptionStatus corruptionStatus) {
+    final ColumnPredicate predicate = ColumnPredicate.of(condition.getExpr());
+    return predicate != null ? of(predicate, type, corruptionStatus) : null;
+  }
+
+  static StatisticsFilter of(ColumnPredicate predicate, PrimitiveType type, DateCorruptionStatus corruptionStatus) {
+    if (predicate.isBinary()) {
+      return null;
+    }
+    final OriginalType originalType = type.getOriginalType();
+    switch (type.getPrimitiveTypeName()) {
+    case INT32:
+    case INT64:
+      if (originalType == null || originalType == OriginalType.INT_8 || originalType == OriginalType.INT_16
+          || originalType == OriginalType.INT_32 || originalType == OriginalType.INT_64
+          || originalType == OriginalType.TIME_MILLIS || originalType == OriginalType.TIMESTAMP_MILLIS) {
+        return new StatisticsFilter(predicate, type, corruptionStatus);
+      }
+      // values above the threshold are corrected, so the conversion doesn't preserve the order
+      if (originalType == OriginalType.DATE && corruptionStatus != DateCorruptionStatus.META_UNCLEAR_TEST_VALUES) {
+        return new StatisticsFilter(predicate, type, corruptionStatus);
+      }
+      return null;
+    case FLOAT:
+    case DOUBLE:
+      return originalType == null ? new StatisticsFilter(predicate, type, corruptionStatus) : null;
+    default:
+      return null;
+    }
+  }
+
+  /**
+   * @param statistics statistics of the row group or page
+   * @param valueCount number of values in the row group or page
+   * @return true if none of the values can match
+   */
+  public boolean canDrop(Statistics<?> statistics, long valueCount) {
+    if (statistics == null) {
+      return false;
+    }
+    if (!statistics.hasNonNullValue()) {
+      // null values never match
+      return valueCount > 0 && statistics.getNumNulls() == valueCount;
+    }
+
+    switch (type) {
+    case INT32: {
+      final IntStatistics stats = (IntStatistics) statistics;
+      if (isDate) {
+        return !predicate.mayMatch(ColumnDecoders.dateToMillis(stats.getMin(), corruptionStatus),
+          ColumnDecoders.dateToMillis(stats.getMax(), corruptionStatus));
+      }
+      return !predicate.mayMatch(stats.getMin(), stats.getMax());
+    }
+    case INT64: {
+      final LongStatistics stats = (LongStatistics) statistics;
+      return !predicate.mayMatch(stats.getMin(), stats.getMax());
+    }
+    case FLOAT: {
+      final FloatStatistics stats = (FloatStatistics) statistics;
+      return !predicate.mayMatch(stats.getMin(), stats.getMax());
+    }
+    case DOUBLE: {
+      final DoubleStatistics stats = (DoubleStatistics) statistics;
+      return !predicate.mayMatch(stats.getMin(), stats.getMax());
+    }
+    default:
+      return false;
+    }
+  }
+}
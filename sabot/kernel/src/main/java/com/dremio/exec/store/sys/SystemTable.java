@@ -23,6 +23,7 @@ import java.util.stream.StreamSupport;
 import org.apache.calcite.rel.type.RelDataType;
 
 import com.dremio.exec.planner.cost.ScanCostFactor;
+import com.dremio.exec.planner.sql.handlers.commands.PlanCache;
 import com.dremio.exec.planner.types.JavaTypeFactoryImpl;
 import com.dremio.exec.proto.CoordinationProtos;
 import com.dremio.exec.record.BatchSchema;
@@ -34,6 +35,7 @@ import com.dremio.exec.store.sys.accel.AccelerationListManager;
 import com.dremio.exec.store.sys.accel.AccelerationListManager.MaterializationInfo;
 import com.dremio.exec.store.sys.accel.AccelerationListManager.ReflectionInfo;
 import com.dremio.exec.work.WorkStats.FragmentInfo;
+import com.dremio.exec.work.WorkStats.SchedulingGroupInfo;
 import com.dremio.exec.work.WorkStats.SlicingThreadInfo;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.task.TaskPool;
@@ -157,12 +159,28 @@ public enum SystemTable {
     }
   },
 
+  @SuppressWarnings("unchecked")
+  SCHEDULING_GROUPS("scheduling_groups", true, SchedulingGroupInfo.class) {
+    @Override
+    public Iterator<Object> getIterator(SabotContext sContext, OperatorContext context) {
+      return (Iterator<Object>) (Object) sContext.getWorkStatsProvider().get().getSchedulingGroups().iterator();
+    }
+  },
+
   @SuppressWarnings("unchecked")
   DEPENDENCIES("dependencies", false, AccelerationListManager.DependencyInfo.class){
     @Override
     public Iterator<Object> getIterator(final SabotContext sContext, final OperatorContext context) {
       return (Iterator<Object>) (Object) sContext.getAccelerationListManager().getReflectionDependencies().iterator();
     }
+  },
+
+  PLAN_CACHE("plan_cache", false, PlanCache.Stats.class) {
+    @Override
+    public Iterator<Object> getIterator(final SabotContext sContext, final OperatorContext context) {
+      final Object stats = sContext.getPlanCache().getStats(sContext.getEndpoint().getAddress());
+      return ImmutableList.of(stats).iterator();
+    }
   }
   ;
 
@@ -18,7 +18,9 @@ package com.dremio.exec.work;
 import java.sql.Timestamp;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
 
+import com.dremio.sabot.task.SchedulingGroup;
 import com.dremio.sabot.task.TaskDescriptor;
 import com.dremio.sabot.task.TaskPool;
 
@@ -30,6 +32,13 @@ public interface WorkStats {
     return Collections.emptyList();
   }
 
+  /**
+   * @return runtime stats of the scheduling groups (workloads, queries and phases) of this node
+   */
+  default Iterable<SchedulingGroupInfo> getSchedulingGroups() {
+    return Collections.emptyList();
+  }
+
   /**
    * @return number of running fragments / max width per node
    */
@@ -86,6 +95,40 @@ public interface WorkStats {
     }
   }
 
+  /**
+   * sys.scheduling_groups entry
+   */
+  class SchedulingGroupInfo {
+
+    /** Sabot node infos */
+    public final String hostname;
+    public final int fabric_port;
+
+    public final String workload;
+    /** null for workload groups */
+    public final String queryId;
+    /** null for workload and query groups */
+    public final Integer majorFragmentId;
+
+    public final long weight;
+    /** time the tasks of the group ran on the slicing threads, in milliseconds */
+    public final long cpuTime;
+    /** running tasks (fragments), including blocked ones */
+    public final int numTasks;
+
+    public SchedulingGroupInfo(String hostname, int fabricPort, String workload, String queryId,
+                               Integer majorFragmentId, SchedulingGroup<?> group) {
+      this.hostname = hostname;
+      this.fabric_port = fabricPort;
+      this.workload = workload;
+      this.queryId = queryId;
+      this.majorFragmentId = majorFragmentId;
+      this.weight = group.getWeight();
+      this.cpuTime = TimeUnit.NANOSECONDS.toMillis(group.getCpuTime());
+      this.numTasks = group.getNumTasks();
+    }
+  }
+
   class FragmentInfo {
     public final String hostname;
     public final String queryId;
@@ -28,6 +28,8 @@ import org.apache.calcite.sql.SqlNode;
 import com.dremio.common.exceptions.InvalidMetadataErrorContext;
 import com.dremio.common.utils.protos.QueryWritableBatch;
 import com.dremio.exec.ops.QueryContext;
+import com.dremio.exec.physical.base.PhysicalOperator;
+import com.dremio.exec.physical.config.HashAggregate;
 import com.dremio.exec.planner.PlannerPhase;
 import com.dremio.exec.planner.observer.AttemptObserver;
 import com.dremio.exec.planner.observer.DelegatingAttemptObserver;
@@ -39,7 +41,9 @@ import com.dremio.exec.proto.CoordExecRPC.FragmentStatus;
 import com.dremio.exec.proto.CoordExecRPC.NodeQueryStatus;
 import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 import com.dremio.exec.proto.GeneralRPCProtos;
+import com.dremio.exec.proto.UserBitShared.DatasetProfile;
 import com.dremio.exec.proto.UserBitShared.ExternalId;
+import com.dremio.exec.proto.UserBitShared.PlanPhaseProfile;
 import com.dremio.exec.proto.UserBitShared.QueryData;
 import com.dremio.exec.proto.UserBitShared.QueryProfile;
 import com.dremio.exec.proto.UserBitShared.QueryResult.QueryState;
@@ -49,6 +53,7 @@ import com.dremio.exec.rpc.RpcOutcomeListener;
 import com.dremio.exec.server.SabotContext;
 import com.dremio.exec.work.AttemptId;
 import com.dremio.exec.work.foreman.AttemptManager;
+import com.dremio.exec.work.foreman.ExecutionPlan;
 import com.dremio.exec.work.rpc.CoordToExecTunnelCreator;
 import com.dremio.exec.work.user.OptionProvider;
 import com.dremio.options.OptionManager;
@@ -275,10 +280,23 @@ public class Foreman {
     return false;
   }
 
+  private static boolean containsHashAggregate(final PhysicalOperator operator) {
+    if (operator instanceof HashAggregate) {
+      return true;
+    }
+    for (final PhysicalOperator child : operator) {
+      if (containsHashAggregate(child)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private class Observer extends DelegatingAttemptObserver {
 
     private boolean isCTAS = false;
     private boolean containsHashAgg = false;
+    private boolean planFromCache = false;
 
     Observer(final AttemptObserver delegate) {
       super(delegate);
@@ -314,6 +332,21 @@ public class Foreman {
       super.planRelTransform(phase, planner, before, after, millisTaken);
     }
 
+    @Override
+    public void planFromCache(List<PlanPhaseProfile> planPhases, String text, String json, List<DatasetProfile> datasets) {
+      planFromCache = true;
+      super.planFromCache(planPhases, text, json, datasets);
+    }
+
+    @Override
+    public void planCompleted(ExecutionPlan plan) {
+      // the physical rel tree isn't available when the plan is taken from the plan cache
+      if (planFromCache && plan != null) {
+        containsHashAgg = containsHashAggregate(plan.getRootOperator());
+      }
+      super.planCompleted(plan);
+    }
+
     @Override
     public void attemptCompletion(UserResult result) {
       // NOTE to developers: adhere to these invariants:
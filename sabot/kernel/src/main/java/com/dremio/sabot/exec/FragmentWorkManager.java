@@ -16,7 +16,9 @@
 package com.dremio.sabot.exec;
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -140,6 +142,28 @@ public class FragmentWorkManager implements Service, SafeExit {
       return pool.get().getSlicingThreads();
     }
 
+    @Override
+    public Iterable<SchedulingGroupInfo> getSchedulingGroups() {
+      final NodeEndpoint endpoint = dbContext.get().getEndpoint();
+      final String address = endpoint.getAddress();
+      final int port = endpoint.getFabricPort();
+
+      final List<SchedulingGroupInfo> infos = new ArrayList<>();
+      for (WorkloadTicket workloadTicket : clerk.getWorkloadTickets()) {
+        final String workload = workloadTicket.getName();
+        infos.add(new SchedulingGroupInfo(address, port, workload, null, null, workloadTicket.getSchedulingGroup()));
+        for (QueryTicket queryTicket : workloadTicket.getActiveQueryTickets()) {
+          final String queryId = QueryIdHelper.getQueryId(queryTicket.getQueryId());
+          infos.add(new SchedulingGroupInfo(address, port, workload, queryId, null, queryTicket.getSchedulingGroup()));
+          for (PhaseTicket phaseTicket : queryTicket.getActivePhaseTickets()) {
+            infos.add(new SchedulingGroupInfo(address, port, workload, queryId, phaseTicket.getMajorFragmentId(),
+              phaseTicket.getSchedulingGroup()));
+          }
+        }
+      }
+      return infos;
+    }
+
     /**
      * @return number of running fragments / max width per node
      */
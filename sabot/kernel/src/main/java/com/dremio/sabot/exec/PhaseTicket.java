@@ -18,9 +18,11 @@ package com.dremio.sabot.exec;
 import org.apache.arrow.memory.BufferAllocator;
 
 import com.dremio.exec.proto.CoordExecRPC.NodePhaseStatus;
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.SchedulingGroup;
 
 /**
- *  Manages the phase (major fragment) level allocator. Allows for reporting of phase-level stats to the coordinator.<br>
+ *  Manages the phase (major fragment) level allocator and scheduling group. Allows for reporting of phase-level stats to the coordinator.<br>
  *
  *  A PhaseTicket is created for each phase (major fragment) of a query on an executor node. The PhaseTicket tracks the
  *  allocator used for this phase. It contains a phase reporter that's used to report the status of this phase of this
@@ -33,13 +35,18 @@ import com.dremio.exec.proto.CoordExecRPC.NodePhaseStatus;
  *  phase-level allocator. Any further operations on the phase-level allocator will throw an {@link IllegalStateException}
  */
 public class PhaseTicket extends TicketWithChildren {
+  // phases of a query share the query's cpu time equally
+  private static final long PHASE_WEIGHT = 100;
+
   private final QueryTicket queryTicket;
   private final int majorFragmentId;
+  private final SchedulingGroup<AsyncTaskWrapper> schedulingGroup;
 
   public PhaseTicket(QueryTicket queryTicket, int majorFragmentId, BufferAllocator allocator) {
     super(allocator);
     this.queryTicket = queryTicket;
     this.majorFragmentId = majorFragmentId;
+    this.schedulingGroup = queryTicket.getSchedulingGroup().addGroup(PHASE_WEIGHT);
   }
 
   public int getMajorFragmentId() {
@@ -50,6 +57,14 @@ public class PhaseTicket extends TicketWithChildren {
     return queryTicket;
   }
 
+  /**
+   * @return the scheduling group of the phase, a child of the query's scheduling group. The fragments of the phase
+   * are the tasks of this group.
+   */
+  public SchedulingGroup<AsyncTaskWrapper> getSchedulingGroup() {
+    return schedulingGroup;
+  }
+
   /**
    * Return the status of the query's phase tracked by this ticket, on this node.
    */
@@ -78,7 +78,7 @@ public class QueriesClerk {
     // phase limits on the plan fragment, we could apply them here.
     PhaseTicket phaseTicket = queryTicket
       .getOrCreatePhaseTicket(fragment.getHandle().getMajorFragmentId(), queryTicket.getAllocator().getLimit());
-    return new FragmentTicket(phaseTicket, queryTicket.getSchedulingGroup());
+    return new FragmentTicket(phaseTicket, phaseTicket.getSchedulingGroup());
   }
 
   /**
@@ -33,7 +33,7 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Queues;
 
 /**
- *  Manages the query level allocator and potentially the query scheduling group. Allows for reporting of query-level
+ *  Manages the query level allocator and the query scheduling group. Allows for reporting of query-level
  *  stats to the coordinator.<br>
  *
  *  A QueryTicket is created for each query that executes on an executor node. The QueryTicket tracks the allocator
@@ -48,6 +48,9 @@ import com.google.common.collect.Queues;
  *  {@link IllegalStateException}
  */
 public class QueryTicket extends TicketWithChildren {
+  // queries of a workload share the workload's cpu time equally
+  private static final long QUERY_WEIGHT = 100;
+
   private final WorkloadTicket workloadTicket;
   private final QueryId queryId;
   private final NodeEndpoint foreman;
@@ -56,6 +59,7 @@ public class QueryTicket extends TicketWithChildren {
   private final ConcurrentMap<Integer, PhaseTicket> phaseTickets = Maps.newConcurrentMap();
   private final Collection<NodePhaseStatus> completed = Queues.newConcurrentLinkedQueue();
   private final long enqueuedTime;
+  private final SchedulingGroup<AsyncTaskWrapper> schedulingGroup;
 
   public QueryTicket(WorkloadTicket workloadTicket, QueryId queryId, BufferAllocator allocator, NodeEndpoint foreman,
                      NodeEndpoint assignment, ExecToCoordTunnelCreator tunnelCreator, long enqueuedTime) {
@@ -66,6 +70,7 @@ public class QueryTicket extends TicketWithChildren {
     this.assignment = assignment;
     this.tunnelCreator = tunnelCreator;
     this.enqueuedTime = enqueuedTime;
+    this.schedulingGroup = workloadTicket.getSchedulingGroup().addGroup(QUERY_WEIGHT);
   }
 
   public QueryId getQueryId() {
@@ -164,8 +169,11 @@ public class QueryTicket extends TicketWithChildren {
     return b.build();
   }
 
+  /**
+   * @return the scheduling group of the query, a child of the workload's scheduling group
+   */
   public SchedulingGroup<AsyncTaskWrapper> getSchedulingGroup() {
-    return workloadTicket.getSchedulingGroup();
+    return schedulingGroup;
   }
 
 }
@@ -31,7 +31,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
 
 /**
- * Manages the workload level allocator, and eventually the workload scheduling group
+ * Manages the workload level allocator, and the workload scheduling group
  *
  * A WorkloadTicket is created for each queue on the executor node. They are created only when queues are established.
  *
@@ -44,17 +44,25 @@ import com.google.common.collect.Maps;
 public class WorkloadTicket extends TicketWithChildren {
   protected final ConcurrentMap<QueryId, QueryTicket> queryTickets = Maps.newConcurrentMap();
 
+  private final String name;
   private SchedulingGroup<AsyncTaskWrapper> schedulingGroup;
 
   /**
    * Create a WorkloadTicket
+   * @param name The name of this workload.
    * @param allocator The allocator for this workload.
    */
-  public WorkloadTicket(final BufferAllocator allocator, final SchedulingGroup<AsyncTaskWrapper> schedulingGroup) {
+  public WorkloadTicket(final String name, final BufferAllocator allocator,
+                        final SchedulingGroup<AsyncTaskWrapper> schedulingGroup) {
     super(allocator);
+    this.name = Preconditions.checkNotNull(name, "workload name required");
     setSchedulingGroup(schedulingGroup);
   }
 
+  public String getName() {
+    return name;
+  }
+
   protected void setSchedulingGroup(SchedulingGroup<AsyncTaskWrapper> schedulingGroup) {
     this.schedulingGroup = Preconditions.checkNotNull(schedulingGroup, "scheduling group required");
   }
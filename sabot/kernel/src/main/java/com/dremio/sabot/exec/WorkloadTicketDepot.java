@@ -22,6 +22,7 @@ import org.apache.arrow.memory.BufferAllocator;
 import com.dremio.common.AutoCloseables;
 import com.dremio.common.config.SabotConfig;
 import com.dremio.exec.proto.CoordExecRPC.SchedulingInfo;
+import com.dremio.exec.proto.UserBitShared.WorkloadClass;
 import com.dremio.sabot.task.AsyncTaskWrapper;
 import com.dremio.sabot.task.GroupManager;
 import com.google.common.base.Preconditions;
@@ -48,16 +49,19 @@ public class WorkloadTicketDepot implements AutoCloseable {
   public WorkloadTicketDepot(BufferAllocator parentAllocator, SabotConfig config, GroupManager<AsyncTaskWrapper> manager) {
     this.manager = Preconditions.checkNotNull(manager, "Task manager required");
 
-    nrtWorkloadTicket = new WorkloadTicket(parentAllocator.newChildAllocator("nrt-workload-allocator", 0,
-      getLongConfig(config, INSTANT_MAX_ALLOCATION_CONFIG, Long.MAX_VALUE)), manager.newGroup(NRT_WEIGHT));
+    nrtWorkloadTicket = new WorkloadTicket(WorkloadClass.NRT.name(),
+      parentAllocator.newChildAllocator("nrt-workload-allocator", 0,
+        getLongConfig(config, INSTANT_MAX_ALLOCATION_CONFIG, Long.MAX_VALUE)), manager.newGroup(NRT_WEIGHT));
     nrtWorkloadTicket.reserve();
 
-    generalWorkloadTicket = new WorkloadTicket(parentAllocator.newChildAllocator("general-workload-allocator", 0,
-      getLongConfig(config, GENERAL_MAX_ALLOCATION_CONFIG, Long.MAX_VALUE)), manager.newGroup(GENERAL_WEIGHT));
+    generalWorkloadTicket = new WorkloadTicket(WorkloadClass.GENERAL.name(),
+      parentAllocator.newChildAllocator("general-workload-allocator", 0,
+        getLongConfig(config, GENERAL_MAX_ALLOCATION_CONFIG, Long.MAX_VALUE)), manager.newGroup(GENERAL_WEIGHT));
     generalWorkloadTicket.reserve();
 
-    backgroundWorkloadTicket = new WorkloadTicket(parentAllocator.newChildAllocator("background-workload-allocator", 0,
-      getLongConfig(config, BACKGROUND_MAX_ALLOCATION_CONFIG, Long.MAX_VALUE)), manager.newGroup(BACKGROUND_WEIGHT));
+    backgroundWorkloadTicket = new WorkloadTicket(WorkloadClass.BACKGROUND.name(),
+      parentAllocator.newChildAllocator("background-workload-allocator", 0,
+        getLongConfig(config, BACKGROUND_MAX_ALLOCATION_CONFIG, Long.MAX_VALUE)), manager.newGroup(BACKGROUND_WEIGHT));
     backgroundWorkloadTicket.reserve();
   }
 
@@ -67,6 +67,7 @@ public class AccumulatorBuilder {
                                                                                     VectorAccessible incoming) throws Exception {
     final byte[] accumulatorTypes = new byte[aggregateExpressions.size()];
     final List<Field> outputVectorFields = new ArrayList<>(aggregateExpressions.size());
+    final List<Field> postSpillAccumulatorVectorFields = new ArrayList<>(aggregateExpressions.size());
     final List<FieldVector> inputVectors = new ArrayList<>(aggregateExpressions.size());
 
     for (int i = 0; i < aggregateExpressions.size(); i++) {
@@ -89,10 +90,11 @@ public class AccumulatorBuilder {
         accumulatorTypes[i] = (byte)AccumulatorType.COUNT1.ordinal();
         /* count1 doesn't need an input accumulator vector */
         inputVectors.add(null);
+        postSpillAccumulatorVectorFields.add(outputField);
         continue;
       }
 
-      /* SUM, MIN, MAX, $SUM0, COUNT */
+      /* SUM, MIN, MAX, $SUM0, COUNT, HLL, HLL_MERGE */
       final ValueVectorReadExpression vvread = (ValueVectorReadExpression) exprs.get(0);
       inputVector = incoming.getValueAccessorById(FieldVector.class, vvread.getFieldId().getFieldIds()).getValueVector();
       accumulatorTypes[i] = getAccumulatorTypeFromName(func.getName());
@@ -102,9 +104,16 @@ public class AccumulatorBuilder {
       }
 
       inputVectors.add(inputVector);
+      if (isNdvAccumulator(accumulatorTypes[i])) {
+        /* sketches are accumulated (and spilled) in a fixed width vector, not in the output type */
+        postSpillAccumulatorVectorFields.add(NdvAccumulators.getAccumulatorField(outputField.getName()));
+      } else {
+        postSpillAccumulatorVectorFields.add(outputField);
+      }
     }
 
-    return new MaterializedAggExpressionsResult(accumulatorTypes, inputVectors, outputVectorFields);
+    return new MaterializedAggExpressionsResult(accumulatorTypes, inputVectors, outputVectorFields,
+                                                postSpillAccumulatorVectorFields);
   }
 
   /**
@@ -162,6 +171,10 @@ public class AccumulatorBuilder {
     return new AccumulatorSet(jointAllocationMin, jointAllocationLimit, computationVectorAllocator, accums);
   }
 
+  private static boolean isNdvAccumulator(final byte accumulatorType) {
+    return accumulatorType == AccumulatorType.HLL.ordinal() || accumulatorType == AccumulatorType.HLL_MERGE.ordinal();
+  }
+
   private static Accumulator getAccumulator(byte accumulatorType, FieldVector incomingValues,
                                             FieldVector outputVector, FieldVector transferVector,
                                             final int maxValuesPerBatch,
@@ -314,6 +327,50 @@ public class AccumulatorBuilder {
                                           computationVectorAllocator);
       }
 
+      case 6: {
+        /* sketches are stored in a fixed width vector and serialized into outputVector's type when output */
+        final FieldVector accumulatorVector = NdvAccumulators.newAccumulatorVector(outputVector.getField().getName(),
+                                                                                  computationVectorAllocator);
+        switch(type){
+          case BIT:
+            return new NdvAccumulators.BitHllAccumulator(incomingValues, accumulatorVector, transferVector, maxValuesPerBatch,
+                                                         computationVectorAllocator);
+          case INT:
+          case INTERVALYEAR:
+            return new NdvAccumulators.IntHllAccumulator(incomingValues, accumulatorVector, transferVector, maxValuesPerBatch,
+                                                         computationVectorAllocator);
+          case BIGINT:
+          case DATE:
+          case TIMESTAMP:
+            return new NdvAccumulators.BigIntHllAccumulator(incomingValues, accumulatorVector, transferVector, maxValuesPerBatch,
+                                                            computationVectorAllocator);
+          case FLOAT4:
+            return new NdvAccumulators.FloatHllAccumulator(incomingValues, accumulatorVector, transferVector, maxValuesPerBatch,
+                                                           computationVectorAllocator);
+          case FLOAT8:
+            return new NdvAccumulators.DoubleHllAccumulator(incomingValues, accumulatorVector, transferVector, maxValuesPerBatch,
+                                                            computationVectorAllocator);
+          case TIME:
+            return new NdvAccumulators.TimeHllAccumulator(incomingValues, accumulatorVector, transferVector, maxValuesPerBatch,
+                                                          computationVectorAllocator);
+          case INTERVALDAY:
+            return new NdvAccumulators.IntervalDayHllAccumulator(incomingValues, accumulatorVector, transferVector, maxValuesPerBatch,
+                                                                 computationVectorAllocator);
+          case VARCHAR:
+          case VARBINARY:
+            return new NdvAccumulators.VarLenHllAccumulator(incomingValues, accumulatorVector, transferVector, maxValuesPerBatch,
+                                                            computationVectorAllocator);
+        }
+        break;
+      }
+
+      case 7: {
+        final FieldVector accumulatorVector = NdvAccumulators.newAccumulatorVector(outputVector.getField().getName(),
+                                                                                  computationVectorAllocator);
+        return new NdvAccumulators.HllUnionAccumulator(incomingValues, accumulatorVector, transferVector, maxValuesPerBatch,
+                                                       computationVectorAllocator);
+      }
+
     }
 
     return null;
@@ -328,13 +385,22 @@ public class AccumulatorBuilder {
     final byte[] accumulatorTypes;
     final List<FieldVector> inputVectors;
     final List<Field> outputVectorFields;
+    final List<Field> postSpillAccumulatorVectorFields;
 
     public MaterializedAggExpressionsResult(final byte[] accumulatorTypes,
                                             final List<FieldVector> inputVectors,
                                             final List<Field> outputVectorFields) {
+      this(accumulatorTypes, inputVectors, outputVectorFields, outputVectorFields);
+    }
+
+    public MaterializedAggExpressionsResult(final byte[] accumulatorTypes,
+                                            final List<FieldVector> inputVectors,
+                                            final List<Field> outputVectorFields,
+                                            final List<Field> postSpillAccumulatorVectorFields) {
       this.accumulatorTypes = accumulatorTypes;
       this.inputVectors = inputVectors;
       this.outputVectorFields = outputVectorFields;
+      this.postSpillAccumulatorVectorFields = postSpillAccumulatorVectorFields;
     }
   }
 
@@ -344,7 +410,9 @@ public class AccumulatorBuilder {
     MAX,
     SUM0,
     COUNT,
-    COUNT1
+    COUNT1,
+    HLL,
+    HLL_MERGE
   }
 
   private static byte getAccumulatorTypeFromName(String name) throws Exception {
@@ -361,6 +429,10 @@ public class AccumulatorBuilder {
         return (byte)AccumulatorType.COUNT.ordinal();
       case "count1":
         return (byte)AccumulatorType.COUNT1.ordinal();
+      case "hll":
+        return (byte)AccumulatorType.HLL.ordinal();
+      case "hll_merge":
+        return (byte)AccumulatorType.HLL_MERGE.ordinal();
       default:
         throw UserException.unsupportedError().message("Unable to handle accumulator function %s", name).build(logger);
     }
@@ -81,7 +81,12 @@ public class HashAggStats {
     OOB_DROP_UNDER_THRESHOLD, // Number of times OOB dropped spilling notification as it was under the threshold.
     OOB_DROP_NO_VICTIM, // Number of times OOB dropped spilling notification as all allocations were minimal.
     OOB_SPILL, // Spill was done due to oob.
-    OOB_DROP_ALREADY_SPILLING // Number of times operator dropped spilling notification as it was already spilling
+    OOB_DROP_ALREADY_SPILLING, // Number of times operator dropped spilling notification as it was already spilling
+
+    // adaptive pre-aggregation related metrics
+    PREAGG_FLUSHES,           /* number of times partitions were flushed early as they weren't reducing the data */
+    PREAGG_FLUSHED_PARTITIONS, /* total number of partitions flushed early */
+    PREAGG_FLUSHED_RECORDS    /* total number of records output by early flushes */
 
     ;
 
@@ -0,0 +1,426 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.aggregate.vectorized;
+
+import static com.dremio.sabot.op.aggregate.vectorized.VectorizedHashAggOperator.HTORDINAL_OFFSET;
+import static com.dremio.sabot.op.aggregate.vectorized.VectorizedHashAggOperator.KEYINDEX_OFFSET;
+import static com.dremio.sabot.op.aggregate.vectorized.VectorizedHashAggOperator.PARTITIONINDEX_HTORDINAL_WIDTH;
+
+import java.util.Arrays;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.FixedSizeBinaryVector;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+
+import com.dremio.exec.expr.TypeHelper;
+import com.dremio.exec.expr.fn.hll.StatisticsAggrFunctions;
+import com.yahoo.memory.Memory;
+import com.yahoo.memory.WritableMemory;
+import com.yahoo.sketches.hll.HllSketch;
+import com.yahoo.sketches.hll.TgtHllType;
+import com.yahoo.sketches.hll.Union;
+
+import io.netty.buffer.ArrowBuf;
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Accumulators for HLL (used by NDV and approximate COUNT DISTINCT) and HLL_MERGE.
+ *
+ * Each group owns an updatable HLL_8 sketch that lives directly in the data buffer
+ * of a fixed size binary accumulator vector. Since the sketch state is a plain
+ * fixed width buffer, these accumulators are spilled and read back exactly like
+ * the other accumulators. Sketches are only serialized to their compact form
+ * (the format produced by {@link StatisticsAggrFunctions}) when a batch is output.
+ *
+ * The validity bit of a group tells whether its sketch has been initialized. The
+ * sketch of a group is created the first time a record is accumulated for the
+ * group (even if the value is null) so that every group outputs a sketch.
+ */
+public class NdvAccumulators {
+
+  static final int LG_CONFIG_K = StatisticsAggrFunctions.HLL_ACCURACY;
+  static final int SKETCH_SIZE = HllSketch.getMaxUpdatableSerializationBytes(LG_CONFIG_K, TgtHllType.HLL_8);
+
+  private NdvAccumulators(){};
+
+  /**
+   * Get the type of the vector that stores the sketches for an
+   * HLL or HLL_MERGE accumulator. This is also the type of the
+   * accumulator vector read back from a spilled batch.
+   *
+   * @param name name of the accumulator vector
+   * @return field for the accumulator vector
+   */
+  static Field getAccumulatorField(final String name) {
+    return new Field(name, new FieldType(true, new ArrowType.FixedSizeBinary(SKETCH_SIZE), null), null);
+  }
+
+  /**
+   * Create the (unallocated) vector used as template for the accumulator
+   * vectors of each batch.
+   */
+  static FieldVector newAccumulatorVector(final String name, final BufferAllocator allocator) {
+    return TypeHelper.getNewVector(getAccumulatorField(name), allocator);
+  }
+
+  abstract static class BaseNdvAccumulator extends BaseSingleAccumulator {
+    /* sketches wrapping the accumulator vector memory, lazily created per batch */
+    private Union[][] sketches = new Union[0][];
+    /* data buffer address of each batch when its sketches were created */
+    private long[] sketchAddresses = new long[0];
+
+    BaseNdvAccumulator(final FieldVector input, final FieldVector output,
+                       final FieldVector transferVector, final AccumulatorBuilder.AccumulatorType type,
+                       final int maxValuesPerBatch, final BufferAllocator computationVectorAllocator,
+                       final long[] bitAddresses, final long[] valueAddresses,
+                       final FieldVector[] accumulators) {
+      super(input, output, transferVector, type, maxValuesPerBatch, computationVectorAllocator,
+            bitAddresses, valueAddresses, accumulators);
+    }
+
+    @Override
+    void initialize(FieldVector vector) {
+      setNullAndZero(vector);
+    }
+
+    /**
+     * Get the sketch for the group at the given location, creating
+     * the sketch if this is the first time the group is accumulated.
+     *
+     * Sketch objects are cached per batch. The cache of a batch is dropped
+     * whenever the batch memory changes (batch added again after a downsize,
+     * reallocated after output...) and a cached sketch is recreated if the
+     * validity bit of the group was cleared, so the cache never outlives the
+     * memory it wraps.
+     */
+    final Union getSketch(final int chunkIndex, final int chunkOffset) {
+      if (chunkIndex >= sketches.length) {
+        final int length = Math.max(chunkIndex + 1, sketches.length * 2);
+        sketches = Arrays.copyOf(sketches, length);
+        sketchAddresses = Arrays.copyOf(sketchAddresses, length);
+      }
+
+      final long valueAddress = valueAddresses[chunkIndex];
+      Union[] batchSketches = sketches[chunkIndex];
+      if (batchSketches == null || sketchAddresses[chunkIndex] != valueAddress) {
+        batchSketches = new Union[maxValuesPerBatch];
+        sketches[chunkIndex] = batchSketches;
+        sketchAddresses[chunkIndex] = valueAddress;
+      }
+
+      final long bitUpdateAddr = bitAddresses[chunkIndex] + ((chunkOffset >>> 5) * 4);
+      final int bits = PlatformDependent.getInt(bitUpdateAddr);
+      final int bitUpdateVal = 1 << (chunkOffset & 31);
+      Union sketch = batchSketches[chunkOffset];
+      if ((bits & bitUpdateVal) == 0) {
+        /* first record for this group, initialize the sketch in the (zeroed) accumulator memory */
+        sketch = new Union(LG_CONFIG_K, getSketchMemory(chunkIndex, chunkOffset));
+        PlatformDependent.putInt(bitUpdateAddr, bits | bitUpdateVal);
+        batchSketches[chunkOffset] = sketch;
+      } else if (sketch == null) {
+        /* sketch already initialized in memory, for example before switching to post-spill processing */
+        sketch = Union.writableWrap(getSketchMemory(chunkIndex, chunkOffset));
+        batchSketches[chunkOffset] = sketch;
+      }
+      return sketch;
+    }
+
+    private WritableMemory getSketchMemory(final int chunkIndex, final int chunkOffset) {
+      final ArrowBuf dataBuffer = getAccumulatorVector(chunkIndex).getDataBuffer();
+      return WritableMemory.wrap(dataBuffer.nioBuffer(chunkOffset * SKETCH_SIZE, SKETCH_SIZE));
+    }
+
+    /**
+     * Serialize the sketches of the given batch into the output vector.
+     * Unlike other accumulators, the accumulator vector cannot simply be
+     * transferred since the output is the compact (variable width) form of
+     * the sketches. The accumulator vector keeps its memory.
+     *
+     * @param batchIndex batch to output
+     */
+    @Override
+    public void output(final int batchIndex) {
+      final VarBinaryVector outputVector = (VarBinaryVector) getTransferVector();
+      final long bitAddress = bitAddresses[batchIndex];
+      outputVector.clear();
+      outputVector.allocateNew();
+      for (int i = 0; i < maxValuesPerBatch; i++) {
+        final int bitVal = (PlatformDependent.getInt(bitAddress + ((i >>> 5) * 4)) >>> (i & 31)) & 1;
+        if (bitVal == 1) {
+          outputVector.setSafe(i, getSketch(batchIndex, i).toCompactByteArray());
+        }
+      }
+    }
+  }
+
+  /**
+   * Accumulator for HLL. Values are hashed the same way as the
+   * row-wise functions in {@link StatisticsAggrFunctions} so the
+   * resulting sketches can be merged with each other.
+   */
+  public abstract static class HllAccumulator extends BaseNdvAccumulator {
+
+    HllAccumulator(final FieldVector input, final FieldVector output,
+                   final FieldVector transferVector, final int maxValuesPerBatch,
+                   final BufferAllocator computationVectorAllocator) {
+      super(input, output, transferVector, AccumulatorBuilder.AccumulatorType.HLL, maxValuesPerBatch,
+            computationVectorAllocator, null, null, null);
+    }
+
+    @Override
+    public void accumulate(final long memoryAddr, final int count) {
+      final long maxAddr = memoryAddr + count * PARTITIONINDEX_HTORDINAL_WIDTH;
+      final FieldVector inputVector = getInput();
+      final long incomingBit = inputVector.getValidityBufferAddress();
+      final int maxValuesPerBatch = super.maxValuesPerBatch;
+
+      for (long partitionAndOrdinalAddr = memoryAddr; partitionAndOrdinalAddr < maxAddr; partitionAndOrdinalAddr += PARTITIONINDEX_HTORDINAL_WIDTH) {
+        /* get the hash table ordinal */
+        final int tableIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + HTORDINAL_OFFSET);
+        /* get the index of data in input vector */
+        final int incomingIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + KEYINDEX_OFFSET);
+        final int bitVal = (PlatformDependent.getByte(incomingBit + ((incomingIndex >>> 3))) >>> (incomingIndex & 7)) & 1;
+        /* get the hash table batch index */
+        final int chunkIndex = getChunkIndexForOrdinal(tableIndex, maxValuesPerBatch);
+        final int chunkOffset = getOffsetInChunkForOrdinal(tableIndex, maxValuesPerBatch);
+        final Union sketch = getSketch(chunkIndex, chunkOffset);
+        if (bitVal == 1) {
+          update(sketch, inputVector, incomingIndex);
+        }
+      }
+    }
+
+    /**
+     * Add the (non null) value at the given index to the sketch.
+     */
+    abstract void update(Union sketch, FieldVector input, int incomingIndex);
+  }
+
+  /* BIT */
+  public static class BitHllAccumulator extends HllAccumulator {
+    public BitHllAccumulator(FieldVector input, FieldVector output,
+                             FieldVector transferVector, int maxValuesPerBatch,
+                             BufferAllocator computationVectorAllocator) {
+      super(input, output, transferVector, maxValuesPerBatch, computationVectorAllocator);
+    }
+
+    @Override
+    void update(Union sketch, FieldVector input, int incomingIndex) {
+      final long value = (PlatformDependent.getByte(input.getDataBufferAddress() + (incomingIndex >>> 3)) >>> (incomingIndex & 7)) & 1;
+      sketch.update(value);
+    }
+  }
+
+  /* INT, INTERVALYEAR */
+  public static class IntHllAccumulator extends HllAccumulator {
+    private static final int WIDTH_INPUT = 4;
+
+    public IntHllAccumulator(FieldVector input, FieldVector output,
+                             FieldVector transferVector, int maxValuesPerBatch,
+                             BufferAllocator computationVectorAllocator) {
+      super(input, output, transferVector, maxValuesPerBatch, computationVectorAllocator);
+    }
+
+    @Override
+    void update(Union sketch, FieldVector input, int incomingIndex) {
+      sketch.update((long) PlatformDependent.getInt(input.getDataBufferAddress() + (incomingIndex * WIDTH_INPUT)));
+    }
+  }
+
+  /* BIGINT, DATE, TIMESTAMP */
+  public static class BigIntHllAccumulator extends HllAccumulator {
+    private static final int WIDTH_INPUT = 8;
+
+    public BigIntHllAccumulator(FieldVector input, FieldVector output,
+                                FieldVector transferVector, int maxValuesPerBatch,
+                                BufferAllocator computationVectorAllocator) {
+      super(input, output, transferVector, maxValuesPerBatch, computationVectorAllocator);
+    }
+
+    @Override
+    void update(Union sketch, FieldVector input, int incomingIndex) {
+      sketch.update(PlatformDependent.getLong(input.getDataBufferAddress() + (incomingIndex * WIDTH_INPUT)));
+    }
+  }
+
+  /* FLOAT4 */
+  public static class FloatHllAccumulator extends HllAccumulator {
+    private static final int WIDTH_INPUT = 4;
+
+    public FloatHllAccumulator(FieldVector input, FieldVector output,
+                               FieldVector transferVector, int maxValuesPerBatch,
+                               BufferAllocator computationVectorAllocator) {
+      super(input, output, transferVector, maxValuesPerBatch, computationVectorAllocator);
+    }
+
+    @Override
+    void update(Union sketch, FieldVector input, int incomingIndex) {
+      sketch.update((double) Float.intBitsToFloat(PlatformDependent.getInt(input.getDataBufferAddress() + (incomingIndex * WIDTH_INPUT))));
+    }
+  }
+
+  /* FLOAT8 */
+  public static class DoubleHllAccumulator extends HllAccumulator {
+    private static final int WIDTH_INPUT = 8;
+
+    public DoubleHllAccumulator(FieldVector input, FieldVector output,
+                                FieldVector transferVector, int maxValuesPerBatch,
+                                BufferAllocator computationVectorAllocator) {
+      super(input, output, transferVector, maxValuesPerBatch, computationVectorAllocator);
+    }
+
+    @Override
+    void update(Union sketch, FieldVector input, int incomingIndex) {
+      sketch.update(Double.longBitsToDouble(PlatformDependent.getLong(input.getDataBufferAddress() + (incomingIndex * WIDTH_INPUT))));
+    }
+  }
+
+  /* TIME: the row-wise function hashes time values as doubles */
+  public static class TimeHllAccumulator extends HllAccumulator {
+    private static final int WIDTH_INPUT = 4;
+
+    public TimeHllAccumulator(FieldVector input, FieldVector output,
+                              FieldVector transferVector, int maxValuesPerBatch,
+                              BufferAllocator computationVectorAllocator) {
+      super(input, output, transferVector, maxValuesPerBatch, computationVectorAllocator);
+    }
+
+    @Override
+    void update(Union sketch, FieldVector input, int incomingIndex) {
+      sketch.update((double) PlatformDependent.getInt(input.getDataBufferAddress() + (incomingIndex * WIDTH_INPUT)));
+    }
+  }
+
+  /* INTERVALDAY: only the milliseconds part is hashed, like the row-wise function */
+  public static class IntervalDayHllAccumulator extends HllAccumulator {
+    private static final int WIDTH_INPUT = 8;
+    private static final int MILLIS_OFFSET = 4;
+
+    public IntervalDayHllAccumulator(FieldVector input, FieldVector output,
+                                     FieldVector transferVector, int maxValuesPerBatch,
+                                     BufferAllocator computationVectorAllocator) {
+      super(input, output, transferVector, maxValuesPerBatch, computationVectorAllocator);
+    }
+
+    @Override
+    void update(Union sketch, FieldVector input, int incomingIndex) {
+      sketch.update((long) PlatformDependent.getInt(input.getDataBufferAddress() + (incomingIndex * WIDTH_INPUT) + MILLIS_OFFSET));
+    }
+  }
+
+  /* VARCHAR, VARBINARY */
+  public static class VarLenHllAccumulator extends HllAccumulator {
+
+    public VarLenHllAccumulator(FieldVector input, FieldVector output,
+                                FieldVector transferVector, int maxValuesPerBatch,
+                                BufferAllocator computationVectorAllocator) {
+      super(input, output, transferVector, maxValuesPerBatch, computationVectorAllocator);
+    }
+
+    @Override
+    void update(Union sketch, FieldVector input, int incomingIndex) {
+      final long offsetAddr = input.getOffsetBufferAddress() + (incomingIndex * 4);
+      final int start = PlatformDependent.getInt(offsetAddr);
+      final int length = PlatformDependent.getInt(offsetAddr + 4) - start;
+      final byte[] value = new byte[length];
+      PlatformDependent.copyMemory(input.getDataBufferAddress() + start, value, 0, length);
+      sketch.update(value);
+    }
+  }
+
+  /**
+   * Accumulator for HLL_MERGE. The input is either a vector of compact
+   * sketches (second phase of a two phase aggregation) or, for post-spill
+   * processing, an accumulator vector of updatable sketches read back
+   * from disk.
+   */
+  public static class HllUnionAccumulator extends BaseNdvAccumulator {
+
+    public HllUnionAccumulator(final FieldVector input, final FieldVector output,
+                               final FieldVector transferVector, final int maxValuesPerBatch,
+                               final BufferAllocator computationVectorAllocator) {
+      this(input, output, transferVector, maxValuesPerBatch,
+           computationVectorAllocator, null, null, null);
+    }
+
+    private HllUnionAccumulator(final FieldVector input, final FieldVector output,
+                                final FieldVector transferVector, final int maxValuesPerBatch,
+                                final BufferAllocator computationVectorAllocator,
+                                final long[] bitAddresses, final long[] valueAddresses,
+                                final FieldVector[] accumulators) {
+      super(input, output, transferVector, AccumulatorBuilder.AccumulatorType.HLL_MERGE,
+            maxValuesPerBatch, computationVectorAllocator,
+            bitAddresses, valueAddresses, accumulators);
+    }
+
+    /**
+     * Create a HllUnionAccumulator from a HllAccumulator. This is
+     * used for post-spill processing.
+     * @param hllAccumulator hll accumulator
+     * @param input new input vector (read from spilled batch)
+     * @param maxValuesPerBatch batch size
+     * @param computationVectorAllocator accumulator vector allocator
+     */
+    HllUnionAccumulator(final HllAccumulator hllAccumulator,
+                        final FieldVector input, final int maxValuesPerBatch,
+                        final BufferAllocator computationVectorAllocator) {
+      this(input, hllAccumulator.getOutput(), hllAccumulator.getTransferVector(),
+           maxValuesPerBatch, computationVectorAllocator,
+           hllAccumulator.getBitAddresses(),
+           hllAccumulator.getValueAddresses(),
+           hllAccumulator.getAccumulators());
+    }
+
+    @Override
+    public void accumulate(final long memoryAddr, final int count) {
+      final long maxAddr = memoryAddr + count * PARTITIONINDEX_HTORDINAL_WIDTH;
+      final FieldVector inputVector = getInput();
+      final boolean spilledSketches = inputVector instanceof FixedSizeBinaryVector;
+      final long incomingBit = inputVector.getValidityBufferAddress();
+      final long incomingOffset = spilledSketches ? 0 : inputVector.getOffsetBufferAddress();
+      final ArrowBuf incomingData = inputVector.getDataBuffer();
+      final int maxValuesPerBatch = super.maxValuesPerBatch;
+
+      for (long partitionAndOrdinalAddr = memoryAddr; partitionAndOrdinalAddr < maxAddr; partitionAndOrdinalAddr += PARTITIONINDEX_HTORDINAL_WIDTH) {
+        /* get the hash table ordinal */
+        final int tableIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + HTORDINAL_OFFSET);
+        /* get the index of data in input vector */
+        final int incomingIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + KEYINDEX_OFFSET);
+        final int bitVal = (PlatformDependent.getByte(incomingBit + ((incomingIndex >>> 3))) >>> (incomingIndex & 7)) & 1;
+        /* get the hash table batch index */
+        final int chunkIndex = getChunkIndexForOrdinal(tableIndex, maxValuesPerBatch);
+        final int chunkOffset = getOffsetInChunkForOrdinal(tableIndex, maxValuesPerBatch);
+        final Union sketch = getSketch(chunkIndex, chunkOffset);
+        if (bitVal == 1) {
+          final int start;
+          final int length;
+          if (spilledSketches) {
+            start = incomingIndex * SKETCH_SIZE;
+            length = SKETCH_SIZE;
+          } else {
+            start = PlatformDependent.getInt(incomingOffset + (incomingIndex * 4));
+            length = PlatformDependent.getInt(incomingOffset + ((incomingIndex + 1) * 4)) - start;
+          }
+          sketch.update(HllSketch.wrap(Memory.wrap(incomingData.nioBuffer(start, length))));
+        }
+      }
+    }
+  }
+}
@@ -141,7 +141,7 @@ public class PartitionToLoadSpilledData implements AutoCloseable {
     for (Field field : postSpillAccumulatorVectorTypes) {
      FieldVector vector = TypeHelper.getNewVector(field, allocator);
      /* we have aggregation on INT, BIGINT, FLOAT, FLOAT4 and DECIMAL types of
-      * columns which are all fixed width.
+      * columns and HLL sketches which are all fixed width.
       */
      Preconditions.checkArgument(vector instanceof BaseFixedWidthVector, "Error: detected invalid accumulator vector type");
      rollbackCloseable.add(vector);
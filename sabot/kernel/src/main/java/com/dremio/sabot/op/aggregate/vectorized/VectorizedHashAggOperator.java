@@ -82,7 +82,7 @@ import io.netty.util.internal.PlatformDependent;
  *
  * The incoming batch for VectorizedHashAgg operator has 2 kinds of columns.
  * First is the GROUP BY key columns and the rest are Aggregation columns
- * needed to run SUM, SUM0, MIN, MAX, AVG, COUNT agg operations.
+ * needed to run SUM, SUM0, MIN, MAX, AVG, COUNT, HLL, HLL_MERGE agg operations.
  *
  * During setup(), we first create a pivot definition using the GROUP BY
  * expressions. As part of this, we also add corresponding output vector
@@ -300,6 +300,17 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
   public static final DoubleValidator OOB_SPILL_TRIGGER_HEADROOM_FACTOR = new RangeDoubleValidator("exec.operator.aggregate.vectorize.oob_trigger_headroom_factor", 0.0d, 10.0d, .2d);
   public static final BooleanValidator OOB_SPILL_TRIGGER_ENABLED = new BooleanValidator("exec.operator.aggregate.vectorize.oob_trigger_enabled", true);
   public static final BooleanValidator VECTORIZED_HASHAGG_ENABLE_MICRO_SPILLS = new BooleanValidator("exec.operator.aggregate.vectorize.enable_micro_spills", true);
+  /* adaptive pre-aggregation: the first phase of a two phase aggregation outputs a partition early
+   * (instead of growing and eventually spilling it) once it has seen enough records to tell that
+   * the number of groups is close to the number of records.
+   */
+  public static final BooleanValidator VECTORIZED_HASHAGG_ADAPTIVE_PREAGG = new BooleanValidator("exec.operator.aggregate.vectorize.adaptive_preagg", false);
+  public static final PositiveLongValidator VECTORIZED_HASHAGG_ADAPTIVE_PREAGG_MIN_RECORDS = new PositiveLongValidator("exec.operator.aggregate.vectorize.adaptive_preagg.min_records", Integer.MAX_VALUE, 64*1024);
+  public static final DoubleValidator VECTORIZED_HASHAGG_ADAPTIVE_PREAGG_MAX_GROUP_RATIO = new RangeDoubleValidator("exec.operator.aggregate.vectorize.adaptive_preagg.max_group_ratio", 0.0d, 1.0d, .8d);
+  /* load the hash table control words for a group of keys before inserting any of them so that cache misses overlap */
+  public static final BooleanValidator VECTORIZED_HASHAGG_PREFETCH_CONTROL_WORDS = new BooleanValidator("exec.operator.aggregate.vectorize.prefetch_control_words", true);
+  /* accumulate hll and hll_merge (NDV, approximate count distinct) in the vectorized operator, requires the spilling operator */
+  public static final BooleanValidator VECTORIZED_HASHAGG_NDV = new BooleanValidator("exec.operator.aggregate.vectorize.ndv", true);
 
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(VectorizedHashAggOperator.class);
 
@@ -379,9 +390,18 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
   private final boolean setLimitToMinReservation;
   private VectorizedHashAggPartition ongoingVictimPartition;
   private final boolean enableSmallSpills;
+  private final boolean prefetchControlWords;
+  private final long[] prefetchedControls = new long[LBlockHashTable.PROBE_GROUP_SIZE];
   private ResumableInsertState resumableInsertState;
   private OperatorStateBeforeOOB operatorStateBeforeOOB;
   private ForceSpillState forceSpillState;
+  private final boolean adaptivePreAgg;
+  private final long preAggMinRecordsPerPartition;
+  private final double preAggMaxGroupRatio;
+  private long partitionsToFlush;
+  private int preAggFlushes;
+  private int preAggFlushedPartitions;
+  private long preAggFlushedRecords;
 
   public static final String OUT_OF_MEMORY_MSG = "Vectorized Hash Agg ran out of memory";
 
@@ -443,9 +463,14 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
     this.setLimitToMinReservation = options.getOption(VECTORIZED_HASHAGG_USE_MINIMUM_AS_LIMIT);
     this.ongoingVictimPartition = null;
     this.enableSmallSpills = options.getOption(VECTORIZED_HASHAGG_ENABLE_MICRO_SPILLS);
+    this.prefetchControlWords = options.getOption(VECTORIZED_HASHAGG_PREFETCH_CONTROL_WORDS);
     this.resumableInsertState = null;
     this.operatorStateBeforeOOB = null;
     this.forceSpillState = null;
+    this.adaptivePreAgg = popConfig.isPartial() && options.getOption(VECTORIZED_HASHAGG_ADAPTIVE_PREAGG);
+    this.preAggMinRecordsPerPartition = Math.max(1, options.getOption(VECTORIZED_HASHAGG_ADAPTIVE_PREAGG_MIN_RECORDS) / numPartitions);
+    this.preAggMaxGroupRatio = options.getOption(VECTORIZED_HASHAGG_ADAPTIVE_PREAGG_MAX_GROUP_RATIO);
+    this.partitionsToFlush = 0;
     logger.debug("partitions:{}, min-hashtable-size:{}, variable-width-key-size:{}, max-hashtable-batch-size:{}",
       numPartitions, minHashTableSize, estimatedVariableWidthKeySize, maxHashTableBatchSize);
   }
@@ -582,7 +607,7 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
     setLocalInfoForHashTable();
 
     /* STEP 4: Build extra partition (aka loading or read partition) */
-    final List<Field> postSpillAccumulatorVectorFields = materializeAggExpressionsResult.outputVectorFields;
+    final List<Field> postSpillAccumulatorVectorFields = materializeAggExpressionsResult.postSpillAccumulatorVectorFields;
     allocateExtraPartition(postSpillAccumulatorVectorFields);
 
     final long memoryAfterExtraPartition = allocator.getAllocatedMemory();
@@ -737,6 +762,76 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
     }
 
     consumeDataHelper(records);
+
+    if (adaptivePreAgg && state == State.CAN_CONSUME) {
+      checkIfEarlyFlushIsNeeded();
+    }
+  }
+
+  /**
+   * Adaptive pre-aggregation. A partial aggregation only pays off if it reduces
+   * the number of records sent to the next phase. Once a partition has accumulated
+   * enough records to measure its reduction ratio, output it (and start afresh) if
+   * the hash table holds almost as many groups as it received records. This keeps the
+   * memory usage of high cardinality pre-aggregations bounded and avoids spilling
+   * data that the final aggregation will have to aggregate anyway.
+   *
+   * Spilled partitions are left alone as their in-memory portion is handled by
+   * the spilling protocol.
+   */
+  private void checkIfEarlyFlushIsNeeded() {
+    long partitionsToFlush = 0;
+    for (int i = 0; i < numPartitions; i++) {
+      final VectorizedHashAggPartition partition = hashAggPartitions[i];
+      final long recordsAccumulated = partition.getRecordsAccumulated();
+      if (partition.isSpilled() || recordsAccumulated < preAggMinRecordsPerPartition) {
+        continue;
+      }
+      if (partition.hashTable.size() >= recordsAccumulated * preAggMaxGroupRatio) {
+        partitionsToFlush |= 1L << i;
+      }
+    }
+
+    if (partitionsToFlush != 0) {
+      logger.debug("Flushing partitions {} early as they are not reducing the data", Long.toBinaryString(partitionsToFlush));
+      this.partitionsToFlush = partitionsToFlush;
+      preAggFlushes++;
+      preAggFlushedPartitions += Long.bitCount(partitionsToFlush);
+      state = State.CAN_PRODUCE;
+      internalStateMachine = InternalState.FLUSH_PARTITIONS;
+    }
+  }
+
+  /**
+   * Output the partitions chosen by {@link #checkIfEarlyFlushIsNeeded()} one batch
+   * at a time, then go back to consuming data from pipeline.
+   *
+   * @return number of records outputted
+   */
+  private int flushPartitions() throws Exception {
+    state.is(State.CAN_PRODUCE);
+    assertInternalState(InternalState.FLUSH_PARTITIONS);
+    while (partitionsToFlush != 0) {
+      final int partitionIndex = Long.numberOfTrailingZeros(partitionsToFlush);
+      final VectorizedHashAggPartition partitionToOutput = hashAggPartitions[partitionIndex];
+      if (partitionToOutput.hashTable.size() == 0) {
+        partitionsToFlush &= partitionsToFlush - 1;
+        continue;
+      }
+
+      final int records = outputPartitionBatch(partitionToOutput);
+      if (outputBatchCount == 0) {
+        /* all batches of this partition are out */
+        partitionsToFlush &= partitionsToFlush - 1;
+      }
+      preAggFlushedRecords += records;
+      updateStats();
+      return records;
+    }
+
+    state = State.CAN_CONSUME;
+    internalStateMachine = InternalState.NONE;
+    return 0;
   }
 
   /**
@@ -952,6 +1047,9 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
     insertAllRecords:
     {
       for (int keyIndex = insertStartIndex; keyIndex < recordsPivoted; keyIndex++, offsetAddr += PARTITIONINDEX_HTORDINAL_WIDTH) {
+        if (prefetchControlWords && ((keyIndex - insertStartIndex) % LBlockHashTable.PROBE_GROUP_SIZE) == 0) {
+          prefetchControlWords(hashValues, keyIndex, Math.min(recordsPivoted, keyIndex + LBlockHashTable.PROBE_GROUP_SIZE));
+        }
         final long keyHash = hashValues.get(keyIndex);
         /* get the partition index from higher order bits in hash */
         final int hashPartitionIndex = ((int) (keyHash >> 32)) & hashPartitionMask;
@@ -999,6 +1097,24 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
     return partitionsUsed;
   }
 
+  /**
+   * Load the hash table control words for the given range of keys in their respective
+   * partitions. The loads are independent of each other so their cache misses overlap
+   * and the subsequent inserts find the control words in cache.
+   *
+   * @param hashValues hash values of pivoted keys
+   * @param startIndex index of the first key
+   * @param endIndex index after the last key
+   */
+  private void prefetchControlWords(final SimpleBigIntVector hashValues, final int startIndex, final int endIndex) {
+    final long[] controls = this.prefetchedControls;
+    for (int keyIndex = startIndex, i = 0; keyIndex < endIndex; keyIndex++, i++) {
+      final long keyHash = hashValues.get(keyIndex);
+      final int hashPartitionIndex = ((int) (keyHash >> 32)) & hashPartitionMask;
+      controls[i] = hashAggPartitions[hashPartitionIndex].hashTable.prefetchControl((int) keyHash);
+    }
+  }
+
   /**
    * When operator detects (proactively) it will run out of memory or it has
    * already run of memory, we use this function to handle OOM by spilling a
@@ -1503,6 +1619,7 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
       final int partitionRecords = partition.getRecords();
       final AccumulatorSet accumulator = partition.accumulator;
       accumulator.accumulate(offsetAddr, partitionRecords);
+      partition.bumpRecordsAccumulated(partitionRecords);
       partitionsUsed = partitionsUsed & (partitionsUsed - 1);
       offsetAddr += partitionRecords * PARTITIONINDEX_HTORDINAL_WIDTH;
       partition.resetRecords();
@@ -1923,6 +2040,10 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
     stats.setLongStat(Metric.OOB_SPILL, oobSpills);
     stats.setLongStat(Metric.OOB_DROP_ALREADY_SPILLING, oobDropSpill);
 
+    stats.setLongStat(Metric.PREAGG_FLUSHES, preAggFlushes);
+    stats.setLongStat(Metric.PREAGG_FLUSHED_PARTITIONS, preAggFlushedPartitions);
+    stats.setLongStat(Metric.PREAGG_FLUSHED_RECORDS, preAggFlushedRecords);
+
     if (iterations == 1) {
       stats.setLongStat(Metric.ALLOCATED_FOR_FIXED_KEYS, statsHolder.allocatedForFixedBlocks);
       stats.setLongStat(Metric.UNUSED_FOR_FIXED_KEYS, statsHolder.unusedForFixedBlocks);
@@ -2288,6 +2409,9 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
       case FORCE_SPILL_INMEMORY_DATA:
         forceSpillInmemoryData();
         break;
+      case FLUSH_PARTITIONS:
+        records = flushPartitions();
+        break;
     }
 
     return records;
@@ -2327,7 +2451,6 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
 
     final LBlockHashTable hashTable = partitionToOutput.hashTable;
     final int hashTableSize = hashTable.size();
-    final int hashTableBlocks = hashTable.blocks();
 
     if (partitionToOutput.isSpilled() || hashTableSize == 0) {
       /* skip partitions that are spilled or not spilled but empty */
@@ -2335,11 +2458,33 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
       return 0;
     }
 
+    final int recordsInBatch = outputPartitionBatch(partitionToOutput);
+    if (outputBatchCount == 0) {
+      /* this partition outputted, move onto next partition */
+      outputPartitionIndex++;
+    }
+
+    updateStats();
+
+    return recordsInBatch;
+  }
+
+  /**
+   * Output the next batch of a partition. Once the last batch of the
+   * partition is out, outputBatchCount goes back to 0 and the partition
+   * is downsized.
+   *
+   * @param partitionToOutput partition to output
+   * @return number of records outputted
+   */
+  private int outputPartitionBatch(final VectorizedHashAggPartition partitionToOutput) throws Exception {
+    final LBlockHashTable hashTable = partitionToOutput.hashTable;
+    final int hashTableBlocks = hashTable.blocks();
     final int recordsInBatch = hashTable.getRecordsInBatch(outputBatchCount);
 
     /* unpivot GROUP BY key columns into corresponding vectors in outgoing container */
     unpivotWatch.start();
-    partitionToOutput.hashTable.unpivot(outputBatchCount, recordsInBatch);
+    hashTable.unpivot(outputBatchCount, recordsInBatch);
     unpivotWatch.stop();
 
     /* transfer accumulation vectors to the target vector in transferPair -- output vector in outgoing container */
@@ -2347,16 +2492,12 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
 
     outputBatchCount++;
     if (outputBatchCount == hashTableBlocks) {
-      /* this partition outputted, move onto next partition */
-      outputPartitionIndex++;
       /* start from first batch of next partition */
       outputBatchCount = 0;
       /* downsize the partition */
       partitionToOutput.resetToMinimumSize();
     }
 
-    updateStats();
-
     return outgoing.setAllCount(recordsInBatch);
   }
 
@@ -2552,6 +2693,7 @@ public class VectorizedHashAggOperator implements SingleInputOperator {
     SPILL_NEXT_BATCH,
     RESUME_CONSUMING,
     FORCE_SPILL_INMEMORY_DATA,
+    FLUSH_PARTITIONS,
     DONE
   }
 
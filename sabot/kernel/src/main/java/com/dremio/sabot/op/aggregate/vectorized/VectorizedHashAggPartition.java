@@ -35,6 +35,8 @@ public class VectorizedHashAggPartition implements AutoCloseable {
   final int blockWidth;
   int records;
   int recordsSpilled;
+  /* number of records accumulated since the partition was last downsized, used to measure the reduction ratio */
+  private long recordsAccumulated;
   private VectorizedHashAggDiskPartition spillInfo;
   private String identifier;
 
@@ -131,6 +133,15 @@ public class VectorizedHashAggPartition implements AutoCloseable {
   public void resetToMinimumSize() throws Exception {
     /* hashtable internally resets the corresponding accumulator to minimum size */
     hashTable.resetToMinimumSize();
+    recordsAccumulated = 0;
+  }
+
+  public void bumpRecordsAccumulated(final int increment) {
+    recordsAccumulated += increment;
+  }
+
+  public long getRecordsAccumulated() {
+    return recordsAccumulated;
   }
 
   public void bumpRecords(final int increment) {
@@ -215,6 +226,18 @@ public class VectorizedHashAggPartition implements AutoCloseable {
         /* handle $SUM0 */
         updateSumZeroAccumulator(deserializedAccumulator, partitionAccumulators,
                                  i, computationVectorAllocator);
+      } else if (accumulatorType == AccumulatorBuilder.AccumulatorType.HLL.ordinal() ||
+                 accumulatorType == AccumulatorBuilder.AccumulatorType.HLL_MERGE.ordinal()) {
+        /* handle HLL, HLL_MERGE: spilled sketches are merged into the accumulator sketches */
+        if (partitionAccumulator instanceof NdvAccumulators.HllAccumulator) {
+          partitionAccumulators[i] =
+            new NdvAccumulators.HllUnionAccumulator((NdvAccumulators.HllAccumulator)partitionAccumulator,
+                                                    deserializedAccumulator,
+                                                    hashTable.getMaxValuesPerBatch(),
+                                                    computationVectorAllocator);
+        } else {
+          partitionAccumulator.setInput(deserializedAccumulator);
+        }
       }
       else {
         /* handle MIN, MAX */
@@ -15,7 +15,6 @@
  */
 package com.dremio.sabot.op.aggregate.vectorized;
 
-import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -25,6 +24,7 @@ import java.util.List;
 import org.apache.arrow.vector.FieldVector;
 
 import com.dremio.exec.cache.AbstractStreamSerializable;
+import com.dremio.exec.cache.SpillBufferCodec;
 import com.dremio.exec.proto.UserBitShared;
 import com.dremio.sabot.op.aggregate.vectorized.HashAggPartitionWritableBatch.HashAggPartitionBatchDefinition;
 import com.dremio.sabot.op.common.ht2.LBlockHashTable;
@@ -58,6 +58,7 @@ public class VectorizedHashAggPartitionSerializable extends AbstractStreamSerial
 
   private VectorizedHashAggPartition hashAggPartition;
   private final PartitionToLoadSpilledData partitionToLoadSpilledData;
+  private final SpillBufferCodec spillCodec;
   private static final int IO_CHUNK_SIZE = 32 * 1024;
   private byte ioBuffer[] = new byte[IO_CHUNK_SIZE];
   private int numBatchesSpilled;
@@ -71,14 +72,17 @@ public class VectorizedHashAggPartitionSerializable extends AbstractStreamSerial
    * should be spilled to disk.
    *
    * @param hashAggPartition hash agg partition to serialize/spill
+   * @param spillCodec codec used to compress and checksum the spilled buffers
    *
    * the caller is expected to invoke writeToStream(output stream) method after
    * instantiating VectorizedHashAggPartitionSerializable to serialize the
    * partition to disk.
    */
-  public VectorizedHashAggPartitionSerializable(final VectorizedHashAggPartition hashAggPartition) {
+  public VectorizedHashAggPartitionSerializable(final VectorizedHashAggPartition hashAggPartition,
+                                                final SpillBufferCodec spillCodec) {
     this.hashAggPartition = hashAggPartition;
     this.partitionToLoadSpilledData = null;
+    this.spillCodec = spillCodec;
     initLocalStats();
   }
 
@@ -87,14 +91,17 @@ public class VectorizedHashAggPartitionSerializable extends AbstractStreamSerial
    *
    * @param partitionToLoadSpilledData extra partition (aka loading partition) used
    *                                   to deserialize spilled batches.
+   * @param spillCodec codec the spilled buffers were written with
    *
    * the caller is expected to invoke readFromStream(input stream) method after
    * instantiating this object to read back a spilled partition.
    */
-  public VectorizedHashAggPartitionSerializable(final PartitionToLoadSpilledData partitionToLoadSpilledData) {
+  public VectorizedHashAggPartitionSerializable(final PartitionToLoadSpilledData partitionToLoadSpilledData,
+                                                final SpillBufferCodec spillCodec) {
     Preconditions.checkArgument(partitionToLoadSpilledData != null, "ERROR: Need a valid handle for loading partition for reading spilled batches");
     this.hashAggPartition = null;
     this.partitionToLoadSpilledData = partitionToLoadSpilledData;
+    this.spillCodec = spillCodec;
     initLocalStats();
   }
 
@@ -205,7 +212,7 @@ public class VectorizedHashAggPartitionSerializable extends AbstractStreamSerial
   }
 
   /**
-   * Reads an ArrowBuf from stream
+   * Reads an ArrowBuf from stream (decompressing and verifying checksums)
    *
    * @param buffer buffer to read
    * @param bufferLength length of buffer
@@ -215,16 +222,7 @@ public class VectorizedHashAggPartitionSerializable extends AbstractStreamSerial
    */
   private void readIntoArrowBuf(final ArrowBuf buffer, final int bufferLength,
                                 final InputStream input) throws IOException {
-    int numBytesToRead = bufferLength;
-    while (numBytesToRead > 0) {
-      final int lenghtToRead = Math.min(ioBuffer.length, numBytesToRead);
-      final int numBytesRead = input.read(ioBuffer, 0, lenghtToRead);
-      if (numBytesRead == -1 && numBytesToRead > 0) {
-        throw new EOFException("ERROR: Unexpected end of stream while reading chunk data");
-      }
-      buffer.writeBytes(ioBuffer, 0, numBytesRead);
-      numBytesToRead -= numBytesRead;
-    }
+    spillCodec.read(input, buffer, bufferLength);
   }
 
   /**
@@ -353,7 +351,8 @@ public class VectorizedHashAggPartitionSerializable extends AbstractStreamSerial
   }
 
   /**
-   * Write the ArrowBuf to stream.
+   * Write the ArrowBuf to stream in the spill format. Hash table blocks and accumulators are mostly integers and
+   * offsets, chunks that don't compress well are stored as is.
    *
    * @param buffer buffer to write
    * @param output output stream for the spill file
@@ -361,12 +360,7 @@ public class VectorizedHashAggPartitionSerializable extends AbstractStreamSerial
    */
 
   private void writeArrowBuf(final ArrowBuf buffer, final OutputStream output) throws IOException {
-    final int bufferLength = buffer.readableBytes();
-    for (int writePos = 0; writePos < bufferLength; writePos += ioBuffer.length) {
-      final int lengthToWrite = Math.min(ioBuffer.length, bufferLength - writePos);
-      buffer.getBytes(writePos, ioBuffer, 0, lengthToWrite);
-      output.write(ioBuffer, 0, lengthToWrite);
-    }
+    spillCodec.write(buffer, 0, buffer.readableBytes(), true, output);
   }
 
   /**
@@ -29,6 +29,9 @@ import com.dremio.common.AutoCloseables;
 import com.dremio.common.config.SabotConfig;
 import com.dremio.common.exceptions.UserException;
 import com.dremio.common.utils.protos.QueryIdHelper;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.cache.SpillBufferCodec;
+import com.dremio.exec.cache.SpillCompression;
 import com.dremio.exec.proto.ExecProtos.FragmentHandle;
 import com.dremio.options.OptionManager;
 import com.dremio.sabot.op.sort.external.SpillManager;
@@ -109,6 +112,7 @@ public class VectorizedHashAggPartitionSpillHandler implements AutoCloseable {
   private final boolean minimizeSpilledPartitions;
   private static final int THRESHOLD_BLOCKS = 2;
   private VectorizedHashAggPartitionSerializable inProgressSpill;
+  private final SpillBufferCodec spillCodec;
 
   public VectorizedHashAggPartitionSpillHandler(
     final VectorizedHashAggPartition[] hashAggPartitions,
@@ -128,6 +132,10 @@ public class VectorizedHashAggPartitionSpillHandler implements AutoCloseable {
       fragmentHandle.getMajorFragmentId(), fragmentHandle.getMinorFragmentId(), operatorId);
 
     this.spillManager = new SpillManager(sabotConfig, optionManager, id, null, spillService, "agg spilling");
+    final String compression = optionManager != null
+      ? optionManager.getOption(ExecConstants.SPILL_COMPRESSION)
+      : ExecConstants.SPILL_COMPRESSION.getDefault().getStringVal();
+    this.spillCodec = new SpillBufferCodec(SpillCompression.fromName(compression));
 
     Preconditions.checkArgument(loadingPartition != null, "Error: need a valid handle for loading partition");
     this.loadingPartition = loadingPartition;
@@ -407,7 +415,7 @@ public class VectorizedHashAggPartitionSpillHandler implements AutoCloseable {
     final SpillFile partitionSpillFile = spillFileHandle.partitionSpillFile;
     final FSDataOutputStream partitionSpillFileStream = spillFileHandle.partitionSpillFileStream;
 
-    final VectorizedHashAggPartitionSerializable partitionSerializable = new VectorizedHashAggPartitionSerializable(victimPartition);
+    final VectorizedHashAggPartitionSerializable partitionSerializable = new VectorizedHashAggPartitionSerializable(victimPartition, spillCodec);
     /* spill the partition -- done in 1 or more batches/chunks */
     partitionSerializable.writeToStream(partitionSpillFileStream);
     /* track number of spills */
@@ -530,7 +538,7 @@ public class VectorizedHashAggPartitionSpillHandler implements AutoCloseable {
     final FSDataOutputStream partitionSpillFileStream = spillFileHandle.partitionSpillFileStream;
 
     if (inProgressSpill == null) {
-      inProgressSpill = new VectorizedHashAggPartitionSerializable(victimPartition);
+      inProgressSpill = new VectorizedHashAggPartitionSerializable(victimPartition, spillCodec);
     }
 
     /* spill a single batch from victim partition */
@@ -802,7 +810,7 @@ public class VectorizedHashAggPartitionSpillHandler implements AutoCloseable {
        */
       final VectorizedHashAggPartition inmemoryPartition = partitionToSpill.getInmemoryPartitionBackPointer();
       final SpillFile partitionSpillFile = partitionToSpill.getSpillFile();
-      final VectorizedHashAggPartitionSerializable partitionSerializable = new VectorizedHashAggPartitionSerializable(inmemoryPartition);
+      final VectorizedHashAggPartitionSerializable partitionSerializable = new VectorizedHashAggPartitionSerializable(inmemoryPartition, spillCodec);
       FSDataOutputStream outputStream = partitionToSpill.getSpillStream();
       /* write the partition to disk */
       partitionSerializable.writeToStream(outputStream);
@@ -864,7 +872,7 @@ public class VectorizedHashAggPartitionSpillHandler implements AutoCloseable {
         return 0;
       }
       logger.debug("Reading spilled batch:{} for partitions:{}", currentBatchIndex, diskPartition.getIdentifier());
-      final VectorizedHashAggPartitionSerializable partitionSerializable = new VectorizedHashAggPartitionSerializable(loadingPartition);
+      final VectorizedHashAggPartitionSerializable partitionSerializable = new VectorizedHashAggPartitionSerializable(loadingPartition, spillCodec);
       partitionSerializable.readFromStream(inputStream);
       currentBatchIndex++;
       return loadingPartition.getRecordsInBatch();
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.common.filter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.google.common.base.Preconditions;
+import com.google.protobuf.ByteString;
+
+/**
+ * A simple heap based bloom filter over 64 bit hashes. Probe positions are derived from the two
+ * halves of the hash (double hashing) so callers only hash each value once.
+ */
+public final class BloomFilter {
+
+  public static final int DEFAULT_NUM_HASH_FUNCTIONS = 3;
+
+  private final long[] words;
+  private final int bitMask;
+  private final int numHashFunctions;
+
+  public BloomFilter(int numBits, int numHashFunctions) {
+    this(new long[checkNumBits(numBits) >>> 6], numHashFunctions);
+  }
+
+  private BloomFilter(long[] words, int numHashFunctions) {
+    Preconditions.checkArgument(numHashFunctions > 0, "Number of hash functions must be positive.");
+    this.words = words;
+    this.bitMask = (words.length << 6) - 1;
+    this.numHashFunctions = numHashFunctions;
+  }
+
+  private static int checkNumBits(int numBits) {
+    Preconditions.checkArgument(numBits >= 64 && Integer.bitCount(numBits) == 1,
+        "Number of bits must be a power of two of at least 64, was %s.", numBits);
+    return numBits;
+  }
+
+  public void put(long hash) {
+    final int hash1 = (int) hash;
+    final int hash2 = (int) (hash >>> 32);
+    for (int i = 1; i <= numHashFunctions; i++) {
+      final int bit = (hash1 + i * hash2) & bitMask;
+      words[bit >>> 6] |= 1L << bit;
+    }
+  }
+
+  public boolean mightContain(long hash) {
+    final int hash1 = (int) hash;
+    final int hash2 = (int) (hash >>> 32);
+    for (int i = 1; i <= numHashFunctions; i++) {
+      final int bit = (hash1 + i * hash2) & bitMask;
+      if ((words[bit >>> 6] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public int getNumBits() {
+    return words.length << 6;
+  }
+
+  public int getNumHashFunctions() {
+    return numHashFunctions;
+  }
+
+  public ByteString toByteString() {
+    final ByteBuffer buffer = ByteBuffer.allocate(words.length * 8).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.asLongBuffer().put(words);
+    return ByteString.copyFrom(buffer.array());
+  }
+
+  public static BloomFilter fromByteString(ByteString bytes, int numHashFunctions) {
+    final long[] words = new long[checkNumBits(bytes.size() * 8) >>> 6];
+    bytes.asReadOnlyByteBuffer().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(words);
+    return new BloomFilter(words, numHashFunctions);
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.common.filter;
+
+import org.apache.arrow.vector.FieldVector;
+
+import com.dremio.common.expression.CompleteType;
+import com.dremio.sabot.op.common.ht2.XXH64;
+
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * The key types a runtime filter can be built and evaluated on. The build side of a join and the
+ * probe side scan read and hash the key values through the same type so that both sides agree on
+ * the hash of a value.
+ */
+public enum RuntimeFilterKeyType {
+
+  INT(4),
+  BIGINT(8),
+  VARIABLE(-1);
+
+  private static final long SEED = 0;
+
+  private final int width;
+
+  RuntimeFilterKeyType(int width) {
+    this.width = width;
+  }
+
+  /**
+   * @return the key type for the given vector, or null if runtime filters are not supported on it.
+   */
+  public static RuntimeFilterKeyType of(FieldVector vector) {
+    switch (CompleteType.fromField(vector.getField()).toMinorType()) {
+    case INT:
+      return INT;
+    case BIGINT:
+    case DATE:
+    case TIMESTAMP:
+      return BIGINT;
+    case VARCHAR:
+    case VARBINARY:
+      return VARIABLE;
+    default:
+      return null;
+    }
+  }
+
+  /**
+   * Whether min/max bounds can be tracked for this type.
+   */
+  public boolean hasRange() {
+    return width > 0;
+  }
+
+  public static boolean isNull(FieldVector vector, int index) {
+    final long validityAddr = vector.getValidityBufferAddress();
+    return (PlatformDependent.getByte(validityAddr + (index >>> 3)) & (1 << (index & 7))) == 0;
+  }
+
+  public long getLong(FieldVector vector, int index) {
+    switch (this) {
+    case INT:
+      return PlatformDependent.getInt(vector.getDataBufferAddress() + ((long) index << 2));
+    case BIGINT:
+      return PlatformDependent.getLong(vector.getDataBufferAddress() + ((long) index << 3));
+    default:
+      throw new UnsupportedOperationException("No range for variable width keys.");
+    }
+  }
+
+  public long hash(FieldVector vector, int index) {
+    if (width > 0) {
+      return XXH64.xxHash64(vector.getDataBufferAddress() + (long) index * width, width, SEED);
+    }
+    final long offsetAddr = vector.getOffsetBufferAddress() + ((long) index << 2);
+    final int start = PlatformDependent.getInt(offsetAddr);
+    final int end = PlatformDependent.getInt(offsetAddr + 4);
+    return XXH64.xxHash64(vector.getDataBufferAddress() + start, end - start, SEED);
+  }
+}
@@ -60,6 +60,11 @@ public final class LBlockHashTable implements AutoCloseable {
 
   private static final int RETRY_RETURN_CODE = -2;
   public static final int ORDINAL_SIZE = 4;
+  /* number of keys whose control words are loaded together before any of them is resolved in batched probes */
+  public static final int PROBE_GROUP_SIZE = 16;
+  private static final int HASH_VALUE_WIDTH = 8;
+  /* key index address used by batched probes when keys are not selected through an index vector */
+  private static final long NO_SELECTION = 0;
 
   private final HashConfigWrapper config;
   private final ResizeListener listener;
@@ -106,6 +111,13 @@ public final class LBlockHashTable implements AutoCloseable {
   private long unusedForFixedBlocks;
   private long unusedForVarBlocks;
 
+  /* bumped whenever control words may have changed (insert, rehash, reset) */
+  private int version;
+  private final int[] groupKeyIndexes = new int[PROBE_GROUP_SIZE];
+  private final int[] groupControlIndexes = new int[PROBE_GROUP_SIZE];
+  private final long[] groupControlAddrs = new long[PROBE_GROUP_SIZE];
+  private final long[] groupControls = new long[PROBE_GROUP_SIZE];
+
   public LBlockHashTable(HashConfig config,
                          PivotDef pivot,
                          BufferAllocator allocator,
@@ -179,8 +191,119 @@ public final class LBlockHashTable implements AutoCloseable {
     return returnValue;
   }
 
+  /**
+   * Add or find a batch of keys. Control words for groups of {@link #PROBE_GROUP_SIZE} keys
+   * are loaded in a first pass so that their cache misses overlap, and the keys are then
+   * resolved (compared and inserted if absent) in a second pass.
+   *
+   * @param keyFixedVectorAddr starting address of fixed vector block
+   * @param keyVarVectorAddr starting address of variable vector block
+   * @param hashValueAddr starting address of the 8 byte hash values of the keys
+   * @param records number of keys to insert
+   * @param ordinalAddr destination for the 4 byte ordinal of each key
+   */
+  public final void addBatch(final long keyFixedVectorAddr, final long keyVarVectorAddr,
+                             final long hashValueAddr, final int records, final long ordinalAddr) {
+    getOrInsertBatch(keyFixedVectorAddr, keyVarVectorAddr, hashValueAddr, NO_SELECTION, records, ordinalAddr, true);
+  }
+
+  /**
+   * Same as {@link #addBatch(long, long, long, int, long)} but only for the keys selected by the
+   * 4 byte key indexes at keyIndexAddr. Ordinals are written in selection order.
+   */
+  public final void addBatch(final long keyFixedVectorAddr, final long keyVarVectorAddr, final long hashValueAddr,
+                             final long keyIndexAddr, final int count, final long ordinalAddr) {
+    getOrInsertBatch(keyFixedVectorAddr, keyVarVectorAddr, hashValueAddr, keyIndexAddr, count, ordinalAddr, true);
+  }
+
+  /**
+   * Batched version of {@link #find(long, long, int, int)}. Ordinal is -1 for keys that are absent.
+   * See {@link #addBatch(long, long, long, int, long)} for the parameters.
+   */
+  public final void findBatch(final long keyFixedVectorAddr, final long keyVarVectorAddr,
+                              final long hashValueAddr, final int records, final long ordinalAddr) {
+    getOrInsertBatch(keyFixedVectorAddr, keyVarVectorAddr, hashValueAddr, NO_SELECTION, records, ordinalAddr, false);
+  }
+
+  /**
+   * Same as {@link #findBatch(long, long, long, int, long)} but only for the keys selected by the
+   * 4 byte key indexes at keyIndexAddr. Ordinals are written in selection order.
+   */
+  public final void findBatch(final long keyFixedVectorAddr, final long keyVarVectorAddr, final long hashValueAddr,
+                              final long keyIndexAddr, final int count, final long ordinalAddr) {
+    getOrInsertBatch(keyFixedVectorAddr, keyVarVectorAddr, hashValueAddr, keyIndexAddr, count, ordinalAddr, false);
+  }
+
+  /**
+   * Load the control word at the home position of the given hash. The return value is meaningless
+   * to callers, and is only provided so that the load is not optimized away when a caller wants to
+   * bring the control word in the cache ahead of the actual {@link #add(long, long, int, int)}.
+   */
+  public final long prefetchControl(final int keyHash) {
+    final int controlIndex = keyHash % capacity;
+    return PlatformDependent.getLong(tableControlAddresses[getChunkIndexForOrdinal(controlIndex)]
+      + (getOffsetInChunkForOrdinal(controlIndex) * CONTROL_WIDTH));
+  }
+
+  private void getOrInsertBatch(final long keyFixedVectorAddr, final long keyVarVectorAddr,
+                                final long hashValueAddr, final long keyIndexAddr, final int count,
+                                long ordinalAddr, final boolean insertNew) {
+    final int[] keyIndexes = this.groupKeyIndexes;
+    final int[] controlIndexes = this.groupControlIndexes;
+    final long[] controlAddrs = this.groupControlAddrs;
+    final long[] controls = this.groupControls;
+
+    for (int groupStart = 0; groupStart < count; groupStart += PROBE_GROUP_SIZE) {
+      final int groupSize = Math.min(PROBE_GROUP_SIZE, count - groupStart);
+
+      // pass 1: the loads below are independent of each other so their latencies overlap.
+      final int capacity = this.capacity;
+      final long[] tableControlAddresses = this.tableControlAddresses;
+      for (int i = 0; i < groupSize; i++) {
+        final int keyIndex = keyIndexAddr == NO_SELECTION ? groupStart + i :
+          PlatformDependent.getInt(keyIndexAddr + ((long) (groupStart + i) * ORDINAL_SIZE));
+        final int controlIndex = ((int) PlatformDependent.getLong(hashValueAddr + ((long) keyIndex * HASH_VALUE_WIDTH))) % capacity;
+        final long controlAddr = tableControlAddresses[getChunkIndexForOrdinal(controlIndex)]
+          + (getOffsetInChunkForOrdinal(controlIndex) * CONTROL_WIDTH);
+        keyIndexes[i] = keyIndex;
+        controlIndexes[i] = controlIndex;
+        controlAddrs[i] = controlAddr;
+        controls[i] = PlatformDependent.getLong(controlAddr);
+      }
+
+      // pass 2: resolve each key. An insertion (or rehash) by a previous key in the group may have
+      // invalidated the loaded control words, in which case we fall back to a fresh lookup.
+      final int loadedVersion = version;
+      for (int i = 0; i < groupSize; i++, ordinalAddr += ORDINAL_SIZE) {
+        final int keyIndex = keyIndexes[i];
+        final int keyHash = (int) PlatformDependent.getLong(hashValueAddr + ((long) keyIndex * HASH_VALUE_WIDTH));
+        final int ordinal;
+        if (version == loadedVersion) {
+          final int returnValue = getOrInsert(keyFixedVectorAddr, keyVarVectorAddr, keyIndex, keyHash,
+            controlIndexes[i], controlAddrs[i], controls[i], insertNew);
+          ordinal = returnValue == RETRY_RETURN_CODE ?
+            getOrInsert(keyFixedVectorAddr, keyVarVectorAddr, keyIndex, keyHash, insertNew) : returnValue;
+        } else {
+          ordinal = getOrInsertWithRetry(keyFixedVectorAddr, keyVarVectorAddr, keyIndex, keyHash, insertNew);
+        }
+        PlatformDependent.putInt(ordinalAddr, ordinal);
+      }
+    }
+  }
+
   private final int getOrInsert(final long keyFixedVectorAddr, final long keyVarVectorAddr,
                                 final int keyIndex, final int keyHash, boolean insertNew) {
+    // start with a hash index.
+    final int controlIndex = keyHash % capacity;
+    final long tableControlAddr = tableControlAddresses[getChunkIndexForOrdinal(controlIndex)]
+      + (getOffsetInChunkForOrdinal(controlIndex) * CONTROL_WIDTH);
+    return getOrInsert(keyFixedVectorAddr, keyVarVectorAddr, keyIndex, keyHash, controlIndex, tableControlAddr,
+      PlatformDependent.getLong(tableControlAddr), insertNew);
+  }
+
+  private final int getOrInsert(final long keyFixedVectorAddr, final long keyVarVectorAddr,
+                                final int keyIndex, final int keyHash, int controlIndex,
+                                long tableControlAddr, long control, boolean insertNew) {
     final int blockWidth = pivot.getBlockWidth();
     final boolean fixedOnly = this.fixedOnly;
     final long keyFixedAddr = keyFixedVectorAddr + (blockWidth * keyIndex);
@@ -203,15 +326,9 @@ public final class LBlockHashTable implements AutoCloseable {
       keyVarLen = PlatformDependent.getInt(keyVarAddr);
     }
 
-    // start with a hash index.
-    int controlIndex = keyHash % capacity;
-
-    int controlChunkIndex = getChunkIndexForOrdinal(controlIndex);
-    int offsetInChunk = getOffsetInChunkForOrdinal(controlIndex);
-    long tableControlAddr = tableControlAddresses[controlChunkIndex] + (offsetInChunk * CONTROL_WIDTH);
-    long control = PlatformDependent.getLong(tableControlAddr);
-
     keyAbsent: if (control != LFREE) {
+      int controlChunkIndex;
+      int offsetInChunk;
       int dataChunkIndex;
       long tableDataAddr;
 
@@ -315,6 +432,32 @@ public final class LBlockHashTable implements AutoCloseable {
     }
   }
 
+  /**
+   * Copy the key of the record specified by ordinal to destination memory.
+   * @param ordinal ordinal of the key in the hash table
+   * @param keyFixedAddr destination memory for the fixed part of the key
+   * @param keyVarVectorAddr starting address of the destination variable vector block
+   * @param varOffset offset in the destination variable vector block where the variable part of the key goes
+   * @return number of bytes copied into the variable vector block
+   */
+  public int copyKeyToBuffer(final int ordinal, final long keyFixedAddr, final long keyVarVectorAddr, final int varOffset) {
+    final int blockWidth = pivot.getBlockWidth();
+    final int dataChunkIndex = getChunkIndexForOrdinal(ordinal);
+    final int offsetInChunk = getOffsetInChunkForOrdinal(ordinal);
+    final long tableFixedAddr = tableFixedAddresses[dataChunkIndex] + (offsetInChunk * blockWidth);
+    if (fixedOnly) {
+      Copier.copy(tableFixedAddr, keyFixedAddr, blockWidth);
+      return 0;
+    }
+
+    Copier.copy(tableFixedAddr, keyFixedAddr, blockWidth - VAR_OFFSET_SIZE);
+    PlatformDependent.putInt(keyFixedAddr + blockWidth - VAR_OFFSET_SIZE, varOffset);
+    final int tableVarOffset = PlatformDependent.getInt(tableFixedAddr + blockWidth - VAR_OFFSET_SIZE);
+    final int varLen = PlatformDependent.getInt(initVariableAddresses[dataChunkIndex] + tableVarOffset) + VAR_LENGTH_SIZE;
+    Copier.copy(initVariableAddresses[dataChunkIndex] + tableVarOffset, keyVarVectorAddr + varOffset, varLen);
+    return varLen;
+  }
+
   public long getAllocatedForFixedBlocks() {
     return allocatedForFixedBlocks;
   }
@@ -457,6 +600,7 @@ public final class LBlockHashTable implements AutoCloseable {
     }
 
     currentOrdinal++;
+    version++;
 
     return insertedOrdinal;
   }
@@ -838,6 +982,7 @@ public final class LBlockHashTable implements AutoCloseable {
       this.capacity = newCapacity;
       this.batches = newBatches;
       this.maxSize = newMaxSize;
+      this.version++;
       rollbackable.commit();
     } catch (Exception e) {
       /* will be propagated back to the operator */
@@ -1024,6 +1169,7 @@ public final class LBlockHashTable implements AutoCloseable {
     openVariableAddresses[0] = initVariableAddresses[0];
 
     initControlBlock(tableControlAddresses[0]);
+    version++;
 
     listener.resetToMinimumSize();
   }
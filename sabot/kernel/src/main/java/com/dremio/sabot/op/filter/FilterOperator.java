@@ -124,6 +124,9 @@ public class FilterOperator implements SingleInputOperator {
 
   @Override
   public void close() throws Exception {
+    if (splitter != null) {
+      context.getStats().addLongStat(Metric.JAVA_INTERPRETED_RECORDS, splitter.getInterpretedRecords());
+    }
     AutoCloseables.close(output, splitter);
     context.getStats().addLongStat(Metric.JAVA_EXECUTE_TIME, javaCodeGenWatch.elapsed(TimeUnit.MILLISECONDS));
     context.getStats().addLongStat(Metric.GANDIVA_EXECUTE_TIME, gandivaCodeGenWatch.elapsed(TimeUnit.MILLISECONDS));
@@ -22,7 +22,8 @@ public class FilterStats {
     JAVA_BUILD_TIME,
     JAVA_EXECUTE_TIME,
     GANDIVA_BUILD_TIME,
-    GANDIVA_EXECUTE_TIME;
+    GANDIVA_EXECUTE_TIME,
+    JAVA_INTERPRETED_RECORDS;
 
     @Override
     public int metricId() {
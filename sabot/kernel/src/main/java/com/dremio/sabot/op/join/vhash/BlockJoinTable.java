@@ -15,13 +15,16 @@
  */
 package com.dremio.sabot.op.join.vhash;
 
+import static com.dremio.sabot.op.common.ht2.LBlockHashTable.ORDINAL_SIZE;
 import static com.dremio.sabot.op.join.vhash.VectorizedProbe.SKIP;
 
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.vector.SimpleBigIntVector;
 
+import com.dremio.common.AutoCloseables;
 import com.dremio.sabot.op.common.ht2.BlockChunk;
 import com.dremio.sabot.op.common.ht2.FixedBlockVector;
 import com.dremio.sabot.op.common.ht2.HashComputation;
@@ -30,15 +33,32 @@ import com.dremio.sabot.op.common.ht2.PivotDef;
 import com.dremio.sabot.op.common.ht2.Pivots;
 import com.dremio.sabot.op.common.ht2.ResizeListener;
 import com.dremio.sabot.op.common.ht2.VariableBlockVector;
+import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
+import com.google.common.primitives.Ints;
 import com.koloboke.collect.hash.HashConfig;
 
+import io.netty.buffer.ArrowBuf;
 import io.netty.util.internal.PlatformDependent;
 
+/**
+ * Join table backed by one or more {@link LBlockHashTable}s.
+ *
+ * When more than one partition is used, the keys are radix partitioned on the higher bits of their
+ * hash (the lower bits are used by the hash table itself) so that each sub table stays small and
+ * probes of a batch are grouped by sub table. Each sub table hands out ordinals in blocks of
+ * {@link #MAX_VALUES_PER_BATCH}; every new block is given the next global block number so that
+ * the ordinals seen by the operator remain dense except for the unused tail of the last block of
+ * each partition.
+ */
 public class BlockJoinTable implements JoinTable {
 
   private static final int MAX_VALUES_PER_BATCH = 4096;
-  private LBlockHashTable table;
+  private static final int BLOCK_SHIFT = Integer.numberOfTrailingZeros(MAX_VALUES_PER_BATCH);
+  private static final int BLOCK_MASK = MAX_VALUES_PER_BATCH - 1;
+
+  private final LBlockHashTable[] tables;
+  private final int partitionMask;
   private PivotDef buildPivot;
   private PivotDef probePivot;
   private BufferAllocator allocator;
@@ -52,10 +72,37 @@ public class BlockJoinTable implements JoinTable {
   private final Stopwatch probeHashComputationWatch = Stopwatch.createUnstarted();
   private boolean fixedOnly;
 
+  /* partitioning state, only used when there is more than one partition */
+  private final int[] partitionOffsets;
+  // global block number for each block of each partition
+  private final int[][] partitionBlocks;
+  // partition and block within partition for each global block
+  private int[] globalBlockPartitions = new int[0];
+  private int[] globalBlockLocalBlocks = new int[0];
+
   public BlockJoinTable(PivotDef buildPivot, PivotDef probePivot, BufferAllocator allocator, NullComparator nullMask, int minSize, int varFieldAverageSize) {
+    this(buildPivot, probePivot, allocator, nullMask, minSize, varFieldAverageSize, 1);
+  }
+
+  public BlockJoinTable(PivotDef buildPivot, PivotDef probePivot, BufferAllocator allocator, NullComparator nullMask,
+                        int minSize, int varFieldAverageSize, int numPartitions) {
     super();
-    this.table = new LBlockHashTable(HashConfig.getDefault(), buildPivot, allocator, minSize,
-        varFieldAverageSize, false, ResizeListener.NO_OP, MAX_VALUES_PER_BATCH);
+    Preconditions.checkArgument(numPartitions > 0 && (numPartitions & (numPartitions - 1)) == 0,
+      "Number of partitions should be a power of two, was %s", numPartitions);
+    this.tables = new LBlockHashTable[numPartitions];
+    try {
+      final int partitionMinSize = (int) Math.ceil((minSize * 1.0) / numPartitions);
+      for (int i = 0; i < numPartitions; i++) {
+        tables[i] = new LBlockHashTable(HashConfig.getDefault(), buildPivot, allocator, partitionMinSize,
+          varFieldAverageSize, false, ResizeListener.NO_OP, MAX_VALUES_PER_BATCH);
+      }
+    } catch (RuntimeException e) {
+      AutoCloseables.close(e, tables);
+      throw e;
+    }
+    this.partitionMask = numPartitions - 1;
+    this.partitionOffsets = new int[numPartitions + 1];
+    this.partitionBlocks = new int[numPartitions][0];
     this.buildPivot = buildPivot;
     this.probePivot = probePivot;
     this.allocator = allocator;
@@ -64,19 +111,91 @@ public class BlockJoinTable implements JoinTable {
     this.fixedOnly = buildPivot.getVariableCount() == 0;
   }
 
+  private boolean isPartitioned() {
+    return tables.length > 1;
+  }
+
   /* Copy the keys of the records specified in keyOffsetAddr to destination memory
    * keyOffsetAddr contains all the ordinals of keys
    * count is the number of keys
    * keyFixedAddr is the destination memory for fiexed keys
    * keyVarAddr is the destination memory for variable keys
    */
-  public void copyKeyToBuffer(final long keyOffsetAddr, final int count, final long keyFixedAddr, final long keyVarAddr) {
-    table.copyKeyToBuffer(keyOffsetAddr, count, keyFixedAddr, keyVarAddr);
+  public void copyKeyToBuffer(long keyOffsetAddr, final int count, long keyFixedAddr, final long keyVarAddr) {
+    if (!isPartitioned()) {
+      tables[0].copyKeyToBuffer(keyOffsetAddr, count, keyFixedAddr, keyVarAddr);
+      return;
+    }
+
+    final int blockWidth = buildPivot.getBlockWidth();
+    final long maxAddr = keyOffsetAddr + count * ORDINAL_SIZE;
+    int varOffset = 0;
+    for (; keyOffsetAddr < maxAddr; keyOffsetAddr += ORDINAL_SIZE, keyFixedAddr += blockWidth) {
+      final int ordinal = PlatformDependent.getInt(keyOffsetAddr);
+      varOffset += tables[getPartition(ordinal)].copyKeyToBuffer(getLocalOrdinal(ordinal), keyFixedAddr, keyVarAddr, varOffset);
+    }
   }
 
   // Get the length of the variable keys of the record specified by ordinal in hash table.
   public int getVarKeyLength(int ordinal) {
-    return table.getVarKeyLength(ordinal);
+    if (!isPartitioned()) {
+      return tables[0].getVarKeyLength(ordinal);
+    }
+    return tables[getPartition(ordinal)].getVarKeyLength(getLocalOrdinal(ordinal));
+  }
+
+  private int getPartition(final int ordinal) {
+    return globalBlockPartitions[ordinal >>> BLOCK_SHIFT];
+  }
+
+  private int getLocalOrdinal(final int ordinal) {
+    return (globalBlockLocalBlocks[ordinal >>> BLOCK_SHIFT] << BLOCK_SHIFT) | (ordinal & BLOCK_MASK);
+  }
+
+  private int getGlobalOrdinal(final int partition, final int localOrdinal) {
+    return (partitionBlocks[partition][localOrdinal >>> BLOCK_SHIFT] << BLOCK_SHIFT) | (localOrdinal & BLOCK_MASK);
+  }
+
+  /**
+   * Assign global block numbers to the blocks added to the given partition since the last call.
+   */
+  private void mapNewBlocks(final int partition) {
+    final int blocks = tables[partition].blocks();
+    for (int localBlock = partitionBlocks[partition].length; localBlock < blocks; localBlock++) {
+      final int globalBlock = globalBlockPartitions.length;
+      partitionBlocks[partition] = Ints.concat(partitionBlocks[partition], new int[]{globalBlock});
+      globalBlockPartitions = Ints.concat(globalBlockPartitions, new int[]{partition});
+      globalBlockLocalBlocks = Ints.concat(globalBlockLocalBlocks, new int[]{localBlock});
+    }
+  }
+
+  /**
+   * Group the records of a batch by partition. On return, keyIndexAddr contains the record indexes
+   * ordered by partition, and the records of partition p are between partitionOffsets[p] (inclusive)
+   * and partitionOffsets[p + 1] (exclusive).
+   */
+  private void partitionRecords(final long hashValueAddr, final int records, final long keyIndexAddr) {
+    final int[] offsets = this.partitionOffsets;
+    final int partitionMask = this.partitionMask;
+    Arrays.fill(offsets, 0);
+    for (int keyIndex = 0; keyIndex < records; keyIndex++) {
+      offsets[getPartitionForHash(hashValueAddr, keyIndex, partitionMask) + 1]++;
+    }
+    for (int i = 1; i < offsets.length; i++) {
+      offsets[i] += offsets[i - 1];
+    }
+    // offsets[p] is used as the write position of partition p, and ends up being the start of partition p + 1.
+    for (int keyIndex = 0; keyIndex < records; keyIndex++) {
+      final int partition = getPartitionForHash(hashValueAddr, keyIndex, partitionMask);
+      PlatformDependent.putInt(keyIndexAddr + (offsets[partition]++ * ORDINAL_SIZE), keyIndex);
+    }
+    System.arraycopy(offsets, 0, offsets, 1, offsets.length - 1);
+    offsets[0] = 0;
+  }
+
+  private static int getPartitionForHash(final long hashValueAddr, final int keyIndex, final int partitionMask) {
+    /* get the partition index from higher order bits in hash, lower ones are used by the hash table */
+    return ((int) (PlatformDependent.getLong(hashValueAddr + keyIndex * 8L) >> 32)) & partitionMask;
   }
 
   @Override
@@ -99,6 +218,15 @@ public class BlockJoinTable implements JoinTable {
     return insertWatch.elapsed(unit);
   }
 
+  @Override
+  public long getRehashTime(TimeUnit unit) {
+    long rehashTime = 0;
+    for (LBlockHashTable table : tables) {
+      rehashTime += table.getRehashTime(unit);
+    }
+    return rehashTime;
+  }
+
   @Override
   public long getBuildHashComputationTime(TimeUnit unit){
     return buildHashComputationWatch.elapsed(unit);
@@ -110,7 +238,7 @@ public class BlockJoinTable implements JoinTable {
   }
 
   @Override
-  public void insert(long findAddr, int records) {
+  public void insert(final long findAddr, int records) {
     try(FixedBlockVector fbv = new FixedBlockVector(allocator, buildPivot.getBlockWidth());
         VariableBlockVector var = new VariableBlockVector(allocator, buildPivot.getVariableCount());
         ){
@@ -122,10 +250,6 @@ public class BlockJoinTable implements JoinTable {
       final long keyVarVectorAddr = var.getMemoryAddress();
       final boolean fixedOnly = this.fixedOnly;
 
-      if (tableTracing) {
-        table.traceInsertStart(records);
-      }
-
       try(SimpleBigIntVector hashValues = new SimpleBigIntVector("hashvalues", allocator)){
         // STEP 2: then we do the hash computation on entire batch
         hashValues.allocateNew(records);
@@ -137,28 +261,83 @@ public class BlockJoinTable implements JoinTable {
 
         // STEP 3: then we insert build side into hash table
         insertWatch.start();
-        for(int keyIndex = 0 ; keyIndex < records; keyIndex++, findAddr += 4) {
-          final int keyHash = (int)hashValues.get(keyIndex);
-          PlatformDependent.putInt(findAddr, table.add(keyFixedVectorAddr, keyVarVectorAddr, keyIndex, keyHash));
+        if (!isPartitioned()) {
+          final LBlockHashTable table = tables[0];
+          if (tableTracing) {
+            table.traceInsertStart(records);
+          }
+          table.addBatch(keyFixedVectorAddr, keyVarVectorAddr, hashValues.getBufferAddress(), records, findAddr);
+          if (tableTracing) {
+            table.traceOrdinals(findAddr, records);
+            table.traceInsertEnd();
+          }
+        } else {
+          insertPartitioned(keyFixedVectorAddr, keyVarVectorAddr, hashValues.getBufferAddress(), records, findAddr);
         }
         insertWatch.stop();
       }
+    }
+  }
+
+  private void insertPartitioned(final long keyFixedVectorAddr, final long keyVarVectorAddr, final long hashValueAddr,
+                                 final int records, final long findAddr) {
+    try(ArrowBuf keyIndexes = allocator.buffer(records * ORDINAL_SIZE);
+        ArrowBuf localOrdinals = allocator.buffer(records * ORDINAL_SIZE)) {
+      final long keyIndexAddr = keyIndexes.memoryAddress();
+      final long localOrdinalAddr = localOrdinals.memoryAddress();
+      partitionRecords(hashValueAddr, records, keyIndexAddr);
+
+      for (int partition = 0; partition < tables.length; partition++) {
+        final int start = partitionOffsets[partition];
+        final int count = partitionOffsets[partition + 1] - start;
+        if (count == 0) {
+          continue;
+        }
+
+        final LBlockHashTable table = tables[partition];
+        if (tableTracing) {
+          table.traceInsertStart(count);
+        }
+        table.addBatch(keyFixedVectorAddr, keyVarVectorAddr, hashValueAddr, keyIndexAddr + start * ORDINAL_SIZE,
+          count, localOrdinalAddr + start * ORDINAL_SIZE);
+        if (tableTracing) {
+          table.traceOrdinals(localOrdinalAddr + start * ORDINAL_SIZE, count);
+          table.traceInsertEnd();
+        }
+        mapNewBlocks(partition);
 
-      if (tableTracing) {
-        table.traceOrdinals(findAddr, records);
-        table.traceInsertEnd();
+        // translate to global ordinals, in the original record order.
+        for (int i = start; i < start + count; i++) {
+          final int keyIndex = PlatformDependent.getInt(keyIndexAddr + i * ORDINAL_SIZE);
+          final int localOrdinal = PlatformDependent.getInt(localOrdinalAddr + i * ORDINAL_SIZE);
+          PlatformDependent.putInt(findAddr + keyIndex * ORDINAL_SIZE, getGlobalOrdinal(partition, localOrdinal));
+        }
       }
     }
   }
 
+  /**
+   * For a partitioned table, this is the size of the ordinal space: it includes the unused ordinals
+   * at the end of the last block of each partition.
+   */
   @Override
   public int size() {
-    return table.size();
+    if (!isPartitioned()) {
+      return tables[0].size();
+    }
+
+    final int globalBlocks = globalBlockPartitions.length;
+    if (globalBlocks == 0) {
+      return 0;
+    }
+    final int lastBlock = globalBlocks - 1;
+    final int partitionSize = tables[globalBlockPartitions[lastBlock]].size();
+    final int recordsInLastBlock = Math.min(MAX_VALUES_PER_BATCH, partitionSize - (globalBlockLocalBlocks[lastBlock] << BLOCK_SHIFT));
+    return (lastBlock << BLOCK_SHIFT) + recordsInLastBlock;
   }
 
   @Override
   public void find(long offsetAddr, final int records) {
-    final LBlockHashTable table = this.table;
     final int blockWidth = probePivot.getBlockWidth();
     try(FixedBlockVector fbv = new FixedBlockVector(allocator, probePivot.getBlockWidth());
         VariableBlockVector var = new VariableBlockVector(allocator, probePivot.getVariableCount());
@@ -181,13 +360,16 @@ public class BlockJoinTable implements JoinTable {
 
       // STEP 3: then we probe hash table.
       probeFindWatch.start();
+      if (!isPartitioned()) {
+        tables[0].findBatch(keyFixedVectorAddr, keyVarVectorAddr, hashValues.getBufferAddress(), records, offsetAddr);
+      } else {
+        findPartitioned(keyFixedVectorAddr, keyVarVectorAddr, hashValues.getBufferAddress(), records, offsetAddr);
+      }
+
+      // STEP 4: nulls are not comparable. as such, keys with nulls in them don't match.
       final NullComparator compare = nullMask;
       switch(compare.getMode()){
       case NONE:
-        for(int keyIndex = 0; keyIndex < records; keyIndex++, offsetAddr += 4) {
-          final int keyHash = (int)hashValues.get(keyIndex);
-          PlatformDependent.putInt(offsetAddr, table.find(keyFixedVectorAddr, keyVarVectorAddr, keyIndex, keyHash));
-        }
         break;
 
       // 32 bits to consider.
@@ -195,11 +377,7 @@ public class BlockJoinTable implements JoinTable {
         long bitsAddr = keyFixedVectorAddr;
         final int nullMask = compare.getFour();
         for(int keyIndex = 0; keyIndex < records; keyIndex++, offsetAddr += 4, bitsAddr += blockWidth){
-          if((PlatformDependent.getInt(bitsAddr) & nullMask) == nullMask){
-            // the nulls are not comparable. as such, this doesn't match.
-            final int keyHash = (int)hashValues.get(keyIndex);
-            PlatformDependent.putInt(offsetAddr, table.find(keyFixedVectorAddr, keyVarVectorAddr, keyIndex, keyHash));
-          } else {
+          if((PlatformDependent.getInt(bitsAddr) & nullMask) != nullMask){
             PlatformDependent.putInt(offsetAddr, SKIP);
           }
         }
@@ -211,11 +389,7 @@ public class BlockJoinTable implements JoinTable {
         long bitsAddr = keyFixedVectorAddr;
         final long nullMask = compare.getEight();
         for(int keyIndex = 0; keyIndex < records; keyIndex++, offsetAddr += 4, bitsAddr += blockWidth){
-          if((PlatformDependent.getLong(bitsAddr) & nullMask) == nullMask){
-            final int keyHash = (int)hashValues.get(keyIndex);
-            PlatformDependent.putInt(offsetAddr, table.find(keyFixedVectorAddr, keyVarVectorAddr, keyIndex, keyHash));
-          } else {
-            // the nulls are not comparable. as such, this doesn't match.
+          if((PlatformDependent.getLong(bitsAddr) & nullMask) != nullMask){
             PlatformDependent.putInt(offsetAddr, SKIP);
           }
         }
@@ -226,11 +400,7 @@ public class BlockJoinTable implements JoinTable {
       case BIG: {
         long bitsAddr = keyFixedVectorAddr;
         for(int keyIndex = 0; keyIndex < records; keyIndex++, offsetAddr += 4, bitsAddr += blockWidth){
-          if(compare.isComparableBigBits(bitsAddr)){
-            final int keyHash = (int)hashValues.get(keyIndex);
-            PlatformDependent.putInt(offsetAddr, table.find(keyFixedVectorAddr, keyVarVectorAddr, keyIndex, keyHash));
-          } else {
-            // the nulls are not comparable. as such, this doesn't match.
+          if(!compare.isComparableBigBits(bitsAddr)){
             PlatformDependent.putInt(offsetAddr, SKIP);
           }
         }
@@ -247,35 +417,71 @@ public class BlockJoinTable implements JoinTable {
     probeFindWatch.stop();
   }
 
+  private void findPartitioned(final long keyFixedVectorAddr, final long keyVarVectorAddr, final long hashValueAddr,
+                               final int records, final long offsetAddr) {
+    try(ArrowBuf keyIndexes = allocator.buffer(records * ORDINAL_SIZE);
+        ArrowBuf localOrdinals = allocator.buffer(records * ORDINAL_SIZE)) {
+      final long keyIndexAddr = keyIndexes.memoryAddress();
+      final long localOrdinalAddr = localOrdinals.memoryAddress();
+      partitionRecords(hashValueAddr, records, keyIndexAddr);
+
+      for (int partition = 0; partition < tables.length; partition++) {
+        final int start = partitionOffsets[partition];
+        final int count = partitionOffsets[partition + 1] - start;
+        if (count == 0) {
+          continue;
+        }
 
-  @Override
-  public int capacity() {
-    return table.capacity();
+        tables[partition].findBatch(keyFixedVectorAddr, keyVarVectorAddr, hashValueAddr,
+          keyIndexAddr + start * ORDINAL_SIZE, count, localOrdinalAddr + start * ORDINAL_SIZE);
+
+        // translate to global ordinals, in the original record order.
+        for (int i = start; i < start + count; i++) {
+          final int keyIndex = PlatformDependent.getInt(keyIndexAddr + i * ORDINAL_SIZE);
+          final int localOrdinal = PlatformDependent.getInt(localOrdinalAddr + i * ORDINAL_SIZE);
+          PlatformDependent.putInt(offsetAddr + keyIndex * ORDINAL_SIZE,
+            localOrdinal == -1 ? -1 : getGlobalOrdinal(partition, localOrdinal));
+        }
+      }
+    }
   }
 
+
   @Override
-  public int getRehashCount() {
-    return table.getRehashCount();
+  public int capacity() {
+    int capacity = 0;
+    for (LBlockHashTable table : tables) {
+      capacity += table.capacity();
+    }
+    return capacity;
   }
 
   @Override
-  public long getRehashTime(TimeUnit unit) {
-    return table.getRehashTime(unit);
+  public int getRehashCount() {
+    int rehashCount = 0;
+    for (LBlockHashTable table : tables) {
+      rehashCount += table.getRehashCount();
+    }
+    return rehashCount;
   }
 
   @Override
   public void close() throws Exception {
-    table.close();
+    AutoCloseables.close(tables);
   }
 
   @Override
   public AutoCloseable traceStart(int numRecords) {
     tableTracing = true;
-    table.traceStart(numRecords);
+    for (LBlockHashTable table : tables) {
+      table.traceStart(numRecords);
+    }
     return new AutoCloseable() {
       @Override
       public void close() throws Exception {
-        table.traceEnd();
+        for (LBlockHashTable table : tables) {
+          table.traceEnd();
+        }
         tableTracing = false;
       }
     };
@@ -283,7 +489,15 @@ public class BlockJoinTable implements JoinTable {
 
   @Override
   public String traceReport() {
-    return table.traceReport();
+    if (!isPartitioned()) {
+      return tables[0].traceReport();
+    }
+
+    final StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < tables.length; i++) {
+      sb.append(String.format("Partition %d:%n", i)).append(tables[i].traceReport());
+    }
+    return sb.toString();
   }
 
 }
@@ -52,7 +52,12 @@ public class HashJoinStats {
     UNMATCHED_PROBE_COUNT,
     OUTPUT_RECORDS,
     HASHCOMPUTATION_TIME_NANOS,  /* used by hash agg and build side of hash join */
-    PROBE_HASHCOMPUTATION_TIME_NANOS; /* used by probe side of hash join */
+    PROBE_HASHCOMPUTATION_TIME_NANOS, /* used by probe side of hash join */
+    SPILL_COUNT,                /* number of times the build side was spilled to disk */
+    SPILLED_BUILD_RECORDS,
+    SPILLED_PROBE_RECORDS,
+    TOTAL_SPILLED_DATA_SIZE,
+    RUNTIME_FILTERS_SENT;       /* number of runtime filters sent to the probe side scan */
 
     @Override
     public int metricId() {
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.join.vhash;
+
+import java.util.List;
+
+import org.apache.arrow.vector.FieldVector;
+
+import com.dremio.exec.proto.ExecProtos.RuntimeFilter;
+import com.dremio.exec.proto.ExecProtos.RuntimeFilterColumn;
+import com.dremio.sabot.op.common.filter.BloomFilter;
+import com.dremio.sabot.op.common.filter.RuntimeFilterKeyType;
+
+/**
+ * Collects the key values of the build side of a hash join, to be sent as a {@link RuntimeFilter} to
+ * the scan feeding the probe side. For each key, tracks a bloom filter of the values and, for integer
+ * keys, the range of the values. Null keys never match an equality condition and are skipped.
+ */
+class RuntimeFilterBuilder {
+
+  private final List<String> probeFields;
+  private final List<FieldVector> buildKeys;
+  private final RuntimeFilterKeyType[] types;
+  private final BloomFilter[] blooms;
+  private final long[] mins;
+  private final long[] maxs;
+  private final long maxBloomKeys;
+  private final long[] keyCounts;
+
+  /**
+   * @param probeFields the probe scan field for each build key, null if no filter can be sent for the key.
+   * @param buildKeys the build side key vectors.
+   * @param bloomBits size of each bloom filter.
+   */
+  RuntimeFilterBuilder(List<String> probeFields, List<FieldVector> buildKeys, int bloomBits) {
+    this.probeFields = probeFields;
+    this.buildKeys = buildKeys;
+    this.types = new RuntimeFilterKeyType[buildKeys.size()];
+    this.blooms = new BloomFilter[buildKeys.size()];
+    this.mins = new long[buildKeys.size()];
+    this.maxs = new long[buildKeys.size()];
+    this.keyCounts = new long[buildKeys.size()];
+    this.maxBloomKeys = bloomBits / 8;
+    for (int i = 0; i < types.length; i++) {
+      types[i] = probeFields.get(i) == null ? null : RuntimeFilterKeyType.of(buildKeys.get(i));
+      if (types[i] != null) {
+        blooms[i] = new BloomFilter(bloomBits, BloomFilter.DEFAULT_NUM_HASH_FUNCTIONS);
+      }
+      mins[i] = Long.MAX_VALUE;
+      maxs[i] = Long.MIN_VALUE;
+    }
+  }
+
+  /**
+   * @return whether any of the keys can be filtered on.
+   */
+  boolean hasColumns() {
+    for (RuntimeFilterKeyType type : types) {
+      if (type != null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  void addBatch(int records) {
+    for (int i = 0; i < types.length; i++) {
+      final RuntimeFilterKeyType type = types[i];
+      if (type == null) {
+        continue;
+      }
+
+      final FieldVector vector = buildKeys.get(i);
+      final BloomFilter bloom = blooms[i];
+      long count = keyCounts[i];
+      long min = mins[i];
+      long max = maxs[i];
+      for (int index = 0; index < records; index++) {
+        if (RuntimeFilterKeyType.isNull(vector, index)) {
+          continue;
+        }
+        count++;
+        if (bloom != null) {
+          bloom.put(type.hash(vector, index));
+        }
+        if (type.hasRange()) {
+          final long value = type.getLong(vector, index);
+          min = Math.min(min, value);
+          max = Math.max(max, value);
+        }
+      }
+      keyCounts[i] = count;
+      mins[i] = min;
+      maxs[i] = max;
+
+      if (count > maxBloomKeys) {
+        // past this many keys the false positive rate gets too high for the filter to be useful.
+        blooms[i] = null;
+      }
+    }
+  }
+
+  RuntimeFilter build() {
+    final RuntimeFilter.Builder filter = RuntimeFilter.newBuilder();
+    for (int i = 0; i < types.length; i++) {
+      final RuntimeFilterKeyType type = types[i];
+      if (type == null) {
+        continue;
+      }
+
+      final RuntimeFilterColumn.Builder column = RuntimeFilterColumn.newBuilder()
+          .setName(probeFields.get(i))
+          .setKeyCount(keyCounts[i]);
+      if (type.hasRange() && keyCounts[i] > 0) {
+        column.setMin(mins[i]).setMax(maxs[i]);
+      }
+      if (blooms[i] != null) {
+        column.setNumHashFunctions(blooms[i].getNumHashFunctions())
+            .setBloomFilter(blooms[i].toByteString());
+      }
+      filter.addColumn(column);
+    }
+    return filter.build();
+  }
+}
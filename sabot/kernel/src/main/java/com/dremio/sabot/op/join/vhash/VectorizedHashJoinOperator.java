@@ -17,6 +17,7 @@ package com.dremio.sabot.op.join.vhash;
 
 import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -34,6 +35,9 @@ import com.dremio.common.logical.data.JoinCondition;
 import com.dremio.exec.ExecConstants;
 import com.dremio.exec.expr.ValueVectorReadExpression;
 import com.dremio.exec.physical.config.HashJoinPOP;
+import com.dremio.exec.physical.config.RuntimeFilterTarget;
+import com.dremio.exec.proto.CoordExecRPC.FragmentAssignment;
+import com.dremio.exec.proto.ExecProtos.FragmentHandle;
 import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
 import com.dremio.exec.record.ExpandableHyperContainer;
 import com.dremio.exec.record.VectorAccessible;
@@ -41,6 +45,8 @@ import com.dremio.exec.record.VectorContainer;
 import com.dremio.exec.record.VectorWrapper;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.exec.fragment.OutOfBandMessage;
+import com.dremio.sabot.exec.fragment.OutOfBandMessage.Payload;
 import com.dremio.sabot.op.aggregate.vectorized.VariableLengthValidator;
 import com.dremio.sabot.op.common.hashtable.Comparator;
 import com.dremio.sabot.op.common.hashtable.HashTable;
@@ -50,6 +56,7 @@ import com.dremio.sabot.op.common.ht2.PivotDef;
 import com.dremio.sabot.op.join.JoinUtils;
 import com.dremio.sabot.op.join.hash.BuildInfo;
 import com.dremio.sabot.op.join.vhash.HashJoinStats.Metric;
+import com.dremio.sabot.op.join.vhash.VectorizedHashJoinSpillHandler.SpilledPartitionReader;
 import com.dremio.sabot.op.spi.DualInputOperator;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
@@ -77,6 +84,9 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
   // nodes to shift while obtaining batch index from SV4
   private static final int SHIFT_SIZE = 16;
 
+  // Partitions that still don't fit in memory after this many levels of spilling fail instead of spilling again.
+  private static final int MAX_SPILL_LEVEL = 3;
+
   // Join type, INNER, LEFT, RIGHT or OUTER
   private final JoinRelType joinType;
   private final OperatorContext context;
@@ -135,11 +145,43 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
   private boolean debugInsertion = false;
   private long outputRecords = 0;
 
+  /* Spilling state. Once the build side doesn't fit in memory, the in-memory build records and all
+   * the remaining build and probe batches are partitioned to disk by the spill handler. Each spilled
+   * partition is then joined on its own by a nested join operator that reads back its spill files.
+   */
+  private final String spillId;
+  private final int spillLevel;
+  private boolean spillEnabled;
+  private long maxInMemoryBatches;
+  private VectorizedHashJoinSpillHandler spillHandler;
+  private List<FieldVector> buildIncomingVectors;
+  private List<FieldVector> probeIncomingVectors;
+  // Build side vectors in output and the pivot of their keys, used to write out the in-memory build records
+  private final List<FieldVector> buildOutgoingVectors = new ArrayList<>();
+  private PivotDef buildOutgoingPivot;
+  private int spilledPartition = -1;
+  private int spilledPartitionsJoined = 0;
+  private VectorizedHashJoinOperator spilledJoin;
+  private VectorContainer spilledJoinOutput;
+  private VectorContainer spilledBuild;
+  private VectorContainer spilledProbe;
+  private SpilledPartitionReader spilledProbeReader;
+
+  // only the top level join sends a runtime filter, nested joins of spilled partitions see a subset of the build side.
+  private RuntimeFilterBuilder runtimeFilterBuilder;
+  private int runtimeFiltersSent = 0;
+
   public VectorizedHashJoinOperator(OperatorContext context, HashJoinPOP popConfig) throws OutOfMemoryException {
+    this(context, popConfig, "0", 0);
+  }
+
+  private VectorizedHashJoinOperator(OperatorContext context, HashJoinPOP popConfig, String spillId, int spillLevel) throws OutOfMemoryException {
     this.context = context;
     this.config = popConfig;
     this.joinType = popConfig.getJoinType();
     this.outgoing = new VectorContainer(context.getAllocator());
+    this.spillId = spillId;
+    this.spillLevel = spillLevel;
   }
 
   @Override
@@ -158,6 +200,7 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
     outgoing.setInitialCapacity(context.getTargetBatchSize());
 
     final List<FieldVectorPair> buildFields = new ArrayList<>();
+    final List<FieldVector> buildKeys = new ArrayList<>();
     final List<FieldVectorPair> probeFields = new ArrayList<>();
     /* The build side key fields in output, the pivoted keys will be unpivoted to the vectors of key fields for non matched records
      * It's only for VECTORIZED_GENERIC because we don't maintain keys in hyper container.
@@ -191,6 +234,7 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
     for(JoinCondition c : config.getConditions()){
       final FieldVector build = getField(right, c.getRight());
       buildFields.add(new FieldVectorPair(build, build));
+      buildKeys.add(build);
       final FieldVector probe = getField(left, c.getLeft());
       probeFields.add(new FieldVectorPair(probe, probe));
 
@@ -259,6 +303,7 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
     for(VectorWrapper<?> w : outgoing){
       final FieldVector v = (FieldVector) w.getValueVector();
       if(i < right.getSchema().getFieldCount()){
+        buildOutgoingVectors.add(v);
         if ((mode == Mode.VECTORIZED_GENERIC) && isKeyBits.get(i)) {
           /* The corresponding field is key, so the fields in build side and probe side will
            * be added to probeIncomingKeys and buildOutputKeys. They will be used to create
@@ -279,6 +324,7 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
 
     this.probePivot = PivotBuilder.getBlockDefinition(probeFields);
     this.buildPivot = PivotBuilder.getBlockDefinition(buildFields);
+    this.buildOutgoingPivot = PivotBuilder.getBlockDefinition(buildOutputFields);
 
     this.comparator = new NullComparator(requiredBits, probePivot.getBitCount());
 
@@ -297,11 +343,12 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
         break;
       case VECTORIZED_GENERIC:
         // Create the PivotDef for unpivot in projectBuildNonMatches
-        this.buildUnpivot = PivotBuilder.getBlockDefinition(buildOutputFields);
+        this.buildUnpivot = buildOutgoingPivot;
         // Create the hyper container with isKeyBits that indicates which field is key and will not be added to hyper container
         hyperContainer = new ExpandableHyperContainer(context.getAllocator(), right.getSchema(), isKeyBits);
         // Create generic hash table
-        this.table = new BlockJoinTable(buildPivot, probePivot, context.getAllocator(), comparator, (int)context.getOptions().getOption(ExecConstants.MIN_HASH_TABLE_SIZE), INITIAL_VAR_FIELD_AVERAGE_SIZE);
+        this.table = new BlockJoinTable(buildPivot, probePivot, context.getAllocator(), comparator, (int)context.getOptions().getOption(ExecConstants.MIN_HASH_TABLE_SIZE),
+          INITIAL_VAR_FIELD_AVERAGE_SIZE, (int)context.getOptions().getOption(ExecConstants.VECTORIZED_HASHJOIN_NUM_PARTITIONS));
         break;
       default:
         throw new UnsupportedOperationException();
@@ -309,6 +356,18 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
 
     debugInsertion = context.getOptions().getOption(ExecConstants.DEBUG_HASHJOIN_INSERTION);
 
+    spillEnabled = context.getOptions().getOption(ExecConstants.ENABLE_VECTORIZED_HASHJOIN_SPILL) && spillLevel < MAX_SPILL_LEVEL;
+    maxInMemoryBatches = context.getOptions().getOption(ExecConstants.VECTORIZED_HASHJOIN_SPILL_DEBUG_MAX_BATCHES);
+    buildIncomingVectors = VectorContainer.getFieldVectors(right);
+    probeIncomingVectors = VectorContainer.getFieldVectors(left);
+
+    final RuntimeFilterTarget runtimeFilter = config.getRuntimeFilter();
+    if (runtimeFilter != null && spillLevel == 0) {
+      final RuntimeFilterBuilder builder = new RuntimeFilterBuilder(runtimeFilter.getProbeScanFields(), buildKeys,
+          (int) context.getOptions().getOption(ExecConstants.RUNTIME_FILTER_BLOOM_BITS));
+      runtimeFilterBuilder = builder.hasColumns() ? builder : null;
+    }
+
     state = State.CAN_CONSUME_R;
     return outgoing;
   }
@@ -342,26 +401,30 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
       VariableLengthValidator.validateVariable(v, records);
     }
 
-    final List<ArrowBuf> startIndices = this.startIndices;
-    final List<BuildInfo> buildInfoList = this.buildInfoList;
-
-    BuildInfo info = new BuildInfo(newLinksBuffer(records), records);
-    buildInfoList.add(info);
+    if (runtimeFilterBuilder != null) {
+      runtimeFilterBuilder.addBatch(records);
+    }
 
-    // ensure we have enough start indices space.
-    while(table.size() + records > startIndices.size() * HashTable.BATCH_SIZE){
-      startIndices.add(newLinksBuffer(HashTable.BATCH_SIZE));
-      keyMatchBitVectors.add(new MatchBitSet(HashTable.BATCH_SIZE, context.getAllocator()));
+    if (spillHandler == null && spillEnabled && buildBatchIndex >= maxInMemoryBatches) {
+      spillInMemoryBuild();
     }
 
-    try(ArrowBuf offsets = context.getAllocator().buffer(records * 4);
-        AutoCloseable traceBuf = debugInsertion ? table.traceStart(records) : AutoCloseables.noop()) {
-      long findAddr = offsets.memoryAddress();
-      table.insert(findAddr, records);
+    if (spillHandler == null) {
+      try {
+        insertBuildBatch(records);
+      } catch (OutOfMemoryException e) {
+        if (!spillEnabled) {
+          throw e;
+        }
+        logger.debug("Out of memory while inserting build batch {}, spilling the build side to disk.", buildBatchIndex, e);
+        spillInMemoryBuild();
+      }
+    }
 
-      linkWatch.start();
-      setLinks(offsets.memoryAddress(), buildBatchIndex, records);
-      linkWatch.stop();
+    if (spillHandler != null) {
+      spillHandler.spillBuild(buildPivot, buildIncomingVectors, records);
+      updateStats();
+      return;
     }
 
     /* Completed hashing all records in this batch. Transfer the batch
@@ -383,6 +446,98 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
     updateStats();
   }
 
+  /**
+   * Insert the keys of the current build batch into the table and link its records. Running out of
+   * memory can only happen before the first link is set, so the build side is left consistent.
+   */
+  private void insertBuildBatch(int records) throws Exception {
+    final List<ArrowBuf> startIndices = this.startIndices;
+    final List<BuildInfo> buildInfoList = this.buildInfoList;
+
+    BuildInfo info = new BuildInfo(newLinksBuffer(records), records);
+    buildInfoList.add(info);
+
+    try(ArrowBuf offsets = context.getAllocator().buffer(records * 4);
+        AutoCloseable traceBuf = debugInsertion ? table.traceStart(records) : AutoCloseables.noop()) {
+      long findAddr = offsets.memoryAddress();
+      table.insert(findAddr, records);
+
+      // ensure we have enough start indices space for the ordinals handed out by the table.
+      while(table.size() > startIndices.size() * HashTable.BATCH_SIZE){
+        startIndices.add(newLinksBuffer(HashTable.BATCH_SIZE));
+        keyMatchBitVectors.add(new MatchBitSet(HashTable.BATCH_SIZE, context.getAllocator()));
+      }
+
+      linkWatch.start();
+      setLinks(offsets.memoryAddress(), buildBatchIndex, records);
+      linkWatch.stop();
+    }
+  }
+
+  /**
+   * Switch to a partitioned join on disk. The build records held in memory are written out to their
+   * partitions and the hash table is released. All the remaining build and probe batches will be
+   * partitioned to disk as well.
+   */
+  private void spillInMemoryBuild() throws Exception {
+    spillHandler = new VectorizedHashJoinSpillHandler(context, config.getOperatorId(), spillId, spillLevel,
+      (int) context.getOptions().getOption(ExecConstants.VECTORIZED_HASHJOIN_SPILL_PARTITIONS), right.getSchema(), left.getSchema());
+
+    if (buildBatchIndex > 0 && table.size() > 0) {
+      /* Nothing was probed yet, so projecting the unmatched build records of a right join
+       * produces every build record, keys included, in the build side of outgoing.
+       */
+      try (VectorizedProbe buildProjector = new VectorizedProbe(
+          context.getAllocator(),
+          hyperContainer,
+          left,
+          probeOutputs,
+          buildOutputs,
+          probeIncomingKeys,
+          buildOutputKeys,
+          mode,
+          JoinRelType.RIGHT,
+          buildInfoList,
+          // running out of memory may have left a start index without its match bit set.
+          startIndices.subList(0, keyMatchBitVectors.size()),
+          keyMatchBitVectors,
+          maxHashTableIndex,
+          table,
+          probePivot,
+          buildUnpivot,
+          context.getTargetBatchSize(),
+          comparator)) {
+        int projected;
+        do {
+          projected = buildProjector.projectBuildNonMatches();
+          final int records = outgoing.setAllCount(Math.abs(projected));
+          spillHandler.spillBuild(buildOutgoingPivot, buildOutgoingVectors, records);
+        } while (projected < 0);
+      } finally {
+        outgoing.zeroVectors();
+      }
+    }
+
+    logger.debug("Spilled {} in-memory build records of {} batches to disk.", spillHandler.getBuildRecords(), buildBatchIndex);
+
+    List<AutoCloseable> autoCloseables = new ArrayList<>();
+    autoCloseables.add(hyperContainer);
+    autoCloseables.add(table);
+    autoCloseables.addAll(buildInfoList);
+    autoCloseables.addAll(startIndices);
+    autoCloseables.addAll(keyMatchBitVectors);
+    try {
+      AutoCloseables.close(autoCloseables);
+    } finally {
+      hyperContainer = null;
+      table = null;
+      buildInfoList.clear();
+      startIndices.clear();
+      keyMatchBitVectors.clear();
+      maxHashTableIndex = -1;
+    }
+  }
+
   private void setLinks(long indexAddr, final int buildBatch, final int records){
     for(int incomingRecordIndex = 0; incomingRecordIndex < records; incomingRecordIndex++, indexAddr+=4){
 
@@ -495,12 +650,31 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
       stats.setLongStat(Metric.OUTPUT_RECORDS, outputRecords);
       stats.setLongStat(Metric.PROBE_HASHCOMPUTATION_TIME_NANOS, table.getProbeHashComputationTime(ns));
     }
+
+    // nested joins of spilled partitions share the operator stats, only the top level one reports spilling.
+    if(spillHandler != null && spillLevel == 0){
+      stats.setLongStat(Metric.SPILL_COUNT, spilledPartitionsJoined);
+      stats.setLongStat(Metric.SPILLED_BUILD_RECORDS, spillHandler.getBuildRecords());
+      stats.setLongStat(Metric.SPILLED_PROBE_RECORDS, spillHandler.getProbeRecords());
+      stats.setLongStat(Metric.TOTAL_SPILLED_DATA_SIZE, spillHandler.getSpilledBytes());
+    }
   }
 
   @Override
   public void noMoreToConsumeRight() throws Exception {
     state.is(State.CAN_CONSUME_R);
 
+    if (runtimeFilterBuilder != null) {
+      sendRuntimeFilter();
+      runtimeFilterBuilder = null;
+    }
+
+    if (spillHandler != null) {
+      // the probe side gets partitioned to disk too, partitions are joined once it is done.
+      state = State.CAN_CONSUME_L;
+      return;
+    }
+
     if ((table.size() == 0) && !(joinType == JoinRelType.LEFT || joinType == JoinRelType.FULL)) {
       // nothing needs to be read on the left side as right side is empty
       state = State.DONE;
@@ -529,6 +703,34 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
     state = State.CAN_CONSUME_L;
   }
 
+  /**
+   * Send the build side keys to the scan on the probe side. The scan runs in the same fragment, so the
+   * message only goes to this minor fragment. Failing to send only loses the optimization.
+   */
+  private void sendRuntimeFilter() {
+    try {
+      final FragmentHandle handle = context.getFragmentHandle();
+      final Payload payload = new Payload(runtimeFilterBuilder.build());
+      for (FragmentAssignment a : context.getAssignments()) {
+        if (!a.getMinorFragmentIdList().contains(handle.getMinorFragmentId())) {
+          continue;
+        }
+        final OutOfBandMessage message = new OutOfBandMessage(
+            handle.getQueryId(),
+            handle.getMajorFragmentId(),
+            Collections.singletonList(handle.getMinorFragmentId()),
+            config.getRuntimeFilter().getProbeScanOperatorId(),
+            handle.getMinorFragmentId(),
+            payload);
+        context.getTunnelProvider().getExecTunnel(a.getAssignment()).sendOOBMessage(message);
+        runtimeFiltersSent++;
+      }
+    } catch (Exception ex) {
+      logger.warn("Failure while sending runtime filter to the probe side scan.", ex);
+    }
+    context.getStats().setLongStat(Metric.RUNTIME_FILTERS_SENT, runtimeFiltersSent);
+  }
+
   @Override
   public void consumeDataLeft(int records) throws Exception {
     state.is(State.CAN_CONSUME_L);
@@ -538,6 +740,12 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
       VariableLengthValidator.validateVariable(v, records);
     }
 
+    if (spillHandler != null) {
+      spillHandler.spillProbe(probePivot, probeIncomingVectors, records);
+      updateStats();
+      return;
+    }
+
     state = State.CAN_PRODUCE;
   }
 
@@ -547,6 +755,10 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
 
     updateStats();
 
+    if (spillHandler != null) {
+      return outputSpilledPartitions();
+    }
+
     if(!finishedProbe){
       final int probedRecords = probe.probeBatch(left.getRecordCount());
       outputRecords += Math.abs(probedRecords);
@@ -576,6 +788,12 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
     state.is(State.CAN_CONSUME_L);
 
     finishedProbe = true;
+    if (spillHandler != null) {
+      spillHandler.finishWriting();
+      state = State.CAN_PRODUCE;
+      return;
+    }
+
     if(joinType == JoinRelType.FULL || joinType == JoinRelType.RIGHT){
       // if we need to project build records that didn't match, make sure we do so.
       state = State.CAN_PRODUCE;
@@ -585,6 +803,89 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
   }
 
 
+  /**
+   * Join the spilled partitions one after the other, each one by a nested join operator fed from
+   * the partition spill files.
+   * @return Number of records output for the current partition, 0 once all partitions are done.
+   */
+  private int outputSpilledPartitions() throws Exception {
+    while (true) {
+      if (spilledJoin == null && !startNextSpilledPartition()) {
+        state = State.DONE;
+        return outgoing.setAllCount(0);
+      }
+
+      switch (spilledJoin.getState()) {
+        case CAN_PRODUCE:
+          final int records = spilledJoin.outputData();
+          if (records > 0) {
+            spilledJoinOutput.transferOut(outgoing);
+            outputRecords += records;
+            return outgoing.setAllCount(records);
+          }
+          break;
+        case CAN_CONSUME_L:
+          final int probeRecords = spilledProbeReader.loadNext(spilledProbe);
+          if (probeRecords > 0) {
+            spilledJoin.consumeDataLeft(probeRecords);
+          } else {
+            spilledJoin.noMoreToConsumeLeft();
+          }
+          break;
+        case DONE:
+          try {
+            AutoCloseables.close(spilledProbeReader, spilledJoin);
+          } finally {
+            spilledProbeReader = null;
+            spilledJoin = null;
+            spilledJoinOutput = null;
+          }
+          break;
+        default:
+          throw new IllegalStateException("Unexpected state of spilled partition join: " + spilledJoin.getState());
+      }
+    }
+  }
+
+  /**
+   * Set up the nested join of the next spilled partition which can produce records, and load its
+   * whole build side.
+   * @return false if there is no partition left.
+   */
+  private boolean startNextSpilledPartition() throws Exception {
+    final boolean projectUnmatchedBuild = joinType == JoinRelType.RIGHT || joinType == JoinRelType.FULL;
+    final boolean projectUnmatchedProbe = joinType == JoinRelType.LEFT || joinType == JoinRelType.FULL;
+
+    while (++spilledPartition < spillHandler.getNumPartitions()) {
+      final boolean hasBuild = spillHandler.getBuildBatches(spilledPartition) > 0;
+      final boolean hasProbe = spillHandler.getProbeBatches(spilledPartition) > 0;
+      if ((hasBuild && (hasProbe || projectUnmatchedBuild)) || (hasProbe && projectUnmatchedProbe)) {
+        break;
+      }
+    }
+    if (spilledPartition >= spillHandler.getNumPartitions()) {
+      return false;
+    }
+
+    if (spilledBuild == null) {
+      spilledBuild = VectorContainer.create(context.getAllocator(), right.getSchema());
+      spilledProbe = VectorContainer.create(context.getAllocator(), left.getSchema());
+    }
+
+    spilledJoin = new VectorizedHashJoinOperator(context, config, spillId + "_" + spilledPartition, spillLevel + 1);
+    spilledJoinOutput = (VectorContainer) spilledJoin.setup(spilledProbe, spilledBuild);
+    try (SpilledPartitionReader buildReader = spillHandler.openBuild(spilledPartition)) {
+      int records;
+      while ((records = buildReader.loadNext(spilledBuild)) > 0) {
+        spilledJoin.consumeDataRight(records);
+      }
+    }
+    spilledJoin.noMoreToConsumeRight();
+    spilledProbeReader = spillHandler.openProbe(spilledPartition);
+    spilledPartitionsJoined++;
+    return true;
+  }
+
   public ArrowBuf newLinksBuffer(int recordCount) {
     // Each link is 6 bytes.
     // First 4 bytes are used to identify the batch and remaining 2 bytes for record within the batch.
@@ -609,6 +910,11 @@ public class VectorizedHashJoinOperator implements DualInputOperator {
   public void close() throws Exception {
     updateStats();
     List<AutoCloseable> autoCloseables = new ArrayList<>();
+    autoCloseables.add(spilledProbeReader);
+    autoCloseables.add(spilledJoin);
+    autoCloseables.add(spilledBuild);
+    autoCloseables.add(spilledProbe);
+    autoCloseables.add(spillHandler);
     autoCloseables.add(hyperContainer);
     autoCloseables.add(table);
     autoCloseables.add(probe);
@@ -0,0 +1,371 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.join.vhash;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.SimpleBigIntVector;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.common.exceptions.UserException;
+import com.dremio.common.utils.protos.QueryIdHelper;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.cache.SpillBufferCodec;
+import com.dremio.exec.cache.SpillCompression;
+import com.dremio.exec.cache.VectorAccessibleSerializable;
+import com.dremio.exec.proto.ExecProtos.FragmentHandle;
+import com.dremio.exec.record.BatchSchema;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.exec.record.VectorWrapper;
+import com.dremio.exec.record.WritableBatch;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.op.common.ht2.BlockChunk;
+import com.dremio.sabot.op.common.ht2.FixedBlockVector;
+import com.dremio.sabot.op.common.ht2.HashComputation;
+import com.dremio.sabot.op.common.ht2.PivotDef;
+import com.dremio.sabot.op.common.ht2.Pivots;
+import com.dremio.sabot.op.common.ht2.VariableBlockVector;
+import com.dremio.sabot.op.copier.FieldBufferCopier;
+import com.dremio.sabot.op.sort.external.SpillManager;
+import com.dremio.sabot.op.sort.external.SpillManager.SpillFile;
+import com.google.common.base.Preconditions;
+
+import io.netty.buffer.ArrowBuf;
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Partitions the build and probe sides of a {@link VectorizedHashJoinOperator} on the hash of
+ * the join keys and writes each partition to its own spill file. Build and probe records with
+ * equal keys always land in the same partition, so each partition can later be joined on its
+ * own with a much smaller hash table (grace hash join).
+ *
+ * The partitioning hash uses a seed that depends on the spill level so that a partition which
+ * is spilled again is split differently than the one it came from.
+ */
+class VectorizedHashJoinSpillHandler implements AutoCloseable {
+
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(VectorizedHashJoinSpillHandler.class);
+
+  private static final int SV2_SIZE = 2;
+  private static final int HASH_VALUE_WIDTH = 8;
+
+  private final BufferAllocator allocator;
+  private final SpillManager spillManager;
+  private final SpillBufferCodec spillCodec;
+  private final int numPartitions;
+  private final int partitionMask;
+  private final long seed;
+  private final SpilledSide build;
+  private final SpilledSide probe;
+
+  // scratch space reused across batches: partition of each record and records grouped by partition.
+  private int[] recordPartitions = new int[0];
+  private final int[] partitionStarts;
+  private ArrowBuf partitionSv2;
+
+  private long spilledBytes;
+
+  VectorizedHashJoinSpillHandler(OperatorContext context, int operatorId, String spillId, int spillLevel,
+      int numPartitions, BatchSchema buildSchema, BatchSchema probeSchema) {
+    Preconditions.checkArgument(Integer.bitCount(numPartitions) == 1, "Partition count must be a power of two, was %s.", numPartitions);
+    final FragmentHandle fragmentHandle = context.getFragmentHandle();
+    final String id = String.format("joinspill-%s.%s.%s.%s.%s", QueryIdHelper.getQueryId(fragmentHandle.getQueryId()),
+      fragmentHandle.getMajorFragmentId(), fragmentHandle.getMinorFragmentId(), operatorId, spillId);
+    this.allocator = context.getAllocator();
+    this.spillManager = new SpillManager(context.getConfig(), context.getOptions(), id, null, context.getSpillService(), "join spilling");
+    this.spillCodec = new SpillBufferCodec(SpillCompression.fromName(context.getOptions().getOption(ExecConstants.SPILL_COMPRESSION)));
+    this.numPartitions = numPartitions;
+    this.partitionMask = numPartitions - 1;
+    // the in-memory table hashes with seed 0, every spill level uses a different one.
+    this.seed = spillLevel + 1;
+    this.partitionStarts = new int[numPartitions + 1];
+    this.build = new SpilledSide("build", buildSchema);
+    this.probe = new SpilledSide("probe", probeSchema);
+  }
+
+  int getNumPartitions() {
+    return numPartitions;
+  }
+
+  int getBuildBatches(int partition) {
+    return build.batches[partition];
+  }
+
+  int getProbeBatches(int partition) {
+    return probe.batches[partition];
+  }
+
+  long getBuildRecords() {
+    return build.totalRecords;
+  }
+
+  long getProbeRecords() {
+    return probe.totalRecords;
+  }
+
+  long getSpilledBytes() {
+    return spilledBytes;
+  }
+
+  /**
+   * Partition and spill a batch of build records.
+   * @param pivot definition used to pivot the join keys of the given vectors
+   * @param vectors all the build side vectors, in build schema order
+   * @param records number of records in the batch
+   */
+  void spillBuild(PivotDef pivot, List<FieldVector> vectors, int records) {
+    build.spill(pivot, vectors, records);
+  }
+
+  /**
+   * Partition and spill a batch of probe records.
+   * @param pivot definition used to pivot the join keys of the given vectors
+   * @param vectors all the probe side vectors, in probe schema order
+   * @param records number of records in the batch
+   */
+  void spillProbe(PivotDef pivot, List<FieldVector> vectors, int records) {
+    probe.spill(pivot, vectors, records);
+  }
+
+  /**
+   * Close all the output streams. Must be called once both sides have been fully spilled and
+   * before any partition is read back.
+   */
+  void finishWriting() throws Exception {
+    build.closeStreams();
+    probe.closeStreams();
+    AutoCloseables.close(partitionSv2);
+    partitionSv2 = null;
+  }
+
+  SpilledPartitionReader openBuild(int partition) throws IOException {
+    return build.open(partition);
+  }
+
+  SpilledPartitionReader openProbe(int partition) throws IOException {
+    return probe.open(partition);
+  }
+
+  /**
+   * Compute the partition of each record, and fill partitionSv2 with the record indices grouped
+   * by partition. Partition p owns entries [partitionStarts[p], partitionStarts[p + 1]).
+   */
+  private void partition(PivotDef pivot, int records) {
+    if (recordPartitions.length < records) {
+      recordPartitions = new int[records];
+    }
+    if (partitionSv2 == null || partitionSv2.capacity() < records * SV2_SIZE) {
+      AutoCloseables.closeNoChecked(partitionSv2);
+      partitionSv2 = null;
+      partitionSv2 = allocator.buffer(records * SV2_SIZE);
+    }
+
+    final int[] recordPartitions = this.recordPartitions;
+    final int[] partitionStarts = this.partitionStarts;
+    final int partitionMask = this.partitionMask;
+
+    try(FixedBlockVector fbv = new FixedBlockVector(allocator, pivot.getBlockWidth());
+        VariableBlockVector var = new VariableBlockVector(allocator, pivot.getVariableCount());
+        SimpleBigIntVector hashValues = new SimpleBigIntVector("hashvalues", allocator)){
+      Pivots.pivot(pivot, records, fbv, var);
+      hashValues.allocateNew(records);
+      final BlockChunk blockChunk = new BlockChunk(fbv.getMemoryAddress(), var.getMemoryAddress(), pivot.getVariableCount() == 0,
+        pivot.getBlockWidth(), records, hashValues.getBufferAddress(), seed);
+      HashComputation.computeHash(blockChunk);
+
+      // count the records of each partition, same partition index as the partitioned join table.
+      Arrays.fill(partitionStarts, 0);
+      long hashAddr = hashValues.getBufferAddress();
+      for (int i = 0; i < records; i++, hashAddr += HASH_VALUE_WIDTH) {
+        final int partition = ((int) (PlatformDependent.getLong(hashAddr) >> 32)) & partitionMask;
+        recordPartitions[i] = partition;
+        partitionStarts[partition + 1]++;
+      }
+    }
+
+    for (int p = 0; p < numPartitions; p++) {
+      partitionStarts[p + 1] += partitionStarts[p];
+    }
+
+    // scatter the record indices; this shifts each start to the end of its partition.
+    final long sv2Addr = partitionSv2.memoryAddress();
+    for (int i = 0; i < records; i++) {
+      final int partition = recordPartitions[i];
+      PlatformDependent.putShort(sv2Addr + partitionStarts[partition] * SV2_SIZE, (short) i);
+      partitionStarts[partition]++;
+    }
+    for (int p = numPartitions; p > 0; p--) {
+      partitionStarts[p] = partitionStarts[p - 1];
+    }
+    partitionStarts[0] = 0;
+  }
+
+  @Override
+  public void close() throws Exception {
+    AutoCloseables.close(build, probe, partitionSv2, spillManager);
+  }
+
+  /**
+   * Spill files of one side of the join.
+   */
+  private class SpilledSide implements AutoCloseable {
+    private final String name;
+    private final VectorContainer container;
+    private final SpillFile[] files = new SpillFile[numPartitions];
+    private final FSDataOutputStream[] streams = new FSDataOutputStream[numPartitions];
+    private final int[] batches = new int[numPartitions];
+    private long totalRecords;
+
+    // copiers are bound to the source vectors, only rebuild them when the source changes.
+    private List<FieldVector> copierSources;
+    private List<FieldBufferCopier> copiers;
+
+    SpilledSide(String name, BatchSchema schema) {
+      this.name = name;
+      this.container = VectorContainer.create(allocator, schema);
+    }
+
+    void spill(PivotDef pivot, List<FieldVector> vectors, int records) {
+      if (records == 0) {
+        return;
+      }
+
+      if (vectors != copierSources) {
+        copiers = FieldBufferCopier.getCopiers(vectors, VectorContainer.getFieldVectors(container));
+        copierSources = vectors;
+      }
+
+      partition(pivot, records);
+
+      final long sv2Addr = partitionSv2.memoryAddress();
+      for (int p = 0; p < numPartitions; p++) {
+        final int start = partitionStarts[p];
+        final int count = partitionStarts[p + 1] - start;
+        if (count == 0) {
+          continue;
+        }
+
+        for (FieldBufferCopier copier : copiers) {
+          copier.copy(sv2Addr + start * SV2_SIZE, count);
+        }
+        container.setAllCount(count);
+        write(p, count);
+      }
+      totalRecords += records;
+    }
+
+    private void write(int partition, int records) {
+      FSDataOutputStream stream = streams[partition];
+      if (stream == null) {
+        final SpillFile file = spillManager.getSpillFile(String.format("%s%05d", name, partition));
+        files[partition] = file;
+        try {
+          stream = file.create();
+        } catch (Exception e) {
+          throw UserException.resourceError(e)
+            .message("Failed to create output stream for spill file")
+            .addContext("Spill file path:", file.getPath())
+            .build(logger);
+        }
+        streams[partition] = stream;
+      }
+
+      // the writable batch takes the buffers away from the container, which will be reallocated by the copiers.
+      try (WritableBatch batch = WritableBatch.getBatchNoHVWrap(records, container, false)) {
+        spilledBytes += batch.getLength();
+        new VectorAccessibleSerializable(batch, null, spillCodec).writeToStream(stream);
+      } catch (IOException e) {
+        throw UserException.dataWriteError(e)
+          .message("Failure while attempting to spill hash join data to disk.")
+          .addContext("Spill file path:", files[partition].getPath())
+          .build(logger);
+      }
+      batches[partition]++;
+    }
+
+    void closeStreams() throws Exception {
+      try {
+        AutoCloseables.close(streams);
+      } finally {
+        Arrays.fill(streams, null);
+      }
+    }
+
+    SpilledPartitionReader open(int partition) throws IOException {
+      Preconditions.checkState(streams[partition] == null, "Spill file for %s partition %s is still being written.", name, partition);
+      if (batches[partition] == 0) {
+        return new SpilledPartitionReader(null, 0);
+      }
+      logger.debug("Reading {} spilled {} batches of partition {} from {}", batches[partition], name, partition, files[partition].getPath());
+      return new SpilledPartitionReader(files[partition].open(), batches[partition]);
+    }
+
+    @Override
+    public void close() throws Exception {
+      AutoCloseables.close(AutoCloseables.iter(streams), AutoCloseables.iter(files), AutoCloseables.iter(container));
+    }
+  }
+
+  /**
+   * Sequentially reads back the batches spilled for one side of a partition.
+   */
+  class SpilledPartitionReader implements AutoCloseable {
+    private final FSDataInputStream input;
+    private int remainingBatches;
+
+    private SpilledPartitionReader(FSDataInputStream input, int batches) {
+      this.input = input;
+      this.remainingBatches = batches;
+    }
+
+    /**
+     * Load the next spilled batch into the given container, which must have the schema of the
+     * spilled side.
+     * @return number of records loaded, 0 once all the batches have been read.
+     */
+    int loadNext(VectorContainer target) throws IOException {
+      if (remainingBatches == 0) {
+        return 0;
+      }
+
+      final VectorAccessibleSerializable serializer = new VectorAccessibleSerializable(allocator, spillCodec);
+      serializer.readFromStream(input);
+      remainingBatches--;
+
+      target.zeroVectors();
+      try (VectorContainer incoming = serializer.get()) {
+        final Iterator<VectorWrapper<?>> wrapperIterator = incoming.iterator();
+        for (VectorWrapper<?> w : target) {
+          wrapperIterator.next().getValueVector().makeTransferPair(w.getValueVector()).transfer();
+        }
+        target.setRecordCount(incoming.getRecordCount());
+        return incoming.getRecordCount();
+      }
+    }
+
+    @Override
+    public void close() throws Exception {
+      AutoCloseables.close(input);
+    }
+  }
+}
@@ -19,6 +19,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.apache.arrow.gandiva.exceptions.GandivaException;
 import org.apache.arrow.gandiva.expression.Condition;
 import org.apache.arrow.gandiva.expression.ExpressionTree;
 import org.apache.arrow.gandiva.expression.TreeBuilder;
@@ -43,6 +44,7 @@ import com.dremio.exec.expr.fn.AbstractFunctionHolder;
 import com.dremio.exec.expr.fn.BaseFunctionHolder;
 import com.dremio.exec.expr.fn.GandivaFunctionHolder;
 import com.dremio.exec.record.VectorAccessible;
+import com.dremio.sabot.op.llvm.expr.GandivaCapabilities;
 import com.google.common.base.Preconditions;
 
 /**
@@ -103,7 +105,17 @@ public class GandivaExpressionBuilder extends AbstractExprVisitor<TreeNode, Void
       .map(this::acceptExpression)
       .collect(Collectors.toList());
 
-    return TreeBuilder.makeFunction(holder.getName(), children, definition.getReturnType(holder.args).getType());
+    return TreeBuilder.makeFunction(getNativeName(holder), children, definition.getReturnType(holder.args).getType());
+  }
+
+  // the function may only be supported natively under one of its aliases
+  private static String getNativeName(FunctionHolderExpression holder) {
+    try {
+      final String nativeName = GandivaCapabilities.getInstance().getNativeName(holder);
+      return nativeName != null ? nativeName : holder.getName();
+    } catch (GandivaException e) {
+      throw new RuntimeException(e);
+    }
   }
 
   @Override
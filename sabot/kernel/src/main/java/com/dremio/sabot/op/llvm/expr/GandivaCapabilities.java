@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.llvm.expr;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.apache.arrow.gandiva.evaluator.ExpressionRegistry;
+import org.apache.arrow.gandiva.evaluator.FunctionSignature;
+import org.apache.arrow.gandiva.exceptions.GandivaException;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+
+import com.dremio.common.expression.FunctionHolderExpression;
+import com.dremio.common.expression.LogicalExpression;
+import com.dremio.exec.expr.fn.BaseFunctionHolder;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.SetMultimap;
+
+/**
+ * Types and functions supported by the native (Gandiva) evaluator, as reported by the library loaded at runtime.<br>
+ * <br>
+ * Functions are matched on their signature. Besides the name the function is called with, the other names its Dremio
+ * implementation is registered under are tried, ignoring the case, so functions the library only knows under one of
+ * their aliases are still evaluated natively.
+ */
+public final class GandivaCapabilities {
+
+  private static volatile GandivaCapabilities instance;
+
+  private final Set<ArrowType> supportedTypes;
+  private final Set<FunctionSignature> supportedFunctions;
+  // native function names, by lower case name
+  private final SetMultimap<String, String> nativeNames = HashMultimap.create();
+
+  GandivaCapabilities(Set<ArrowType> supportedTypes, Set<FunctionSignature> supportedFunctions) {
+    this.supportedTypes = ImmutableSet.copyOf(supportedTypes);
+    this.supportedFunctions = ImmutableSet.copyOf(supportedFunctions);
+    for (FunctionSignature signature : supportedFunctions) {
+      nativeNames.put(signature.getName().toLowerCase(Locale.ROOT), signature.getName());
+    }
+  }
+
+  /**
+   * @return the capabilities of the native library, listed the first time they're needed
+   */
+  public static GandivaCapabilities getInstance() throws GandivaException {
+    if (instance == null) {
+      synchronized (GandivaCapabilities.class) {
+        if (instance == null) {
+          final ExpressionRegistry registry = ExpressionRegistry.getInstance();
+          instance = new GandivaCapabilities(registry.getSupportedTypes(), registry.getSupportedFunctions());
+        }
+      }
+    }
+    return instance;
+  }
+
+  public boolean isSupportedType(ArrowType type) {
+    return supportedTypes.contains(type);
+  }
+
+  /**
+   * @return the name the function is natively implemented under, or null if it isn't
+   */
+  public String getNativeName(FunctionHolderExpression holder) {
+    final Set<String> names = new LinkedHashSet<>();
+    names.add(holder.getName());
+    if (holder.getHolder() instanceof BaseFunctionHolder) {
+      names.addAll(Arrays.asList(((BaseFunctionHolder) holder.getHolder()).getRegisteredNames()));
+    }
+    final List<ArrowType> argTypes = Lists.newArrayList();
+    for (LogicalExpression arg : holder.args) {
+      argTypes.add(arg.getCompleteType().getType());
+    }
+    return getNativeName(names, holder.getCompleteType().getType(), argTypes);
+  }
+
+  /**
+   * @param names names of the function, in order of preference
+   * @return the name the function is natively implemented under for the given types, or null if it isn't
+   */
+  public String getNativeName(Iterable<String> names, ArrowType returnType, List<ArrowType> argTypes) {
+    for (String name : names) {
+      if (supportedFunctions.contains(new FunctionSignature(name, returnType, argTypes))) {
+        return name;
+      }
+    }
+    for (String name : names) {
+      for (String nativeName : nativeNames.get(name.toLowerCase(Locale.ROOT))) {
+        if (supportedFunctions.contains(new FunctionSignature(nativeName, returnType, argTypes))) {
+          return nativeName;
+        }
+      }
+    }
+    return null;
+  }
+}
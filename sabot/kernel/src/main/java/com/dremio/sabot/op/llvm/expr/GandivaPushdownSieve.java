@@ -16,13 +16,8 @@
 package com.dremio.sabot.op.llvm.expr;
 
 import java.util.List;
-import java.util.Set;
 
-import org.apache.arrow.gandiva.evaluator.ExpressionRegistry;
-import org.apache.arrow.gandiva.evaluator.FunctionSignature;
 import org.apache.arrow.gandiva.exceptions.GandivaException;
-import org.apache.arrow.vector.types.pojo.ArrowType;
-import org.apache.arrow.vector.types.pojo.Field;
 
 import com.dremio.common.expression.BooleanOperator;
 import com.dremio.common.expression.CompleteType;
@@ -69,12 +64,7 @@ public class GandivaPushdownSieve extends AbstractExprVisitor<CodeGenContext, Co
         return contextExpr;
       }
 
-      // if schema contains complex fields, skip annotation with Gandiva
-      for(Field field : batchSchema.getFields()) {
-        if (field.getType().isComplex()) {
-          return contextExpr;
-        }
-      }
+      // complex fields are only rejected when read, as only the fields read are passed to Gandiva
 
       CodeGenContext codeGenContextModifiedExpr = contextExpr.getChild().accept(this, contextExpr);
 
@@ -227,17 +217,8 @@ public class GandivaPushdownSieve extends AbstractExprVisitor<CodeGenContext, Co
   }
 
   private boolean isFunctionSupported(FunctionHolderExpression holder) throws GandivaException {
-    Set<FunctionSignature> supportedFunctions = ExpressionRegistry.getInstance()
-      .getSupportedFunctions();
-    String name = holder.getName();
-    ArrowType returnType = holder.getCompleteType().getType();
-    List<ArrowType> argTypes = Lists.newArrayList();
-    for (LogicalExpression arg : holder.args) {
-      argTypes.add(arg.getCompleteType().getType());
-    }
-    FunctionSignature functionSignature = new FunctionSignature(name, returnType, argTypes);
-    if (!supportedFunctions.contains(functionSignature) || !isSpecificFuntionSupported(holder)) {
-      logger.info("function signature not supported in gandiva : " + functionSignature);
+    if (GandivaCapabilities.getInstance().getNativeName(holder) == null || !isSpecificFuntionSupported(holder)) {
+      logger.info("function signature not supported in gandiva : {}({})", holder.getName(), holder.args);
       return false;
     }
     return true;
@@ -386,8 +367,7 @@ public class GandivaPushdownSieve extends AbstractExprVisitor<CodeGenContext, Co
   }
 
   private boolean isSupportedType(CompleteType type) throws GandivaException {
-    final Set<ArrowType> supportedTypes = ExpressionRegistry.getInstance().getSupportedTypes();
-    return supportedTypes.contains(type.getType());
+    return GandivaCapabilities.getInstance().isSupportedType(type.getType());
   }
 
   private boolean isSupportedReturnType(CompleteType type) throws GandivaException {
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.project;
+
+import java.util.List;
+
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.util.TransferPair;
+
+import com.dremio.exec.exception.SchemaChangeException;
+import com.dremio.exec.expr.TypeHelper;
+import com.dremio.exec.expr.ValueVectorWriteExpression;
+import com.dremio.exec.expr.fn.interpreter.InterpreterEvaluator;
+import com.dremio.exec.expr.fn.interpreter.InterpreterEvaluator.PreparedExpression;
+import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
+import com.dremio.exec.record.TypedFieldId;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.selection.SelectionVector2;
+import com.dremio.sabot.exec.context.FunctionContext;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * {@link Projector} interpreting the expressions instead of compiling them, which is cheaper when only a few records
+ * are evaluated. Only supports the expressions accepted by {@link InterpreterEvaluator#canEvaluate}, without complex
+ * writers.
+ */
+public class InterpretedProjector implements Projector {
+
+  private final List<ValueVectorWriteExpression> writes;
+
+  private PreparedExpression[] exprs;
+  private ValueVector[] outputs;
+  private ImmutableList<TransferPair> transfers;
+  private SelectionVector2 vector2;
+  private SelectionVectorMode svMode;
+
+  public InterpretedProjector(List<ValueVectorWriteExpression> writes) {
+    this.writes = ImmutableList.copyOf(writes);
+  }
+
+  @Override
+  public void setup(FunctionContext context, VectorAccessible incoming, VectorAccessible outgoing, List<TransferPair> transfers, ComplexWriterCreator writerCreator) throws SchemaChangeException {
+    this.svMode = incoming.getSchema().getSelectionVectorMode();
+    switch (svMode) {
+    case NONE:
+      break;
+    case TWO_BYTE:
+      this.vector2 = incoming.getSelectionVector2();
+      break;
+    default:
+      throw new UnsupportedOperationException("Unsupported selection vector mode "+ svMode.name());
+    }
+    this.transfers = ImmutableList.copyOf(transfers);
+
+    exprs = new PreparedExpression[writes.size()];
+    outputs = new ValueVector[writes.size()];
+    for (int i = 0; i < writes.size(); i++) {
+      final ValueVectorWriteExpression write = writes.get(i);
+      final TypedFieldId id = write.getFieldId();
+      outputs[i] = outgoing.getValueAccessorById(id.getIntermediateClass(), id.getFieldIds()).getValueVector();
+      exprs[i] = InterpreterEvaluator.prepare(context, incoming, write.getChild());
+    }
+  }
+
+  @Override
+  public void projectRecords(int recordCount) {
+    switch (svMode) {
+
+    case TWO_BYTE:
+      for (int i = 0; i < recordCount; i++) {
+        eval(vector2.getIndex(i), i);
+      }
+      return;
+
+    case NONE:
+      for (int i = 0; i < recordCount; i++) {
+        eval(i, i);
+      }
+      for (TransferPair t : transfers) {
+        t.transfer();
+      }
+      return;
+
+    case FOUR_BYTE:
+    default:
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  private void eval(int inIndex, int outIndex) {
+    for (int i = 0; i < exprs.length; i++) {
+      TypeHelper.setValueSafe(outputs[i], outIndex, exprs[i].evaluate(inIndex));
+    }
+  }
+}
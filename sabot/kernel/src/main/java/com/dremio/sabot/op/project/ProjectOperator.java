@@ -235,6 +235,9 @@ public class ProjectOperator implements SingleInputOperator {
 
   @Override
   public void close() throws Exception {
+    if (splitter != null) {
+      context.getStats().addLongStat(Metric.JAVA_INTERPRETED_RECORDS, splitter.getInterpretedRecords());
+    }
     AutoCloseables.close(outgoing, splitter);
     context.getStats().addLongStat(Metric.JAVA_EVALUATE_TIME, javaCodeGenWatch.elapsed(TimeUnit.MILLISECONDS));
     context.getStats().addLongStat(Metric.GANDIVA_EVALUATE_TIME, gandivaCodeGenWatch.elapsed(TimeUnit.MILLISECONDS));
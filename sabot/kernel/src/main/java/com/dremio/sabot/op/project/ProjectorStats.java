@@ -24,7 +24,8 @@ public class ProjectorStats {
     JAVA_EVALUATE_TIME,
     GANDIVA_EXPRESSIONS,
     GANDIVA_BUILD_TIME,
-    GANDIVA_EVALUATE_TIME;
+    GANDIVA_EVALUATE_TIME,
+    JAVA_INTERPRETED_RECORDS;
 
     @Override
     public int metricId() {
@@ -15,8 +15,6 @@
  */
 package com.dremio.sabot.op.receiver;
 
-import static com.dremio.exec.cache.VectorAccessibleSerializable.readIntoArrowBuf;
-
 import java.io.EOFException;
 import java.io.IOException;
 import java.util.concurrent.LinkedBlockingDeque;
@@ -36,6 +34,8 @@ import com.dremio.common.DeferredException;
 import com.dremio.common.config.SabotConfig;
 import com.dremio.common.utils.protos.QueryIdHelper;
 import com.dremio.exec.ExecConstants;
+import com.dremio.exec.cache.SpillBufferCodec;
+import com.dremio.exec.cache.SpillCompression;
 import com.dremio.exec.proto.ExecProtos.FragmentHandle;
 import com.dremio.exec.proto.ExecRPC.FragmentRecordBatch;
 import com.dremio.exec.store.LocalSyncableFileSystem;
@@ -109,6 +109,7 @@ public class SpoolingRawBatchBuffer extends BaseRawBatchBuffer<SpoolingRawBatchB
   private FSDataInputStream inputStream;
   private long inputStreamLastKnownLen;
   private final FragmentWorkQueue workQueue;
+  private final SpillBufferCodec spillCodec;
   private final DeferredException deferred = new DeferredException();
   private SpillManager spillManager;
   private SpillService spillService;
@@ -120,6 +121,7 @@ public class SpoolingRawBatchBuffer extends BaseRawBatchBuffer<SpoolingRawBatchB
     final String name = String.format("%s:spoolingBatchBuffer", QueryIdHelper.getFragmentId(handle));
     this.allocator = allocator.newChildAllocator(name, ALLOCATOR_INITIAL_RESERVATION, ALLOCATOR_MAX_RESERVATION);
     this.threshold = config.getLong(ExecConstants.SPOOLING_BUFFER_SIZE);
+    this.spillCodec = new SpillBufferCodec(SpillCompression.fromName(config.getString(ExecConstants.SPOOLING_BUFFER_COMPRESSION)));
     this.oppositeId = oppositeId;
     this.bufferIndex = bufferIndex;
     this.bufferQueue = new SpoolingBufferQueue();
@@ -347,7 +349,7 @@ public class SpoolingRawBatchBuffer extends BaseRawBatchBuffer<SpoolingRawBatchB
           bodyLength = 0;
         }
         if (bodyLength > 0) {
-          buf.getBytes(0, stream, bodyLength);
+          spillCodec.write(buf, 0, bodyLength, true, stream);
         }
         stream.hsync();
         FileStatus status = spillFile.getFileStatus();
@@ -409,8 +411,7 @@ public class SpoolingRawBatchBuffer extends BaseRawBatchBuffer<SpoolingRawBatchB
           FragmentRecordBatch header = FragmentRecordBatch.parseDelimitedFrom(inputStream);
           pos = inputStream.getPos();
           assert header != null : "header null after parsing from stream";
-          // readIntoArrowBuf is a blocking operation. Safe to use COPY_BUFFER
-          readIntoArrowBuf(inputStream, buf, bodyLength);
+          spillCodec.read(inputStream, buf, bodyLength);
           pos = inputStream.getPos();
           batch = new RawFragmentBatch(header, buf, null);
           long t = watch.elapsed(TimeUnit.MICROSECONDS);
@@ -64,8 +64,9 @@ public class UnorderedReceiverOperator implements ProducerOperator {
     this.outgoing = context.createOutputVectorContainer(config.getSchema());
 
     // In normal case, batchLoader does not require an allocator. However, in case of splitAndTransfer of a value vector,
-    // we may need an allocator for the new offset vector. Therefore, here we pass the context's allocator to batchLoader.
-    this.batchLoader = new ArrowRecordBatchLoader(outgoing);
+    // we may need an allocator for the new offset vector, and compressed batches are decompressed with it. Therefore,
+    // here we pass the context's allocator to batchLoader.
+    this.batchLoader = new ArrowRecordBatchLoader(outgoing, context.getAllocator());
   }
 
   @Override
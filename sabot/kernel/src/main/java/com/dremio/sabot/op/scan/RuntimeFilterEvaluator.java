@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.scan;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.ValueVector;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.exec.proto.ExecProtos.RuntimeFilter;
+import com.dremio.exec.proto.ExecProtos.RuntimeFilterColumn;
+import com.dremio.exec.record.BatchSchema;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.sabot.op.common.filter.BloomFilter;
+import com.dremio.sabot.op.common.filter.RuntimeFilterKeyType;
+import com.dremio.sabot.op.copier.FieldBufferCopier;
+
+import io.netty.buffer.ArrowBuf;
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Drops the scanned records whose keys can't match any build side key of a hash join, as described
+ * by the {@link RuntimeFilter}s received from the join. Surviving records are compacted back into
+ * the scan output vectors.
+ */
+class RuntimeFilterEvaluator implements AutoCloseable {
+
+  private static final int SV2_SIZE = 2;
+
+  private final BufferAllocator allocator;
+  private final OutputMutator mutator;
+  private final VectorContainer outgoing;
+  private final List<ColumnFilter> columns = new ArrayList<>();
+
+  private ArrowBuf sv2;
+  private BatchSchema copierSchema;
+  private VectorContainer filtered;
+  private List<FieldBufferCopier> copiers;
+  private boolean canCompact = true;
+
+  private long inputRecords;
+  private long outputRecords;
+
+  RuntimeFilterEvaluator(BufferAllocator allocator, OutputMutator mutator, VectorContainer outgoing) {
+    this.allocator = allocator;
+    this.mutator = mutator;
+    this.outgoing = outgoing;
+  }
+
+  void add(RuntimeFilter filter) {
+    for (RuntimeFilterColumn column : filter.getColumnList()) {
+      final ColumnFilter existing = find(column.getName());
+      // a record has to match every filter, so ranges of the same key are intersected. Bloom filters can't be
+      // merged, a filter which has one is kept on its own.
+      if (existing != null && !column.hasBloomFilter()) {
+        existing.intersect(column);
+      } else {
+        columns.add(new ColumnFilter(column));
+      }
+    }
+  }
+
+  private ColumnFilter find(String name) {
+    for (ColumnFilter column : columns) {
+      if (column.name.equals(name)) {
+        return column;
+      }
+    }
+    return null;
+  }
+
+  long getInputRecords() {
+    return inputRecords;
+  }
+
+  long getOutputRecords() {
+    return outputRecords;
+  }
+
+  /**
+   * Filter the records of the current output batch.
+   *
+   * @return the number of records left in the output batch.
+   */
+  int filter(int records) {
+    if (!canCompact || records == 0) {
+      return records;
+    }
+
+    for (ColumnFilter column : columns) {
+      column.bind(mutator.getVector(column.name));
+    }
+
+    if (sv2 == null || sv2.capacity() < records * SV2_SIZE) {
+      AutoCloseables.closeNoChecked(sv2);
+      sv2 = null;
+      sv2 = allocator.buffer(records * SV2_SIZE);
+    }
+
+    final long sv2Addr = sv2.memoryAddress();
+    int count = 0;
+    for (int i = 0; i < records; i++) {
+      if (matches(i)) {
+        PlatformDependent.putShort(sv2Addr + count * SV2_SIZE, (short) i);
+        count++;
+      }
+    }
+
+    inputRecords += records;
+    outputRecords += count;
+    if (count == records) {
+      return records;
+    }
+
+    if (!outgoing.getSchema().equals(copierSchema)) {
+      AutoCloseables.closeNoChecked(filtered);
+      filtered = null;
+      copierSchema = outgoing.getSchema();
+      filtered = VectorContainer.create(allocator, copierSchema);
+      try {
+        copiers = FieldBufferCopier.getCopiers(VectorContainer.getFieldVectors(outgoing), VectorContainer.getFieldVectors(filtered));
+      } catch (UnsupportedOperationException e) {
+        // some output type can't be copied, the join still drops the records.
+        canCompact = false;
+        outputRecords += records - count;
+        return records;
+      }
+    }
+
+    for (FieldBufferCopier copier : copiers) {
+      copier.copy(sv2Addr, count);
+    }
+    filtered.transferOut(outgoing);
+    return count;
+  }
+
+  private boolean matches(int index) {
+    for (ColumnFilter column : columns) {
+      if (!column.matches(index)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void close() throws Exception {
+    AutoCloseables.close(sv2, filtered);
+  }
+
+  /**
+   * Filter on the values of a single key.
+   */
+  private static class ColumnFilter {
+    private final String name;
+    private long keyCount;
+    private boolean hasRange;
+    private long min;
+    private long max;
+    private final BloomFilter bloom;
+
+    private FieldVector vector;
+    private RuntimeFilterKeyType type;
+
+    ColumnFilter(RuntimeFilterColumn column) {
+      this.name = column.getName();
+      this.keyCount = column.getKeyCount();
+      this.hasRange = column.hasMin() && column.hasMax();
+      this.min = column.getMin();
+      this.max = column.getMax();
+      this.bloom = column.hasBloomFilter() ? BloomFilter.fromByteString(column.getBloomFilter(), column.getNumHashFunctions()) : null;
+    }
+
+    void intersect(RuntimeFilterColumn column) {
+      keyCount = Math.min(keyCount, column.getKeyCount());
+      if (!column.hasMin() || !column.hasMax()) {
+        return;
+      }
+      if (hasRange) {
+        min = Math.max(min, column.getMin());
+        max = Math.min(max, column.getMax());
+      } else {
+        hasRange = true;
+        min = column.getMin();
+        max = column.getMax();
+      }
+    }
+
+    void bind(ValueVector v) {
+      if (v instanceof FieldVector) {
+        vector = (FieldVector) v;
+        type = RuntimeFilterKeyType.of(vector);
+      } else {
+        vector = null;
+        type = null;
+      }
+    }
+
+    boolean matches(int index) {
+      if (type == null) {
+        // the key isn't in the scan output, keep everything.
+        return true;
+      }
+      // the join only uses equality conditions, so a null key never matches.
+      if (keyCount == 0 || RuntimeFilterKeyType.isNull(vector, index)) {
+        return false;
+      }
+      if (hasRange && type.hasRange()) {
+        final long value = type.getLong(vector, index);
+        if (value < min || value > max) {
+          return false;
+        }
+      }
+      return bloom == null || bloom.mightContain(type.hash(vector, index));
+    }
+  }
+}
@@ -18,6 +18,7 @@ package com.dremio.sabot.op.scan;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -39,6 +40,7 @@ import com.dremio.common.expression.SchemaPath;
 import com.dremio.exec.exception.SchemaChangeException;
 import com.dremio.exec.expr.TypeHelper;
 import com.dremio.exec.physical.base.SubScan;
+import com.dremio.exec.proto.ExecProtos.RuntimeFilter;
 import com.dremio.exec.record.BatchSchema;
 import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
 import com.dremio.exec.record.VectorAccessible;
@@ -53,6 +55,7 @@ import com.dremio.sabot.driver.SchemaChangeListener;
 import com.dremio.sabot.exec.context.MetricDef;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.exec.fragment.OutOfBandMessage;
 import com.dremio.sabot.op.spi.ProducerOperator;
 import com.dremio.sabot.op.values.EmptyValuesCreator.EmptyRecordReader;
 import com.google.common.base.Function;
@@ -87,7 +90,16 @@ public class ScanOperator implements ProducerOperator {
     FILTER_MS,
     PARQUET_EXEC_PATH, // type of readers (vectorized, non-vectorized or combination used) in parquet
     FILTER_EXISTS, // Is there a filter pushed into scan?
-    PARQUET_BYTES_READ // Represents total number of actual bytes (uncompressed) read while parquet scan.
+    PARQUET_BYTES_READ, // Represents total number of actual bytes (uncompressed) read while parquet scan.
+    NUM_RUNTIME_FILTERS, // number of runtime filters received from hash joins
+    RUNTIME_FILTER_INPUT_RECORDS, // records read while a runtime filter was applied
+    RUNTIME_FILTER_OUTPUT_RECORDS, // records left after applying runtime filters
+    NUM_ROW_GROUPS_PRUNED, // number of parquet row groups skipped using runtime filters or column statistics
+    NUM_COALESCED_READS, // number of reads of merged parquet column chunk ranges
+    COALESCED_READ_BYTES, // bytes read by the merged column chunk reads
+    NUM_PREFETCH_STALLS, // number of times a parquet reader waited for a column chunk being prefetched
+    PREFETCH_STALL_MS, // time spent waiting for prefetched column chunks
+    NUM_PAGES_PRUNED // number of parquet pages of filtered columns skipped using statistics or dictionaries
     ;
 
     @Override
@@ -112,6 +124,8 @@ public class ScanOperator implements ProducerOperator {
   private final SubScan config;
   private final GlobalDictionaries globalDictionaries;
   private final Stopwatch readTime = Stopwatch.createUnstarted();
+  private final List<RuntimeFilter> runtimeFilters = new ArrayList<>();
+  private RuntimeFilterEvaluator runtimeFilterEvaluator;
 
   public ScanOperator(SchemaChangeListener schemaUpdater, SubScan config, OperatorContext context, Iterator<RecordReader> readers) {
     this(schemaUpdater, config, context, readers, null);
@@ -174,6 +188,9 @@ public class ScanOperator implements ProducerOperator {
   private void setupReader(RecordReader reader) throws Exception {
     try(RollbackCloseable commit = AutoCloseables.rollbackable(reader)){
       BatchSchema initialSchema = outgoing.getSchema();
+      for (RuntimeFilter filter : runtimeFilters) {
+        reader.addRuntimeFilter(filter);
+      }
       setupReaderAsCorrectUser(reader);
       checkAndLearnSchema();
       Preconditions.checkArgument(initialSchema.equals(outgoing.getSchema()), "Schema changed but not detected.");
@@ -241,9 +258,36 @@ public class ScanOperator implements ProducerOperator {
     stats.batchReceived(0, recordCount, VectorUtil.getSize(outgoing));
 
     checkAndLearnSchema();
+    if (runtimeFilterEvaluator != null) {
+      recordCount = runtimeFilterEvaluator.filter(recordCount);
+      stats.setLongStat(Metric.RUNTIME_FILTER_INPUT_RECORDS, runtimeFilterEvaluator.getInputRecords());
+      stats.setLongStat(Metric.RUNTIME_FILTER_OUTPUT_RECORDS, runtimeFilterEvaluator.getOutputRecords());
+    }
     return outgoing.setAllCount(recordCount);
   }
 
+  /**
+   * Receive a runtime filter from a hash join consuming this scan.
+   */
+  @Override
+  public void workOnOOB(OutOfBandMessage message) {
+    if (!RuntimeFilter.class.getName().equals(message.getPayload().getType())) {
+      logger.warn("Unexpected out of band message of type {}, ignoring.", message.getPayload().getType());
+      return;
+    }
+
+    final RuntimeFilter filter = message.getPayload(RuntimeFilter.PARSER);
+    if (runtimeFilterEvaluator == null) {
+      runtimeFilterEvaluator = new RuntimeFilterEvaluator(context.getAllocator(), mutator, outgoing);
+    }
+    runtimeFilterEvaluator.add(filter);
+    runtimeFilters.add(filter);
+    if (state != State.DONE) {
+      currentReader.addRuntimeFilter(filter);
+    }
+    context.getStats().setLongStat(Metric.NUM_RUNTIME_FILTERS, runtimeFilters.size());
+  }
+
   private void checkAndLearnSchema(){
     if (mutator.isSchemaChanged()) {
       outgoing.buildSchema(SelectionVectorMode.NONE);
@@ -353,7 +397,9 @@ public class ScanOperator implements ProducerOperator {
 
   @Override
   public void close() throws Exception {
-    AutoCloseables.close(outgoing, currentReader, globalDictionaries);
+    // readers may have been created ahead of time by the iterator
+    final AutoCloseable pendingReaders = readers instanceof AutoCloseable ? (AutoCloseable) readers : null;
+    AutoCloseables.close(runtimeFilterEvaluator, outgoing, currentReader, pendingReaders, globalDictionaries);
   }
 
 }
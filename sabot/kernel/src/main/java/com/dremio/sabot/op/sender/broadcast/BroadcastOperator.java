@@ -29,6 +29,7 @@ import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 import com.dremio.exec.proto.ExecProtos;
 import com.dremio.exec.proto.ExecProtos.FragmentHandle;
 import com.dremio.exec.proto.ExecRPC.FragmentStreamComplete;
+import com.dremio.exec.record.ExchangeCompression;
 import com.dremio.exec.record.FragmentWritableBatch;
 import com.dremio.exec.record.VectorAccessible;
 import com.dremio.sabot.exec.context.MetricDef;
@@ -61,6 +62,7 @@ public class BroadcastOperator extends BaseSender {
   private final ExecProtos.FragmentHandle handle;
   private final OperatorStats stats;
   private final OperatorContext context;
+  private final ExchangeCompression compression;
 
   private VectorAccessible incoming;
 
@@ -79,6 +81,7 @@ public class BroadcastOperator extends BaseSender {
     this.context = context;
     this.handle = context.getFragmentHandle();
     this.stats = context.getStats();
+    this.compression = ExchangeCompression.create(context.getOptions(), context.getAllocator());
 
     final List<MinorFragmentEndpoint> destinations = config.getDestinations();
     final ArrayListMultimap<NodeEndpoint, Integer> dests = ArrayListMultimap.create();
@@ -172,8 +175,12 @@ public class BroadcastOperator extends BaseSender {
         }
       }).toList();
 
+    // compressed once, the same compressed buffers are sent to all the receivers
+    final List<ArrowBuf> compressedBuffers = compression == null ? null : compression.compress(buffers);
+    final List<ArrowBuf> sentBuffers = compressedBuffers != null ? compressedBuffers : buffers;
+
     if (tunnels.length > 1) {
-      for (ArrowBuf buf : buffers) {
+      for (ArrowBuf buf : sentBuffers) {
         buf.retain(tunnels.length - 1);
       }
     }
@@ -185,6 +192,7 @@ public class BroadcastOperator extends BaseSender {
           handle.getMinorFragmentId(),
           config.getOppositeMajorFragmentId(),
           new ArrowRecordBatch(arrowRecordBatch.getLength(), arrowRecordBatch.getNodes(), buffers, false),
+          compressedBuffers,
           receivingMinorFragments[i]);
       updateStats(batch);
       tunnels[i].sendRecordBatch(batch);
@@ -192,6 +200,13 @@ public class BroadcastOperator extends BaseSender {
         buf.release();
       }
     }
+
+    if (compressedBuffers != null) {
+      // only the compressed buffers were sent
+      for (ArrowBuf buf : buffers) {
+        buf.release();
+      }
+    }
   }
 
   public static class Creator implements TerminalOperator.Creator<BroadcastSender> {
@@ -26,6 +26,7 @@ import org.apache.arrow.vector.VarCharVector;
 import com.dremio.exec.expr.TypeHelper;
 import com.dremio.exec.physical.config.HashPartitionSender;
 import com.dremio.exec.proto.ExecProtos;
+import com.dremio.exec.record.ExchangeCompression;
 import com.dremio.exec.record.FragmentWritableBatch;
 import com.dremio.exec.record.VectorAccessible;
 import com.dremio.exec.record.VectorContainer;
@@ -45,6 +46,7 @@ import com.google.common.collect.Lists;
  */
 public class OutgoingBatch extends VectorContainer {
   private final AccountingExecTunnel tunnel;
+  private final ExchangeCompression compression;
   private final HashPartitionSender config;
   private final OperatorContext context;
   private final int oppositeMinorFragmentId;
@@ -65,7 +67,8 @@ public class OutgoingBatch extends VectorContainer {
   private volatile boolean dropAll;
 
   OutgoingBatch(int batchIdx, int nextBatchIdx, int maxRecords, final VectorAccessible incoming,
-                BufferAllocator allocator, AccountingExecTunnel tunnel, HashPartitionSender config,
+                BufferAllocator allocator, AccountingExecTunnel tunnel, ExchangeCompression compression,
+                HashPartitionSender config,
                 OperatorContext context, int oppositeMinorFragmentId, OperatorStats stats) {
     Preconditions.checkArgument(maxRecords <= Character.MAX_VALUE, "maxRecords cannot exceed " + Character.MAX_VALUE);
     this.batchIdx = batchIdx;
@@ -73,6 +76,7 @@ public class OutgoingBatch extends VectorContainer {
     this.maxRecords = maxRecords;
 
     this.tunnel = tunnel;
+    this.compression = compression;
     this.config = config;
     this.context = context;
     this.oppositeMinorFragmentId = oppositeMinorFragmentId;
@@ -166,6 +170,7 @@ public class OutgoingBatch extends VectorContainer {
       handle.getMinorFragmentId(),
       config.getOppositeMajorFragmentId(),
       this,
+      compression,
       oppositeMinorFragmentId);
 
     updateStats(writableBatch);
@@ -17,11 +17,17 @@ package com.dremio.sabot.op.sort.external;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.arrow.memory.BufferAllocator;
@@ -39,6 +45,8 @@ import com.dremio.common.config.SabotConfig;
 import com.dremio.common.exceptions.UserException;
 import com.dremio.common.logical.data.Order.Ordering;
 import com.dremio.common.utils.protos.QueryIdHelper;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.cache.SpillBufferCodec;
 import com.dremio.exec.cache.VectorAccessibleSerializable;
 import com.dremio.exec.compile.sig.GeneratorMapping;
 import com.dremio.exec.compile.sig.MappingSet;
@@ -67,11 +75,15 @@ import com.google.common.base.Throwables;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 /**
  * Maintains 0..N separate runs of sorted data on disk, each in its own file.
  *
  * Also exposes an ability to live merge and copy the streams back.
+ *
+ * When an executor is available, each run being read prefetches its next batch in the background while the current
+ * one is merged, and consolidation merges disjoint groups of runs concurrently.
  */
 public class DiskRunManager implements AutoCloseable {
 
@@ -91,15 +103,18 @@ public class DiskRunManager implements AutoCloseable {
   private BufferAllocator copierAllocator;
   private final int targetRecordCount; /** number of records for the copy output. */
   private final int targetBatchSizeInBytes; /** estimated size of copy output */
-  private DiskRunMerger diskRunMerger;
+  private final List<DiskRunMerger> diskRunMergers = new ArrayList<>();
   private PriorityQueueCopier copier;
   private VectorContainer tempContainer;
   private MergeState mergeState = MergeState.TRY;
   private final SpillManager spillManager;
-  private boolean compressSpilledBatch;
-  private BufferAllocator compressSpilledBatchAllocator;
+  // codec of the spill format, null if batches are spilled as is
+  private final SpillBufferCodec spillCodec;
   private final ExternalSortTracer tracer;
   private long totalDataSpilled;
+  private final ExecutorService executor;
+  private final boolean prefetch;
+  private final int mergeParallelism;
 
   private enum MergeState {
     TRY, // Try to reserve memory to copy all runs
@@ -118,9 +133,10 @@ public class DiskRunManager implements AutoCloseable {
       BufferAllocator parentAllocator,
       List<Ordering> orderings,
       BatchSchema dataSchema,
-      boolean compressSpilledBatch,
+      SpillBufferCodec spillCodec,
       ExternalSortTracer tracer,
-      SpillService spillService
+      SpillService spillService,
+      ExecutorService executor
       ) throws Exception {
     try (RollbackCloseable rollback = new RollbackCloseable()) {
       this.targetRecordCount = targetRecordCount;
@@ -129,14 +145,12 @@ public class DiskRunManager implements AutoCloseable {
       this.producer = producer;
       this.dataSchema = dataSchema;
       this.parentAllocator = parentAllocator;
-      this.compressSpilledBatch = compressSpilledBatch;
+      this.spillCodec = spillCodec;
       this.tracer = tracer;
       this.totalDataSpilled = 0;
-      if (compressSpilledBatch) {
-        long reserve = VectorAccessibleSerializable.RAW_CHUNK_SIZE_TO_COMPRESS * 2;
-        compressSpilledBatchAllocator = this.parentAllocator.newChildAllocator("spill_with_snappy", reserve, Long.MAX_VALUE);
-        rollback.add(compressSpilledBatchAllocator);
-      }
+      this.executor = executor;
+      this.prefetch = executor != null && optionManager.getOption(ExecConstants.EXTERNAL_SORT_PREFETCH_SPILLED_BATCHES);
+      this.mergeParallelism = executor == null ? 1 : (int) optionManager.getOption(ExecConstants.EXTERNAL_SORT_MERGE_PARALLELISM);
 
       final Configuration conf = FileSystemPlugin.getNewFsConf();
       conf.set(SpillManager.DREMIO_LOCAL_IMPL_STRING, LocalSyncableFileSystem.class.getName());
@@ -171,20 +185,19 @@ public class DiskRunManager implements AutoCloseable {
 
   /**
    * The first time this is called, it will try to reserve enough memory to handle merging and copying of all disk runs.
-   * If it fails to reserve, it will create a DiskRunMerger that will be used to merge some subset of the runs into a single run
-   * Subsequent calls to this method will merge, copy and spill one batch of data.
+   * If it fails to reserve, it will create DiskRunMergers that will be used to merge some subset of the runs, split
+   * into up to mergeParallelism disjoint groups, each merged into a single run.
+   * Subsequent calls to this method will merge, copy and spill one batch of data per DiskRunMerger.
    *
-   * After all of the disk runs in the DiskRunMerger have been merged, the newly created diskrun is added to the list,
-   * and the process repeats
+   * After all of the disk runs in the DiskRunMergers have been merged, the newly created diskruns are added to the
+   * list, and the process repeats
    * @return true if we successfully reserved enough memory to handle all disk runs
    */
   public boolean consolidateAsNecessary() {
     Preconditions.checkState(mergeState != MergeState.COPY, "Can't consolidate after copy has begun");
     if (mergeState == MergeState.MERGE) {
       try {
-        if (diskRunMerger.consolidate()) {
-          diskRunMerger.close();
-          diskRunMerger = null;
+        if (consolidateMergers()) {
           mergeState = MergeState.TRY;
         } else {
           return false;
@@ -210,19 +223,23 @@ public class DiskRunManager implements AutoCloseable {
     while (true) {
       try {
         runList = ImmutableList.copyOf(diskRuns.subList(0, runsToMerge));
-        getCopierAllocator(runList);
+        final List<List<DiskRun>> groups = splitIntoMergeGroups(runList);
+        getCopierAllocator(runList, groups.size());
         try (RollbackCloseable rollback = new RollbackCloseable()) {
-          diskRunMerger = rollback.add(new DiskRunMerger(runList));
-
-          diskRunMerger.init();
+          final List<DiskRunMerger> mergers = new ArrayList<>();
+          for (List<DiskRun> group : groups) {
+            final DiskRunMerger merger = rollback.add(new DiskRunMerger(group));
+            merger.init();
+            mergers.add(merger);
+          }
 
           rollback.commit();
+          diskRunMergers.addAll(mergers);
         }
         return false;
       } catch (OutOfMemoryException e) {
         // reattempt with smaller list
         runsToMerge /= 2;
-        diskRunMerger = null;
         for (DiskRun run : runList) {
           run.resetOpenStatus();
         }
@@ -248,6 +265,87 @@ public class DiskRunManager implements AutoCloseable {
     }
   }
 
+  /**
+   * Split the runs to merge into at most mergeParallelism contiguous groups of at least two runs each.
+   */
+  private List<List<DiskRun>> splitIntoMergeGroups(List<DiskRun> runList) {
+    final int groupCount = Math.max(1, Math.min(mergeParallelism, runList.size() / 2));
+    final List<List<DiskRun>> groups = new ArrayList<>(groupCount);
+    int start = 0;
+    for (int i = 0; i < groupCount; i++) {
+      final int end = start + (runList.size() - start) / (groupCount - i);
+      groups.add(runList.subList(start, end));
+      start = end;
+    }
+    return groups;
+  }
+
+  /**
+   * Merge, copy and spill one batch of data for each pending DiskRunMerger, concurrently if there is more than one.
+   * Mergers that are done are closed and their merged run replaces the runs it consumed.
+   *
+   * @return true if all pending merges are done
+   */
+  private boolean consolidateMergers() throws IOException {
+    mergeWatch.start();
+    try {
+      final boolean[] done = new boolean[diskRunMergers.size()];
+      if (diskRunMergers.size() == 1) {
+        done[0] = diskRunMergers.get(0).consolidate();
+      } else {
+        final List<Future<Boolean>> futures = new ArrayList<>(diskRunMergers.size());
+        for (final DiskRunMerger merger : diskRunMergers) {
+          futures.add(executor.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+              return merger.consolidate();
+            }
+          }));
+        }
+
+        // wait for every merger, even if one failed, so none is still running when we clean up.
+        Throwable failure = null;
+        for (int i = 0; i < futures.size(); i++) {
+          try {
+            done[i] = futures.get(i).get();
+          } catch (ExecutionException e) {
+            failure = failure == null ? e.getCause() : failure;
+          } catch (CancellationException e) {
+            failure = failure == null ? e : failure;
+          } catch (InterruptedException e) {
+            logger.debug("Interrupted while merging spilled runs, cancelling the mergers");
+            for (Future<Boolean> future : futures) {
+              future.cancel(true);
+            }
+            // Preserve evidence that the interruption occurred so that code higher up on the call stack can learn of
+            // the interruption and respond to it if it wants to.
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while merging spilled runs", e);
+          }
+        }
+        if (failure != null) {
+          Throwables.propagateIfPossible(failure, IOException.class);
+          throw new IOException(failure);
+        }
+      }
+
+      final List<DiskRunMerger> pending = new ArrayList<>();
+      for (int i = 0; i < done.length; i++) {
+        final DiskRunMerger merger = diskRunMergers.get(i);
+        if (done[i]) {
+          merger.complete();
+        } else {
+          pending.add(merger);
+        }
+      }
+      diskRunMergers.clear();
+      diskRunMergers.addAll(pending);
+      return diskRunMergers.isEmpty();
+    } finally {
+      mergeWatch.stop();
+    }
+  }
+
   private long getMaxBatchSizeAllRuns(List<DiskRun> diskRuns) {
     long totalMax = 0;
     for(DiskRun run : diskRuns){
@@ -257,15 +355,6 @@ public class DiskRunManager implements AutoCloseable {
     return totalMax;
   }
 
-  private void removeDiskRuns(int toRemove) throws Exception {
-    for (int i = 0; i < toRemove; i++) {
-      DiskRun run = diskRuns.remove(0);
-      if (run != null) {
-        run.close();
-      }
-    }
-  }
-
   /**
    * Return the total amount of data (in bytes) spilled by {@link ExternalSortOperator}
    * @return total size (in bytes) of data spilled
@@ -333,30 +422,43 @@ public class DiskRunManager implements AutoCloseable {
     public void init() throws Exception {
       try (RollbackCloseable rollback = new RollbackCloseable()) {
         container = rollback.add(VectorContainer.create(copierAllocator, dataSchema));
-        copier = rollback.add(createCopier(container, diskRuns));
+        copier = rollback.add(newCopier(container, diskRuns));
         out = rollback.add(spillFile.create());
         rollback.commit();
       }
     }
 
+    /**
+     * Merge, copy and spill one batch. Only touches state owned by this merger, so disjoint mergers can run
+     * concurrently.
+     *
+     * @return true if all the runs have been merged
+     */
     public boolean consolidate() throws IOException {
-      mergeWatch.start();
+      int copied = copier.copy(targetRecordCount);
+      if (copied == 0) {
+        out.close();
+        return true;
+      }
+      recordCount += copied;
+      int batchSize = spillBatch(container, copied, out);
+      container.zeroVectors();
+      maxBatchSize = Math.max(maxBatchSize, batchSize);
+      batchCount++;
+      return false;
+    }
+
+    /**
+     * Replace the merged runs with the newly created run.
+     */
+    public void complete() {
+      close();
+      DiskRunManager.this.diskRuns.add(new DiskRun(spillFile, recordCount, maxBatchSize, batchCount));
       try {
-        int copied = copier.copy(targetRecordCount);
-        if (copied == 0) {
-          out.close();
-          DiskRun diskRun = new DiskRun(spillFile, recordCount, maxBatchSize, batchCount);
-          DiskRunManager.this.diskRuns.add(diskRun);
-          return true;
-        }
-        recordCount += copied;
-        int batchSize = spillBatch(container, copied, out);
-        container.zeroVectors();
-        maxBatchSize = Math.max(maxBatchSize, batchSize);
-        batchCount++;
-        return false;
-      } finally {
-        mergeWatch.stop();
+        DiskRunManager.this.diskRuns.removeAll(this.diskRuns);
+        AutoCloseables.close(this.diskRuns);
+      } catch (Exception e) {
+        Throwables.propagate(e);
       }
     }
 
@@ -364,7 +466,9 @@ public class DiskRunManager implements AutoCloseable {
     public void close() {
       try {
         AutoCloseables.close(copier, out, container);
-        removeDiskRuns(this.diskRuns.size());
+        copier = null;
+        out = null;
+        container = null;
       } catch (Exception e) {
         Throwables.propagate(e);
       }
@@ -480,20 +584,8 @@ public class DiskRunManager implements AutoCloseable {
   private int spillBatch(VectorContainer outgoing, int records, OutputStream out) throws IOException {
     try (WritableBatch batch = WritableBatch.getBatchNoHVWrap(records, outgoing, false)) {
       int batchSize = batch.getLength();
-      VectorAccessibleSerializable outputBatch;
-
-      if (compressSpilledBatch) {
-        /* compression enabled - compress the spill batch.
-         * a valid allocator that will be used to allocate the memory for compressed buffers.
-         * this allocator will _only_ be used to allocate buffer used to store and write the compressed
-         * data.
-         */
-        outputBatch = new VectorAccessibleSerializable(batch, null, compressSpilledBatchAllocator, true);
-      }
-      else {
-        /* no need for an allocator on the spill path if compression is not enabled */
-        outputBatch = new VectorAccessibleSerializable(batch, null);
-      }
+      /* compression (if enabled) works on heap chunks, so no allocator is needed on the spill path */
+      final VectorAccessibleSerializable outputBatch = new VectorAccessibleSerializable(batch, null, spillCodec);
 
       // write length and data to file.
       Stopwatch watch = Stopwatch.createStarted();
@@ -523,21 +615,25 @@ public class DiskRunManager implements AutoCloseable {
   }
 
   private void getCopierAllocator(List<DiskRun> diskRuns) {
+    getCopierAllocator(diskRuns, 1);
+  }
+
+  private void getCopierAllocator(List<DiskRun> diskRuns, int outputCount) {
     if (copierAllocator != null) {
       copierAllocator.close();
       copierAllocator = null;
     }
 
     long totalSizeNeeded = 0;
-    // for now we always read one batch from all disk runs, so we need to make sure we have enough memory reserved
-    // to allocate the largest batch per run
+    // for now we always read one batch from all disk runs (two when prefetching the next one), so we need to make
+    // sure we have enough memory reserved to allocate the largest batch(es) per run
     for(DiskRun run : diskRuns){
       long batchSize = nextPowerOfTwo(run.largestBatch);
-      totalSizeNeeded += batchSize;
+      totalSizeNeeded += batchSize * batchesPerRun();
     }
 
-    // add the required space for the copy output. We use * 3 to manage against a really large vector.
-    totalSizeNeeded += targetBatchSizeInBytes * 3;
+    // add the required space for each copy output. We use * 3 to manage against a really large vector.
+    totalSizeNeeded += targetBatchSizeInBytes * 3L * outputCount;
 
     // because we can't know for sure how much memory will be needed for variable length vectors we don't put a limit
     // on the copy allocator. But this will still be capped by the sort allocator limit.
@@ -560,6 +656,10 @@ public class DiskRunManager implements AutoCloseable {
     tempContainer.transferOut(output);
   }
 
+  private int batchesPerRun() {
+    return prefetch ? 2 : 1;
+  }
+
   private PriorityQueueCopier createCopier(VectorContainer targetContainer, List<DiskRun> diskRuns) throws Exception {
     if (this.copier != null) {
       try {
@@ -569,6 +669,11 @@ public class DiskRunManager implements AutoCloseable {
       }
     }
 
+    this.copier = newCopier(targetContainer, diskRuns);
+    return copier;
+  }
+
+  private PriorityQueueCopier newCopier(VectorContainer targetContainer, List<DiskRun> diskRuns) throws Exception {
     final GeneratorMapping copierMapping = new GeneratorMapping("doSetup", "doCopy", null, null);
     final MappingSet mainMappingSet = new MappingSet( (String) null, null, ClassGenerator.DEFAULT_SCALAR_MAP, ClassGenerator.DEFAULT_SCALAR_MAP);
     final MappingSet copierMappingSet = new MappingSet(copierMapping, copierMapping);
@@ -589,7 +694,6 @@ public class DiskRunManager implements AutoCloseable {
       final PriorityQueueCopier copier = cg.getImplementationClass();
 
       copier.setup(producer.getFunctionContext(), copierAllocator, iterators, incoming, targetContainer);
-      this.copier = copier;
 
       rollback.commit();
 
@@ -600,8 +704,8 @@ public class DiskRunManager implements AutoCloseable {
 
   @Override
   public void close() throws Exception {
-    AutoCloseables.close(Iterables.concat(this.diskRuns, Collections.singleton(diskRunMerger),
-      Collections.singleton(compressSpilledBatchAllocator), Collections.singleton(this.spillManager), Collections.singleton(copierAllocator)));
+    AutoCloseables.close(Iterables.concat(this.diskRuns, this.diskRunMergers,
+      Collections.singleton(this.spillManager), Collections.singleton(copierAllocator)));
   }
 
   private class DiskRun implements AutoCloseable {
@@ -640,7 +744,7 @@ public class DiskRunManager implements AutoCloseable {
      */
     private DiskRunIterator openRun(BufferAllocator copierAllocator, int batchId, ExpandableHyperContainer container) throws IOException{
       Preconditions.checkState(iterator == null);
-      final long memCapacity = nextPowerOfTwo(largestBatch);
+      final long memCapacity = nextPowerOfTwo(largestBatch) * (long) batchesPerRun();
       final BufferAllocator allocator = copierAllocator.newChildAllocator("diskrun", 0, memCapacity);
       iterator = new DiskRunIterator(batchCount, spillFile, container, allocator);
 
@@ -668,6 +772,8 @@ public class DiskRunManager implements AutoCloseable {
     private int recordIndex = -1;
     private int recordIndexMax;
     private final VectorContainer container = new VectorContainer();
+    // next batch being read in the background, if prefetching
+    private Future<VectorContainer> nextBatch;
 
     /*
      * DiskRunIterator opens a spill file and loads batch(es) into memory when reading spill files.
@@ -686,21 +792,83 @@ public class DiskRunManager implements AutoCloseable {
       } catch (Exception e) {
         /* close spill file read stream if failure happened after stream was successfully opened */
         if (inputStream != null) {
+          waitForNextBatch();
           inputStream.close();
         }
         throw e;
       }
     }
 
+    private VectorContainer readBatch() throws IOException {
+      /* uncompress the data when de-serializing the spilled data into ArrowBufs */
+      final VectorAccessibleSerializable serializer = spillCodec != null
+          ? new VectorAccessibleSerializable(allocator, spillCodec)
+          : new VectorAccessibleSerializable(allocator);
+      serializer.readFromStream(inputStream);
+      return serializer.get();
+    }
+
+    /**
+     * Start reading the batch after the current one in the background, so it is ready by the time the merge is done
+     * with the current batch.
+     */
+    private void prefetchNextBatch() {
+      if (!prefetch || batchIndex + 1 >= batchIndexMax) {
+        return;
+      }
+
+      nextBatch = executor.submit(new Callable<VectorContainer>() {
+        @Override
+        public VectorContainer call() throws Exception {
+          return readBatch();
+        }
+      });
+    }
+
+    private VectorContainer getNextBatch() throws IOException {
+      if (nextBatch == null) {
+        return readBatch();
+      }
+
+      final VectorContainer batch;
+      try {
+        batch = nextBatch.get();
+      } catch (InterruptedException e) {
+        // the prefetch is left pending, so closing the run still releases what it reads.
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while reading spilled batch", e);
+      } catch (ExecutionException e) {
+        nextBatch = null;
+        Throwables.propagateIfPossible(e.getCause(), IOException.class);
+        throw new IOException(e.getCause());
+      }
+      nextBatch = null;
+      return batch;
+    }
+
+    /**
+     * Wait for a pending prefetch, if any, and release what it read. This runs when the run is closed, and waits
+     * even if interrupted as the batch being read would be leaked otherwise.
+     */
+    private void waitForNextBatch() {
+      if (nextBatch == null) {
+        return;
+      }
+
+      try {
+        AutoCloseables.close(Uninterruptibles.getUninterruptibly(nextBatch));
+      } catch (Exception e) {
+        logger.debug("Failure while prefetching spilled batch", e);
+      } finally {
+        nextBatch = null;
+      }
+    }
+
     private void loadNextBatch(boolean first) throws IOException{
       Preconditions.checkArgument(batchIndex + 1 < batchIndexMax, "You tried to go beyond end of available batches to read.");
       container.zeroVectors();
 
-      /* uncompress the data when de-serializing the spilled data into ArrowBufs */
-      final VectorAccessibleSerializable serializer = new VectorAccessibleSerializable(allocator, compressSpilledBatch, compressSpilledBatchAllocator);
-      serializer.readFromStream(inputStream);
-
-      final VectorContainer incoming = serializer.get();
+      final VectorContainer incoming = getNextBatch();
       Iterator<VectorWrapper<?>> wrapperIterator = incoming.iterator();
 
       if(first){
@@ -723,10 +891,12 @@ public class DiskRunManager implements AutoCloseable {
       recordIndexMax = incoming.getRecordCount();
       batchIndex++;
       recordIndex = -1;
+      prefetchNextBatch();
     }
 
     @Override
     public void close() throws Exception {
+      waitForNextBatch();
       AutoCloseables.close(container, allocator, inputStream);
     }
 
@@ -15,6 +15,8 @@
  */
 package com.dremio.sabot.op.sort.external;
 
+import java.util.concurrent.ExecutorService;
+
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.OutOfMemoryException;
 import org.apache.calcite.rel.RelFieldCollation.Direction;
@@ -25,6 +27,8 @@ import com.dremio.common.exceptions.UserException;
 import com.dremio.common.expression.LogicalExpression;
 import com.dremio.common.logical.data.Order.Ordering;
 import com.dremio.exec.ExecConstants;
+import com.dremio.exec.cache.SpillBufferCodec;
+import com.dremio.exec.cache.SpillCompression;
 import com.dremio.exec.compile.sig.MappingSet;
 import com.dremio.exec.exception.SchemaChangeException;
 import com.dremio.exec.expr.ClassGenerator;
@@ -93,6 +97,7 @@ public class ExternalSortOperator implements SingleInputOperator {
 
   private int maxBatchesInMemory = 0;
   private int batchsizeMultiplier;
+  private boolean useNormalizedKeys;
 
   private State state = State.NEEDS_SETUP;
 
@@ -121,6 +126,17 @@ public class ExternalSortOperator implements SingleInputOperator {
     COPY_FROM_DISK
   }
 
+  /**
+   * Executor used to prefetch and merge spilled runs in the background, or null if the context doesn't provide one.
+   */
+  private ExecutorService getExecutor() {
+    try {
+      return context.getExecutor();
+    } catch (UnsupportedOperationException e) {
+      return null;
+    }
+  }
+
   @Override
   public State getState(){
     return state;
@@ -140,8 +156,9 @@ public class ExternalSortOperator implements SingleInputOperator {
       this.tracer = new ExternalSortTracer();
       this.output = context.createOutputVectorContainer(incoming.getSchema());
       this.batchsizeMultiplier = (int) context.getOptions().getOption(ExecConstants.EXTERNAL_SORT_BATCHSIZE_MULTIPLIER);
+      this.useNormalizedKeys = context.getOptions().getOption(ExecConstants.EXTERNAL_SORT_NORMALIZED_KEYS);
 
-      this.memoryRun = new MemoryRun(config, producer, context.getAllocator(), incoming.getSchema(), tracer, batchsizeMultiplier);
+      this.memoryRun = new MemoryRun(config, producer, context.getAllocator(), incoming.getSchema(), tracer, batchsizeMultiplier, useNormalizedKeys);
       rollback.add(this.memoryRun);
 
       this.incoming = incoming;
@@ -153,12 +170,14 @@ public class ExternalSortOperator implements SingleInputOperator {
       final int varFieldSizeEstimate = (int) options.getOption(ExecConstants.BATCH_VARIABLE_FIELD_SIZE_ESTIMATE);
       final int estimatedRecordSize = incoming.getSchema().estimateRecordSize(listSizeEstimate, varFieldSizeEstimate);
       final int targetBatchSizeInBytes = targetBatchSize * estimatedRecordSize;
-      final boolean compressSpilledBatch = context.getOptions().getOption(ExecConstants.EXTERNAL_SORT_COMPRESS_SPILL_FILES);
+      final SpillBufferCodec spillCodec = options.getOption(ExecConstants.EXTERNAL_SORT_COMPRESS_SPILL_FILES)
+          ? new SpillBufferCodec(SpillCompression.fromName(options.getOption(ExecConstants.SPILL_COMPRESSION)))
+          : null;
 
       this.diskRuns = new DiskRunManager(context.getConfig(), context.getOptions(), targetBatchSize, targetBatchSizeInBytes,
                                          context.getFragmentHandle(), config.getOperatorId(), context.getClassProducer(), allocator,
-                                         config.getOrderings(), incoming.getSchema(), compressSpilledBatch, tracer,
-                                         context.getSpillService());
+                                         config.getOrderings(), incoming.getSchema(), spillCodec, tracer,
+                                         context.getSpillService(), getExecutor());
       rollback.add(this.diskRuns);
 
       tracer.setTargetBatchSize(targetBatchSize);
@@ -296,7 +315,7 @@ public class ExternalSortOperator implements SingleInputOperator {
 
     try {
       memoryRun.closeToDisk(diskRuns);
-      memoryRun = new MemoryRun(config, producer, allocator, incoming.getSchema(), tracer, batchsizeMultiplier);
+      memoryRun = new MemoryRun(config, producer, allocator, incoming.getSchema(), tracer, batchsizeMultiplier, useNormalizedKeys);
     } catch (Exception e) {
       throw UserException.dataWriteError(e)
         .message("Failure while attempting to spill sort data to disk.")
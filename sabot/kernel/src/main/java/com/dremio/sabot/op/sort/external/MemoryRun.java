@@ -47,7 +47,7 @@ import io.netty.buffer.ArrowBuf;
  * Describes a set of ordered batches of data. Sorts new data as it is inserted
  * using a SplayTree. Sort has two stages:
  *
- * - Sort each batch using an Sv2
+ * - Sort each batch using an Sv2 (on normalized key prefixes of the leading sort key when possible)
  * - Insert each batch into a SplayTree as it arrives
  *
  * Memory Guarantees Targeted: ensures that spilling can be done before
@@ -67,6 +67,7 @@ class MemoryRun implements AutoCloseable {
 
   private ArrowBuf splayTreeBuffer;
   private SingleBatchSorter localSorter;
+  private NormalizedKeyBuilder keyBuilder;
   private SplaySorter treeManager;
   private RecordBatchItem head;
   private RecordBatchItem tail;
@@ -81,6 +82,7 @@ class MemoryRun implements AutoCloseable {
   private long copyTargetSize;
   private final ExternalSortTracer tracer;
   private final int batchsizeMultiplier;
+  private final boolean useNormalizedKeys;
 
   public MemoryRun(
       ExternalSort sortConfig,
@@ -88,7 +90,8 @@ class MemoryRun implements AutoCloseable {
       BufferAllocator allocator,
       Schema schema,
       ExternalSortTracer tracer,
-      int batchsizeMultiplier
+      int batchsizeMultiplier,
+      boolean useNormalizedKeys
       ) {
     this.schema = schema;
     this.sortConfig = sortConfig;
@@ -98,6 +101,7 @@ class MemoryRun implements AutoCloseable {
     splayTreeBuffer.setZero(0, splayTreeBuffer.capacity());
     this.tracer = tracer;
     this.batchsizeMultiplier = batchsizeMultiplier;
+    this.useNormalizedKeys = useNormalizedKeys;
     updateProtectedSize(1 << 16);
   }
 
@@ -251,7 +255,9 @@ class MemoryRun implements AutoCloseable {
 
       // quicksort for cache-local performance benefits (includes resetting vector references)
       localSorter.setup(classProducer.getFunctionContext(), localSortVector, item.data.getContainer());
-      localSorter.sort(localSortVector);
+      if (!sortWithNormalizedKeys(localSortVector, item)) {
+        localSorter.sort(localSortVector);
+      }
 
       // now we need to insert the values into the splay tree.
       treeManager.add(localSortVector, item.data);
@@ -259,9 +265,42 @@ class MemoryRun implements AutoCloseable {
     }
   }
 
+  /**
+   * Sort the batch comparing normalized key prefixes first. Keys are only kept for the duration of the local sort, the
+   * splay tree insertion still uses the generated comparisons.
+   *
+   * @return false if normalized keys are not used for this run or there isn't enough memory to hold them.
+   */
+  private boolean sortWithNormalizedKeys(SelectionVector2 localSortVector, RecordBatchItem item) {
+    if (keyBuilder == null) {
+      return false;
+    }
+
+    final int recordCount = item.getRecordCount();
+    final ArrowBuf keys;
+    try {
+      keys = copyTargetAllocator.buffer(Math.max(1, recordCount) * NormalizedKeyBuilder.KEY_WIDTH);
+    } catch (OutOfMemoryException ex) {
+      logger.debug("Memory Run: unable to allocate normalized keys, falling back to regular sort");
+      return false;
+    }
+
+    try {
+      keyBuilder.build(item.data.getContainer(), localSortVector, recordCount, keys);
+      localSorter.sort(localSortVector, keys);
+    } finally {
+      keys.close();
+    }
+    return true;
+  }
+
   private void compileSortingClasses(VectorAccessible batch)
       throws ClassTransformationException, SchemaChangeException, IOException {
 
+    if (useNormalizedKeys) {
+      this.keyBuilder = NormalizedKeyBuilder.create(classProducer, sortConfig.getOrderings(), batch);
+    }
+
     { // Local (single batch) sorter
       CodeGenerator<SingleBatchSorter> cg = classProducer.createGenerator(SingleBatchSorter.TEMPLATE_DEFINITION);
       ClassGenerator<SingleBatchSorter> g = cg.getRoot();
@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sort.external;
+
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.types.Types.MinorType;
+import org.apache.calcite.rel.RelFieldCollation.Direction;
+
+import com.dremio.common.expression.LogicalExpression;
+import com.dremio.common.logical.data.Order.Ordering;
+import com.dremio.exec.expr.ClassProducer;
+import com.dremio.exec.expr.ValueVectorReadExpression;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.selection.SelectionVector2;
+import com.google.common.collect.Iterables;
+
+import io.netty.buffer.ArrowBuf;
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Builds normalized key prefixes for the leading sort key of a batch.
+ *
+ * A normalized key is an 8 byte value such that comparing the keys of two records as signed longs gives the same
+ * answer as the generated comparator whenever the keys differ. Direction and null ordering are folded into the key,
+ * so a sort only needs to call into the generated comparison when two keys are equal (equal values, or values that
+ * share the same prefix such as strings with a common 8 byte start).
+ *
+ * Only the first ordering is normalized and only when it is a direct read of a fixed width numeric, boolean, temporal
+ * or variable width string/binary column. Otherwise {@link #create} returns null and the regular sort is used.
+ */
+public class NormalizedKeyBuilder {
+
+  public static final int KEY_WIDTH = 8;
+
+  private static final long FLOAT_SIGN_MASK = 0x7FFFFFFFFFFFFFFFL;
+
+  private final int[] fieldIds;
+  private final MinorType type;
+  private final boolean descending;
+  private final long nullKey;
+
+  private NormalizedKeyBuilder(int[] fieldIds, MinorType type, boolean descending, boolean nullsHigh) {
+    this.fieldIds = fieldIds;
+    this.type = type;
+    this.descending = descending;
+    this.nullKey = nullsHigh ? Long.MAX_VALUE : Long.MIN_VALUE;
+  }
+
+  /**
+   * Create a key builder for the leading ordering of the provided batch.
+   *
+   * @return a builder or null if the leading ordering can't be normalized.
+   */
+  public static NormalizedKeyBuilder create(ClassProducer producer, Iterable<Ordering> orderings, VectorAccessible batch) {
+    final Ordering ordering = Iterables.getFirst(orderings, null);
+    if (ordering == null) {
+      return null;
+    }
+
+    final LogicalExpression expr = producer.materialize(ordering.getExpr(), batch);
+    if (!(expr instanceof ValueVectorReadExpression)) {
+      return null;
+    }
+
+    final ValueVectorReadExpression read = (ValueVectorReadExpression) expr;
+    if (read.hasReadPath() || read.getFieldId().isHyperReader()) {
+      return null;
+    }
+
+    final int[] fieldIds = read.getFieldId().getFieldIds();
+    final FieldVector vector = batch.getValueAccessorById(FieldVector.class, fieldIds).getValueVector();
+    final MinorType type = vector.getMinorType();
+    if (!isSupported(type)) {
+      return null;
+    }
+
+    return new NormalizedKeyBuilder(fieldIds, type, ordering.getDirection() == Direction.DESCENDING,
+      ordering.nullsSortHigh());
+  }
+
+  private static boolean isSupported(MinorType type) {
+    switch (type) {
+    case BIT:
+    case TINYINT:
+    case SMALLINT:
+    case INT:
+    case BIGINT:
+    case DATEMILLI:
+    case TIMEMILLI:
+    case TIMESTAMPMILLI:
+    case FLOAT4:
+    case FLOAT8:
+    case VARCHAR:
+    case VARBINARY:
+      return true;
+    default:
+      return false;
+    }
+  }
+
+  /**
+   * Write the normalized key of each record referenced by the sv2 into the keys buffer. The key for sv2 position i is
+   * stored at offset i * KEY_WIDTH.
+   */
+  public void build(VectorAccessible batch, SelectionVector2 sv2, int recordCount, ArrowBuf keys) {
+    build(batch, sv2.getBuffer(false).memoryAddress(), recordCount, keys);
+  }
+
+  /**
+   * Write the normalized key of the first recordCount records of the batch into the keys buffer.
+   */
+  public void build(VectorAccessible batch, int recordCount, ArrowBuf keys) {
+    build(batch, 0, recordCount, keys);
+  }
+
+  private void build(VectorAccessible batch, long sv2Addr, int recordCount, ArrowBuf keys) {
+    final FieldVector vector = batch.getValueAccessorById(FieldVector.class, fieldIds).getValueVector();
+    final long validityAddr = vector.getValidityBufferAddress();
+    final long keysAddr = keys.memoryAddress();
+
+    for (int i = 0; i < recordCount; i++) {
+      final int index = sv2Addr == 0 ? i : Character.toUnsignedInt((char) PlatformDependent.getShort(sv2Addr + i * 2));
+      final boolean isSet = (PlatformDependent.getByte(validityAddr + (index >>> 3)) & (1 << (index & 7))) != 0;
+      long key = isSet ? valueKey(vector, index) : nullKey;
+      if (descending) {
+        key = ~key;
+      }
+      PlatformDependent.putLong(keysAddr + i * KEY_WIDTH, key);
+    }
+  }
+
+  /**
+   * Whether null values sort after every other value.
+   */
+  public boolean nullsLast() {
+    return (descending ? ~nullKey : nullKey) == Long.MAX_VALUE;
+  }
+
+  /**
+   * Whether keys are the values themselves once direction is undone (integer and temporal types).
+   */
+  public boolean isValueKey() {
+    switch (type) {
+    case TINYINT:
+    case SMALLINT:
+    case INT:
+    case BIGINT:
+    case DATEMILLI:
+    case TIMEMILLI:
+    case TIMESTAMPMILLI:
+      return true;
+    default:
+      return false;
+    }
+  }
+
+  public MinorType getType() {
+    return type;
+  }
+
+  /**
+   * Get the value back from a non null key, only valid if {@link #isValueKey()}.
+   */
+  public long toValue(long key) {
+    return descending ? ~key : key;
+  }
+
+  /**
+   * Whether the key is the key of null values. Values may share it, in which case the key is ambiguous.
+   */
+  public boolean isNullKey(long key) {
+    return (descending ? ~key : key) == nullKey;
+  }
+
+  public boolean isDescending() {
+    return descending;
+  }
+
+  private long valueKey(FieldVector vector, int index) {
+    switch (type) {
+    case BIT: {
+      final long dataAddr = vector.getDataBufferAddress();
+      return (PlatformDependent.getByte(dataAddr + (index >>> 3)) >>> (index & 7)) & 1;
+    }
+    case TINYINT:
+      return PlatformDependent.getByte(vector.getDataBufferAddress() + index);
+    case SMALLINT:
+      return PlatformDependent.getShort(vector.getDataBufferAddress() + index * 2);
+    case INT:
+      return PlatformDependent.getInt(vector.getDataBufferAddress() + index * 4);
+    case BIGINT:
+    case DATEMILLI:
+    case TIMESTAMPMILLI:
+      return PlatformDependent.getLong(vector.getDataBufferAddress() + index * 8);
+    case TIMEMILLI:
+      return PlatformDependent.getInt(vector.getDataBufferAddress() + index * 4);
+    case FLOAT4:
+      return doubleKey(Float.intBitsToFloat(PlatformDependent.getInt(vector.getDataBufferAddress() + index * 4)));
+    case FLOAT8:
+      return doubleKey(Double.longBitsToDouble(PlatformDependent.getLong(vector.getDataBufferAddress() + index * 8)));
+    case VARCHAR:
+    case VARBINARY:
+      return bytesKey(vector, index);
+    default:
+      throw new UnsupportedOperationException("Unable to normalize key of type " + type);
+    }
+  }
+
+  /**
+   * Flip the magnitude bits of negative values so that the IEEE 754 bit patterns order as signed longs. NaN is
+   * canonicalized and ends up above positive infinity.
+   */
+  private static long doubleKey(double value) {
+    final long bits = Double.doubleToLongBits(value);
+    return bits ^ ((bits >> 63) & FLOAT_SIGN_MASK);
+  }
+
+  /**
+   * Big endian, zero padded first 8 bytes of the value, shifted to order unsigned bytes as a signed long.
+   */
+  private static long bytesKey(FieldVector vector, int index) {
+    final long offsetAddr = vector.getOffsetBufferAddress();
+    final int start = PlatformDependent.getInt(offsetAddr + index * 4);
+    final int length = PlatformDependent.getInt(offsetAddr + (index + 1) * 4) - start;
+    final long dataAddr = vector.getDataBufferAddress() + start;
+
+    long key = 0;
+    final int prefixLength = Math.min(length, KEY_WIDTH);
+    for (int i = 0; i < prefixLength; i++) {
+      key |= (PlatformDependent.getByte(dataAddr + i) & 0xFFL) << ((KEY_WIDTH - 1 - i) * 8);
+    }
+    return key ^ Long.MIN_VALUE;
+  }
+}
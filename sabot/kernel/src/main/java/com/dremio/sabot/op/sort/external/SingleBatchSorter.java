@@ -21,10 +21,18 @@ import com.dremio.exec.record.VectorAccessible;
 import com.dremio.exec.record.selection.SelectionVector2;
 import com.dremio.sabot.exec.context.FunctionContext;
 
+import io.netty.buffer.ArrowBuf;
+
 public interface SingleBatchSorter {
   public void setup(FunctionContext context, SelectionVector2 vector2, VectorAccessible incoming) throws SchemaChangeException;
   public void sort(SelectionVector2 vector2);
 
+  /**
+   * Sort using precomputed normalized keys (see {@link NormalizedKeyBuilder}), one per sv2 position. The generated
+   * comparison is only used to break ties between equal keys. The keys buffer is reordered along with the sv2.
+   */
+  public void sort(SelectionVector2 vector2, ArrowBuf normalizedKeys);
+
   public static TemplateClassDefinition<SingleBatchSorter> TEMPLATE_DEFINITION = new TemplateClassDefinition<SingleBatchSorter>(SingleBatchSorter.class, SingleBatchSorterTemplate.class);
 
 }
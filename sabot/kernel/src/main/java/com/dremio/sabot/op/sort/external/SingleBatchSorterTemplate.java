@@ -29,10 +29,15 @@ import com.dremio.sabot.exec.context.FunctionContext;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
 
+import io.netty.buffer.ArrowBuf;
+import io.netty.util.internal.PlatformDependent;
+
 public abstract class SingleBatchSorterTemplate implements SingleBatchSorter, IndexedSortable{
   static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(SingleBatchSorterTemplate.class);
 
   private SelectionVector2 vector2;
+  // address of the normalized keys for the current sort, 0 if sorting without normalized keys
+  private long keysAddr;
 
   public void setup(FunctionContext context, SelectionVector2 vector2, VectorAccessible incoming) throws SchemaChangeException{
     Preconditions.checkNotNull(vector2);
@@ -54,15 +59,41 @@ public abstract class SingleBatchSorterTemplate implements SingleBatchSorter, In
     logger.debug("Took {} us to sort {} records", watch.elapsed(TimeUnit.MICROSECONDS), vector2.getCount());
   }
 
+  @Override
+  public void sort(SelectionVector2 vector2, ArrowBuf normalizedKeys) {
+    Preconditions.checkArgument(normalizedKeys.capacity() >= vector2.getCount() * NormalizedKeyBuilder.KEY_WIDTH);
+    keysAddr = normalizedKeys.memoryAddress();
+    try {
+      sort(vector2);
+    } finally {
+      keysAddr = 0;
+    }
+  }
+
   @Override
   public void swap(int sv0, int sv1) {
     char tmp = vector2.getIndex(sv0);
     vector2.setIndex(sv0, vector2.getIndex(sv1));
     vector2.setIndex(sv1, tmp);
+    if (keysAddr != 0) {
+      final long addr0 = keysAddr + sv0 * NormalizedKeyBuilder.KEY_WIDTH;
+      final long addr1 = keysAddr + sv1 * NormalizedKeyBuilder.KEY_WIDTH;
+      final long tmpKey = PlatformDependent.getLong(addr0);
+      PlatformDependent.putLong(addr0, PlatformDependent.getLong(addr1));
+      PlatformDependent.putLong(addr1, tmpKey);
+    }
   }
 
   @Override
   public int compare(int leftIndex, int rightIndex) {
+    if (keysAddr != 0) {
+      final int cmp = Long.compare(
+          PlatformDependent.getLong(keysAddr + leftIndex * NormalizedKeyBuilder.KEY_WIDTH),
+          PlatformDependent.getLong(keysAddr + rightIndex * NormalizedKeyBuilder.KEY_WIDTH));
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
     char sv1 = vector2.getIndex(leftIndex);
     char sv2 = vector2.getIndex(rightIndex);
     return doEval(sv1, sv2);
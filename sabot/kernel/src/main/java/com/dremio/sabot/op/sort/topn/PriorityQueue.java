@@ -24,8 +24,29 @@ import com.dremio.sabot.exec.context.FunctionContext;
 import com.dremio.sabot.op.sort.external.RecordBatchData;
 import com.dremio.sabot.op.sort.external.Sv4HyperContainer;
 
+import io.netty.buffer.ArrowBuf;
+
 public interface PriorityQueue extends AutoCloseable {
   void add(RecordBatchData batch);
+
+  /**
+   * Add a batch along with the normalized keys of its records (see NormalizedKeyBuilder), one per record (or sv2
+   * position). The heap then compares keys first and only calls the generated comparison to break ties. Either all
+   * batches are added with keys or none is.
+   */
+  void add(RecordBatchData batch, ArrowBuf keys);
+
+  /**
+   * Whether the queue holds limit records, in which case an incoming record has to beat the head to get in.
+   */
+  boolean isFull();
+
+  /**
+   * Normalized key of the head of the queue, the record an incoming record has to beat. Only valid if the queue is
+   * full and batches were added with keys.
+   */
+  long getThresholdKey();
+
   void init(Sv4HyperContainer hyperBatch, int limit, FunctionContext context, BufferAllocator allocator, boolean hasSv2, int maxSize);
   void generate();
   Sv4HyperContainer getHyperBatch();
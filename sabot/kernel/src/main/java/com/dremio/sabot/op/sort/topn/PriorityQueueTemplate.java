@@ -29,12 +29,15 @@ import com.dremio.exec.record.VectorContainer;
 import com.dremio.exec.record.selection.SelectionVector2;
 import com.dremio.exec.record.selection.SelectionVector4;
 import com.dremio.sabot.exec.context.FunctionContext;
+import com.dremio.sabot.op.sort.external.NormalizedKeyBuilder;
 import com.dremio.sabot.op.sort.external.RecordBatchData;
 import com.dremio.sabot.op.sort.external.Sv4HyperContainer;
+import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
 import com.google.common.base.Throwables;
 
 import io.netty.buffer.ArrowBuf;
+import io.netty.util.internal.PlatformDependent;
 
 public abstract class PriorityQueueTemplate implements PriorityQueue {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(PriorityQueueTemplate.class);
@@ -49,6 +52,9 @@ public abstract class PriorityQueueTemplate implements PriorityQueue {
   private int batchCount = 0;
   private boolean hasSv2;
   private int maxSize;
+  // normalized keys of the heap entries (with one extra slot for the candidate), or null if not using keys
+  private ArrowBuf heapKeys;
+  private long heapKeysAddr;
 
   @Override
   public void init(Sv4HyperContainer hyperBatch, int limit, FunctionContext context, BufferAllocator allocator,  boolean hasSv2, int maxSize) {
@@ -67,8 +73,8 @@ public abstract class PriorityQueueTemplate implements PriorityQueue {
   public void resetQueue(final VectorContainer newQueue, final SelectionVector4 oldHeap) {
     Schema schema = hyperBatch.getSchema();
 
-    // Cleanup old data.
-    close();
+    // Cleanup old data. Heap keys are kept as the new heap has the same entries at the same positions.
+    closeData();
 
     // generating
     hyperBatch = new Sv4HyperContainer(allocator, schema);
@@ -88,8 +94,22 @@ public abstract class PriorityQueueTemplate implements PriorityQueue {
 
   @Override
   public void add(RecordBatchData batch) throws SchemaChangeException{
+    add(batch, null);
+  }
+
+  @Override
+  public void add(RecordBatchData batch, ArrowBuf keys) throws SchemaChangeException{
     Stopwatch watch = Stopwatch.createStarted();
 
+    long keysAddr = 0;
+    if (keys != null) {
+      if (heapKeys == null) {
+        heapKeys = allocator.buffer(NormalizedKeyBuilder.KEY_WIDTH * (limit + 1));
+        heapKeysAddr = heapKeys.memoryAddress();
+      }
+      keysAddr = keys.memoryAddress();
+    }
+
     hyperBatch.addBatch(batch.getContainer());
 
     doSetup(context, hyperBatch, null);
@@ -101,10 +121,21 @@ public abstract class PriorityQueueTemplate implements PriorityQueue {
     }
     for (; queueSize < limit && count < batch.getRecordCount();  count++) {
       heapSv4.set(queueSize, batchCount, hasSv2 ? sv2.getIndex(count) : count);
+      if (keysAddr != 0) {
+        setKey(queueSize, PlatformDependent.getLong(keysAddr + count * NormalizedKeyBuilder.KEY_WIDTH));
+      }
       queueSize++;
       siftUp();
     }
     for (; count < batch.getRecordCount(); count++) {
+      if (keysAddr != 0) {
+        // reject records that are worse than the head on the leading key without touching the batch
+        final long key = PlatformDependent.getLong(keysAddr + count * NormalizedKeyBuilder.KEY_WIDTH);
+        if (key > getKey(0)) {
+          continue;
+        }
+        setKey(limit, key);
+      }
       heapSv4.set(limit, batchCount, hasSv2 ? sv2.getIndex(count) : count);
       if (compare(limit, 0) < 0) {
         swap(limit, 0);
@@ -145,7 +176,17 @@ public abstract class PriorityQueueTemplate implements PriorityQueue {
   }
 
   @Override
-  public void close() {
+  public boolean isFull() {
+    return queueSize == limit;
+  }
+
+  @Override
+  public long getThresholdKey() {
+    Preconditions.checkState(heapKeys != null && isFull(), "Threshold is only available on a full queue with keys.");
+    return getKey(0);
+  }
+
+  private void closeData() {
     try{
       AutoCloseables.close(heapSv4, hyperBatch, finalSv4);
     }catch(Exception ex){
@@ -153,6 +194,25 @@ public abstract class PriorityQueueTemplate implements PriorityQueue {
     }
   }
 
+  @Override
+  public void close() {
+    try{
+      AutoCloseables.close(heapSv4, hyperBatch, finalSv4, heapKeys);
+      heapKeys = null;
+      heapKeysAddr = 0;
+    }catch(Exception ex){
+      throw Throwables.propagate(ex);
+    }
+  }
+
+  private long getKey(int index) {
+    return PlatformDependent.getLong(heapKeysAddr + index * NormalizedKeyBuilder.KEY_WIDTH);
+  }
+
+  private void setKey(int index, long key) {
+    PlatformDependent.putLong(heapKeysAddr + index * NormalizedKeyBuilder.KEY_WIDTH, key);
+  }
+
   private void siftUp() {
     int p = queueSize - 1;
     while (p > 0) {
@@ -199,9 +259,20 @@ public abstract class PriorityQueueTemplate implements PriorityQueue {
     int tmp = heapSv4.get(sv0);
     heapSv4.set(sv0, heapSv4.get(sv1));
     heapSv4.set(sv1, tmp);
+    if (heapKeys != null) {
+      final long tmpKey = getKey(sv0);
+      setKey(sv0, getKey(sv1));
+      setKey(sv1, tmpKey);
+    }
   }
 
   public int compare(int leftIndex, int rightIndex) {
+    if (heapKeys != null) {
+      final int cmp = Long.compare(getKey(leftIndex), getKey(rightIndex));
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
     int sv1 = heapSv4.get(leftIndex);
     int sv2 = heapSv4.get(rightIndex);
     return doEval(sv1, sv2);
@@ -16,10 +16,12 @@
 package com.dremio.sabot.op.sort.topn;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.types.Types.MinorType;
 import org.apache.calcite.rel.RelFieldCollation.Direction;
 
 import com.dremio.common.AutoCloseables;
@@ -37,17 +39,27 @@ import com.dremio.exec.expr.ClassProducer;
 import com.dremio.exec.expr.CodeGenerator;
 import com.dremio.exec.expr.TypeHelper;
 import com.dremio.exec.expr.fn.FunctionGenerationHelper;
+import com.dremio.exec.physical.config.RuntimeFilterTarget;
 import com.dremio.exec.physical.config.TopN;
+import com.dremio.exec.proto.CoordExecRPC.FragmentAssignment;
+import com.dremio.exec.proto.ExecProtos.FragmentHandle;
+import com.dremio.exec.proto.ExecProtos.RuntimeFilter;
+import com.dremio.exec.proto.ExecProtos.RuntimeFilterColumn;
 import com.dremio.exec.record.BatchSchema;
 import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
 import com.dremio.exec.record.VectorAccessible;
 import com.dremio.exec.record.VectorContainer;
 import com.dremio.exec.record.VectorWrapper;
+import com.dremio.exec.record.selection.SelectionVector2;
 import com.dremio.exec.record.selection.SelectionVector4;
+import com.dremio.sabot.exec.context.MetricDef;
 import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.exec.fragment.OutOfBandMessage;
+import com.dremio.sabot.exec.fragment.OutOfBandMessage.Payload;
 import com.dremio.sabot.op.copier.Copier;
 import com.dremio.sabot.op.copier.CopierOperator;
 import com.dremio.sabot.op.sort.SortRecordBatchBuilder;
+import com.dremio.sabot.op.sort.external.NormalizedKeyBuilder;
 import com.dremio.sabot.op.sort.external.RecordBatchData;
 import com.dremio.sabot.op.sort.external.Sv4HyperContainer;
 import com.dremio.sabot.op.spi.SingleInputOperator;
@@ -55,9 +67,26 @@ import com.google.common.base.Stopwatch;
 import com.sun.codemodel.JConditional;
 import com.sun.codemodel.JExpr;
 
+import io.netty.buffer.ArrowBuf;
+import io.netty.util.internal.PlatformDependent;
+
 public class TopNOperator implements SingleInputOperator {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(TopNOperator.class);
 
+  // maximum number of runtime filters sent to the input scan, each one tighter than the previous one.
+  private static final int MAX_RUNTIME_FILTERS = 8;
+
+  public enum Metric implements MetricDef {
+    BATCHES_REJECTED,     // number of incoming batches skipped as none of their records could make it into the top n
+    RECORDS_REJECTED,     // number of incoming records rejected on their normalized key before reaching the queue
+    RUNTIME_FILTERS_SENT; // number of runtime filters sent to the input scan
+
+    @Override
+    public int metricId() {
+      return ordinal();
+    }
+  }
+
   private final int batchPurgeThreshold;
   private final TopN config;
   private final OperatorContext context;
@@ -78,6 +107,19 @@ public class TopNOperator implements SingleInputOperator {
   private PriorityQueue priorityQueue;
   private Copier copier;
 
+  // normalized keys of the incoming batch, used to reject records early. null if early rejection is disabled.
+  private NormalizedKeyBuilder keyBuilder;
+  private ArrowBuf keys;
+  private long batchesRejected;
+  private long recordsRejected;
+
+  // runtime filter on the threshold, sent to the input scan after a doubling number of batches.
+  private boolean sendRuntimeFilter;
+  private long batchesSinceRuntimeFilter;
+  private long batchesBeforeRuntimeFilter = 1;
+  private long lastRuntimeFilterValue;
+  private int runtimeFiltersSent;
+
   public TopNOperator(OperatorContext context, TopN popConfig) {
     this.config = popConfig;
     this.context = context;
@@ -101,6 +143,18 @@ public class TopNOperator implements SingleInputOperator {
 
     priorityQueue = createNewPriorityQueue(context.getClassProducer(), config.getOrderings());
     copier = CopierOperator.getGenerated4Copier(context.getClassProducer(), priorityQueue.getHyperBatch(), outgoing);
+
+    if (config.getLimit() > 0 && context.getOptions().getOption(ExecConstants.TOPN_EARLY_REJECTION)) {
+      keyBuilder = NormalizedKeyBuilder.create(context.getClassProducer(), config.getOrderings(), incoming);
+      if (keyBuilder != null) {
+        keys = context.getAllocator().buffer(NormalizedKeyBuilder.KEY_WIDTH * context.getTargetBatchSize());
+        // the scan drops null keys and only filters on integer values, so only send the threshold when nulls
+        // can't make it into the top n and the key is the value itself.
+        sendRuntimeFilter = config.getRuntimeFilter() != null && keyBuilder.nullsLast() && keyBuilder.isValueKey()
+            && keyBuilder.getType() != MinorType.TINYINT && keyBuilder.getType() != MinorType.SMALLINT;
+      }
+    }
+
     state = State.CAN_CONSUME;
     return outgoing;
   }
@@ -108,11 +162,17 @@ public class TopNOperator implements SingleInputOperator {
   @Override
   public void consumeData(int records) throws Exception {
 
+    if (keyBuilder != null) {
+      if (!addWithKeys(records)) {
+        return;
+      }
+    } else {
+      priorityQueue.add(new RecordBatchData(incoming, context.getAllocator()));
+    }
+
     countSincePurge += incoming.getRecordCount();
     batchCount++;
 
-    priorityQueue.add(new RecordBatchData(incoming, context.getAllocator()));
-
     if (countSincePurge > config.getLimit() && batchCount > batchPurgeThreshold) {
       purge();
       countSincePurge = 0;
@@ -121,6 +181,113 @@ public class TopNOperator implements SingleInputOperator {
 
   }
 
+  /**
+   * Build the normalized keys of the incoming records and add the batch to the queue, unless the queue is already
+   * full and no record has a key at least as good as the current threshold.
+   *
+   * @return true if the batch was added to the queue.
+   */
+  private boolean addWithKeys(int records) throws Exception {
+    final SelectionVector2 sv2 = incoming.getSchema().getSelectionVectorMode() == SelectionVectorMode.TWO_BYTE
+        ? incoming.getSelectionVector2() : null;
+    final int count = sv2 != null ? sv2.getCount() : records;
+    if (keys.capacity() < count * NormalizedKeyBuilder.KEY_WIDTH) {
+      keys.close();
+      keys = null;
+      keys = context.getAllocator().buffer(count * NormalizedKeyBuilder.KEY_WIDTH);
+    }
+    if (sv2 != null) {
+      keyBuilder.build(incoming, sv2, count, keys);
+    } else {
+      keyBuilder.build(incoming, count, keys);
+    }
+
+    if (priorityQueue.isFull()) {
+      final long threshold = priorityQueue.getThresholdKey();
+      final long keysAddr = keys.memoryAddress();
+      int candidates = 0;
+      for (int i = 0; i < count; i++) {
+        if (PlatformDependent.getLong(keysAddr + i * NormalizedKeyBuilder.KEY_WIDTH) <= threshold) {
+          candidates++;
+        }
+      }
+      recordsRejected += count - candidates;
+      if (candidates == 0) {
+        batchesRejected++;
+        updateRejectionStats();
+        return false;
+      }
+    }
+
+    priorityQueue.add(new RecordBatchData(incoming, context.getAllocator()), keys);
+    updateRejectionStats();
+
+    if (sendRuntimeFilter && priorityQueue.isFull() && ++batchesSinceRuntimeFilter >= batchesBeforeRuntimeFilter) {
+      batchesSinceRuntimeFilter = 0;
+      batchesBeforeRuntimeFilter *= 2;
+      sendRuntimeFilter(priorityQueue.getThresholdKey());
+    }
+    return true;
+  }
+
+  private void updateRejectionStats() {
+    context.getStats().setLongStat(Metric.BATCHES_REJECTED, batchesRejected);
+    context.getStats().setLongStat(Metric.RECORDS_REJECTED, recordsRejected);
+  }
+
+  /**
+   * Send the current threshold on the leading key to the input scan, so it can drop the records (and row groups) that
+   * can't make it into the top n. The bounds are inclusive as records equal to the threshold may still win on the
+   * other orderings. The scan runs in the same fragment, so the message only goes to this minor fragment. Failing to
+   * send only loses the optimization.
+   */
+  private void sendRuntimeFilter(long thresholdKey) {
+    // the null key can't be told apart from the matching value, and the filter would drop nulls.
+    if (keyBuilder.isNullKey(thresholdKey)) {
+      return;
+    }
+    final long value = keyBuilder.toValue(thresholdKey);
+    if (runtimeFiltersSent > 0 && value == lastRuntimeFilterValue) {
+      return;
+    }
+
+    final RuntimeFilterTarget target = config.getRuntimeFilter();
+    final RuntimeFilterColumn.Builder column = RuntimeFilterColumn.newBuilder()
+        .setName(target.getProbeScanFields().get(0))
+        .setKeyCount(config.getLimit());
+    if (keyBuilder.isDescending()) {
+      column.setMin(value).setMax(Long.MAX_VALUE);
+    } else {
+      column.setMin(Long.MIN_VALUE).setMax(value);
+    }
+
+    try {
+      final FragmentHandle handle = context.getFragmentHandle();
+      final Payload payload = new Payload(RuntimeFilter.newBuilder().addColumn(column).build());
+      for (FragmentAssignment a : context.getAssignments()) {
+        if (!a.getMinorFragmentIdList().contains(handle.getMinorFragmentId())) {
+          continue;
+        }
+        final OutOfBandMessage message = new OutOfBandMessage(
+            handle.getQueryId(),
+            handle.getMajorFragmentId(),
+            Collections.singletonList(handle.getMinorFragmentId()),
+            target.getProbeScanOperatorId(),
+            handle.getMinorFragmentId(),
+            payload);
+        context.getTunnelProvider().getExecTunnel(a.getAssignment()).sendOOBMessage(message);
+        runtimeFiltersSent++;
+        lastRuntimeFilterValue = value;
+      }
+    } catch (Exception ex) {
+      logger.warn("Failure while sending runtime filter to the input scan.", ex);
+    }
+    if (runtimeFiltersSent >= MAX_RUNTIME_FILTERS) {
+      sendRuntimeFilter = false;
+    }
+    context.getStats().setLongStat(Metric.RUNTIME_FILTERS_SENT, runtimeFiltersSent);
+  }
+
   @Override
   public void noMoreToConsume() throws Exception {
     state.is(State.CAN_CONSUME);
@@ -257,7 +424,7 @@ public class TopNOperator implements SingleInputOperator {
 
   @Override
   public void close() throws Exception {
-    AutoCloseables.close(outgoing, finalOrder, priorityQueue, copier);
+    AutoCloseables.close(outgoing, finalOrder, priorityQueue, copier, keys);
   }
 
   public static class TopNCreator implements SingleInputOperator.Creator<TopN>{
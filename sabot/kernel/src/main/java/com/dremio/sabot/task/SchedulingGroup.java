@@ -24,4 +24,22 @@ public interface SchedulingGroup<T extends Task> {
   SchedulingGroup<T> addGroup(long weight);
 
   TaskHandle<T> addTask(T t, long weight);
+
+  long getWeight();
+
+  /**
+   * @return cpu time consumed by the tasks of this group and of its subgroups, in nanoseconds. 0 if the task pool
+   * doesn't track it.
+   */
+  default long getCpuTime() {
+    return 0;
+  }
+
+  /**
+   * @return number of running tasks (including blocked ones) in this group and its subgroups. 0 if the task pool
+   * doesn't track it.
+   */
+  default int getNumTasks() {
+    return 0;
+  }
 }
@@ -65,15 +65,27 @@ public class DedicatedTaskPool implements TaskPool {
   /**
    * Dummy implementation of {@link GroupManager}
    */
-  public static final GroupManager<AsyncTaskWrapper> DUMMY_GROUP_MANAGER = weight -> new DummySchedulingGroup();
+  public static final GroupManager<AsyncTaskWrapper> DUMMY_GROUP_MANAGER = DummySchedulingGroup::new;
 
   /**
-   * Dummy implementation of {@link SchedulingGroup} that throws {@link IllegalStateException}
+   * Dummy implementation of {@link SchedulingGroup}: subgroups are only tracked for their weight, and adding a task
+   * throws {@link IllegalStateException}
    */
   private static class DummySchedulingGroup implements SchedulingGroup<AsyncTaskWrapper> {
+    private final long weight;
+
+    DummySchedulingGroup(long weight) {
+      this.weight = weight;
+    }
+
     @Override
     public SchedulingGroup<AsyncTaskWrapper> addGroup(long weight) {
-      throw new IllegalStateException("Shouldn't be called with DedicatedTaskPool");
+      return new DummySchedulingGroup(weight);
+    }
+
+    @Override
+    public long getWeight() {
+      return weight;
     }
 
     @Override
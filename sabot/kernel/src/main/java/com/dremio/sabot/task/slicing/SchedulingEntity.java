@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import com.dremio.sabot.task.TaskManager;
+
+/**
+ * A node of the scheduling tree: either a {@link SlicingGroup} or a task (see {@link SlicingTaskHandle}).<br>
+ * <br>
+ * Each entity accumulates a virtual runtime: the cpu time consumed by the entity (and its descendants), scaled by
+ * the inverse of its weight. Among the children of a group, the one with the smallest vruntime is the one that got
+ * the smallest share of its entitlement and should run next.
+ */
+abstract class SchedulingEntity {
+
+  private final SlicingGroup parent;
+  private final int depth;
+  private final long weight;
+
+  private volatile long vruntime;
+  private volatile long cpuTime;
+
+  SchedulingEntity(SlicingGroup parent, long weight) {
+    this.parent = parent;
+    this.depth = parent == null ? 0 : parent.getDepth() + 1;
+    this.weight = Math.max(1, Math.min(weight, TaskManager.MAX_WEIGHT));
+    this.vruntime = parent == null ? 0 : parent.getMinVruntime();
+  }
+
+  SlicingGroup getParent() {
+    return parent;
+  }
+
+  int getDepth() {
+    return depth;
+  }
+
+  public long getWeight() {
+    return weight;
+  }
+
+  /**
+   * @return cpu time consumed by the entity (and its descendants), in nanoseconds
+   */
+  public long getCpuTime() {
+    return cpuTime;
+  }
+
+  long getVruntime() {
+    return vruntime;
+  }
+
+  /**
+   * Charge the entity and all its ancestors for the cpu time it consumed
+   *
+   * @param nanos cpu time consumed, in nanoseconds
+   */
+  void charge(long nanos) {
+    for (SchedulingEntity entity = this; entity.parent != null; entity = entity.parent) {
+      entity.parent.advanceMinVruntime(entity.addVruntime(nanos));
+    }
+  }
+
+  /**
+   * Called when the entity becomes runnable again: don't let an entity that stayed idle for a long time use its
+   * accumulated credit to monopolize the threads.
+   */
+  void place() {
+    for (SchedulingEntity entity = this; entity.parent != null; entity = entity.parent) {
+      entity.catchUp(entity.parent.getMinVruntime());
+    }
+  }
+
+  private synchronized long addVruntime(long nanos) {
+    final long previous = vruntime;
+    vruntime = previous + nanos * TaskManager.MAX_WEIGHT / weight;
+    cpuTime += nanos;
+    return previous;
+  }
+
+  private synchronized void catchUp(long minVruntime) {
+    if (vruntime - minVruntime < 0) {
+      vruntime = minVruntime;
+    }
+  }
+
+  /**
+   * Compare two tasks according to the hierarchical fair share: the tasks are compared through their ancestors that
+   * are siblings, so a task from a group that consumed less than its share runs first whatever the number of tasks in
+   * each group.
+   *
+   * @return a negative value if a should run before b
+   */
+  static int compare(SchedulingEntity a, SchedulingEntity b) {
+    while (a.depth > b.depth) {
+      a = a.parent;
+    }
+    while (b.depth > a.depth) {
+      b = b.parent;
+    }
+    while (a.parent != b.parent) {
+      a = a.parent;
+      b = b.parent;
+    }
+    // vruntimes may eventually wrap around, compare their difference instead of their values
+    return Long.signum(a.vruntime - b.vruntime);
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.SchedulingGroup;
+import com.dremio.sabot.task.TaskManager.TaskHandle;
+
+/**
+ * {@link SchedulingGroup} of the {@link SlicingTaskPool}. The cpu time of the pool is shared between the children of
+ * a group in proportion of their weights.
+ */
+class SlicingGroup extends SchedulingEntity implements SchedulingGroup<AsyncTaskWrapper> {
+
+  private final SlicingTaskPool pool;
+
+  /**
+   * vruntime of the child that last ran. Children run in vruntime order, so this is close to the minimum vruntime of
+   * the active children and is used to place new and waking children.
+   */
+  private volatile long minVruntime;
+
+  // running tasks of the group and its subgroups
+  private final AtomicInteger numTasks = new AtomicInteger();
+
+  SlicingGroup(SlicingTaskPool pool, SlicingGroup parent, long weight) {
+    super(parent, weight);
+    this.pool = pool;
+  }
+
+  long getMinVruntime() {
+    return minVruntime;
+  }
+
+  synchronized void advanceMinVruntime(long vruntime) {
+    if (vruntime - minVruntime > 0) {
+      minVruntime = vruntime;
+    }
+  }
+
+  @Override
+  public int getNumTasks() {
+    return numTasks.get();
+  }
+
+  /**
+   * Update the number of running tasks of the group and its ancestors
+   */
+  void updateNumTasks(int delta) {
+    for (SlicingGroup group = this; group != null; group = group.getParent()) {
+      group.numTasks.addAndGet(delta);
+    }
+  }
+
+  @Override
+  public SchedulingGroup<AsyncTaskWrapper> addGroup(long weight) {
+    return new SlicingGroup(pool, this, weight);
+  }
+
+  @Override
+  public TaskHandle<AsyncTaskWrapper> addTask(AsyncTaskWrapper task, long weight) {
+    final SlicingTaskHandle handle = new SlicingTaskHandle(pool, this, task, weight);
+    task.setTaskHandle(handle);
+    updateNumTasks(1);
+    pool.addTask(handle);
+    return handle;
+  }
+}
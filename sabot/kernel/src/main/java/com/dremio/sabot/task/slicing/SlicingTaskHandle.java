@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.TaskManager.TaskHandle;
+
+/**
+ * Handle of a task run by the {@link SlicingTaskPool}. The task is owned by one slicing thread at a time: it is
+ * queued on that thread while runnable, and goes back to its queue when it is unblocked.
+ */
+class SlicingTaskHandle extends SchedulingEntity implements TaskHandle<AsyncTaskWrapper> {
+
+  private final SlicingTaskPool pool;
+  private final AsyncTaskWrapper task;
+
+  private volatile SlicingThread thread;
+
+  SlicingTaskHandle(SlicingTaskPool pool, SlicingGroup group, AsyncTaskWrapper task, long weight) {
+    super(group, weight);
+    this.pool = pool;
+    this.task = task;
+  }
+
+  @Override
+  public AsyncTaskWrapper getTask() {
+    return task;
+  }
+
+  @Override
+  public void reEnqueue() {
+    place();
+    pool.reEnqueue(this);
+  }
+
+  @Override
+  public int getThread() {
+    final SlicingThread current = thread;
+    return current != null ? current.getSlicingThreadId() : -1;
+  }
+
+  SlicingThread getSlicingThread() {
+    return thread;
+  }
+
+  void setSlicingThread(SlicingThread thread) {
+    this.thread = thread;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s on slicing thread %d", task.getState(), getThread());
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.dremio.config.DremioConfig;
+import com.dremio.exec.ExecConstants;
+import com.dremio.options.OptionManager;
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.GroupManager;
+import com.dremio.sabot.task.SchedulingGroup;
+import com.dremio.sabot.task.TaskManager;
+import com.dremio.sabot.task.TaskPool;
+import com.dremio.sabot.task.TaskPoolFactory;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A task pool that runs all the tasks on a fixed number of slicing threads (one per core by default).<br>
+ * <br>
+ * Tasks are run for a bounded quantum, then the thread picks the task with the smallest vruntime in its run queue,
+ * so the cpu time is shared between the scheduling groups according to their weights. Blocked tasks don't hold a
+ * thread, and idle threads steal runnable tasks from the busiest threads.<br>
+ * <br>
+ * Enabled by setting {@code dremio.task.pool.factory.class} to {@code com.dremio.sabot.task.slicing.SlicingTaskPool$Factory}.
+ */
+public class SlicingTaskPool implements TaskPool, GroupManager<AsyncTaskWrapper> {
+
+  /**
+   * Factory for {@code SlicingTaskPool}
+   */
+  public static final class Factory implements TaskPoolFactory {
+    @Override
+    public TaskPool newInstance(OptionManager options, DremioConfig config) {
+      final long numThreads = options.getOption(ExecConstants.SLICING_THREAD_COUNT);
+      return new SlicingTaskPool(
+        numThreads > 0 ? (int) numThreads : Runtime.getRuntime().availableProcessors(),
+        () -> TimeUnit.MILLISECONDS.toNanos(options.getOption(ExecConstants.SLICING_QUANTUM_MS)));
+    }
+  }
+
+  // all the tasks of a group have the same share of the group
+  private static final long TASK_WEIGHT = TaskManager.MAX_WEIGHT;
+
+  private final SlicingGroup root = new SlicingGroup(this, null, TaskManager.MAX_WEIGHT);
+  private final List<SlicingThread> threads;
+  private final LongSupplier quantumNanos;
+
+  private volatile boolean closed;
+
+  SlicingTaskPool(int numThreads, LongSupplier quantumNanos) {
+    Preconditions.checkArgument(numThreads > 0, "At least one slicing thread required");
+    this.quantumNanos = quantumNanos;
+
+    final ImmutableList.Builder<SlicingThread> builder = ImmutableList.builder();
+    for (int i = 0; i < numThreads; i++) {
+      builder.add(new SlicingThread(this, i));
+    }
+    threads = builder.build();
+    for (SlicingThread thread : threads) {
+      thread.start();
+    }
+  }
+
+  @Override
+  public void execute(AsyncTaskWrapper task) {
+    final SchedulingGroup<AsyncTaskWrapper> group = task.getSchedulingGroup();
+    Preconditions.checkArgument(group instanceof SlicingGroup, "Task scheduling group wasn't created by this pool");
+    group.addTask(task, TASK_WEIGHT);
+  }
+
+  @Override
+  public SchedulingGroup<AsyncTaskWrapper> newGroup(long weight) {
+    return root.addGroup(weight);
+  }
+
+  @Override
+  public GroupManager<AsyncTaskWrapper> getGroupManager() {
+    return this;
+  }
+
+  @Override
+  public Iterable<ThreadInfo> getSlicingThreads() {
+    final ImmutableList.Builder<ThreadInfo> infos = ImmutableList.builder();
+    for (SlicingThread thread : threads) {
+      infos.add(thread.getThreadInfo());
+    }
+    return infos.build();
+  }
+
+  boolean isClosed() {
+    return closed;
+  }
+
+  long getQuantumNanos() {
+    return quantumNanos.getAsLong();
+  }
+
+  /**
+   * Assign a new task to the thread with the fewest tasks
+   */
+  void addTask(SlicingTaskHandle handle) {
+    SlicingThread target = threads.get(0);
+    for (SlicingThread thread : threads) {
+      if (thread.getNumTasks() < target.getNumTasks()) {
+        target = thread;
+      }
+    }
+    if (!target.assign(handle)) {
+      wakeUpIdleThread(target);
+    }
+  }
+
+  /**
+   * Put an unblocked task back in the run queue of its thread. If that thread is busy, wake up an idle thread so
+   * it can steal the task.
+   */
+  void reEnqueue(SlicingTaskHandle handle) {
+    final SlicingThread owner = handle.getSlicingThread();
+    if (!owner.enqueue(handle)) {
+      wakeUpIdleThread(owner);
+    }
+  }
+
+  private void wakeUpIdleThread(SlicingThread busy) {
+    for (SlicingThread thread : threads) {
+      if (thread != busy && thread.wakeUpIfIdle()) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Steal a runnable task from the thread with the most queued tasks
+   *
+   * @return the stolen task, or null if no thread has queued tasks
+   */
+  SlicingTaskHandle steal(SlicingThread thief) {
+    SlicingThread victim = null;
+    int maxStaged = 0;
+    for (SlicingThread thread : threads) {
+      if (thread == thief) {
+        continue;
+      }
+      final int staged = thread.getNumStaged();
+      if (staged > maxStaged) {
+        victim = thread;
+        maxStaged = staged;
+      }
+    }
+    return victim != null ? victim.steal(thief) : null;
+  }
+
+  @Override
+  public void close() throws Exception {
+    closed = true;
+    for (SlicingThread thread : threads) {
+      thread.interrupt();
+    }
+  }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.BlockRun;
+import com.dremio.sabot.task.Task.State;
+import com.dremio.sabot.task.TaskPool.ThreadInfo;
+
+/**
+ * Executing thread of the {@link SlicingTaskPool}.<br>
+ * <br>
+ * Each thread has its own run queue, and repeatedly runs the queued task with the smallest vruntime for a bounded
+ * quantum. Blocked tasks are parked until their availability callback puts them back in the queue, and the thread
+ * steals runnable tasks from the other threads when its own queue is empty.
+ */
+class SlicingThread extends Thread {
+
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(SlicingThread.class);
+
+  // idle threads periodically look for work to steal, in case they missed a wake up
+  private static final long IDLE_WAIT_MS = 100;
+
+  private final SlicingTaskPool pool;
+  private final int slicingThreadId;
+
+  // runnable tasks, guarded by this
+  private final List<SlicingTaskHandle> runQueue = new ArrayList<>();
+  private boolean idle;
+
+  // tasks assigned to this thread, whether runnable, running or blocked
+  private final AtomicInteger numTasks = new AtomicInteger();
+  private final AtomicInteger numWorkRequests = new AtomicInteger();
+
+  SlicingThread(SlicingTaskPool pool, int slicingThreadId) {
+    super("slicing-thread-" + slicingThreadId);
+    setDaemon(true);
+    this.pool = pool;
+    this.slicingThreadId = slicingThreadId;
+  }
+
+  int getSlicingThreadId() {
+    return slicingThreadId;
+  }
+
+  int getNumTasks() {
+    return numTasks.get();
+  }
+
+  synchronized int getNumStaged() {
+    return runQueue.size();
+  }
+
+  ThreadInfo getThreadInfo() {
+    // Java doesn't expose the os thread id or the cpu a thread runs on
+    return new ThreadInfo(getName(), slicingThreadId, -1, -1, getNumTasks(), getNumStaged(), numWorkRequests.get());
+  }
+
+  /**
+   * Assign a new task to this thread
+   *
+   * @return true if the thread was idle and has been woken up
+   */
+  boolean assign(SlicingTaskHandle handle) {
+    numTasks.incrementAndGet();
+    handle.setSlicingThread(this);
+    return enqueue(handle);
+  }
+
+  /**
+   * Add a runnable task to the run queue
+   *
+   * @return true if the thread was idle and has been woken up
+   */
+  synchronized boolean enqueue(SlicingTaskHandle handle) {
+    runQueue.add(handle);
+    if (idle) {
+      idle = false;
+      notify();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Wake the thread up if it is idle, so it can try to steal work
+   *
+   * @return true if the thread was idle
+   */
+  synchronized boolean wakeUpIfIdle() {
+    if (idle) {
+      idle = false;
+      notify();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Remove the best task of the run queue and move it to the thief thread.
+   *
+   * @return the stolen task, or null if the run queue is empty
+   */
+  SlicingTaskHandle steal(SlicingThread thief) {
+    final SlicingTaskHandle handle;
+    synchronized (this) {
+      handle = poll();
+      if (handle == null) {
+        return null;
+      }
+      handle.setSlicingThread(thief);
+    }
+    numTasks.decrementAndGet();
+    thief.numTasks.incrementAndGet();
+    return handle;
+  }
+
+  /**
+   * Queues are expected to be short (a few fragments per core) so the task with the smallest vruntime is looked up
+   * with a linear scan: the vruntimes of the groups change while tasks are queued, which rules out a sorted queue.
+   */
+  private SlicingTaskHandle poll() {
+    final int size = runQueue.size();
+    if (size == 0) {
+      return null;
+    }
+    int best = 0;
+    for (int i = 1; i < size; i++) {
+      if (SchedulingEntity.compare(runQueue.get(i), runQueue.get(best)) < 0) {
+        best = i;
+      }
+    }
+    final SlicingTaskHandle handle = runQueue.get(best);
+    runQueue.set(best, runQueue.get(size - 1));
+    runQueue.remove(size - 1);
+    return handle;
+  }
+
+  private SlicingTaskHandle nextTask() throws InterruptedException {
+    while (!pool.isClosed()) {
+      synchronized (this) {
+        final SlicingTaskHandle handle = poll();
+        if (handle != null) {
+          return handle;
+        }
+      }
+
+      numWorkRequests.incrementAndGet();
+      final SlicingTaskHandle stolen = pool.steal(this);
+      if (stolen != null) {
+        return stolen;
+      }
+
+      synchronized (this) {
+        if (runQueue.isEmpty()) {
+          idle = true;
+          wait(IDLE_WAIT_MS);
+          idle = false;
+        }
+      }
+    }
+    return null;
+  }
+
+  private void removeTask(SlicingTaskHandle handle) {
+    numTasks.decrementAndGet();
+    handle.getParent().updateNumTasks(-1);
+  }
+
+  @Override
+  public void run() {
+    try {
+      SlicingTaskHandle handle;
+      while ((handle = nextTask()) != null) {
+        runSlice(handle);
+      }
+    } catch (InterruptedException e) {
+      logger.info("Thread interrupted, exiting.");
+    }
+  }
+
+  private void runSlice(SlicingTaskHandle handle) {
+    final AsyncTaskWrapper task = handle.getTask();
+    final long quantum = pool.getQuantumNanos();
+    final long start = System.nanoTime();
+
+    State state;
+    try {
+      // the task yields after each unit of work, keep running it until it blocks or its quantum is over
+      do {
+        task.run();
+        state = task.getState();
+      } while (state == State.RUNNABLE && System.nanoTime() - start < quantum);
+    } catch (Throwable t) {
+      logger.error("Unhandled Exception in Fragment Thread.", t);
+      handle.charge(System.nanoTime() - start);
+      removeTask(handle);
+      return;
+    }
+
+    // charge before the task can be picked up by another thread
+    handle.charge(System.nanoTime() - start);
+
+    switch (state) {
+    case BLOCKED_ON_DOWNSTREAM:
+    case BLOCKED_ON_UPSTREAM:
+    case BLOCKED_ON_SHARED_RESOURCE:
+      // the callback may immediately re-enqueue the task, it must not be touched afterwards
+      task.setAvailabilityCallback(new BlockRun(handle));
+      break;
+    case DONE:
+      removeTask(handle);
+      try {
+        task.getCleaner().close();
+      } catch (Throwable t) {
+        logger.error("Failure while closing task {}.", task, t);
+      }
+      break;
+    case RUNNABLE:
+    default:
+      enqueue(handle);
+      break;
+    }
+  }
+}
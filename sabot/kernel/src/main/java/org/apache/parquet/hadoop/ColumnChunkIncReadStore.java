@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.BiPredicate;
 
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.OutOfMemoryException;
@@ -35,6 +36,7 @@ import org.apache.parquet.column.page.DataPageV2;
 import org.apache.parquet.column.page.DictionaryPage;
 import org.apache.parquet.column.page.PageReadStore;
 import org.apache.parquet.column.page.PageReader;
+import org.apache.parquet.column.statistics.Statistics;
 import org.apache.parquet.format.DataPageHeaderV2;
 import org.apache.parquet.format.PageHeader;
 import org.apache.parquet.format.Util;
@@ -99,9 +101,21 @@ public class ColumnChunkIncReadStore implements PageReadStore {
         throw new RuntimeException(ioe);
       }
     }
+
+    @Override
+    public int skipPageIf(BiPredicate<Statistics<?>, Integer> canSkip) {
+      try {
+        in.seek(lastPosition);
+        final int skipped = super.skipPageIf(canSkip);
+        lastPosition = in.getPos();
+        return skipped;
+      } catch (IOException ioe) {
+        throw new RuntimeException(ioe);
+      }
+    }
   }
 
-  class ColumnChunkIncPageReader implements PageReader {
+  public class ColumnChunkIncPageReader implements PageReader {
 
     ColumnChunkMetaData metaData;
     ColumnDescriptor columnDescriptor;
@@ -242,6 +256,61 @@ public class ColumnChunkIncReadStore implements PageReadStore {
       }
     }
 
+    /**
+     * Skip the next data page without reading nor decompressing its content, if the given predicate accepts its
+     * statistics and number of values.
+     *
+     * @return the number of values skipped, or 0 if the page wasn't skipped and must be read with {@link #readPage()}
+     */
+    public int skipPageIf(BiPredicate<Statistics<?>, Integer> canSkip) {
+      PageHeader pageHeader = new PageHeader();
+      try {
+        while (valueReadSoFar < metaData.getValueCount()) {
+          final long pos = in.getPos();
+          pageHeader = Util.readPageHeader(in);
+          final org.apache.parquet.format.Statistics statistics;
+          final int numValues;
+          switch (pageHeader.type) {
+            case DICTIONARY_PAGE:
+              if (dictionaryPage == null) {
+                dictionaryPage = readDictionaryPageHelper(pageHeader);
+              } else {
+                in.skip(pageHeader.compressed_page_size);
+              }
+              continue;
+            case DATA_PAGE:
+              statistics = pageHeader.data_page_header.statistics;
+              numValues = pageHeader.data_page_header.num_values;
+              break;
+            case DATA_PAGE_V2:
+              statistics = pageHeader.data_page_header_v2.statistics;
+              numValues = pageHeader.data_page_header_v2.num_values;
+              break;
+            default:
+              in.skip(pageHeader.compressed_page_size);
+              continue;
+          }
+
+          if (statistics == null
+              || !canSkip.test(fromParquetStatistics(statistics, columnDescriptor.getType()), numValues)) {
+            // let readPage() read the page
+            in.seek(pos);
+            return 0;
+          }
+          in.seek(in.getPos() + pageHeader.compressed_page_size);
+          valueReadSoFar += numValues;
+          return numValues;
+        }
+        return 0;
+      } catch (IOException e) {
+        throw new RuntimeException("Error skipping page." +
+          "\nFile path: " + path.toUri().getPath() +
+          "\nColumn Chunk Metadata: " + metaData +
+          "\nPage Header: " + pageHeader +
+          "\nValue read so far: " + valueReadSoFar, e);
+      }
+    }
+
     void close() {
       try {
         releasePrevDataPageBuffers();
@@ -300,7 +369,13 @@ public class ColumnChunkIncReadStore implements PageReadStore {
 
   public void addColumn(ColumnDescriptor descriptor, ColumnChunkMetaData metaData) throws IOException {
     final FSDataInputStream in;
-    if (inputStreamProvider.singleStream()) {
+    final FSDataInputStream prefetched = inputStreamProvider.prefetchedStream(metaData);
+    if (prefetched != null) {
+      // the chunk is read from memory, no need to share the stream with the other columns
+      in = prefetched;
+      in.seek(metaData.getStartingPos());
+      columns.put(descriptor, new ColumnChunkIncPageReader(metaData, descriptor, in));
+    } else if (inputStreamProvider.singleStream()) {
       in = inputStreamProvider.stream();
       in.seek(metaData.getStartingPos());
       columns.put(descriptor, new SingleStreamColumnChunkIncPageReader(metaData, descriptor, in));
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.dremio.exec.ExecTest;
+
+import io.netty.buffer.ArrowBuf;
+
+public class TestSpillBufferCodec extends ExecTest {
+
+  private static final int LENGTH = 3 * SpillBufferCodec.CHUNK_SIZE + 123;
+
+  @Test
+  public void roundTrip() throws Exception {
+    for (SpillCompression compression : SpillCompression.values()) {
+      roundTrip(compression);
+    }
+  }
+
+  private void roundTrip(SpillCompression compression) throws Exception {
+    final SpillBufferCodec codec = new SpillBufferCodec(compression);
+    try (ArrowBuf compressible = allocator.buffer(LENGTH);
+         ArrowBuf random = allocator.buffer(LENGTH);
+         ArrowBuf target = allocator.buffer(2 * LENGTH)) {
+      final Random r = new Random(compression.ordinal());
+      for (int i = 0; i < LENGTH; i++) {
+        compressible.setByte(i, i % 7);
+        random.setByte(i, r.nextInt());
+      }
+
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      final long compressibleLength = codec.write(compressible, 0, LENGTH, true, out);
+      codec.write(random, 0, LENGTH, true, out);
+      if (compression != SpillCompression.NONE) {
+        assertTrue(compression + " didn't compress", compressibleLength < LENGTH / 2);
+      }
+
+      // both buffers are read back into a single one
+      codec.read(new ByteArrayInputStream(out.toByteArray()), target, 2 * LENGTH);
+      assertEquals(2 * LENGTH, target.writerIndex());
+      for (int i = 0; i < LENGTH; i++) {
+        assertEquals(compressible.getByte(i), target.getByte(i));
+        assertEquals(random.getByte(i), target.getByte(LENGTH + i));
+      }
+    }
+  }
+
+  @Test
+  public void detectCorruption() throws Exception {
+    final SpillBufferCodec codec = new SpillBufferCodec(SpillCompression.NONE);
+    try (ArrowBuf source = allocator.buffer(LENGTH);
+         ArrowBuf target = allocator.buffer(LENGTH)) {
+      for (int i = 0; i < LENGTH; i++) {
+        source.setByte(i, i);
+      }
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      codec.write(source, 0, LENGTH, true, out);
+
+      final byte[] bytes = out.toByteArray();
+      bytes[SpillBufferCodec.CHUNK_HEADER_LENGTH + 42] ^= 1;
+      try {
+        codec.read(new ByteArrayInputStream(bytes), target, LENGTH);
+        fail("Corrupted data should not be read back");
+      } catch (IOException e) {
+        assertTrue(e.getMessage().contains("Checksum mismatch"));
+      }
+    }
+  }
+}
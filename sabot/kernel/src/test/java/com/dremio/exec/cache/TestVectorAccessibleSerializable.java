@@ -140,18 +140,25 @@ public class TestVectorAccessibleSerializable extends ExecTest {
 
   @Test
   public void testCompressSerDe() throws Exception {
-    testCompressSerDeHelper(10);
-    testCompressSerDeHelper(100);
-    testCompressSerDeHelper(1000);
-    testCompressSerDeHelper(1024);
-    testCompressSerDeHelper(8000);
-    testCompressSerDeHelper(10000);
-    testCompressSerDeHelper(16000);
-    testCompressSerDeHelper(32000);
-    testCompressSerDeHelper(64000);
+    testCompressSerDeHelper(10, SpillCompression.SNAPPY);
+    testCompressSerDeHelper(100, SpillCompression.SNAPPY);
+    testCompressSerDeHelper(1000, SpillCompression.SNAPPY);
+    testCompressSerDeHelper(1024, SpillCompression.SNAPPY);
+    testCompressSerDeHelper(8000, SpillCompression.SNAPPY);
+    testCompressSerDeHelper(10000, SpillCompression.SNAPPY);
+    testCompressSerDeHelper(16000, SpillCompression.SNAPPY);
+    testCompressSerDeHelper(32000, SpillCompression.SNAPPY);
+    testCompressSerDeHelper(64000, SpillCompression.SNAPPY);
   }
 
-  private void testCompressSerDeHelper(int records) throws Exception {
+  @Test
+  public void testDeflateAndStoredSerDe() throws Exception {
+    testCompressSerDeHelper(1000, SpillCompression.DEFLATE);
+    testCompressSerDeHelper(64000, SpillCompression.DEFLATE);
+    testCompressSerDeHelper(1000, SpillCompression.NONE);
+  }
+
+  private void testCompressSerDeHelper(int records, SpillCompression compression) throws Exception {
     final List<ValueVector> vectorList = Lists.newArrayList();
     try (final ClusterCoordinator clusterCoordinator = LocalClusterCoordinator.newRunningCoordinator();
          final SabotNode bit = new SabotNode(DEFAULT_SABOT_CONFIG, clusterCoordinator, CLASSPATH_SCAN_RESULT, true)) {
@@ -215,24 +222,25 @@ public class TestVectorAccessibleSerializable extends ExecTest {
           );
         }
 
-        SerDe(vectorList, true, records, context, 100, 100.375);
+        SerDe(vectorList, compression, records, context, 100, 100.375);
 
       }
     }
   }
 
-  private void SerDe(List<ValueVector> vectorList, boolean compression, int records, SabotContext context,
+  private void SerDe(List<ValueVector> vectorList, SpillCompression compression, int records, SabotContext context,
                      int intBaseValue, double doubleBaseValue) throws Exception {
     VectorContainer container = new VectorContainer();
     container.addCollection(vectorList);
     container.setRecordCount(records);
     WritableBatch batch = WritableBatch.getBatchNoHVWrap(container.getRecordCount(), container, false);
-    VectorAccessibleSerializable wrap = new VectorAccessibleSerializable(batch, null, allocator, compression);
+    final SpillBufferCodec codec = new SpillBufferCodec(compression);
+    VectorAccessibleSerializable wrap = new VectorAccessibleSerializable(batch, null, codec);
 
     Configuration conf = new Configuration();
     conf.set(FileSystem.FS_DEFAULT_NAME_KEY, "file:///");
 
-    final VectorAccessibleSerializable newWrap = new VectorAccessibleSerializable(allocator, true, allocator);
+    final VectorAccessibleSerializable newWrap = new VectorAccessibleSerializable(allocator, codec);
     try (final FileSystem fs = FileSystem.get(conf)) {
       final File tempDir = Files.createTempDir();
       tempDir.deleteOnExit();
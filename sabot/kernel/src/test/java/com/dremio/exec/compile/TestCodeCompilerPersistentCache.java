@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.compile;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.dremio.BaseTestQuery;
+import com.dremio.exec.compile.sig.GeneratorMapping;
+import com.dremio.exec.compile.sig.MappingSet;
+import com.dremio.exec.expr.ClassGenerator;
+import com.dremio.exec.expr.CodeGenerator;
+import com.dremio.metrics.Metrics;
+import com.dremio.sabot.exec.context.CompilationOptions;
+import com.dremio.sabot.exec.context.FunctionContext;
+
+/**
+ * Tests of {@link CodeCompiler} loading classes from a {@link PersistentCodeCache}
+ */
+public class TestCodeCompilerPersistentCache extends BaseTestQuery {
+
+  private static final Counter PERSISTENT_HITS =
+    Metrics.getInstance().counter(MetricRegistry.name(CodeCompiler.class, "persistentHits"));
+  private static final Counter MISSES = Metrics.getInstance().counter(MetricRegistry.name(CodeCompiler.class, "misses"));
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private CodeCompiler newCompiler(Path directory) throws Exception {
+    return new CodeCompiler(DEFAULT_SABOT_CONFIG, getSabotContext().getOptionManager(),
+      new PersistentCodeCache(directory, 10));
+  }
+
+  private static CodeGenerator<ExampleInner> newCodeGenerator(CodeCompiler compiler) {
+    final CompilationOptions compilationOptions = mock(CompilationOptions.class);
+    when(compilationOptions.getNewMethodThreshold()).thenReturn(100);
+    final FunctionContext functionContext = mock(FunctionContext.class);
+    when(functionContext.getCompilationOptions()).thenReturn(compilationOptions);
+
+    final CodeGenerator<ExampleInner> cg = CodeGenerator.get(
+      new TemplateClassDefinition<>(ExampleInner.class, ExampleTemplateWithInner.class), compiler, functionContext);
+    final ClassGenerator<ExampleInner> root = cg.getRoot();
+    root.setMappingSet(new MappingSet(new GeneratorMapping("doOutside", null, null, null)));
+    root.getSetupBlock().directStatement("System.out.println(\"outside\");");
+    final ClassGenerator<ExampleInner> inner = root.getInnerGenerator("TheInnerClass");
+    inner.setMappingSet(new MappingSet(new GeneratorMapping("doInside", null, null, null)));
+    inner.getSetupBlock().directStatement("System.out.println(\"inside\");");
+    final ClassGenerator<ExampleInner> doubleInner = inner.getInnerGenerator("DoubleInner");
+    doubleInner.setMappingSet(new MappingSet(new GeneratorMapping("doDouble", null, null, null)));
+    doubleInner.getSetupBlock().directStatement("System.out.println(\"double\");");
+    return cg;
+  }
+
+  /**
+   * Load the class with a new compiler, like after a restart, and check it runs
+   */
+  private void loadAndRun(Path directory) throws Exception {
+    final CodeCompiler compiler = newCompiler(directory);
+    final ExampleInner instance = compiler.getImplementationClass(newCodeGenerator(compiler));
+    instance.doOutside();
+    instance.doInsideOutside();
+  }
+
+  private static File[] entries(Path directory) {
+    return directory.toFile().listFiles((dir, name) -> name.endsWith(".classes"));
+  }
+
+  @Test
+  public void hit() throws Exception {
+    final Path directory = folder.newFolder().toPath().resolve("codecache");
+
+    long hits = PERSISTENT_HITS.getCount();
+    long misses = MISSES.getCount();
+    loadAndRun(directory);
+    assertEquals(misses + 1, MISSES.getCount());
+    assertEquals(hits, PERSISTENT_HITS.getCount());
+    assertEquals(1, entries(directory).length);
+
+    hits = PERSISTENT_HITS.getCount();
+    misses = MISSES.getCount();
+    loadAndRun(directory);
+    assertEquals(misses, MISSES.getCount());
+    assertEquals(hits + 1, PERSISTENT_HITS.getCount());
+  }
+
+  @Test
+  public void tamperedEntry() throws Exception {
+    final Path directory = folder.newFolder().toPath().resolve("codecache");
+    loadAndRun(directory);
+
+    final Path entry = entries(directory)[0].toPath();
+    final byte[] bytes = Files.readAllBytes(entry);
+    bytes[bytes.length / 2] ^= 1;
+    Files.write(entry, bytes);
+
+    // the entry is compiled again rather than loaded
+    long hits = PERSISTENT_HITS.getCount();
+    long misses = MISSES.getCount();
+    loadAndRun(directory);
+    assertEquals(misses + 1, MISSES.getCount());
+    assertEquals(hits, PERSISTENT_HITS.getCount());
+
+    // and replaced by a valid entry
+    hits = PERSISTENT_HITS.getCount();
+    loadAndRun(directory);
+    assertEquals(hits + 1, PERSISTENT_HITS.getCount());
+  }
+}
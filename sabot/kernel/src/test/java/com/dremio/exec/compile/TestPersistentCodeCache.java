@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.compile;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests of {@link PersistentCodeCache}
+ */
+public class TestPersistentCodeCache {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path newDirectory() throws IOException {
+    // created by the cache, so with the expected permissions regardless of the umask
+    return folder.newFolder().toPath().resolve("codecache");
+  }
+
+  private static PersistentCodeCache.Entry entry(String className) {
+    return new PersistentCodeCache.Entry(className, new ClassBytes[] {
+      new ClassBytes(className, new byte[] {1, 2, 3}),
+      new ClassBytes(className + "$Inner", new byte[] {4, 5})
+    }, 1234);
+  }
+
+  private static int countEntries(Path directory) {
+    final File[] files = directory.toFile().listFiles((dir, name) -> name.endsWith(".classes"));
+    return files == null ? 0 : files.length;
+  }
+
+  @Test
+  public void roundTrip() throws Exception {
+    final Path directory = newDirectory();
+    new PersistentCodeCache(directory, 10).put("k1", entry("a.b.Gen1"));
+
+    // read back from another instance, like after a restart
+    final PersistentCodeCache.Entry read = new PersistentCodeCache(directory, 10).get("k1");
+    assertNotNull(read);
+    assertEquals("a.b.Gen1", read.getClassName());
+    assertEquals(1234, read.getCompileNanos());
+    assertEquals(2, read.getClasses().length);
+    assertEquals("a.b.Gen1$Inner", read.getClasses()[1].getName());
+    assertArrayEquals(new byte[] {4, 5}, read.getClasses()[1].getBytes());
+  }
+
+  @Test
+  public void missingEntry() throws Exception {
+    final PersistentCodeCache cache = new PersistentCodeCache(newDirectory(), 10);
+    assertNull(cache.get("unknown"));
+  }
+
+  @Test
+  public void trim() throws Exception {
+    final Path directory = newDirectory();
+    final PersistentCodeCache cache = new PersistentCodeCache(directory, 10);
+    for (int i = 0; i < 10; i++) {
+      cache.put("k" + i, entry("a.b.Gen" + i));
+      // entries used long ago
+      Files.setLastModifiedTime(directory.resolve("k" + i + ".classes"), FileTime.fromMillis(i * 1000L));
+    }
+    assertEquals(10, countEntries(directory));
+
+    cache.put("k10", entry("a.b.Gen10"));
+    assertEquals(9, countEntries(directory));
+    assertNotNull(cache.get("k10"));
+    assertNull(cache.get("k0"));
+    assertNull(cache.get("k1"));
+    assertNotNull(cache.get("k2"));
+
+    // existing entries are trimmed on startup when the maximum is lowered
+    new PersistentCodeCache(directory, 5);
+    assertEquals(4, countEntries(directory));
+  }
+
+  @Test
+  public void keyDependsOnCode() {
+    final TemplateClassDefinition<ExampleInner> definition =
+      new TemplateClassDefinition<>(ExampleInner.class, ExampleTemplateWithInner.class);
+    assertEquals(PersistentCodeCache.key(definition, "code"), PersistentCodeCache.key(definition, "code"));
+    assertNotEquals(PersistentCodeCache.key(definition, "code"), PersistentCodeCache.key(definition, "other"));
+  }
+
+  @Test
+  public void privateDirectory() throws Exception {
+    final Path directory = newDirectory();
+    new PersistentCodeCache(directory, 10);
+    assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(directory)));
+    assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(directory.resolve("cache.key"))));
+  }
+
+  @Test(expected = IOException.class)
+  public void directoryWritableByOthers() throws Exception {
+    final Path directory = newDirectory();
+    Files.createDirectory(directory);
+    Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwxrwxrwx"));
+    new PersistentCodeCache(directory, 10);
+  }
+
+  @Test(expected = IOException.class)
+  public void keyReadableByOthers() throws Exception {
+    final Path directory = newDirectory();
+    new PersistentCodeCache(directory, 10);
+    Files.setPosixFilePermissions(directory.resolve("cache.key"), PosixFilePermissions.fromString("rw-r--r--"));
+    new PersistentCodeCache(directory, 10);
+  }
+
+  @Test
+  public void tamperedEntry() throws Exception {
+    final Path directory = newDirectory();
+    final PersistentCodeCache cache = new PersistentCodeCache(directory, 10);
+    cache.put("k1", entry("a.b.Gen1"));
+    final Path file = directory.resolve("k1.classes");
+    final byte[] bytes = Files.readAllBytes(file);
+    bytes[bytes.length / 2] ^= 1;
+    Files.write(file, bytes);
+    assertNull(cache.get("k1"));
+  }
+
+  @Test
+  public void entryOfOtherCache() throws Exception {
+    final Path directory = newDirectory();
+    new PersistentCodeCache(directory, 10).put("k1", entry("a.b.Gen1"));
+
+    // written with another key
+    final Path otherDirectory = newDirectory();
+    final PersistentCodeCache otherCache = new PersistentCodeCache(otherDirectory, 10);
+    Files.copy(directory.resolve("k1.classes"), otherDirectory.resolve("k1.classes"));
+    assertNull(otherCache.get("k1"));
+  }
+
+  @Test
+  public void renamedEntry() throws Exception {
+    final Path directory = newDirectory();
+    final PersistentCodeCache cache = new PersistentCodeCache(directory, 10);
+    cache.put("k1", entry("a.b.Gen1"));
+    Files.move(directory.resolve("k1.classes"), directory.resolve("k2.classes"), StandardCopyOption.ATOMIC_MOVE);
+    assertNull(cache.get("k2"));
+  }
+}
@@ -20,6 +20,8 @@ import org.junit.Test;
 
 import com.dremio.PlanTestBase;
 import com.dremio.exec.ExecConstants;
+import com.dremio.exec.physical.config.HashAggregate;
+import com.dremio.sabot.op.aggregate.vectorized.VectorizedHashAggOperator;
 
 public class TestHyperLogLog extends PlanTestBase {
 
@@ -117,4 +119,27 @@ public class TestHyperLogLog extends PlanTestBase {
       testNoResult("set planner.slice_target = " + ExecConstants.SLICE_TARGET_DEFAULT);
     }
   }
+
+  @Test
+  public void testNdvVectorizedHashAgg() throws Exception {
+    // with one sketch of a few KB per group and as little memory as the aggregate can be set up with, the groups of
+    // each order don't fit in memory: sketches get spilled, and merged back by HllUnionAccumulator.
+    try (AutoCloseable spilling = withOption(VectorizedHashAggOperator.VECTORIZED_HASHAGG_USE_SPILLING_OPERATOR, true);
+         AutoCloseable ndv = withOption(VectorizedHashAggOperator.VECTORIZED_HASHAGG_NDV, true);
+         AutoCloseable batchSize = withOption(VectorizedHashAggOperator.VECTORIZED_HASHAGG_BATCHSIZE, 128);
+         AutoCloseable lowLimit = withOption(HashAggregate.LOWER_LIMIT, 32 * 1024 * 1024);
+         AutoCloseable limit = withOption(HashAggregate.UPPER_LIMIT, 32 * 1024 * 1024)) {
+      final String sql = "select l_orderkey, ndv(l_linenumber) as ndv_linenumber, ndv(l_shipmode) as ndv_shipmode " +
+        "from cp.\"tpch/lineitem.parquet\" group by l_orderkey";
+      testPlanSubstrPatterns(sql, new String[]{"HashAgg(group=[{0}]", "HLL($1)"}, new String[]{"StreamAgg"});
+
+      // sketches of so few values are exact
+      testBuilder()
+        .sqlQuery(sql)
+        .unOrdered()
+        .sqlBaselineQuery("select l_orderkey, count(distinct l_linenumber) as ndv_linenumber, " +
+          "count(distinct l_shipmode) as ndv_shipmode from cp.\"tpch/lineitem.parquet\" group by l_orderkey")
+        .go();
+    }
+  }
 }
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner.logical.partition;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+import org.apache.calcite.adapter.java.JavaTypeFactory;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.sql.SqlOperator;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.dremio.common.types.TypeProtos.MinorType;
+import com.dremio.exec.planner.DremioRexBuilder;
+import com.dremio.exec.planner.types.JavaTypeFactoryImpl;
+import com.dremio.service.namespace.DatasetSplitChunks;
+import com.dremio.service.namespace.dataset.proto.DatasetSplit;
+import com.dremio.service.namespace.dataset.proto.DatasetSplitChunk;
+import com.dremio.service.namespace.dataset.proto.PartitionValue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import io.protostuff.ByteString;
+
+/**
+ * Unit tests of {@link PartitionIndex}
+ */
+public class TestPartitionIndex {
+  // more than one chunk
+  private static final int SPLIT_COUNT = DatasetSplitChunks.CHUNK_SIZE + 904;
+  private static final ByteString READ_SIGNATURE = ByteString.copyFromUtf8("signature");
+  private static final Map<String, MinorType> COLUMN_TYPES = ImmutableMap.of(
+    "dir0", MinorType.VARCHAR,
+    "year", MinorType.INT,
+    "ts", MinorType.TIMESTAMP);
+  private static final List<String> FIELD_NAMES = ImmutableList.of("dir0", "year", "ts", "a");
+
+  private static final JavaTypeFactory TYPE_FACTORY = JavaTypeFactoryImpl.INSTANCE;
+  private static final RexBuilder BUILDER = new DremioRexBuilder(TYPE_FACTORY);
+  private static final RelDataType VARCHAR_TYPE = TYPE_FACTORY.createSqlType(SqlTypeName.VARCHAR, 20);
+  private static final RelDataType INT_TYPE = TYPE_FACTORY.createSqlType(SqlTypeName.INTEGER);
+
+  private static List<DatasetSplitChunk> chunks;
+  private static PartitionIndex index;
+
+  private static String dir0(int split) {
+    return "d" + (split % 10);
+  }
+
+  private static Integer year(int split) {
+    return split % 100 == 0 ? null : 2000 + split % 5;
+  }
+
+  @BeforeClass
+  public static void buildIndex() {
+    final List<DatasetSplit> splits = new ArrayList<>();
+    for (int i = 0; i < SPLIT_COUNT; i++) {
+      final List<PartitionValue> values = new ArrayList<>();
+      values.add(new PartitionValue().setColumn("dir0").setStringValue(dir0(i)));
+      if (year(i) != null) {
+        values.add(new PartitionValue().setColumn("year").setIntValue(year(i)));
+      }
+      values.add(new PartitionValue().setColumn("ts").setLongValue((long) i));
+      splits.add(new DatasetSplit().setSplitKey(String.valueOf(i)).setPartitionValuesList(values));
+    }
+    chunks = DatasetSplitChunks.encode(splits);
+    index = PartitionIndex.build(1L, READ_SIGNATURE, COLUMN_TYPES, SPLIT_COUNT, chunks);
+  }
+
+  private static BitSet expected(IntPredicate predicate) {
+    final BitSet expected = new BitSet();
+    for (int i = 0; i < SPLIT_COUNT; i++) {
+      if (predicate.test(i)) {
+        expected.set(i);
+      }
+    }
+    return expected;
+  }
+
+  private static RexNode c(int index) {
+    return BUILDER.makeInputRef(index == 1 ? INT_TYPE : VARCHAR_TYPE, index);
+  }
+
+  private static RexNode lit(int value) {
+    return BUILDER.makeExactLiteral(BigDecimal.valueOf(value));
+  }
+
+  private static RexNode lit(String value) {
+    return BUILDER.makeLiteral(value);
+  }
+
+  private static RexNode call(SqlOperator operator, RexNode... operands) {
+    return BUILDER.makeCall(operator, operands);
+  }
+
+  @Test
+  public void equality() {
+    assertEquals(expected(i -> dir0(i).equals("d3")),
+      index.select(call(SqlStdOperatorTable.EQUALS, c(0), lit("d3")), FIELD_NAMES));
+    assertEquals(expected(i -> !dir0(i).equals("d3")),
+      index.select(call(SqlStdOperatorTable.NOT_EQUALS, c(0), lit("d3")), FIELD_NAMES));
+    assertEquals(new BitSet(), index.select(call(SqlStdOperatorTable.EQUALS, c(0), lit("missing")), FIELD_NAMES));
+  }
+
+  @Test
+  public void range() {
+    // 2002 <= year AND year < 2004
+    final RexNode condition = call(SqlStdOperatorTable.AND,
+      call(SqlStdOperatorTable.LESS_THAN_OR_EQUAL, lit(2002), c(1)),
+      call(SqlStdOperatorTable.LESS_THAN, c(1), lit(2004)));
+    assertEquals(expected(i -> year(i) != null && year(i) >= 2002 && year(i) < 2004),
+      index.select(condition, FIELD_NAMES));
+
+    assertEquals(expected(i -> year(i) != null && year(i) > 2003),
+      index.select(call(SqlStdOperatorTable.GREATER_THAN, c(1), lit(2003)), FIELD_NAMES));
+    assertEquals(expected(i -> dir0(i).compareTo("d7") <= 0),
+      index.select(call(SqlStdOperatorTable.LESS_THAN_OR_EQUAL, c(0), lit("d7")), FIELD_NAMES));
+  }
+
+  @Test
+  public void inList() {
+    // IN lists are expanded to OR
+    final RexNode condition = call(SqlStdOperatorTable.AND,
+      call(SqlStdOperatorTable.OR,
+        call(SqlStdOperatorTable.EQUALS, c(1), lit(2001)),
+        call(SqlStdOperatorTable.EQUALS, c(1), lit(2003))),
+      call(SqlStdOperatorTable.OR,
+        call(SqlStdOperatorTable.EQUALS, c(0), lit("d1")),
+        call(SqlStdOperatorTable.EQUALS, c(0), lit("d6"))));
+    final BitSet selected = index.select(condition, FIELD_NAMES);
+    assertEquals(expected(i -> year(i) != null && (year(i) == 2001 || year(i) == 2003)
+      && (dir0(i).equals("d1") || dir0(i).equals("d6"))), selected);
+    assertFalse(selected.isEmpty());
+  }
+
+  @Test
+  public void nulls() {
+    assertEquals(expected(i -> year(i) == null),
+      index.select(call(SqlStdOperatorTable.IS_NULL, c(1)), FIELD_NAMES));
+    assertEquals(expected(i -> year(i) != null),
+      index.select(call(SqlStdOperatorTable.IS_NOT_NULL, c(1)), FIELD_NAMES));
+  }
+
+  @Test
+  public void unsupported() {
+    // column of a type not indexed
+    assertNull(index.select(call(SqlStdOperatorTable.EQUALS, c(2), lit("x")), FIELD_NAMES));
+    // column which is not a partition column
+    assertNull(index.select(call(SqlStdOperatorTable.EQUALS, c(3), lit("x")), FIELD_NAMES));
+    // expression of a partition column
+    assertNull(index.select(call(SqlStdOperatorTable.EQUALS, call(SqlStdOperatorTable.UPPER, c(0)), lit("D3")),
+      FIELD_NAMES));
+    // string literal compared to an integer column
+    assertNull(index.select(call(SqlStdOperatorTable.EQUALS, c(1), lit("2001")), FIELD_NAMES));
+    // any unsupported part of the condition
+    assertNull(index.select(call(SqlStdOperatorTable.OR,
+      call(SqlStdOperatorTable.EQUALS, c(0), lit("d3")),
+      call(SqlStdOperatorTable.EQUALS, c(3), lit("x"))), FIELD_NAMES));
+  }
+
+  @Test
+  public void getSplits() {
+    final BitSet selected = index.select(call(SqlStdOperatorTable.EQUALS, c(1), lit(2004)), FIELD_NAMES);
+    final List<DatasetSplit> splits = index.getSplits(chunks, selected);
+    assertEquals(selected.cardinality(), splits.size());
+    int i = selected.nextSetBit(0);
+    for (DatasetSplit split : splits) {
+      assertEquals(String.valueOf(i), split.getSplitKey());
+      i = selected.nextSetBit(i + 1);
+    }
+  }
+
+  @Test
+  public void validity() {
+    assertTrue(index.isValid(1L, READ_SIGNATURE, COLUMN_TYPES));
+    assertFalse(index.isValid(2L, READ_SIGNATURE, COLUMN_TYPES));
+    assertFalse(index.isValid(1L, ByteString.copyFromUtf8("changed"), COLUMN_TYPES));
+    assertFalse(index.isValid(1L, READ_SIGNATURE, ImmutableMap.of("dir0", MinorType.VARCHAR)));
+  }
+}
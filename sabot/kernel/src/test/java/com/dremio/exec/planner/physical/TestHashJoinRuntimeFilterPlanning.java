@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner.physical;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.dremio.PlanTestBase;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.physical.PhysicalPlan;
+import com.dremio.exec.physical.base.PhysicalOperator;
+import com.dremio.exec.physical.base.Scan;
+import com.dremio.exec.physical.config.HashJoinPOP;
+import com.dremio.exec.physical.config.RuntimeFilterTarget;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Tests of the scans chosen by {@link HashJoinPrel} to receive the runtime filters of a hash join, and of the
+ * queries run with runtime filters.
+ */
+public class TestHashJoinRuntimeFilterPlanning extends PlanTestBase {
+
+  private static final String JOIN = "SELECT n.n_name, r.r_name FROM cp.\"tpch/nation.parquet\" n "
+    + "%s JOIN cp.\"tpch/region.parquet\" r ON n.n_regionkey = r.r_regionkey WHERE r.r_name = '%s'";
+
+  private static List<PhysicalOperator> operators(String query) throws Exception {
+    final String json = getPlanInString("EXPLAIN PLAN FOR " + query, JSON_FORMAT);
+    final PhysicalPlan plan = getSabotContext().getPlanReader().readPhysicalPlan(json);
+    return plan.getSortedOperators(false);
+  }
+
+  private static HashJoinPOP hashJoin(List<PhysicalOperator> operators) {
+    for (PhysicalOperator op : operators) {
+      if (op instanceof HashJoinPOP) {
+        return (HashJoinPOP) op;
+      }
+    }
+    throw new AssertionError("No hash join in the plan");
+  }
+
+  @Test
+  public void probeScanChosen() throws Exception {
+    try (AutoCloseable enabled = withOption(ExecConstants.ENABLE_RUNTIME_FILTER, true)) {
+      final List<PhysicalOperator> operators = operators(String.format(JOIN, "", "ASIA"));
+      final HashJoinPOP join = hashJoin(operators);
+      final RuntimeFilterTarget target = join.getRuntimeFilter();
+      assertNotNull(target);
+      assertEquals(ImmutableList.of("n_regionkey"), target.getProbeScanFields());
+
+      // the nation scan on the probe side, in the same fragment as the join
+      Scan probeScan = null;
+      for (PhysicalOperator op : operators) {
+        if (op instanceof Scan && (Short.MAX_VALUE & op.getOperatorId()) == target.getProbeScanOperatorId()
+            && op.getOperatorId() >> 16 == join.getOperatorId() >> 16) {
+          probeScan = (Scan) op;
+        }
+      }
+      assertNotNull(probeScan);
+      assertTrue(probeScan.getReferencedTables().toString(),
+        probeScan.getReferencedTables().toString().contains("nation.parquet"));
+    }
+  }
+
+  @Test
+  public void notChosenWhenDisabled() throws Exception {
+    assertNull(hashJoin(operators(String.format(JOIN, "", "ASIA"))).getRuntimeFilter());
+  }
+
+  @Test
+  public void notChosenForFullJoin() throws Exception {
+    try (AutoCloseable enabled = withOption(ExecConstants.ENABLE_RUNTIME_FILTER, true)) {
+      // probe rows without a matching build key are still part of the output
+      assertNull(hashJoin(operators("SELECT n.n_name, r.r_name FROM cp.\"tpch/nation.parquet\" n "
+        + "FULL JOIN cp.\"tpch/region.parquet\" r ON n.n_regionkey = r.r_regionkey")).getRuntimeFilter());
+    }
+  }
+
+  @Test
+  public void matchingRows() throws Exception {
+    try (AutoCloseable enabled = withOption(ExecConstants.ENABLE_RUNTIME_FILTER, true)) {
+      testBuilder()
+        .sqlQuery(String.format(JOIN, "", "ASIA"))
+        .unOrdered()
+        .baselineColumns("n_name", "r_name")
+        .baselineValues("INDIA", "ASIA")
+        .baselineValues("INDONESIA", "ASIA")
+        .baselineValues("JAPAN", "ASIA")
+        .baselineValues("CHINA", "ASIA")
+        .baselineValues("VIETNAM", "ASIA")
+        .go();
+    }
+  }
+
+  @Test
+  public void emptyBuildSide() throws Exception {
+    try (AutoCloseable enabled = withOption(ExecConstants.ENABLE_RUNTIME_FILTER, true)) {
+      // all the row groups of the probe side are skipped
+      testBuilder()
+        .sqlQuery(String.format(JOIN, "", "ATLANTIS"))
+        .unOrdered()
+        .expectsEmptyResultSet()
+        .go();
+    }
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner.sql.handlers.commands;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.sql.SqlNode;
+
+import org.junit.Test;
+
+import com.dremio.exec.catalog.Catalog;
+import com.dremio.exec.catalog.DremioTable;
+import com.dremio.exec.physical.PhysicalPlan;
+import com.dremio.exec.planner.PlanCaptureAttemptObserver;
+import com.dremio.exec.planner.acceleration.substitution.SubstitutionInfo;
+import com.dremio.exec.proto.UserBitShared.PlanPhaseProfile;
+import com.dremio.exec.store.sys.accel.AccelerationDetailsPopulator;
+import com.dremio.service.namespace.NamespaceKey;
+import com.dremio.service.namespace.dataset.proto.DatasetConfig;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Unit tests of {@link PlanCache}
+ */
+public class TestPlanCache {
+
+  private static final NamespaceKey DATASET = new NamespaceKey(ImmutableList.of("src", "t"));
+
+  private static PlanCache.Key key(String sql, String user, long width) {
+    final SortedMap<String, Object> options = new TreeMap<>();
+    options.put("planner.width.max_per_node", width);
+    return new PlanCache.Key(sql, user, null, "DREMIO", true, ImmutableList.of(), ImmutableList.of(), options,
+      ImmutableList.of("m1:1"));
+  }
+
+  private static DremioTable table(String tag) {
+    final DremioTable table = mock(DremioTable.class);
+    when(table.getPath()).thenReturn(DATASET);
+    when(table.getDatasetConfig()).thenReturn(new DatasetConfig().setTag(tag));
+    return table;
+  }
+
+  private static PlanCache.Recorder recorder(DremioTable... tables) {
+    final PlanCache.Recorder recorder = new PlanCache.Recorder(false, false);
+    recorder.planStart("SELECT * FROM src.t");
+    recorder.planValidated(mock(RelDataType.class), mock(SqlNode.class), 1);
+    recorder.tablesCollected(ImmutableList.copyOf(tables));
+    return recorder;
+  }
+
+  private static void put(PlanCache cache, PlanCache.Key key, PhysicalPlan plan, PlanCache.Recorder recorder) {
+    cache.put(key, null, "user", plan, recorder);
+  }
+
+  @Test
+  public void keys() {
+    assertEquals(key("SELECT 1", "user", 4), key("SELECT 1", "user", 4));
+    assertEquals(key("SELECT 1", "user", 4).hashCode(), key("SELECT 1", "user", 4).hashCode());
+    assertNotEquals(key("SELECT 1", "user", 4), key("SELECT 2", "user", 4));
+    assertNotEquals(key("SELECT 1", "user", 4), key("SELECT 1", "other", 4));
+    assertNotEquals(key("SELECT 1", "user", 4), key("SELECT 1", "user", 8));
+  }
+
+  @Test
+  public void hitWhileDatasetUnchanged() {
+    final PlanCache cache = new PlanCache(10);
+    final PhysicalPlan plan = mock(PhysicalPlan.class);
+    put(cache, key("SELECT * FROM src.t", "user", 4), plan, recorder(table("1")));
+
+    final Catalog catalog = mock(Catalog.class);
+    final DremioTable current = table("1");
+    when(catalog.getTable(DATASET)).thenReturn(current);
+
+    assertSame(plan, cache.get(catalog, key("SELECT * FROM src.t", "user", 4)).getPlan());
+    assertNull(cache.get(catalog, key("SELECT * FROM src.t", "user", 8)));
+
+    final PlanCache.Stats stats = cache.getStats("localhost");
+    assertEquals(1, stats.entries);
+    assertEquals(1, stats.hits);
+    assertEquals(1, stats.misses);
+    assertEquals(0, stats.invalidations);
+  }
+
+  @Test
+  public void invalidatedWhenDatasetChanges() {
+    final PlanCache cache = new PlanCache(10);
+    put(cache, key("SELECT * FROM src.t", "user", 4), mock(PhysicalPlan.class), recorder(table("1")));
+
+    final Catalog catalog = mock(Catalog.class);
+    final DremioTable current = table("2");
+    when(catalog.getTable(DATASET)).thenReturn(current);
+
+    assertNull(cache.get(catalog, key("SELECT * FROM src.t", "user", 4)));
+    final PlanCache.Stats stats = cache.getStats("localhost");
+    assertEquals(0, stats.entries);
+    assertEquals(1, stats.invalidations);
+  }
+
+  @Test
+  public void notCachedWithoutDatasetVersions() {
+    final PlanCache cache = new PlanCache(10);
+
+    // tables never collected
+    final PlanCache.Recorder notCollected = new PlanCache.Recorder(false, false);
+    notCollected.planStart("SELECT 1");
+    notCollected.planValidated(mock(RelDataType.class), mock(SqlNode.class), 1);
+    put(cache, key("SELECT 1", "user", 4), mock(PhysicalPlan.class), notCollected);
+
+    // dataset without version
+    put(cache, key("SELECT * FROM src.t", "user", 4), mock(PhysicalPlan.class), recorder(table(null)));
+
+    assertEquals(0, cache.getStats("localhost").entries);
+  }
+
+  @Test
+  public void notCachedWhenAccelerated() {
+    final PlanCache cache = new PlanCache(10);
+    final PlanCache.Recorder recorder = recorder(table("1"));
+    recorder.planAccelerated(mock(SubstitutionInfo.class));
+    put(cache, key("SELECT * FROM src.t", "user", 4), mock(PhysicalPlan.class), recorder);
+
+    assertEquals(0, cache.getStats("localhost").entries);
+  }
+
+  @Test
+  public void replaysProfileText() {
+    final PlanCache cache = new PlanCache(10);
+    final PlanCache.Recorder recorder = recorder(table("1"));
+    recorder.planText("text plan", 2);
+    recorder.planJsonPlan("json plan");
+    put(cache, key("SELECT * FROM src.t", "user", 4), mock(PhysicalPlan.class), recorder);
+
+    final Catalog catalog = mock(Catalog.class);
+    final DremioTable current = table("1");
+    when(catalog.getTable(DATASET)).thenReturn(current);
+
+    final PlanCaptureAttemptObserver capture =
+      new PlanCaptureAttemptObserver(false, false, null, AccelerationDetailsPopulator.NO_OP);
+    cache.get(catalog, key("SELECT * FROM src.t", "user", 4)).replay(capture);
+    assertEquals("text plan", capture.getText());
+    assertEquals("json plan", capture.getJson());
+    // validation is replayed as is, and only shows once
+    assertEquals(ImmutableList.of("Validation", "Final Physical Transformation"),
+      capture.getPlanPhases().stream().map(PlanPhaseProfile::getPhaseName).collect(Collectors.toList()));
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner.sql.handlers.commands;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.dremio.BaseTestQuery;
+import com.dremio.exec.planner.physical.PlannerSettings;
+
+/**
+ * Tests of queries run with {@link PlanCache} enabled
+ */
+public class TestPlanCacheQueries extends BaseTestQuery {
+
+  private static PlanCache.Stats stats() {
+    return getSabotContext().getPlanCache().getStats("localhost");
+  }
+
+  private static void runTwice(String query, String column, Object value) throws Exception {
+    final long hits = stats().hits;
+
+    // planned, and the plan cached
+    testBuilder()
+      .sqlQuery(query)
+      .unOrdered()
+      .baselineColumns(column)
+      .baselineValues(value)
+      .go();
+    assertEquals(hits, stats().hits);
+
+    // run from the cached plan
+    testBuilder()
+      .sqlQuery(query)
+      .unOrdered()
+      .baselineColumns(column)
+      .baselineValues(value)
+      .go();
+    assertEquals(hits + 1, stats().hits);
+  }
+
+  @Test
+  public void filter() throws Exception {
+    try (AutoCloseable enabled = withOption(PlannerSettings.PLAN_CACHE_ENABLED, true)) {
+      runTwice("SELECT n_name FROM cp.\"tpch/nation.parquet\" WHERE n_nationkey = 3", "n_name", "CANADA");
+    }
+  }
+
+  @Test
+  public void aggregate() throws Exception {
+    try (AutoCloseable enabled = withOption(PlannerSettings.PLAN_CACHE_ENABLED, true)) {
+      runTwice("SELECT count(*) AS cnt FROM cp.\"tpch/nation.parquet\" WHERE n_regionkey = 1 GROUP BY n_regionkey",
+        "cnt", 5L);
+    }
+  }
+
+  @Test
+  public void notCachedWhenDisabled() throws Exception {
+    final long entries = stats().entries;
+    test("SELECT n_name FROM cp.\"tpch/nation.parquet\" WHERE n_nationkey = 4");
+    assertEquals(entries, stats().entries);
+  }
+}
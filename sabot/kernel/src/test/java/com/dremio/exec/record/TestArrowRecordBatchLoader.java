@@ -15,13 +15,21 @@
  */
 package com.dremio.exec.record;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.VarCharVector;
 import org.apache.arrow.vector.complex.ListVector;
 import org.apache.arrow.vector.complex.impl.UnionListWriter;
 import org.apache.arrow.vector.complex.writer.BaseWriter.StructWriter;
 import org.junit.Test;
 
+import com.dremio.common.expression.CompleteType;
 import com.dremio.exec.proto.UserBitShared.QueryId;
 import com.dremio.sabot.op.receiver.RawFragmentBatch;
 
@@ -72,4 +80,58 @@ public class TestArrowRecordBatchLoader {
       buffer.release();
     }
   }
+
+  @Test
+  public void compressed() {
+    try (BufferAllocator allocator = new RootAllocator(Integer.MAX_VALUE)) {
+      VectorContainer container = new VectorContainer(allocator);
+      BigIntVector ids = container.addOrGet(CompleteType.BIGINT.toField("id"));
+      VarCharVector names = container.addOrGet(CompleteType.VARCHAR.toField("name"));
+      final int count = 1000;
+      ids.allocateNew(count);
+      names.allocateNew(count * 10, count);
+      for (int i = 0; i < count; i++) {
+        ids.setSafe(i, i % 10);
+        if (i % 7 != 0) {
+          names.setSafe(i, ("value" + (i % 5)).getBytes(StandardCharsets.UTF_8));
+        }
+      }
+      container.setAllCount(count);
+      container.buildSchema();
+
+      FragmentWritableBatch fragmentWritableBatch = FragmentWritableBatch.create(QueryId.getDefaultInstance(), 0, 0, 0,
+        container, new ExchangeCompression(allocator, 0.9), 0);
+      assertEquals(fragmentWritableBatch.getBuffers().length,
+        fragmentWritableBatch.getHeader().getCompressedBufferLengthCount());
+
+      ByteBuf[] buffers = fragmentWritableBatch.getBuffers();
+      int length = 0;
+      for (ByteBuf buf : buffers) {
+        length += buf.readableBytes();
+      }
+      ArrowBuf body = allocator.buffer(length);
+      for (ByteBuf buf : buffers) {
+        body.writeBytes(buf);
+        buf.release();
+      }
+
+      try (VectorContainer received = VectorContainer.create(allocator, container.getSchema())) {
+        ArrowRecordBatchLoader loader = new ArrowRecordBatchLoader(received, allocator);
+        RawFragmentBatch rawFragmentBatch = new RawFragmentBatch(fragmentWritableBatch.getHeader(), body, null);
+        body.release();
+        assertTrue(loader.load(rawFragmentBatch) > length);
+        rawFragmentBatch.close();
+
+        assertEquals(count, loader.getRecordCount());
+        BigIntVector receivedIds = received.getValueAccessorById(BigIntVector.class, 0).getValueVector();
+        VarCharVector receivedNames = received.getValueAccessorById(VarCharVector.class, 1).getValueVector();
+        for (int i = 0; i < count; i++) {
+          assertEquals(ids.getObject(i), receivedIds.getObject(i));
+          assertEquals(names.getObject(i), receivedNames.getObject(i));
+        }
+        loader.close();
+      }
+      container.close();
+    }
+  }
 }
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnPath;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests of {@link ColumnChunkPrefetcher}
+ */
+public class TestColumnChunkPrefetcher {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+  private BufferAllocator allocator;
+  private FileSystem fs;
+  private Path path;
+  private byte[] data;
+
+  @Before
+  public void setup() throws Exception {
+    allocator = new RootAllocator(Long.MAX_VALUE);
+    fs = FileSystem.getLocal(new Configuration());
+
+    data = new byte[4096];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) (i * 7);
+    }
+    final File file = folder.newFile("chunks");
+    Files.write(file.toPath(), data);
+    path = new Path(file.toURI());
+  }
+
+  @After
+  public void cleanup() throws Exception {
+    executor.shutdown();
+    allocator.close();
+  }
+
+  private static ColumnChunkMetaData chunk(String name, long start, long size) {
+    return ColumnChunkMetaData.get(ColumnPath.get(name), PrimitiveTypeName.INT32, CompressionCodecName.UNCOMPRESSED,
+      Collections.singleton(Encoding.PLAIN), null, start, 0, 10, size, size);
+  }
+
+  @Test
+  public void coalesce() {
+    final List<ColumnChunkPrefetcher.Range> ranges = ColumnChunkPrefetcher.coalesce(Arrays.asList(
+      chunk("c", 2000, 100), chunk("a", 0, 100), chunk("b", 150, 100)), 100);
+    assertEquals(2, ranges.size());
+    assertEquals(0, ranges.get(0).getStart());
+    assertEquals(250, ranges.get(0).getEnd());
+    assertEquals(2000, ranges.get(1).getStart());
+    assertEquals(2100, ranges.get(1).getEnd());
+  }
+
+  private void checkChunk(ColumnChunkPrefetcher prefetcher, ColumnChunkMetaData chunk) throws Exception {
+    final FSDataInputStream stream = prefetcher.getStream(chunk);
+    assertNotNull(stream);
+    final int start = (int) chunk.getStartingPos();
+    final int size = (int) chunk.getTotalSize();
+
+    // read the second half with a direct buffer, then the first half with a byte array
+    stream.seek(start + size / 2);
+    final ByteBuffer direct = ByteBuffer.allocateDirect(size - size / 2);
+    stream.read(direct);
+    direct.flip();
+    final byte[] secondHalf = new byte[direct.remaining()];
+    direct.get(secondHalf);
+    assertEquals(ByteBuffer.wrap(data, start + size / 2, size - size / 2), ByteBuffer.wrap(secondHalf));
+
+    stream.seek(start);
+    final byte[] firstHalf = new byte[size / 2];
+    stream.readFully(firstHalf);
+    assertEquals(ByteBuffer.wrap(data, start, size / 2), ByteBuffer.wrap(firstHalf));
+    assertEquals(data[start + size / 2] & 0xFF, stream.read());
+  }
+
+  @Test
+  public void readPrefetchedChunks() throws Exception {
+    final List<ColumnChunkMetaData> chunks = Arrays.asList(
+      chunk("a", 0, 100), chunk("b", 150, 100), chunk("c", 2000, 1000));
+    final ParquetReaderStats stats = new ParquetReaderStats();
+
+    for (ExecutorService executorService : Arrays.asList(executor, null)) {
+      try (ColumnChunkPrefetcher prefetcher = new ColumnChunkPrefetcher(fs, path, allocator, executorService, chunks,
+          100, 1024 * 1024, stats)) {
+        prefetcher.start();
+        for (ColumnChunkMetaData chunk : chunks) {
+          checkChunk(prefetcher, chunk);
+        }
+        assertNull(prefetcher.getStream(chunk("d", 3500, 100)));
+      }
+    }
+    assertEquals(4, stats.numCoalescedReads);
+    assertEquals(2 * (250 + 1000), stats.totalCoalescedReadBytes);
+  }
+
+  @Test
+  public void overBudget() throws Exception {
+    final List<ColumnChunkMetaData> chunks = Arrays.asList(chunk("a", 0, 100), chunk("b", 2000, 1000));
+    final ParquetReaderStats stats = new ParquetReaderStats();
+    try (ColumnChunkPrefetcher prefetcher = new ColumnChunkPrefetcher(fs, path, allocator, executor, chunks, 100,
+        1000, stats)) {
+      prefetcher.start();
+      assertNull(prefetcher.getStream(chunks.get(0)));
+      assertNull(prefetcher.getStream(chunks.get(1)));
+    }
+    assertEquals(0, stats.numCoalescedReads);
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.io.Resources;
+
+/**
+ * Unit tests of {@link ParquetFooterCache}
+ */
+public class TestParquetFooterCache {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private FileSystem fs;
+  private Path path;
+
+  @Before
+  public void setup() throws Exception {
+    fs = FileSystem.getLocal(new Configuration());
+    final File file = folder.newFile("footer.parquet");
+    try (InputStream is = Resources.getResource("parquet/no_nulls.parquet").openStream()) {
+      Files.copy(is, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+    path = new Path(file.toURI());
+  }
+
+  private ParquetMetadata getFooter(ParquetFooterCache cache) throws IOException {
+    final FileStatus status = fs.getFileStatus(path);
+    return cache.getFooter(fs, path, status.getLen(), status.getModificationTime());
+  }
+
+  @Test
+  public void sharedFooter() throws Exception {
+    final ParquetFooterCache cache = new ParquetFooterCache(1024 * 1024);
+    final ParquetMetadata footer = getFooter(cache);
+    assertSame(footer, getFooter(cache));
+    assertEquals(ParquetFooterCache.estimateSize(footer), cache.estimatedBytes());
+    assertTrue(footer.getBlocks().size() > 0);
+  }
+
+  @Test
+  public void modifiedFile() throws Exception {
+    final ParquetFooterCache cache = new ParquetFooterCache(1024 * 1024);
+    final ParquetMetadata footer = getFooter(cache);
+    fs.setTimes(path, fs.getFileStatus(path).getModificationTime() + 10_000, -1);
+    final ParquetMetadata newFooter = getFooter(cache);
+    assertNotSame(footer, newFooter);
+    assertSame(newFooter, getFooter(cache));
+  }
+
+  @Test
+  public void overBudget() throws Exception {
+    final ParquetFooterCache cache = new ParquetFooterCache(0);
+    assertNotSame(getFooter(cache), getFooter(cache));
+    assertEquals(0, cache.estimatedBytes());
+  }
+}
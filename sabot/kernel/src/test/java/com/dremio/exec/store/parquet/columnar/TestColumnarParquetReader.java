@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.columnar;
+
+import static org.apache.parquet.column.Encoding.BIT_PACKED;
+import static org.apache.parquet.column.Encoding.PLAIN;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.bytes.BytesInput;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import com.dremio.BaseTestQuery;
+import com.dremio.TestBuilder;
+import com.dremio.exec.ExecConstants;
+
+/**
+ * Compare the results of {@link ColumnarParquetReader} to the ones of the row-wise reader
+ */
+public class TestColumnarParquetReader extends BaseTestQuery {
+
+  @AfterClass
+  public static void resetVectorize() throws Exception {
+    test("alter session set \"%s\" = %b", ExecConstants.PARQUET_READER_VECTORIZE.getOptionName(),
+      ExecConstants.PARQUET_READER_VECTORIZE.getDefault().getBoolVal());
+  }
+
+  private void compareToRowwise(String query) throws Exception {
+    testBuilder()
+      .unOrdered()
+      .sqlQuery(query)
+      .optionSettingQueriesForTestQuery("alter session set \"store.parquet.vectorize\" = true")
+      .sqlBaselineQuery(query)
+      .optionSettingQueriesForBaseline("alter session set \"store.parquet.vectorize\" = false")
+      .build().run();
+  }
+
+  @Test
+  public void allScalarTypes() throws Exception {
+    compareToRowwise("select * from cp.\"parquet/all_scalar_types.parquet\"");
+  }
+
+  @Test
+  public void noNulls() throws Exception {
+    compareToRowwise("select * from cp.\"parquet/no_nulls.parquet\"");
+  }
+
+  @Test
+  public void allNullPages() throws Exception {
+    compareToRowwise("select * from cp.\"parquet/first_page_all_nulls.parquet\"");
+    compareToRowwise("select * from cp.\"parquet/last_page_all_nulls.parquet\"");
+    compareToRowwise("select * from cp.\"parquet/first_page_one_null.parquet\"");
+  }
+
+  @Test
+  public void dictionaryEncoded() throws Exception {
+    compareToRowwise("select * from cp.\"parquet/bigIntDictionary.parquet\"");
+    compareToRowwise("select * from cp.\"parquet/date_dictionary.parquet\"");
+    compareToRowwise("select * from cp.\"parquet/time_dictionary.parquet\"");
+    compareToRowwise("select * from cp.\"parquet/required_dictionary.parquet\"");
+  }
+
+  @Test
+  public void mixedWithRowwiseColumns() throws Exception {
+    // the decimal and int96 columns are read by the row-wise reader, the other ones by the columnar reader
+    compareToRowwise("select * from cp.\"parquet/alltypes_required.parquet\"");
+  }
+
+  @Test
+  public void bitPackedDefinitionLevels() throws Exception {
+    // old parquet-mr versions wrote the definition levels of optional columns with the BIT_PACKED encoding
+    final int rows = 100;
+    final File file = new File(getDfsTestTmpSchemaLocation(), "bit_packed_levels.parquet");
+    file.delete();
+
+    final MessageType schema = MessageTypeParser.parseMessageType("message test { optional int32 a; required int32 b; }");
+    final ParquetFileWriter writer = new ParquetFileWriter(new Configuration(), schema, new Path(file.toURI()));
+    writer.start();
+    writer.startBlock(rows);
+
+    // a: null every third row, the levels are packed one bit per value, most significant bit first
+    final int nonNulls = rows - (rows + 2) / 3;
+    final ByteBuffer optional = ByteBuffer.allocate((rows + 7) / 8 + nonNulls * 4).order(ByteOrder.LITTLE_ENDIAN);
+    for (int i = 0; i < rows; i++) {
+      if (i % 3 != 0) {
+        optional.put(i / 8, (byte) (optional.get(i / 8) | 0x80 >>> (i % 8)));
+      }
+    }
+    optional.position((rows + 7) / 8);
+    for (int i = 0; i < rows; i++) {
+      if (i % 3 != 0) {
+        optional.putInt(i);
+      }
+    }
+    writePage(writer, schema.getColumnDescription(new String[] {"a"}), rows, optional);
+
+    // b: required, no levels are read
+    final ByteBuffer required = ByteBuffer.allocate(rows * 4).order(ByteOrder.LITTLE_ENDIAN);
+    for (int i = 0; i < rows; i++) {
+      required.putInt(i * 10);
+    }
+    writePage(writer, schema.getColumnDescription(new String[] {"b"}), rows, required);
+
+    writer.endBlock();
+    writer.end(new HashMap<String, String>());
+
+    final String query = String.format("select a, b from %s.\"%s\"", TEMP_SCHEMA, file.getName());
+    compareToRowwise(query);
+
+    final TestBuilder builder = testBuilder()
+      .unOrdered()
+      .sqlQuery(query)
+      .optionSettingQueriesForTestQuery("alter session set \"store.parquet.vectorize\" = true")
+      .baselineColumns("a", "b");
+    for (int i = 0; i < rows; i++) {
+      builder.baselineValues(i % 3 != 0 ? i : null, i * 10);
+    }
+    builder.go();
+  }
+
+  private static void writePage(ParquetFileWriter writer, ColumnDescriptor column, int rows, ByteBuffer page)
+      throws Exception {
+    final byte[] bytes = page.array();
+    writer.startColumn(column, rows, CompressionCodecName.UNCOMPRESSED);
+    writer.writeDataPage(rows, bytes.length, BytesInput.from(bytes), BIT_PACKED, BIT_PACKED, PLAIN);
+    writer.endColumn();
+  }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.columnar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.ParquetProperties.WriterVersion;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.CodecFactory;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.GroupWriteSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.common.expression.CompleteType;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.physical.base.SubScan;
+import com.dremio.exec.record.BatchSchema;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.VectorWrapper;
+import com.dremio.exec.store.RecordReader;
+import com.dremio.exec.store.dfs.FileSystemWrapper;
+import com.dremio.exec.store.parquet.InputStreamProvider;
+import com.dremio.exec.store.parquet.ParquetFilterCondition;
+import com.dremio.exec.store.parquet.ParquetReaderUtility.DateCorruptionStatus;
+import com.dremio.exec.store.parquet.SchemaDerivationHelper;
+import com.dremio.exec.store.parquet.UnifiedParquetReader;
+import com.dremio.parquet.reader.ParquetDirectByteBufferAllocator;
+import com.dremio.sabot.BaseTestOperator;
+import com.dremio.sabot.driver.SchemaChangeListener;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.op.scan.ScanOperator;
+import com.dremio.service.namespace.file.proto.ParquetDatasetSplitScanXAttr;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Longs;
+
+/**
+ * Tests of the filter conditions pushed down to {@link UnifiedParquetReader}, read with {@link ColumnarParquetReader}
+ * and compared to the row-wise reader. The planner doesn't push filter conditions down to parquet scans, so the
+ * readers are given one directly.
+ */
+public class TestColumnarParquetReaderFilter extends BaseTestOperator {
+
+  private static final int ROWS = 10_000;
+  private static final int PAGE_SIZE = 1024;
+  private static final int ROW_GROUP_SIZE = 128 * 1024 * 1024;
+
+  // a: row number, b: 10 times the row number, m: row number modulo 7, c: row number as 8 big endian bytes
+  private static final MessageType PARQUET_SCHEMA = MessageTypeParser.parseMessageType("message test { "
+    + "required int64 a; required int64 b; required int32 m; required fixed_len_byte_array(8) c; }");
+  private static final BatchSchema SCHEMA = BatchSchema.newBuilder()
+    .addField(CompleteType.BIGINT.toField("a"))
+    .addField(CompleteType.BIGINT.toField("b"))
+    .addField(CompleteType.INT.toField("m"))
+    .addField(CompleteType.VARBINARY.toField("c"))
+    .build();
+  private static final List<SchemaPath> COLUMNS = ImmutableList.of(SchemaPath.getSimplePath("a"),
+    SchemaPath.getSimplePath("b"), SchemaPath.getSimplePath("m"), SchemaPath.getSimplePath("c"));
+
+  private static File file;
+
+  private OperatorContext scanContext;
+
+  @BeforeClass
+  public static void writeFile() throws Exception {
+    // small uncompressed plain pages, all in a single row group, so each page covers a narrow range of a
+    file = new File(testFolder.getRoot(), "filtered.parquet");
+    final Configuration conf = new Configuration();
+    GroupWriteSupport.setSchema(PARQUET_SCHEMA, conf);
+    final SimpleGroupFactory groups = new SimpleGroupFactory(PARQUET_SCHEMA);
+    try (ParquetWriter<Group> writer = new ParquetWriter<>(new Path(file.toURI()), new GroupWriteSupport(),
+        CompressionCodecName.UNCOMPRESSED, ROW_GROUP_SIZE, PAGE_SIZE, PAGE_SIZE, false, false,
+        WriterVersion.PARQUET_1_0, conf)) {
+      for (int i = 0; i < ROWS; i++) {
+        writer.write(groups.newGroup()
+          .append("a", (long) i)
+          .append("b", i * 10L)
+          .append("m", i % 7)
+          .append("c", Binary.fromConstantByteArray(Longs.toByteArray(i))));
+      }
+    }
+  }
+
+  private static ParquetFilterCondition condition(String column, String expr) {
+    return new ParquetFilterCondition(SchemaPath.getSimplePath(column), null, parseExpr(expr), 0);
+  }
+
+  private static List<Long> row(long i) {
+    return Arrays.asList(i, i * 10, i % 7, i);
+  }
+
+  @Test
+  public void rowGroupPrunedByStatistics() throws Exception {
+    try (AutoCloseable pruning = with(ExecConstants.PARQUET_STATS_PRUNING, true)) {
+      assertEquals(Collections.emptyList(), read(condition("a", "a > 100000"), true));
+      assertEquals(1, scanContext.getStats().getLongStat(ScanOperator.Metric.NUM_ROW_GROUPS_PRUNED));
+    }
+  }
+
+  @Test
+  public void pagesPrunedByStatistics() throws Exception {
+    final List<List<Long>> expected = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      expected.add(row(i));
+    }
+
+    try (AutoCloseable pruning = with(ExecConstants.PARQUET_STATS_PRUNING, true)) {
+      assertEquals(expected, read(condition("a", "a < 100"), true));
+      assertEquals(0, scanContext.getStats().getLongStat(ScanOperator.Metric.NUM_ROW_GROUPS_PRUNED));
+      // the first page holds all the matching rows, the others are skipped without being read
+      assertTrue(scanContext.getStats().getLongStat(ScanOperator.Metric.NUM_PAGES_PRUNED) > 0);
+    }
+  }
+
+  @Test
+  public void notPrunedWhenDisabled() throws Exception {
+    try (AutoCloseable pruning = with(ExecConstants.PARQUET_STATS_PRUNING, false)) {
+      assertEquals(Collections.emptyList(), read(condition("a", "a > 100000"), true));
+      assertEquals(0, scanContext.getStats().getLongStat(ScanOperator.Metric.NUM_ROW_GROUPS_PRUNED));
+      assertEquals(0, scanContext.getStats().getLongStat(ScanOperator.Metric.NUM_PAGES_PRUNED));
+    }
+  }
+
+  @Test
+  public void filteredRowsMatchRowwise() throws Exception {
+    // scattered matches, in one batch or spanning several ones, with the literal on either side
+    checkFilteredRows("m = 3", m -> m == 3);
+    checkFilteredRows("m <> 3", m -> m != 3);
+    checkFilteredRows("3 < m", m -> m > 3);
+  }
+
+  private void checkFilteredRows(String expr, IntPredicate matches) throws Exception {
+    final List<List<Long>> expected = new ArrayList<>();
+    for (int i = 0; i < ROWS; i++) {
+      if (matches.test(i % 7)) {
+        expected.add(row(i));
+      }
+    }
+
+    // a, b and m are read by the columnar reader, c by the row-wise reader following the deltas of the filter
+    final List<List<Long>> columnar = read(condition("m", expr), true);
+    assertEquals(3, scanContext.getStats().getLongStat(ScanOperator.Metric.NUM_VECTORIZED_COLUMNS));
+    assertEquals(1, scanContext.getStats().getLongStat(ScanOperator.Metric.NUM_NON_VECTORIZED_COLUMNS));
+    assertEquals(expr, expected, columnar);
+
+    // everything is read by the row-wise reader, and filtered afterwards
+    assertEquals(expr, columnar, read(condition("m", expr), false));
+  }
+
+  /**
+   * Read the file through a scan, filtered with the given condition, and return the values of its rows. The stats of
+   * the scan are left in {@link #scanContext}.
+   */
+  private List<List<Long>> read(ParquetFilterCondition condition, boolean vectorize) throws Exception {
+    final SubScan config = mock(SubScan.class);
+    when(config.getSchema()).thenReturn(SCHEMA);
+    when(config.getColumns()).thenReturn(COLUMNS);
+    when(config.getReferencedTables()).thenReturn(Collections.<List<String>>emptyList());
+    scanContext = testContext.getNewOperatorContext(
+      getTestAllocator().newChildAllocator("scan", 0, Long.MAX_VALUE), config, DEFAULT_BATCH);
+    testCloseables.add(scanContext);
+
+    final Configuration conf = new Configuration();
+    final Path path = new Path(file.toURI());
+    final FileSystemWrapper fs = FileSystemWrapper.get(path, conf);
+    final ParquetMetadata footer = ParquetFileReader.readFooter(conf, path, ParquetMetadataConverter.NO_FILTER);
+    final CodecFactory codec = CodecFactory.createDirectCodecFactory(conf,
+      new ParquetDirectByteBufferAllocator(scanContext.getAllocator()), 0);
+    final ParquetDatasetSplitScanXAttr split = new ParquetDatasetSplitScanXAttr();
+    split.setPath(path.toUri().getPath());
+    split.setFileLength(file.length());
+    split.setStart(0L);
+    split.setLength(file.length());
+    split.setRowGroupIndex(0);
+    final SchemaDerivationHelper schemaHelper = SchemaDerivationHelper.builder()
+      .readInt96AsTimeStamp(false)
+      .dateCorruptionStatus(DateCorruptionStatus.META_SHOWS_NO_CORRUPTION)
+      .build();
+
+    final UnifiedParquetReader reader = new UnifiedParquetReader(scanContext, new ColumnarParquetReaderFactory(),
+      SCHEMA, COLUMNS, null, ImmutableList.of(condition), split, fs, footer, null, codec, schemaHelper, vectorize,
+      false, new InputStreamProvider(fs, path, false));
+
+    final List<List<Long>> rows = new ArrayList<>();
+    final ScanOperator scan = new ScanOperator(mock(SchemaChangeListener.class), config, scanContext,
+      Collections.<RecordReader>singletonList(reader).iterator());
+    try {
+      final VectorAccessible output = scan.setup();
+      int count;
+      while ((count = scan.outputData()) > 0) {
+        final BigIntVector a = vector(output, "a");
+        final BigIntVector b = vector(output, "b");
+        final IntVector m = vector(output, "m");
+        final VarBinaryVector c = vector(output, "c");
+        for (int i = 0; i < count; i++) {
+          rows.add(Arrays.asList(a.get(i), b.get(i), (long) m.get(i), Longs.fromByteArray(c.get(i))));
+        }
+      }
+    } finally {
+      // the readers report the pruned pages when closed
+      AutoCloseables.close(scan);
+      codec.release();
+    }
+    return rows;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T extends ValueVector> T vector(VectorAccessible accessible, String name) {
+    for (VectorWrapper<?> wrapper : accessible) {
+      if (wrapper.getField().getName().equals(name)) {
+        return (T) wrapper.getValueVector();
+      }
+    }
+    throw new IllegalArgumentException(name);
+  }
+}
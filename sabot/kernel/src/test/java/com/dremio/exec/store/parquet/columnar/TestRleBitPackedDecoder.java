@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.columnar;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+
+import org.apache.parquet.bytes.BytesInput;
+import org.apache.parquet.bytes.HeapByteBufferAllocator;
+import org.apache.parquet.column.values.rle.RunLengthBitPackingHybridEncoder;
+import org.junit.Test;
+
+/**
+ * Check {@link RleBitPackedDecoder} decodes the output of the parquet encoder
+ */
+public class TestRleBitPackedDecoder {
+
+  private static ByteBuffer encode(int bitWidth, int[] values) throws Exception {
+    final RunLengthBitPackingHybridEncoder encoder =
+      new RunLengthBitPackingHybridEncoder(bitWidth, 64, 1024, new HeapByteBufferAllocator());
+    for (int value : values) {
+      encoder.writeInt(value);
+    }
+    final BytesInput bytes = encoder.toBytes();
+    return ByteBuffer.wrap(bytes.toByteArray());
+  }
+
+  private static int[] values(int count, int bitWidth) {
+    final int[] values = new int[count];
+    final int mask = (1 << bitWidth) - 1;
+    for (int i = 0; i < count; i++) {
+      // alternate between long runs of the same value and varying values, so both run types are used
+      values[i] = ((i / 100) % 2 == 0 ? i / 100 : i * 31) & mask;
+    }
+    return values;
+  }
+
+  @Test
+  public void readInts() throws Exception {
+    for (int bitWidth : new int[] {1, 3, 8, 13, 20}) {
+      final int[] expected = values(1000, bitWidth);
+      final ByteBuffer buffer = encode(bitWidth, expected);
+      final RleBitPackedDecoder decoder = new RleBitPackedDecoder(buffer, 0, buffer.limit(), bitWidth);
+
+      final int[] actual = new int[expected.length];
+      decoder.readInts(actual, 0, 500);
+      for (int i = 500; i < expected.length; i++) {
+        actual[i] = decoder.readInt();
+      }
+      assertArrayEquals("bit width " + bitWidth, expected, actual);
+    }
+  }
+
+  @Test
+  public void skip() throws Exception {
+    final int[] expected = values(1000, 7);
+    final ByteBuffer buffer = encode(7, expected);
+    final RleBitPackedDecoder decoder = new RleBitPackedDecoder(buffer, 0, buffer.limit(), 7);
+
+    for (int i = 0; i < expected.length; i += 10) {
+      assertEquals(expected[i], decoder.readInt());
+      decoder.skip(Math.min(9, expected.length - i - 1));
+    }
+  }
+
+  @Test
+  public void zeroBitWidth() {
+    // single RLE run of 10 zeros, with no value bytes
+    final ByteBuffer buffer = ByteBuffer.wrap(new byte[] {20});
+    final RleBitPackedDecoder decoder = new RleBitPackedDecoder(buffer, 0, 1, 0);
+    final int[] actual = new int[10];
+    decoder.readInts(actual, 0, 10);
+    assertArrayEquals(new int[10], actual);
+  }
+}
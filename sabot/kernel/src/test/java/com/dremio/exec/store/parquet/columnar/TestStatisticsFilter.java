@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.columnar;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.parquet.column.statistics.DoubleStatistics;
+import org.apache.parquet.column.statistics.IntStatistics;
+import org.apache.parquet.column.statistics.LongStatistics;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Type.Repetition;
+import org.junit.Test;
+
+import com.dremio.common.expression.FunctionCall;
+import com.dremio.common.expression.LogicalExpression;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.common.expression.ValueExpressions;
+import com.dremio.exec.store.parquet.ParquetReaderUtility.DateCorruptionStatus;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Unit tests of {@link StatisticsFilter}
+ */
+public class TestStatisticsFilter {
+
+  private static final PrimitiveType INT64 = new PrimitiveType(Repetition.OPTIONAL, PrimitiveTypeName.INT64, "c");
+  private static final PrimitiveType DOUBLE = new PrimitiveType(Repetition.OPTIONAL, PrimitiveTypeName.DOUBLE, "c");
+  private static final PrimitiveType DATE =
+    new PrimitiveType(Repetition.OPTIONAL, PrimitiveTypeName.INT32, "c", OriginalType.DATE);
+
+  private static StatisticsFilter filter(String function, LogicalExpression literal, PrimitiveType type,
+      DateCorruptionStatus status) {
+    final ColumnPredicate predicate = ColumnPredicate.of(new FunctionCall(function,
+      ImmutableList.<LogicalExpression>of(SchemaPath.getSimplePath("c"), literal)));
+    return StatisticsFilter.of(predicate, type, status);
+  }
+
+  private static StatisticsFilter longFilter(String function, long value) {
+    return filter(function, ValueExpressions.getBigInt(value), INT64, DateCorruptionStatus.META_SHOWS_NO_CORRUPTION);
+  }
+
+  private static LongStatistics longStats(long min, long max, long numNulls) {
+    final LongStatistics stats = new LongStatistics();
+    stats.setMinMax(min, max);
+    stats.setNumNulls(numNulls);
+    return stats;
+  }
+
+  @Test
+  public void longRange() {
+    final LongStatistics stats = longStats(10, 20, 0);
+    assertTrue(longFilter("equal", 5).canDrop(stats, 100));
+    assertFalse(longFilter("equal", 10).canDrop(stats, 100));
+    assertTrue(longFilter("less_than", 10).canDrop(stats, 100));
+    assertFalse(longFilter("less_than_or_equal_to", 10).canDrop(stats, 100));
+    assertTrue(longFilter("greater_than", 20).canDrop(stats, 100));
+    assertFalse(longFilter("greater_than_or_equal_to", 20).canDrop(stats, 100));
+    assertFalse(longFilter("not_equal", 15).canDrop(stats, 100));
+    assertTrue(longFilter("not_equal", 7).canDrop(longStats(7, 7, 0), 100));
+  }
+
+  @Test
+  public void nullsOnly() {
+    final LongStatistics stats = new LongStatistics();
+    stats.setNumNulls(100);
+    assertTrue(longFilter("equal", 5).canDrop(stats, 100));
+    assertFalse(longFilter("equal", 5).canDrop(stats, 101));
+    // statistics without null count
+    assertFalse(longFilter("equal", 5).canDrop(new LongStatistics(), 100));
+  }
+
+  @Test
+  public void doubleRange() {
+    final DoubleStatistics stats = new DoubleStatistics();
+    stats.setMinMax(-0.0, 1.5);
+    assertFalse(filter("equal", ValueExpressions.getFloat8(0.0), DOUBLE,
+      DateCorruptionStatus.META_SHOWS_NO_CORRUPTION).canDrop(stats, 10));
+    assertTrue(filter("greater_than", ValueExpressions.getFloat8(1.5), DOUBLE,
+      DateCorruptionStatus.META_SHOWS_NO_CORRUPTION).canDrop(stats, 10));
+    // integer literal compared to a double column
+    assertTrue(filter("greater_than", ValueExpressions.getBigInt(2), DOUBLE,
+      DateCorruptionStatus.META_SHOWS_NO_CORRUPTION).canDrop(stats, 10));
+
+    final DoubleStatistics nan = new DoubleStatistics();
+    nan.setMinMax(Double.NaN, Double.NaN);
+    assertFalse(filter("equal", ValueExpressions.getFloat8(0.0), DOUBLE,
+      DateCorruptionStatus.META_SHOWS_NO_CORRUPTION).canDrop(nan, 10));
+  }
+
+  @Test
+  public void dates() {
+    final IntStatistics stats = new IntStatistics();
+    // 1970-01-11 to 1970-01-21
+    stats.setMinMax(10, 20);
+    final long day = 24L * 3600 * 1000;
+    assertTrue(filter("less_than", new ValueExpressions.DateExpression(10 * day), DATE,
+      DateCorruptionStatus.META_SHOWS_NO_CORRUPTION).canDrop(stats, 10));
+    assertFalse(filter("less_than_or_equal_to", new ValueExpressions.DateExpression(10 * day), DATE,
+      DateCorruptionStatus.META_SHOWS_NO_CORRUPTION).canDrop(stats, 10));
+    // the corrected values aren't ordered like the stored ones
+    assertNull(filter("less_than", new ValueExpressions.DateExpression(10 * day), DATE,
+      DateCorruptionStatus.META_UNCLEAR_TEST_VALUES));
+  }
+
+  @Test
+  public void binaryNotSupported() {
+    final PrimitiveType binary = new PrimitiveType(Repetition.OPTIONAL, PrimitiveTypeName.BINARY, "c",
+      OriginalType.UTF8);
+    assertNull(filter("equal", ValueExpressions.getChar("abc"), binary,
+      DateCorruptionStatus.META_SHOWS_NO_CORRUPTION));
+  }
+}
@@ -80,6 +80,11 @@ public class TestSystemTable extends BaseTestQuery {
     test("select * from sys.fragments");
   }
 
+  @Test
+  public void schedulingGroupsTable() throws Exception {
+    test("select * from sys.scheduling_groups");
+  }
+
   @Test
   public void verifyNumNodes() throws Exception {
     testBuilder()
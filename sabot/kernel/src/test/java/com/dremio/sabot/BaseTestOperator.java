@@ -71,6 +71,7 @@ import com.dremio.exec.physical.config.MergeJoinPOP;
 import com.dremio.exec.physical.config.NestedLoopJoinPOP;
 import com.dremio.exec.physical.config.Screen;
 import com.dremio.exec.physical.config.UnionAll;
+import com.dremio.exec.proto.CoordExecRPC.FragmentAssignment;
 import com.dremio.exec.proto.CoordExecRPC.QueryContextInformation;
 import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 import com.dremio.exec.proto.ExecProtos.FragmentHandle;
@@ -206,7 +207,7 @@ public class BaseTestOperator extends ExecTest {
   /**
    * Helper class to return a pair of results from a function.
    */
-  private class Pair<First, Second> implements AutoCloseable {
+  protected class Pair<First, Second> implements AutoCloseable {
     public final First first;
     public final Second second;
 
@@ -247,6 +248,14 @@ public class BaseTestOperator extends ExecTest {
   }
 
   protected <T extends Operator> Pair<T, OperatorStats> newOperatorWithStats(Class<T> clazz, PhysicalOperator pop, int targetBatchSize, TunnelProvider tunnelProvider, final RawFragmentBatchProvider[]... batchProviders) throws Exception {
+    return newOperatorWithStats(clazz, pop, targetBatchSize, tunnelProvider, ImmutableList.<FragmentAssignment>of(), batchProviders);
+  }
+
+  /**
+   * Create a new operator whose context sends out of band messages to the provided assignments, through the
+   * provided tunnel provider. The operator runs as minor fragment 0 of major fragment 0.
+   */
+  protected <T extends Operator> Pair<T, OperatorStats> newOperatorWithStats(Class<T> clazz, PhysicalOperator pop, int targetBatchSize, TunnelProvider tunnelProvider, List<FragmentAssignment> assignments, final RawFragmentBatchProvider[]... batchProviders) throws Exception {
 
     final BatchStreamProvider provider = new BatchStreamProvider(){
 
@@ -270,7 +279,8 @@ public class BaseTestOperator extends ExecTest {
         pop.getMaxAllocation() == 0 ? Long.MAX_VALUE : pop.getMaxAllocation());
 
     // we don't close child allocator as the operator context will manage this.
-    final OperatorContextImpl context = testContext.getNewOperatorContext(childAllocator, pop, targetBatchSize);
+    final OperatorContextImpl context = testContext.getNewOperatorContext(childAllocator, pop, targetBatchSize,
+        tunnelProvider == null ? Mockito.mock(TunnelProvider.class) : tunnelProvider, assignments);
     testCloseables.add(context);
 
     // mock FEC
@@ -346,6 +356,11 @@ public class BaseTestOperator extends ExecTest {
     }
 
     public OperatorContextImpl getNewOperatorContext(BufferAllocator child, PhysicalOperator pop, int targetBatchSize) throws Exception {
+      return getNewOperatorContext(child, pop, targetBatchSize, Mockito.mock(TunnelProvider.class), ImmutableList.<FragmentAssignment>of());
+    }
+
+    public OperatorContextImpl getNewOperatorContext(BufferAllocator child, PhysicalOperator pop, int targetBatchSize,
+        TunnelProvider tunnelProvider, List<FragmentAssignment> assignments) throws Exception {
       OperatorStats stats = new OperatorStats(new OpProfileDef(1, 1, 1), child);
       final NamespaceService namespaceService = new NamespaceServiceImpl(testContext.storeProvider);
       final DremioConfig dremioConfig = DremioConfig.create(null, config);
@@ -380,8 +395,8 @@ public class BaseTestOperator extends ExecTest {
           spillService,
           NodeDebugContextProvider.NOOP,
           targetBatchSize,
-          Mockito.mock(TunnelProvider.class),
-          ImmutableList.of()
+          tunnelProvider,
+          assignments
           );
     }
 
@@ -547,21 +562,21 @@ public class BaseTestOperator extends ExecTest {
     assertSingleInput(pop, clazz, table, scale, expectedCount, batchSize, null);
   }
 
-  protected <T extends SingleInputOperator> void assertSingleInput(PhysicalOperator pop, Class<T> clazz, TpchTable table, double scale, Long expectedCount, int batchSize, Table result) throws Exception {
+  protected <T extends SingleInputOperator> OperatorStats assertSingleInput(PhysicalOperator pop, Class<T> clazz, TpchTable table, double scale, Long expectedCount, int batchSize, Table result) throws Exception {
     TpchGenerator generator = TpchGenerator.singleGenerator(table, scale, getTestAllocator());
-    validateSingle(pop, clazz, generator, result, batchSize, expectedCount);
+    return validateSingle(pop, clazz, generator, result, batchSize, expectedCount);
   }
 
   protected <T extends SingleInputOperator> void validateSingle(PhysicalOperator pop, Class<T> clazz, Fixtures.Table input, Fixtures.Table result) throws Exception {
     validateSingle(pop, clazz, input.toGenerator(getTestAllocator()), result, DEFAULT_BATCH);
   }
 
-  protected <T extends SingleInputOperator> void validateSingle(PhysicalOperator pop, Class<T> clazz, Fixtures.Table input, Fixtures.Table result, int batchSize) throws Exception {
-    validateSingle(pop, clazz, input.toGenerator(getTestAllocator()), result, batchSize);
+  protected <T extends SingleInputOperator> OperatorStats validateSingle(PhysicalOperator pop, Class<T> clazz, Fixtures.Table input, Fixtures.Table result, int batchSize) throws Exception {
+    return validateSingle(pop, clazz, input.toGenerator(getTestAllocator()), result, batchSize);
   }
 
-  protected <T extends SingleInputOperator> void validateSingle(PhysicalOperator pop, Class<T> clazz, Generator generator, Fixtures.Table result, int batchSize) throws Exception {
-    validateSingle(pop, clazz, generator, result, batchSize, null);
+  protected <T extends SingleInputOperator> OperatorStats validateSingle(PhysicalOperator pop, Class<T> clazz, Generator generator, Fixtures.Table result, int batchSize) throws Exception {
+    return validateSingle(pop, clazz, generator, result, batchSize, null);
   }
 
   private <T extends SingleInputOperator> OperatorStats validateSingle(PhysicalOperator pop, Class<T> clazz, Generator generator, Fixtures.Table result, int batchSize, Long expected) throws Exception {
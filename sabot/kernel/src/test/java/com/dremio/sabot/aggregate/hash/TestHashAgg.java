@@ -18,6 +18,7 @@ package com.dremio.sabot.aggregate.hash;
 import static com.dremio.sabot.Fixtures.t;
 import static com.dremio.sabot.Fixtures.th;
 import static com.dremio.sabot.Fixtures.tr;
+import static org.junit.Assert.assertTrue;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
@@ -42,7 +43,9 @@ import com.dremio.sabot.BaseTestOperator;
 import com.dremio.sabot.Fixtures;
 import com.dremio.sabot.Fixtures.Table;
 import com.dremio.sabot.Generator;
+import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.op.aggregate.hash.HashAggOperator;
+import com.dremio.sabot.op.aggregate.vectorized.HashAggStats;
 import com.dremio.sabot.op.aggregate.vectorized.VectorizedHashAggOperator;
 import com.dremio.sabot.op.aggregate.vectorized.nospill.VectorizedHashAggOperatorNoSpill;
 import com.dremio.test.UserExceptionMatcher;
@@ -929,4 +932,43 @@ public class TestHashAgg extends BaseTestOperator {
       validateSingle(vanillaConf, HashAggOperator.class, inputData, expected);
     }
   }
+
+  @Test
+  public void adaptivePreAggFlush() throws Exception {
+    final Table inputData = t(
+      th("x", "y"),
+      tr(1L, 10L),
+      tr(2L, 20L),
+      tr(3L, 30L),
+      tr(4L, 40L),
+      tr(5L, 50L),
+      tr(6L, 60L)
+    );
+
+    final List<NamedExpression> dim = Arrays.asList(n("x"));
+    final List<NamedExpression> measure = Arrays.asList(
+      n("sum(y)", "sum"),
+      n("count(y)", "cnt")
+    );
+
+    final Table expected = t(
+      th("x", "sum", "cnt"),
+      tr(1L, 10L, 1L),
+      tr(2L, 20L, 1L),
+      tr(3L, 30L, 1L),
+      tr(4L, 40L, 1L),
+      tr(5L, 50L, 1L),
+      tr(6L, 60L, 1L))
+      .orderInsensitive();
+
+    /* every key is distinct so each partition gets flushed after every batch */
+    final HashAggregate conf = new HashAggregate(null, dim, measure, true, 1f, true);
+    try (AutoCloseable options1 = with(VectorizedHashAggOperator.VECTORIZED_HASHAGG_USE_SPILLING_OPERATOR, true);
+         AutoCloseable options2 = with(VectorizedHashAggOperator.VECTORIZED_HASHAGG_NUMPARTITIONS, 1);
+         AutoCloseable options3 = with(VectorizedHashAggOperator.VECTORIZED_HASHAGG_ADAPTIVE_PREAGG, true);
+         AutoCloseable options4 = with(VectorizedHashAggOperator.VECTORIZED_HASHAGG_ADAPTIVE_PREAGG_MIN_RECORDS, 1)) {
+      final OperatorStats stats = validateSingle(conf, VectorizedHashAggOperator.class, inputData, expected, 2);
+      assertTrue(stats.getLongStat(HashAggStats.Metric.PREAGG_FLUSHES) > 0);
+    }
+  }
 }
@@ -18,14 +18,18 @@ package com.dremio.sabot.filter;
 import static com.dremio.sabot.Fixtures.t;
 import static com.dremio.sabot.Fixtures.th;
 import static com.dremio.sabot.Fixtures.tr;
+import static org.junit.Assert.assertEquals;
 
 import org.junit.Test;
 
 import com.dremio.common.expression.LogicalExpression;
+import com.dremio.exec.ExecConstants;
 import com.dremio.exec.physical.config.Filter;
 import com.dremio.sabot.BaseTestOperator;
 import com.dremio.sabot.Fixtures.Table;
+import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.op.filter.FilterOperator;
+import com.dremio.sabot.op.filter.FilterStats;
 
 public class TestSimpleFilter extends BaseTestOperator {
 
@@ -106,4 +110,34 @@ public class TestSimpleFilter extends BaseTestOperator {
 
     validateSingle(f, FilterOperator.class, input, output);
   }
+
+  @Test
+  public void interpretedFilter() throws Exception {
+    Filter f = new Filter(null, toExpr("(length(c0) + length(c1)) > 10"), 1f);
+    Table input = t(
+      th("c0", "c1"),
+      tr("hello", "world"),
+      tr("good", "morning"),
+      tr("bye", "bye"),
+      tr("happy", "birthday")
+    );
+
+    Table output = t(
+      th("c0", "c1"),
+      tr("good", "morning"),
+      tr("happy", "birthday")
+    );
+
+    // interpreted for the first two batches, then compiled
+    try (AutoCloseable interpreter = with(ExecConstants.EXPRESSION_INTERPRETER_MAX_ROWS, 2)) {
+      final OperatorStats stats = validateSingle(f, FilterOperator.class, input, output, 1);
+      assertEquals(2, stats.getLongStat(FilterStats.Metric.JAVA_INTERPRETED_RECORDS));
+    }
+
+    // compiled from the start
+    try (AutoCloseable interpreter = with(ExecConstants.EXPRESSION_INTERPRETER_MAX_ROWS, 0)) {
+      final OperatorStats stats = validateSingle(f, FilterOperator.class, input, output, 1);
+      assertEquals(0, stats.getLongStat(FilterStats.Metric.JAVA_INTERPRETED_RECORDS));
+    }
+  }
 }
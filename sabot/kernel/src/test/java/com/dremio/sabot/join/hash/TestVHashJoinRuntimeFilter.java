@@ -0,0 +1,356 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.join.hash;
+
+import static com.dremio.sabot.Fixtures.t;
+import static com.dremio.sabot.Fixtures.th;
+import static com.dremio.sabot.Fixtures.tr;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.common.expression.CompleteType;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.common.logical.data.JoinCondition;
+import com.dremio.exec.physical.base.SubScan;
+import com.dremio.exec.physical.config.HashJoinPOP;
+import com.dremio.exec.physical.config.RuntimeFilterTarget;
+import com.dremio.exec.proto.CoordExecRPC.FragmentAssignment;
+import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
+import com.dremio.exec.proto.ExecProtos.RuntimeFilter;
+import com.dremio.exec.proto.ExecProtos.RuntimeFilterColumn;
+import com.dremio.exec.record.BatchSchema;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.VectorWrapper;
+import com.dremio.exec.store.AbstractRecordReader;
+import com.dremio.exec.store.RecordReader;
+import com.dremio.sabot.BaseTestOperator;
+import com.dremio.sabot.Fixtures.DataRow;
+import com.dremio.sabot.Fixtures.Table;
+import com.dremio.sabot.Generator;
+import com.dremio.sabot.driver.SchemaChangeListener;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.exec.fragment.OutOfBandMessage;
+import com.dremio.sabot.exec.rpc.AccountingExecTunnel;
+import com.dremio.sabot.exec.rpc.TunnelProvider;
+import com.dremio.sabot.op.join.vhash.HashJoinStats;
+import com.dremio.sabot.op.join.vhash.VectorizedHashJoinOperator;
+import com.dremio.sabot.op.scan.OutputMutator;
+import com.dremio.sabot.op.scan.ScanOperator;
+import com.dremio.sabot.op.sort.external.RecordBatchData;
+import com.dremio.sabot.op.spi.DualInputOperator;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Tests of the runtime filters built by {@link VectorizedHashJoinOperator} from its build side, and applied by
+ * the {@link ScanOperator} on its probe side.
+ */
+public class TestVHashJoinRuntimeFilter extends BaseTestOperator {
+
+  private static final int PROBE_SCAN_OPERATOR_ID = 3;
+  private static final int BATCH_SIZE = 4;
+  private static final int PROBE_ROWS = 10;
+
+  private static final List<JoinCondition> CONDITIONS =
+    Arrays.asList(new JoinCondition("EQUALS", f("n_regionkey"), f("r_regionkey")));
+  private static final BatchSchema PROBE_SCHEMA = BatchSchema.newBuilder()
+    .addField(CompleteType.BIGINT.toField("n_nationkey"))
+    .addField(CompleteType.BIGINT.toField("n_regionkey"))
+    .build();
+
+  private AccountingExecTunnel tunnel;
+  private TunnelProvider tunnelProvider;
+  private List<FragmentAssignment> assignments;
+  private OperatorContext scanContext;
+
+  @Before
+  public void setupTunnel() {
+    tunnel = mock(AccountingExecTunnel.class);
+    tunnelProvider = mock(TunnelProvider.class);
+    when(tunnelProvider.getExecTunnel(any(NodeEndpoint.class))).thenReturn(tunnel);
+    // the join runs as minor fragment 0, along with a minor fragment of the same major fragment on another node.
+    assignments = ImmutableList.of(
+      FragmentAssignment.newBuilder()
+        .setAssignment(NodeEndpoint.newBuilder().setAddress("localhost").setFabricPort(1234))
+        .addMinorFragmentId(0)
+        .build(),
+      FragmentAssignment.newBuilder()
+        .setAssignment(NodeEndpoint.newBuilder().setAddress("otherhost").setFabricPort(1234))
+        .addMinorFragmentId(1)
+        .build());
+  }
+
+  /**
+   * Nations, with their region key cycling through 0 to 4.
+   */
+  private static Table nations() {
+    final List<DataRow> rows = new ArrayList<>();
+    for (long i = 0; i < PROBE_ROWS; i++) {
+      rows.add(tr(i, i % 5));
+    }
+    return t(th("n_nationkey", "n_regionkey"), rows.toArray(new DataRow[0]));
+  }
+
+  private static HashJoinPOP join(RuntimeFilterTarget runtimeFilter) {
+    return new HashJoinPOP(null, null, CONDITIONS, JoinRelType.INNER, true, runtimeFilter);
+  }
+
+  private static RuntimeFilterTarget target() {
+    return new RuntimeFilterTarget(PROBE_SCAN_OPERATOR_ID, ImmutableList.of("n_regionkey"));
+  }
+
+  /**
+   * Run the join to completion and check its output.
+   */
+  private OperatorStats runJoin(HashJoinPOP pop, Table left, Table right, Table expected) throws Exception {
+    final List<RecordBatchData> data = new ArrayList<>();
+    try (Generator leftGen = left.toGenerator(getTestAllocator());
+         Generator rightGen = right.toGenerator(getTestAllocator())) {
+      final Pair<VectorizedHashJoinOperator, OperatorStats> pair = newOperatorWithStats(
+        VectorizedHashJoinOperator.class, pop, BATCH_SIZE, tunnelProvider, assignments);
+      final VectorizedHashJoinOperator op = pair.first;
+      final VectorAccessible output = op.setup(leftGen.getOutput(), rightGen.getOutput());
+
+      outside: while (true) {
+        switch (op.getState()) {
+        case CAN_CONSUME_L:
+          final int leftCount = leftGen.next(BATCH_SIZE);
+          if (leftCount > 0) {
+            op.consumeDataLeft(leftCount);
+          } else {
+            op.noMoreToConsumeLeft();
+          }
+          break;
+        case CAN_CONSUME_R:
+          final int rightCount = rightGen.next(BATCH_SIZE);
+          if (rightCount > 0) {
+            op.consumeDataRight(rightCount);
+          } else {
+            op.noMoreToConsumeRight();
+          }
+          break;
+        case CAN_PRODUCE:
+          if (op.outputData() > 0) {
+            data.add(new RecordBatchData(output, getTestAllocator()));
+          }
+          break;
+        case DONE:
+          break outside;
+        default:
+          throw new UnsupportedOperationException();
+        }
+      }
+      assertState(op, DualInputOperator.State.DONE);
+
+      if (expected != null) {
+        expected.checkValid(data);
+      }
+      return pair.second;
+    } finally {
+      AutoCloseables.close(data);
+    }
+  }
+
+  private OutOfBandMessage sentMessage() {
+    final ArgumentCaptor<OutOfBandMessage> captor = ArgumentCaptor.forClass(OutOfBandMessage.class);
+    verify(tunnel).sendOOBMessage(captor.capture());
+    return captor.getValue();
+  }
+
+  /**
+   * Scan the nations through a reader recording the runtime filters it receives.
+   */
+  private ScanOperator newScan(NationReader reader) throws Exception {
+    final SubScan config = mock(SubScan.class);
+    when(config.getSchema()).thenReturn(PROBE_SCHEMA);
+    when(config.getColumns()).thenReturn(ImmutableList.of(
+      SchemaPath.getSimplePath("n_nationkey"), SchemaPath.getSimplePath("n_regionkey")));
+    when(config.getReferencedTables()).thenReturn(Collections.<List<String>>emptyList());
+
+    scanContext = testContext.getNewOperatorContext(
+      getTestAllocator().newChildAllocator("scan", 0, Long.MAX_VALUE), config, BATCH_SIZE);
+    testCloseables.add(scanContext);
+    final ScanOperator scan = new ScanOperator(mock(SchemaChangeListener.class), config, scanContext,
+      Collections.<RecordReader>singletonList(reader).iterator());
+    testCloseables.add(scan);
+    return scan;
+  }
+
+  /**
+   * Deliver the runtime filter to the probe side scan once set up, like the fragment executor does, and read all
+   * the nation keys it outputs.
+   */
+  private List<Long> scanNationKeys(NationReader reader, OutOfBandMessage message) throws Exception {
+    final ScanOperator scan = newScan(reader);
+    final VectorAccessible output = scan.setup();
+    scan.workOnOOB(message);
+
+    final List<Long> nationKeys = new ArrayList<>();
+    int count;
+    while ((count = scan.outputData()) > 0) {
+      nationKeys.addAll(column(output, "n_nationkey", count));
+    }
+    return nationKeys;
+  }
+
+  private static List<Long> column(VectorAccessible accessible, String name, int count) {
+    for (VectorWrapper<?> wrapper : accessible) {
+      if (wrapper.getField().getName().equals(name)) {
+        final ValueVector vector = wrapper.getValueVector();
+        final List<Long> values = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+          values.add(((BigIntVector) vector).get(i));
+        }
+        return values;
+      }
+    }
+    throw new IllegalArgumentException(name);
+  }
+
+  @Test
+  public void filterSentToProbeScan() throws Exception {
+    final Table regions = t(th("r_regionkey", "r_name"),
+      tr(1L, "AMERICA"),
+      tr(3L, "EUROPE"));
+    final Table expected = t(th("r_regionkey", "r_name", "n_nationkey", "n_regionkey"),
+      tr(1L, "AMERICA", 1L, 1L),
+      tr(3L, "EUROPE", 3L, 3L),
+      tr(1L, "AMERICA", 6L, 1L),
+      tr(3L, "EUROPE", 8L, 3L)).orderInsensitive();
+
+    final OperatorStats joinStats = runJoin(join(target()), nations(), regions, expected);
+    assertEquals(1, joinStats.getLongStat(HashJoinStats.Metric.RUNTIME_FILTERS_SENT));
+
+    // only sent to the scan of the same minor fragment as the join
+    verify(tunnelProvider).getExecTunnel(assignments.get(0).getAssignment());
+    final OutOfBandMessage message = sentMessage();
+    assertEquals(PROBE_SCAN_OPERATOR_ID, message.getOperatorId());
+    assertEquals(0, message.getMajorFragmentId());
+    assertEquals(ImmutableList.of(0), message.getTargetMinorFragmentIds());
+
+    final RuntimeFilter filter = message.getPayload(RuntimeFilter.PARSER);
+    assertEquals(1, filter.getColumnCount());
+    final RuntimeFilterColumn column = filter.getColumn(0);
+    assertEquals("n_regionkey", column.getName());
+    assertEquals(2, column.getKeyCount());
+    assertEquals(1, column.getMin());
+    assertEquals(3, column.getMax());
+    assertTrue(column.hasBloomFilter());
+
+    // the probe side scan drops the nations of the other regions, and passes the filter on to its reader
+    final NationReader reader = new NationReader();
+    assertEquals(ImmutableList.of(1L, 3L, 6L, 8L), scanNationKeys(reader, message));
+    assertEquals(1, reader.filters.size());
+
+    final OperatorStats scanStats = scanContext.getStats();
+    assertEquals(1, scanStats.getLongStat(ScanOperator.Metric.NUM_RUNTIME_FILTERS));
+    assertEquals(PROBE_ROWS, scanStats.getLongStat(ScanOperator.Metric.RUNTIME_FILTER_INPUT_RECORDS));
+    assertEquals(4, scanStats.getLongStat(ScanOperator.Metric.RUNTIME_FILTER_OUTPUT_RECORDS));
+  }
+
+  @Test
+  public void noMatchingProbeRows() throws Exception {
+    final Table regions = t(th("r_regionkey", "r_name"),
+      tr(7L, "ATLANTIS"));
+
+    final OperatorStats joinStats = runJoin(join(target()), nations(), regions, null);
+    assertEquals(1, joinStats.getLongStat(HashJoinStats.Metric.RUNTIME_FILTERS_SENT));
+
+    final RuntimeFilterColumn column = sentMessage().getPayload(RuntimeFilter.PARSER).getColumn(0);
+    assertEquals(7, column.getMin());
+    assertEquals(7, column.getMax());
+
+    // out of the range of the build side keys, none of the nations are read past the scan
+    assertEquals(ImmutableList.of(), scanNationKeys(new NationReader(), sentMessage()));
+    assertEquals(PROBE_ROWS, scanContext.getStats().getLongStat(ScanOperator.Metric.RUNTIME_FILTER_INPUT_RECORDS));
+    assertEquals(0, scanContext.getStats().getLongStat(ScanOperator.Metric.RUNTIME_FILTER_OUTPUT_RECORDS));
+  }
+
+  @Test
+  public void noFilterWithoutTarget() throws Exception {
+    final Table regions = t(th("r_regionkey", "r_name"),
+      tr(1L, "AMERICA"));
+    final Table expected = t(th("r_regionkey", "r_name", "n_nationkey", "n_regionkey"),
+      tr(1L, "AMERICA", 1L, 1L),
+      tr(1L, "AMERICA", 6L, 1L)).orderInsensitive();
+
+    final OperatorStats joinStats = runJoin(join(null), nations(), regions, expected);
+    assertEquals(0, joinStats.getLongStat(HashJoinStats.Metric.RUNTIME_FILTERS_SENT));
+    verify(tunnel, never()).sendOOBMessage(any(OutOfBandMessage.class));
+  }
+
+  /**
+   * Reads {@link #PROBE_ROWS} nations in a single batch.
+   */
+  private static class NationReader extends AbstractRecordReader {
+    private final List<RuntimeFilter> filters = new ArrayList<>();
+    private BigIntVector nationKey;
+    private BigIntVector regionKey;
+    private boolean read;
+
+    NationReader() {
+      super(null, null);
+    }
+
+    @Override
+    public void setup(OutputMutator output) {
+      nationKey = (BigIntVector) output.getVector("n_nationkey");
+      regionKey = (BigIntVector) output.getVector("n_regionkey");
+    }
+
+    @Override
+    public void addRuntimeFilter(RuntimeFilter filter) {
+      filters.add(filter);
+    }
+
+    @Override
+    public int next() {
+      if (read) {
+        return 0;
+      }
+      read = true;
+      for (int i = 0; i < PROBE_ROWS; i++) {
+        nationKey.setSafe(i, i);
+        regionKey.setSafe(i, i % 5);
+      }
+      nationKey.setValueCount(PROBE_ROWS);
+      regionKey.setValueCount(PROBE_ROWS);
+      return PROBE_ROWS;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.join.hash;
+
+import org.junit.Before;
+
+import com.dremio.exec.ExecConstants;
+
+/**
+ * Runs the vectorized hash join tests with the build side spilled to disk after the first batch,
+ * so every join goes through the partitioned (grace) join of spilled data.
+ */
+public class TestVHashJoinSpill extends TestVHashJoin {
+
+  @Before
+  public void forceSpill() {
+    testCloseables.add(with(ExecConstants.ENABLE_VECTORIZED_HASHJOIN_SPILL, true));
+    testCloseables.add(with(ExecConstants.VECTORIZED_HASHJOIN_SPILL_PARTITIONS, 4));
+    testCloseables.add(with(ExecConstants.VECTORIZED_HASHJOIN_SPILL_DEBUG_MAX_BATCHES, 1));
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.common.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.commons.io.Charsets;
+import org.junit.Test;
+
+import com.dremio.sabot.BaseTestWithAllocator;
+
+public class TestBloomFilter extends BaseTestWithAllocator {
+  private static final Random RAND = new Random(2342983723452L);
+
+  @Test
+  public void roundTrip() {
+    final int count = 4096;
+    try (BigIntVector keys = new BigIntVector("keys", allocator)) {
+      keys.allocateNew(count);
+      for (int i = 0; i < count; i++) {
+        keys.setSafe(i, RAND.nextLong());
+      }
+      keys.setValueCount(count);
+
+      final BloomFilter bloom = new BloomFilter(1 << 16, BloomFilter.DEFAULT_NUM_HASH_FUNCTIONS);
+      final RuntimeFilterKeyType type = RuntimeFilterKeyType.of(keys);
+      assertEquals(RuntimeFilterKeyType.BIGINT, type);
+      for (int i = 0; i < count; i++) {
+        bloom.put(type.hash(keys, i));
+      }
+
+      final BloomFilter copy = BloomFilter.fromByteString(bloom.toByteString(), bloom.getNumHashFunctions());
+      assertEquals(bloom.getNumBits(), copy.getNumBits());
+      for (int i = 0; i < count; i++) {
+        assertTrue(copy.mightContain(type.hash(keys, i)));
+      }
+    }
+  }
+
+  @Test
+  public void falsePositives() {
+    final int count = 1 << 13;
+    try (IntVector keys = new IntVector("keys", allocator)) {
+      keys.allocateNew(count * 2);
+      for (int i = 0; i < count * 2; i++) {
+        keys.setSafe(i, i);
+      }
+      keys.setValueCount(count * 2);
+
+      // eight bits per key, the most the join side puts in a filter.
+      final BloomFilter bloom = new BloomFilter(count * 8, BloomFilter.DEFAULT_NUM_HASH_FUNCTIONS);
+      final RuntimeFilterKeyType type = RuntimeFilterKeyType.of(keys);
+      for (int i = 0; i < count; i++) {
+        bloom.put(type.hash(keys, i));
+      }
+
+      int falsePositives = 0;
+      for (int i = count; i < count * 2; i++) {
+        if (bloom.mightContain(type.hash(keys, i))) {
+          falsePositives++;
+        }
+      }
+      assertTrue("Too many false positives: " + falsePositives, falsePositives < count / 10);
+    }
+  }
+
+  @Test
+  public void variableWidth() {
+    try (VarCharVector build = new VarCharVector("build", allocator);
+         VarBinaryVector probe = new VarBinaryVector("probe", allocator)) {
+      build.allocateNew();
+      probe.allocateNew();
+      build.setSafe(0, "dremio".getBytes(Charsets.UTF_8));
+      build.setNull(1);
+      build.setValueCount(2);
+      probe.setSafe(0, "dremio".getBytes(Charsets.UTF_8));
+      probe.setSafe(1, "arrow".getBytes(Charsets.UTF_8));
+      probe.setValueCount(2);
+
+      assertEquals(RuntimeFilterKeyType.VARIABLE, RuntimeFilterKeyType.of(build));
+      assertEquals(RuntimeFilterKeyType.VARIABLE, RuntimeFilterKeyType.of(probe));
+      assertFalse(RuntimeFilterKeyType.isNull(build, 0));
+      assertTrue(RuntimeFilterKeyType.isNull(build, 1));
+
+      final BloomFilter bloom = new BloomFilter(1 << 10, BloomFilter.DEFAULT_NUM_HASH_FUNCTIONS);
+      bloom.put(RuntimeFilterKeyType.VARIABLE.hash(build, 0));
+      assertTrue(bloom.mightContain(RuntimeFilterKeyType.VARIABLE.hash(probe, 0)));
+      assertFalse(bloom.mightContain(RuntimeFilterKeyType.VARIABLE.hash(probe, 1)));
+    }
+  }
+}
@@ -36,6 +36,8 @@ import com.dremio.common.util.Numbers;
 import com.dremio.exec.record.VectorContainer;
 import com.koloboke.collect.hash.HashConfig;
 
+import io.netty.buffer.ArrowBuf;
+
 public class TestHashTable2 {
 
   private int MAX_VALUES_PER_BATCH = 0;
@@ -438,4 +440,138 @@ public class TestHashTable2 {
       }
     }
   }
+
+  @Test
+  public void batchedAddAndFind() throws Exception {
+    MAX_VALUES_PER_BATCH = 4096;
+    batchedAddAndFindHelper();
+    MAX_VALUES_PER_BATCH = 1024;
+    batchedAddAndFindHelper();
+  }
+
+  private void batchedAddAndFindHelper() throws Exception {
+    final Random random = new Random();
+    final String[] col1Arr = new String[10000];
+    final Integer[] col2Arr = new Integer[col1Arr.length];
+    for (int i = 0; i < col1Arr.length; i++) {
+      // plenty of duplicates, both within and across probe groups
+      final int key = random.nextInt(5000);
+      if (key % 11 != 0) {
+        col1Arr[i] = "key" + key;
+      }
+      col2Arr[i] = key % 13 == 0 ? null : key;
+    }
+
+    try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+         final VectorContainer c = new VectorContainer();) {
+
+      VarCharVector col1 = new VarCharVector("col1", allocator);
+      TestVarBinaryPivot.populate(col1, col1Arr);
+      c.add(col1);
+      IntVector col2 = new IntVector("col2", allocator);
+      TestIntPivot.populate(col2, col2Arr);
+      c.add(col2);
+      final int records = c.setAllCount(col1Arr.length);
+      final PivotDef pivot = PivotBuilder.getBlockDefinition(
+          new FieldVectorPair(col1, col1),
+          new FieldVectorPair(col2, col2)
+      );
+      try (
+          final FixedBlockVector fbv = new FixedBlockVector(allocator, pivot.getBlockWidth());
+          final VariableBlockVector var = new VariableBlockVector(allocator, pivot.getVariableCount());) {
+
+        Pivots.pivot(pivot, records, fbv, var);
+
+        // small initial size so that the batched insert has to rehash in the middle of probe groups.
+        try (LBlockHashTable expected = new LBlockHashTable(HashConfig.getDefault(), pivot, allocator, 16, 10, false, ResizeListener.NO_OP, MAX_VALUES_PER_BATCH);
+             LBlockHashTable actual = new LBlockHashTable(HashConfig.getDefault(), pivot, allocator, 16, 10, false, ResizeListener.NO_OP, MAX_VALUES_PER_BATCH);
+             SimpleBigIntVector hashValues = new SimpleBigIntVector("hashvalues", allocator);
+             ArrowBuf ordinals = allocator.buffer(records * LBlockHashTable.ORDINAL_SIZE)) {
+          final long keyFixedVectorAddr = fbv.getMemoryAddress();
+          final long keyVarVectorAddr = var.getMemoryAddress();
+          final boolean fixedOnly = pivot.getVariableCount() == 0;
+
+          hashValues.allocateNew(records);
+          final BlockChunk blockChunk = new BlockChunk(keyFixedVectorAddr, keyVarVectorAddr, fixedOnly,
+            pivot.getBlockWidth(), records, hashValues.getBufferAddress(), 0);
+          HashComputation.computeHash(blockChunk);
+
+          final int[] expectedOrdinals = new int[records];
+          for (int keyIndex = 0; keyIndex < records; keyIndex++) {
+            final int keyHash = (int)hashValues.get(keyIndex);
+            expectedOrdinals[keyIndex] = expected.add(keyFixedVectorAddr, keyVarVectorAddr, keyIndex, keyHash);
+          }
+
+          actual.addBatch(keyFixedVectorAddr, keyVarVectorAddr, hashValues.getBufferAddress(), records, ordinals.memoryAddress());
+          assertArrayEquals("ordinals mismatch on insert", expectedOrdinals, toIntArray(ordinals, records));
+          assertEquals("Absolute size mismatch", expected.size(), actual.size());
+          assertTrue("Expected at least one rehash", actual.getRehashCount() > 0);
+
+          ordinals.setZero(0, ordinals.capacity());
+          actual.findBatch(keyFixedVectorAddr, keyVarVectorAddr, hashValues.getBufferAddress(), records, ordinals.memoryAddress());
+          assertArrayEquals("ordinals mismatch on find", expectedOrdinals, toIntArray(ordinals, records));
+          assertEquals("find should not insert", expected.size(), actual.size());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void batchedFindAbsentKeys() throws Exception {
+    MAX_VALUES_PER_BATCH = 4096;
+    final Integer[] buildArr = new Integer[1000];
+    final Integer[] probeArr = new Integer[buildArr.length];
+    for (int i = 0; i < buildArr.length; i++) {
+      buildArr[i] = i;
+      probeArr[i] = i % 2 == 0 ? i : i + buildArr.length;
+    }
+
+    try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+         final VectorContainer build = new VectorContainer();
+         final VectorContainer probe = new VectorContainer();) {
+      IntVector buildCol = new IntVector("build", allocator);
+      TestIntPivot.populate(buildCol, buildArr);
+      build.add(buildCol);
+      IntVector probeCol = new IntVector("probe", allocator);
+      TestIntPivot.populate(probeCol, probeArr);
+      probe.add(probeCol);
+      final int records = build.setAllCount(buildArr.length);
+      probe.setAllCount(probeArr.length);
+      final PivotDef buildPivot = PivotBuilder.getBlockDefinition(new FieldVectorPair(buildCol, buildCol));
+      final PivotDef probePivot = PivotBuilder.getBlockDefinition(new FieldVectorPair(probeCol, probeCol));
+
+      try (final FixedBlockVector buildFbv = new FixedBlockVector(allocator, buildPivot.getBlockWidth());
+           final VariableBlockVector buildVar = new VariableBlockVector(allocator, buildPivot.getVariableCount());
+           final FixedBlockVector probeFbv = new FixedBlockVector(allocator, probePivot.getBlockWidth());
+           final VariableBlockVector probeVar = new VariableBlockVector(allocator, probePivot.getVariableCount());
+           LBlockHashTable bht = new LBlockHashTable(HashConfig.getDefault(), buildPivot, allocator, 16000, 10, false, ResizeListener.NO_OP, MAX_VALUES_PER_BATCH);
+           SimpleBigIntVector hashValues = new SimpleBigIntVector("hashvalues", allocator);
+           ArrowBuf ordinals = allocator.buffer(records * LBlockHashTable.ORDINAL_SIZE)) {
+        Pivots.pivot(buildPivot, records, buildFbv, buildVar);
+        Pivots.pivot(probePivot, records, probeFbv, probeVar);
+        hashValues.allocateNew(records);
+
+        HashComputation.computeHash(new BlockChunk(buildFbv.getMemoryAddress(), buildVar.getMemoryAddress(), true,
+          buildPivot.getBlockWidth(), records, hashValues.getBufferAddress(), 0));
+        bht.addBatch(buildFbv.getMemoryAddress(), buildVar.getMemoryAddress(), hashValues.getBufferAddress(), records, ordinals.memoryAddress());
+
+        HashComputation.computeHash(new BlockChunk(probeFbv.getMemoryAddress(), probeVar.getMemoryAddress(), true,
+          probePivot.getBlockWidth(), records, hashValues.getBufferAddress(), 0));
+        bht.findBatch(probeFbv.getMemoryAddress(), probeVar.getMemoryAddress(), hashValues.getBufferAddress(), records, ordinals.memoryAddress());
+
+        final int[] actualOrdinals = toIntArray(ordinals, records);
+        for (int i = 0; i < records; i++) {
+          assertEquals("unexpected ordinal for key " + probeArr[i], i % 2 == 0 ? i : -1, actualOrdinals[i]);
+        }
+      }
+    }
+  }
+
+  private static int[] toIntArray(ArrowBuf buf, int count) {
+    final int[] values = new int[count];
+    for (int i = 0; i < count; i++) {
+      values[i] = buf.getInt(i * LBlockHashTable.ORDINAL_SIZE);
+    }
+    return values;
+  }
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.llvm.expr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.apache.arrow.gandiva.evaluator.FunctionSignature;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Unit tests of {@link GandivaCapabilities}
+ */
+public class TestGandivaCapabilities {
+
+  private static final ArrowType INT = new ArrowType.Int(32, true);
+  private static final ArrowType BIGINT = new ArrowType.Int(64, true);
+  private static final ArrowType VARCHAR = new ArrowType.Utf8();
+
+  private static final GandivaCapabilities CAPABILITIES = new GandivaCapabilities(
+    ImmutableSet.of(INT, BIGINT),
+    ImmutableSet.of(
+      new FunctionSignature("add", INT, ImmutableList.of(INT, INT)),
+      new FunctionSignature("extractYear", BIGINT, ImmutableList.of(BIGINT)),
+      new FunctionSignature("char_length", INT, ImmutableList.of(VARCHAR))));
+
+  private static String nativeName(List<String> names, ArrowType returnType, List<ArrowType> argTypes) {
+    return CAPABILITIES.getNativeName(names, returnType, argTypes);
+  }
+
+  @Test
+  public void supportedTypes() {
+    assertTrue(CAPABILITIES.isSupportedType(BIGINT));
+    assertFalse(CAPABILITIES.isSupportedType(VARCHAR));
+  }
+
+  @Test
+  public void exactName() {
+    assertEquals("add", nativeName(ImmutableList.of("add"), INT, ImmutableList.of(INT, INT)));
+  }
+
+  @Test
+  public void nameInOtherCase() {
+    assertEquals("extractYear", nativeName(ImmutableList.of("extractyear"), BIGINT, ImmutableList.of(BIGINT)));
+  }
+
+  @Test
+  public void alias() {
+    assertEquals("char_length",
+      nativeName(ImmutableList.of("length", "CHAR_LENGTH"), INT, ImmutableList.of(VARCHAR)));
+  }
+
+  @Test
+  public void unsupportedSignature() {
+    assertNull(nativeName(ImmutableList.of("add"), BIGINT, ImmutableList.of(BIGINT, BIGINT)));
+    assertNull(nativeName(ImmutableList.of("subtract"), INT, ImmutableList.of(INT, INT)));
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.llvm.expr;
+
+import static org.apache.arrow.vector.types.Types.MinorType.INT;
+import static org.apache.arrow.vector.types.pojo.FieldType.nullable;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.complex.ListVector;
+import org.apache.arrow.vector.complex.StructVector;
+import org.apache.arrow.vector.complex.impl.NullableStructWriter;
+import org.apache.arrow.vector.complex.impl.UnionListWriter;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.common.expression.CompleteType;
+import com.dremio.common.expression.SupportedEngines;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.physical.config.Filter;
+import com.dremio.exec.physical.config.Project;
+import com.dremio.exec.record.BatchSchema;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.exec.record.VectorWrapper;
+import com.dremio.exec.record.selection.SelectionVector2;
+import com.dremio.sabot.BaseTestOperator;
+import com.dremio.sabot.op.filter.FilterOperator;
+import com.dremio.sabot.op.project.ProjectOperator;
+
+/**
+ * Tests of Gandiva evaluating expressions of the scalar columns of batches which also contain complex columns
+ */
+public class TestGandivaPushdownSieve extends BaseTestOperator {
+
+  private static final int ROWS = 5;
+
+  private static final Field C0 = CompleteType.INT.toField("c0");
+  private static final Field STRUCT = CompleteType.struct(CompleteType.INT.toField("a")).toField("s");
+  private static final Field LIST = CompleteType.INT.asList().toField("l");
+
+  private VectorContainer input;
+  private List<Object> structs;
+  private List<Object> lists;
+
+  @Before
+  public void createInput() {
+    input = VectorContainer.create(getTestAllocator(),
+      BatchSchema.newBuilder().addField(C0).addField(STRUCT).addField(LIST).build());
+    final IntVector c0 = input.addOrGet(C0);
+    final StructVector struct = input.addOrGet(STRUCT);
+    struct.addOrGet("a", nullable(INT.getType()), IntVector.class);
+    final ListVector list = input.addOrGet(LIST);
+    list.addOrGetVector(nullable(INT.getType()));
+    input.allocateNew();
+
+    final NullableStructWriter structWriter = struct.getWriter();
+    final UnionListWriter listWriter = list.getWriter();
+    for (int i = 0; i < ROWS; i++) {
+      c0.setSafe(i, i);
+
+      structWriter.setPosition(i);
+      structWriter.start();
+      structWriter.integer("a").writeInt(i * 10);
+      structWriter.end();
+
+      listWriter.setPosition(i);
+      listWriter.startList();
+      for (int j = 0; j < i; j++) {
+        listWriter.integer().writeInt(j);
+      }
+      listWriter.endList();
+    }
+    input.setAllCount(ROWS);
+
+    // read before the operators transfer the vectors
+    structs = new ArrayList<>();
+    lists = new ArrayList<>();
+    for (int i = 0; i < ROWS; i++) {
+      structs.add(struct.getObject(i));
+      lists.add(list.getObject(i));
+    }
+  }
+
+  @After
+  public void closeInput() throws Exception {
+    AutoCloseables.close(input);
+  }
+
+  private static ValueVector vector(VectorAccessible accessible, String name) {
+    for (VectorWrapper<?> wrapper : accessible) {
+      if (wrapper.getField().getName().equals(name)) {
+        return wrapper.getValueVector();
+      }
+    }
+    throw new IllegalArgumentException(name);
+  }
+
+  @Test
+  public void projectScalarColumn() throws Exception {
+    final Project project = new Project(Arrays.asList(n("c0 + c0", "sum"), n("s"), n("l")), null);
+
+    // GandivaOnly fails the setup of any expression which can't be evaluated by Gandiva
+    try (AutoCloseable gandivaOnly = with(ExecConstants.QUERY_EXEC_OPTION,
+        SupportedEngines.CodeGenOption.GandivaOnly.toString())) {
+      final ProjectOperator operator = newOperator(ProjectOperator.class, project, ROWS);
+      final VectorAccessible output = operator.setup(input);
+      operator.consumeData(ROWS);
+      assertEquals(ROWS, operator.outputData());
+
+      final ValueVector sum = vector(output, "sum");
+      final ValueVector struct = vector(output, "s");
+      final ValueVector list = vector(output, "l");
+      for (int i = 0; i < ROWS; i++) {
+        assertEquals(i * 2, sum.getObject(i));
+        assertEquals(structs.get(i), struct.getObject(i));
+        assertEquals(lists.get(i), list.getObject(i));
+      }
+    }
+  }
+
+  @Test
+  public void filterScalarColumn() throws Exception {
+    final Filter filter = new Filter(null, parseExpr("c0 > 2"), 1f);
+
+    try (AutoCloseable gandivaOnly = with(ExecConstants.QUERY_EXEC_OPTION,
+        SupportedEngines.CodeGenOption.GandivaOnly.toString())) {
+      final FilterOperator operator = newOperator(FilterOperator.class, filter, ROWS);
+      final VectorAccessible output = operator.setup(input);
+      operator.consumeData(ROWS);
+      assertEquals(2, operator.outputData());
+
+      final SelectionVector2 sv2 = output.getSelectionVector2();
+      final ValueVector c0 = vector(output, "c0");
+      final ValueVector struct = vector(output, "s");
+      final ValueVector list = vector(output, "l");
+      for (int i = 0; i < 2; i++) {
+        final int index = sv2.getIndex(i);
+        final int row = i + 3;
+        assertEquals(row, c0.getObject(index));
+        assertEquals(structs.get(row), struct.getObject(index));
+        assertEquals(lists.get(row), list.getObject(index));
+      }
+    }
+  }
+}
@@ -67,7 +67,7 @@ public class TestMemoryRun extends BaseTestOperator {
   @Test
   public void testCloseToCopier() throws Exception {
     final ExternalSortTracer tracer = new ExternalSortTracer();
-    try (MemoryRun memoryRun = new MemoryRun(externalSort, producer, allocator, generator.getSchema(), tracer, 2)) {
+    try (MemoryRun memoryRun = new MemoryRun(externalSort, producer, allocator, generator.getSchema(), tracer, 2, true)) {
       int totalAdded = addBatches(memoryRun);
       validateCloseToCopier(memoryRun, 100, totalAdded);
     }
@@ -76,7 +76,7 @@ public class TestMemoryRun extends BaseTestOperator {
   @Test
   public void testCloseToDisk() throws Exception {
     final ExternalSortTracer tracer = new ExternalSortTracer();
-    try (MemoryRun memoryRun = new MemoryRun(externalSort, producer, allocator, generator.getSchema(), tracer, 2)) {
+    try (MemoryRun memoryRun = new MemoryRun(externalSort, producer, allocator, generator.getSchema(), tracer, 2, true)) {
       int totalAdded = addBatches(memoryRun);
       validateCloseToDisk(memoryRun, totalAdded);
     }
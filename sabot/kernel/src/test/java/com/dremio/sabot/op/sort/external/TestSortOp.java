@@ -16,9 +16,17 @@
 package com.dremio.sabot.op.sort.external;
 
 import static com.dremio.sabot.CustomGenerator.ID;
+import static com.dremio.sabot.Fixtures.NULL_DOUBLE;
+import static com.dremio.sabot.Fixtures.NULL_VARCHAR;
+import static com.dremio.sabot.Fixtures.t;
+import static com.dremio.sabot.Fixtures.th;
+import static com.dremio.sabot.Fixtures.tr;
+import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static org.apache.calcite.rel.RelFieldCollation.Direction.ASCENDING;
+import static org.apache.calcite.rel.RelFieldCollation.Direction.DESCENDING;
 import static org.apache.calcite.rel.RelFieldCollation.NullDirection.FIRST;
+import static org.apache.calcite.rel.RelFieldCollation.NullDirection.LAST;
 import static org.junit.Assert.assertEquals;
 
 import java.util.concurrent.TimeUnit;
@@ -34,6 +42,7 @@ import org.junit.rules.TestRule;
 import com.dremio.common.AutoCloseables;
 import com.dremio.common.exceptions.UserException;
 import com.dremio.common.util.TestTools;
+import com.dremio.exec.ExecConstants;
 import com.dremio.exec.expr.ClassProducer;
 import com.dremio.exec.physical.config.ExternalSort;
 import com.dremio.sabot.BaseTestOperator;
@@ -104,4 +113,84 @@ public class TestSortOp extends BaseTestOperator {
     Fixtures.Table table = generator.getExpectedSortedTable();
     validateSingle(sort, ExternalSortOperator.class, generator, table, 1000);
   }
+
+  @Test
+  public void testSpillSortWithoutNormalizedKeys() throws Exception {
+    ExternalSort sort = new ExternalSort(null, singletonList(ordering(ID.getName(), ASCENDING, FIRST)), false);
+    sort.setInitialAllocation(1_000_000);
+    sort.setMaxAllocation(2_000_000);
+    Fixtures.Table table = generator.getExpectedSortedTable();
+    try (AutoCloseable c = with(ExecConstants.EXTERNAL_SORT_NORMALIZED_KEYS, false)) {
+      validateSingle(sort, ExternalSortOperator.class, generator, table, 1000);
+    }
+  }
+
+  @Test
+  public void testSpillSortWithoutPrefetchOrParallelMerge() throws Exception {
+    ExternalSort sort = new ExternalSort(null, singletonList(ordering(ID.getName(), ASCENDING, FIRST)), false);
+    sort.setInitialAllocation(1_000_000);
+    sort.setMaxAllocation(2_000_000);
+    Fixtures.Table table = generator.getExpectedSortedTable();
+    try (AutoCloseable prefetch = with(ExecConstants.EXTERNAL_SORT_PREFETCH_SPILLED_BATCHES, false);
+         AutoCloseable parallelism = with(ExecConstants.EXTERNAL_SORT_MERGE_PARALLELISM, 1)) {
+      validateSingle(sort, ExternalSortOperator.class, generator, table, 1000);
+    }
+  }
+
+  @Test
+  public void testNormalizedKeysVarCharDescendingWithTies() throws Exception {
+    // strings sharing (and exceeding) the 8 byte key prefix need the generated comparison to break the tie.
+    final Fixtures.Table input = t(
+      th("s", "d"),
+      tr("prefix_long_b", 1.0d),
+      tr(NULL_VARCHAR, 2.0d),
+      tr("prefix_long_a", 3.0d),
+      tr("zz", -1.0d),
+      tr("prefix_lo", 0.5d),
+      tr("", 4.0d),
+      tr("prefix_long_a", -2.0d),
+      tr(NULL_VARCHAR, -3.0d)
+    );
+
+    final Fixtures.Table expected = t(
+      th("s", "d"),
+      tr("zz", -1.0d),
+      tr("prefix_long_b", 1.0d),
+      tr("prefix_long_a", -2.0d),
+      tr("prefix_long_a", 3.0d),
+      tr("prefix_lo", 0.5d),
+      tr("", 4.0d),
+      tr(NULL_VARCHAR, -3.0d),
+      tr(NULL_VARCHAR, 2.0d)
+    );
+
+    ExternalSort sort = new ExternalSort(null, asList(ordering("s", DESCENDING, LAST), ordering("d", ASCENDING, FIRST)), false);
+    validateSingle(sort, ExternalSortOperator.class, input, expected);
+  }
+
+  @Test
+  public void testNormalizedKeysDoubleAscending() throws Exception {
+    final Fixtures.Table input = t(
+      th("d"),
+      tr(1.5d),
+      tr(-0.25d),
+      tr(NULL_DOUBLE),
+      tr(-10.0d),
+      tr(0.0d),
+      tr(7.0d)
+    );
+
+    final Fixtures.Table expected = t(
+      th("d"),
+      tr(NULL_DOUBLE),
+      tr(-10.0d),
+      tr(-0.25d),
+      tr(0.0d),
+      tr(1.5d),
+      tr(7.0d)
+    );
+
+    ExternalSort sort = new ExternalSort(null, singletonList(ordering("d", ASCENDING, FIRST)), false);
+    validateSingle(sort, ExternalSortOperator.class, input, expected);
+  }
 }
@@ -18,16 +18,20 @@ package com.dremio.sabot.project;
 import static com.dremio.sabot.Fixtures.t;
 import static com.dremio.sabot.Fixtures.th;
 import static com.dremio.sabot.Fixtures.tr;
+import static org.junit.Assert.assertEquals;
 
 import java.util.Arrays;
 import java.util.Collections;
 
 import org.junit.Test;
 
+import com.dremio.exec.ExecConstants;
 import com.dremio.exec.physical.config.Project;
 import com.dremio.sabot.BaseTestOperator;
 import com.dremio.sabot.Fixtures.Table;
+import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.op.project.ProjectOperator;
+import com.dremio.sabot.op.project.ProjectorStats;
 import com.google.common.collect.ImmutableList;
 
 import io.airlift.tpch.GenerationDefinition.TpchTable;
@@ -77,4 +81,29 @@ public class TestProject extends BaseTestOperator {
     validateSingle(conf, ProjectOperator.class, TpchTable.REGION, 0.1, expected);
   }
 
+  @Test
+  public void interpretedSum() throws Exception {
+    Project conf = new Project(Arrays.asList(n("r_regionkey + r_regionkey", "sum")), null);
+    final Table expected = t(
+        th("sum"),
+        tr(0L),
+        tr(2L),
+        tr(4L),
+        tr(6L),
+        tr(8L)
+        );
+
+    // interpreted for the first two batches, then compiled
+    try (AutoCloseable interpreter = with(ExecConstants.EXPRESSION_INTERPRETER_MAX_ROWS, 2)) {
+      final OperatorStats stats = assertSingleInput(conf, ProjectOperator.class, TpchTable.REGION, 0.1, null, 1, expected);
+      assertEquals(2, stats.getLongStat(ProjectorStats.Metric.JAVA_INTERPRETED_RECORDS));
+    }
+
+    // compiled from the start
+    try (AutoCloseable interpreter = with(ExecConstants.EXPRESSION_INTERPRETER_MAX_ROWS, 0)) {
+      final OperatorStats stats = assertSingleInput(conf, ProjectOperator.class, TpchTable.REGION, 0.1, null, 1, expected);
+      assertEquals(0, stats.getLongStat(ProjectorStats.Metric.JAVA_INTERPRETED_RECORDS));
+    }
+  }
+
 }
@@ -15,12 +15,16 @@
  */
 package com.dremio.sabot.sender.broadcast;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import org.apache.arrow.vector.types.Types.MinorType;
 import org.apache.arrow.vector.types.pojo.Field;
@@ -28,9 +32,11 @@ import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
+import com.dremio.exec.ExecConstants;
 import com.dremio.exec.physical.MinorFragmentEndpoint;
 import com.dremio.exec.physical.config.BroadcastSender;
 import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
+import com.dremio.exec.proto.ExecRPC.FragmentRecordBatch;
 import com.dremio.exec.record.BatchSchema;
 import com.dremio.exec.record.FragmentWritableBatch;
 import com.dremio.exec.record.SchemaBuilder;
@@ -82,6 +88,48 @@ public class TestBroadcastSender extends BaseTestOperator {
     }
   }
 
+  @Test
+  public void compressedBatches() throws Exception {
+    BroadcastSender sender = new BroadcastSender(1, null,
+        Arrays.asList(
+            new MinorFragmentEndpoint(1, NodeEndpoint.newBuilder().setAddress("a").setFabricPort(1).build()),
+            new MinorFragmentEndpoint(2, NodeEndpoint.newBuilder().setAddress("b").setFabricPort(2).build())
+            ),
+        getSchema()
+        );
+
+    final List<FragmentRecordBatch> headers = new ArrayList<>();
+    final AccountingExecTunnel tunnel = mock(AccountingExecTunnel.class);
+    doAnswer(new Answer<Void>(){
+
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        final FragmentWritableBatch batch = (FragmentWritableBatch) invocation.getArguments()[0];
+        headers.add(batch.getHeader());
+        for(ByteBuf b : batch.getBuffers()){
+          b.release();
+        }
+        return null;
+      }}).when(tunnel).sendRecordBatch(any(FragmentWritableBatch.class));
+
+    final TunnelProvider provider = mock(TunnelProvider.class);
+    when(provider.getExecTunnel(any(NodeEndpoint.class))).thenReturn(tunnel);
+
+    try(AutoCloseable compression = with(ExecConstants.EXCHANGE_COMPRESSION, "snappy");
+        AutoCloseable ratio = with(ExecConstants.EXCHANGE_COMPRESSION_MAX_RATIO, 1.0);
+        BroadcastOperator op = newOperator(BroadcastOperator.class, sender, DEFAULT_BATCH, provider);
+        TpchGenerator g = TpchGenerator.singleGenerator(TpchTable.NATION, 0.1, getTestAllocator());){
+      op.setup(g.getOutput());
+      op.consumeData(g.next(DEFAULT_BATCH));
+      op.noMoreToConsume();
+    }
+
+    // both receivers get the same compressed batch
+    assertEquals(2, headers.size());
+    assertFalse(headers.get(0).getCompressedBufferLengthList().isEmpty());
+    assertEquals(headers.get(0).getCompressedBufferLengthList(), headers.get(1).getCompressedBufferLengthList());
+  }
+
   public BatchSchema getSchema() {
     SchemaBuilder builder = BatchSchema.newBuilder()
       .addField(new Field("n_nationKey", true, MinorType.BIGINT.getType(), null))
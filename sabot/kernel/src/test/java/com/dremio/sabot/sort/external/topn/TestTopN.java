@@ -15,13 +15,21 @@
  */
 package com.dremio.sabot.sort.external.topn;
 
+import static com.dremio.sabot.Fixtures.NULL_INT;
 import static com.dremio.sabot.Fixtures.t;
 import static com.dremio.sabot.Fixtures.tb;
 import static com.dremio.sabot.Fixtures.th;
 import static com.dremio.sabot.Fixtures.tr;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Properties;
+import java.util.Random;
 
 import org.apache.calcite.rel.RelFieldCollation.Direction;
 import org.apache.calcite.rel.RelFieldCollation.NullDirection;
@@ -31,7 +39,9 @@ import com.dremio.common.config.SabotConfig;
 import com.dremio.exec.ExecConstants;
 import com.dremio.exec.physical.config.TopN;
 import com.dremio.sabot.BaseTestOperator;
+import com.dremio.sabot.Fixtures.DataRow;
 import com.dremio.sabot.Fixtures.Table;
+import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.op.sort.topn.TopNOperator;
 
 public class TestTopN extends BaseTestOperator {
@@ -108,5 +118,114 @@ public class TestTopN extends BaseTestOperator {
     validateSingle(topn, TopNOperator.class, input, output);
   }
 
+  @Test
+  public void topNDescendingWithEarlyRejection() throws Exception {
+    // small batches so that most of them are seen once the queue is full
+    Table input = t(
+      th("c0", "c1"),
+      tr(35, "a"),
+      tr(NULL_INT, "b"),
+      tr(8, "c"),
+      tr(42, "d"),
+      tr(94, "e"),
+      tr(1, "f"),
+      tr(42, "g"),
+      tr(NULL_INT, "h"),
+      tr(2, "i"),
+      tr(42, "a"),
+      tr(106, "j"),
+      tr(3, "k"),
+      tr(4, "l"),
+      tr(42, "b")
+    );
+
+    Table output = t(
+      th("c0", "c1"),
+      tr(106, "j"),
+      tr(94, "e"),
+      tr(42, "a"),
+      tr(42, "b")
+    );
+
+    TopN topn = new TopN(null, Arrays.asList(
+        ordering("c0", Direction.DESCENDING, NullDirection.LAST),
+        ordering("c1", Direction.ASCENDING, NullDirection.FIRST)), false, 4);
+    try (AutoCloseable c = with(ExecConstants.TOPN_EARLY_REJECTION, true)) {
+      validateSingle(topn, TopNOperator.class, input, output, 2);
+    }
+    try (AutoCloseable c = with(ExecConstants.TOPN_EARLY_REJECTION, false)) {
+      validateSingle(topn, TopNOperator.class, input, output, 2);
+    }
+  }
+
+  @Test
+  public void topNRejectsRecordsBeforeQueue() throws Exception {
+    // once the first batch fills the queue, none of the next records are good enough
+    final DataRow[] rows = new DataRow[20];
+    for (int i = 0; i < rows.length; i++) {
+      rows[i] = tr(rows.length - i);
+    }
+    Table input = t(th("c0"), rows);
+
+    Table output = t(
+      th("c0"),
+      tr(20),
+      tr(19),
+      tr(18),
+      tr(17)
+    );
+
+    TopN topn = new TopN(null, Collections.singletonList(
+        ordering("c0", Direction.DESCENDING, NullDirection.LAST)), false, 4);
+    try (AutoCloseable c = with(ExecConstants.TOPN_EARLY_REJECTION, true)) {
+      final OperatorStats stats = validateSingle(topn, TopNOperator.class, input, output, 4);
+      assertEquals(4, stats.getLongStat(TopNOperator.Metric.BATCHES_REJECTED));
+      assertEquals(16, stats.getLongStat(TopNOperator.Metric.RECORDS_REJECTED));
+    }
+    try (AutoCloseable c = with(ExecConstants.TOPN_EARLY_REJECTION, false)) {
+      final OperatorStats stats = validateSingle(topn, TopNOperator.class, input, output, 4);
+      assertEquals(0, stats.getLongStat(TopNOperator.Metric.BATCHES_REJECTED));
+      assertEquals(0, stats.getLongStat(TopNOperator.Metric.RECORDS_REJECTED));
+    }
+  }
 
+  @Test
+  public void topNEarlyRejectionMatchesQueue() throws Exception {
+    final int count = 2000;
+    final int limit = 10;
+    final Random random = new Random(1234);
+    final Integer[] values = new Integer[count];
+    final DataRow[] rows = new DataRow[count];
+    for (int i = 0; i < count; i++) {
+      values[i] = random.nextInt(20) == 0 ? null : random.nextInt(500);
+      rows[i] = tr(values[i] == null ? NULL_INT : values[i], i);
+    }
+    Table input = t(th("c0", "c1"), rows);
+
+    // ascending on c0 with nulls last, ties broken on the row number
+    final List<Integer> sorted = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      sorted.add(i);
+    }
+    sorted.sort(Comparator.comparing((Integer i) -> values[i], Comparator.nullsLast(Comparator.<Integer>naturalOrder()))
+        .thenComparing(i -> i));
+    final DataRow[] expectedRows = new DataRow[limit];
+    for (int i = 0; i < limit; i++) {
+      final int row = sorted.get(i);
+      expectedRows[i] = tr(values[row], row);
+    }
+    Table output = t(th("c0", "c1"), expectedRows);
+
+    TopN topn = new TopN(null, Arrays.asList(
+        ordering("c0", Direction.ASCENDING, NullDirection.LAST),
+        ordering("c1", Direction.ASCENDING, NullDirection.LAST)), false, limit);
+    try (AutoCloseable c = with(ExecConstants.TOPN_EARLY_REJECTION, true)) {
+      final OperatorStats stats = validateSingle(topn, TopNOperator.class, input, output, 100);
+      assertTrue(stats.getLongStat(TopNOperator.Metric.RECORDS_REJECTED) > count / 2);
+    }
+    try (AutoCloseable c = with(ExecConstants.TOPN_EARLY_REJECTION, false)) {
+      final OperatorStats stats = validateSingle(topn, TopNOperator.class, input, output, 100);
+      assertEquals(0, stats.getLongStat(TopNOperator.Metric.RECORDS_REJECTED));
+    }
+  }
 }
@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.dremio.sabot.task.AsyncTask;
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.SchedulingGroup;
+import com.dremio.sabot.task.Task.State;
+import com.dremio.sabot.task.TaskDescriptor;
+import com.dremio.sabot.task.TaskPool;
+import com.dremio.sabot.threads.AvailabilityCallback;
+import com.dremio.sabot.threads.sharedres.SharedResourceType;
+import com.google.common.collect.Iterables;
+
+/**
+ * Unit tests of {@link SlicingTaskPool}
+ */
+public class TestSlicingTaskPool {
+
+  /**
+   * Task that runs a fixed number of times, and blocks every blockInterval runs. Blocked tasks are woken up from
+   * another thread, like they would be by an incoming batch.
+   */
+  private static class TestTask implements AsyncTask {
+    private final int numRuns;
+    private final int blockInterval;
+    private final long spinNanos;
+    private final AtomicInteger runs = new AtomicInteger();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile State state = State.RUNNABLE;
+    private volatile boolean ranConcurrently;
+
+    TestTask(int numRuns, int blockInterval, long spinNanos) {
+      this.numRuns = numRuns;
+      this.blockInterval = blockInterval;
+      this.spinNanos = spinNanos;
+    }
+
+    @Override
+    public void run() {
+      if (!running.compareAndSet(false, true)) {
+        ranConcurrently = true;
+      }
+      final long start = System.nanoTime();
+      while (System.nanoTime() - start < spinNanos) {
+        // simulate some work
+      }
+      final int run = runs.incrementAndGet();
+      if (run >= numRuns) {
+        state = State.DONE;
+      } else if (blockInterval > 0 && run % blockInterval == 0) {
+        state = State.BLOCKED_ON_UPSTREAM;
+      }
+      running.set(false);
+    }
+
+    @Override
+    public void refreshState() {
+      state = State.RUNNABLE;
+    }
+
+    @Override
+    public State getState() {
+      return state;
+    }
+
+    @Override
+    public SharedResourceType getFirstBlockedResource() {
+      return null;
+    }
+
+    @Override
+    public void updateSleepDuration(long duration) {
+    }
+
+    @Override
+    public void updateBlockedOnDownstreamDuration(long duration) {
+    }
+
+    @Override
+    public void updateBlockedOnUpstreamDuration(long duration) {
+    }
+
+    @Override
+    public void addBlockedOnSharedResourceDuration(SharedResourceType resource, long duration) {
+    }
+
+    @Override
+    public void setWakeupCallback(AvailabilityCallback callback) {
+      new Thread(callback::nowAvailable).start();
+    }
+
+    @Override
+    public void setTaskDescriptor(TaskDescriptor descriptor) {
+    }
+  }
+
+  private static AsyncTaskWrapper wrap(SchedulingGroup<AsyncTaskWrapper> group, TestTask task, CountDownLatch done) {
+    return new AsyncTaskWrapper(group, task, done::countDown);
+  }
+
+  @Test
+  public void runBlockingTasks() throws Exception {
+    final int numTasks = 50;
+    final CountDownLatch done = new CountDownLatch(numTasks);
+    final List<TestTask> tasks = new ArrayList<>();
+
+    try (SlicingTaskPool pool = new SlicingTaskPool(4, () -> TimeUnit.MILLISECONDS.toNanos(1))) {
+      final SchedulingGroup<AsyncTaskWrapper> group = pool.getGroupManager().newGroup(100);
+      for (int i = 0; i < numTasks; i++) {
+        final TestTask task = new TestTask(100, 7, 0);
+        tasks.add(task);
+        pool.execute(wrap(group, task, done));
+      }
+
+      assertTrue("tasks didn't complete", done.await(1, TimeUnit.MINUTES));
+      for (TestTask task : tasks) {
+        assertEquals(100, task.runs.get());
+        assertFalse("task ran on two threads at the same time", task.ranConcurrently);
+      }
+
+      final Iterable<TaskPool.ThreadInfo> infos = pool.getSlicingThreads();
+      assertEquals(4, Iterables.size(infos));
+      for (TaskPool.ThreadInfo info : infos) {
+        assertEquals(0, info.numTasks);
+        assertEquals(0, info.numStagedTasks);
+      }
+    }
+  }
+
+  @Test
+  public void shareByGroupWeight() throws Exception {
+    final CountDownLatch done = new CountDownLatch(6);
+    final long spinNanos = TimeUnit.MICROSECONDS.toNanos(50);
+
+    // single thread with one run per slice, so the share of each group is decided by the vruntimes only
+    try (SlicingTaskPool pool = new SlicingTaskPool(1, () -> 0L)) {
+      final SchedulingGroup<AsyncTaskWrapper> heavy = pool.getGroupManager().newGroup(300);
+      final SchedulingGroup<AsyncTaskWrapper> light = pool.getGroupManager().newGroup(100);
+
+      // the light group has more tasks, but its tasks still get a smaller share of the thread
+      final TestTask heavyTask = new TestTask(2000, 0, spinNanos);
+      final List<TestTask> lightTasks = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+        lightTasks.add(new TestTask(2000, 0, spinNanos));
+      }
+
+      pool.execute(wrap(heavy, heavyTask, done));
+      for (TestTask task : lightTasks) {
+        pool.execute(wrap(light, task, done));
+      }
+
+      // sample the progress while both groups are still running
+      while (heavyTask.runs.get() < 1000) {
+        Thread.sleep(1);
+      }
+      int lightRuns = 0;
+      for (TestTask task : lightTasks) {
+        lightRuns += task.runs.get();
+      }
+      final double ratio = (double) heavyTask.runs.get() / lightRuns;
+      assertTrue("heavy group should get about 3 times the share of the light group, got " + ratio,
+        ratio > 1.5 && ratio < 6);
+
+      assertTrue("tasks didn't complete", done.await(1, TimeUnit.MINUTES));
+    }
+  }
+
+  @Test
+  public void shareByNestedGroup() throws Exception {
+    final CountDownLatch done = new CountDownLatch(6);
+    final long spinNanos = TimeUnit.MICROSECONDS.toNanos(50);
+
+    try (SlicingTaskPool pool = new SlicingTaskPool(1, () -> 0L)) {
+      // two queries of the same workload: the query with a single fragment gets as much cpu as the one with five
+      final SchedulingGroup<AsyncTaskWrapper> workload = pool.getGroupManager().newGroup(100);
+      final SchedulingGroup<AsyncTaskWrapper> small = workload.addGroup(100).addGroup(100);
+      final SchedulingGroup<AsyncTaskWrapper> large = workload.addGroup(100).addGroup(100);
+
+      final TestTask smallTask = new TestTask(2000, 0, spinNanos);
+      final List<TestTask> largeTasks = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+        largeTasks.add(new TestTask(2000, 0, spinNanos));
+      }
+
+      pool.execute(wrap(small, smallTask, done));
+      for (TestTask task : largeTasks) {
+        pool.execute(wrap(large, task, done));
+      }
+      assertEquals(6, workload.getNumTasks());
+      assertEquals(1, small.getNumTasks());
+
+      while (smallTask.runs.get() < 1000) {
+        Thread.sleep(1);
+      }
+      int largeRuns = 0;
+      for (TestTask task : largeTasks) {
+        largeRuns += task.runs.get();
+      }
+      final double ratio = (double) smallTask.runs.get() / largeRuns;
+      assertTrue("both queries should get about the same share, got " + ratio, ratio > 0.5 && ratio < 2);
+
+      assertTrue("tasks didn't complete", done.await(1, TimeUnit.MINUTES));
+      assertEquals(0, workload.getNumTasks());
+      assertTrue(workload.getCpuTime() >= small.getCpuTime() + large.getCpuTime());
+      assertTrue(small.getCpuTime() >= 2000 * spinNanos);
+    }
+  }
+}
@@ -78,6 +78,13 @@ abstract class CoreBaseTimedStore<K, V> implements CoreKVStore<K, V> {
     }
   }
 
+  @Override
+  public void put(List<Entry<KVStoreTuple<K>, KVStoreTuple<V>>> entries) {
+    try (TimedBlock b = time(name + ".put(List)")) {
+      kvStore.put(entries);
+    }
+  }
+
   @Override
   public boolean contains(KVStoreTuple<K> key) {
     try (TimedBlock b = time(name + ".contains")) {
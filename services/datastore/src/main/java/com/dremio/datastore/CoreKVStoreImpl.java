@@ -15,6 +15,7 @@
  */
 package com.dremio.datastore;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -22,6 +23,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 /**
  * KVStore created by CoreStoreProvider.
@@ -33,6 +35,7 @@ public class CoreKVStoreImpl<KEY, VALUE> implements CoreKVStore<KEY, VALUE> {
   private final Serializer<KEY> keySerializer;
   private final Serializer<VALUE> valueSerializer;
   private final VersionExtractor<VALUE> versionExtractor;
+  private final ChangeListener listener;
 
   private final Function<KVStoreTuple<KEY>, byte[]> keyToBytes = KVStoreTuple::getSerializedBytes;
   private final Function<byte[], KVStoreTuple<VALUE>> bytesToValue = input -> newValue().setSerializedBytes(input);
@@ -41,10 +44,19 @@ public class CoreKVStoreImpl<KEY, VALUE> implements CoreKVStore<KEY, VALUE> {
                      Serializer<KEY> keySerializer,
                      Serializer<VALUE> valueSerializer,
                      VersionExtractor<VALUE> versionExtractor) {
+    this(rawStore, keySerializer, valueSerializer, versionExtractor, ChangeListener.NO_OP);
+  }
+
+  public CoreKVStoreImpl(KVStore<byte[], byte[]> rawStore,
+                     Serializer<KEY> keySerializer,
+                     Serializer<VALUE> valueSerializer,
+                     VersionExtractor<VALUE> versionExtractor,
+                     ChangeListener listener) {
     this.rawStore = rawStore;
     this.keySerializer = keySerializer;
     this.valueSerializer = valueSerializer;
     this.versionExtractor = versionExtractor;
+    this.listener = listener;
   }
 
   @Override
@@ -72,17 +84,35 @@ public class CoreKVStoreImpl<KEY, VALUE> implements CoreKVStore<KEY, VALUE> {
   @Override
   public void put(KVStoreTuple<KEY> key, KVStoreTuple<VALUE> value) {
     rawStore.put(key.getSerializedBytes(), value.getSerializedBytes());
+    listener.changed(key.getSerializedBytes(), value);
+  }
+
+  @Override
+  public void put(List<Map.Entry<KVStoreTuple<KEY>, KVStoreTuple<VALUE>>> entries) {
+    final List<Map.Entry<byte[], byte[]>> convertedEntries = new ArrayList<>(entries.size());
+    for (Map.Entry<KVStoreTuple<KEY>, KVStoreTuple<VALUE>> entry : entries) {
+      convertedEntries.add(Maps.immutableEntry(entry.getKey().getSerializedBytes(),
+        entry.getValue().getSerializedBytes()));
+    }
+    rawStore.put(convertedEntries);
+    for (Map.Entry<KVStoreTuple<KEY>, KVStoreTuple<VALUE>> entry : entries) {
+      listener.changed(entry.getKey().getSerializedBytes(), entry.getValue());
+    }
   }
 
   @Override
   public boolean validateAndPut(KVStoreTuple<KEY> key, KVStoreTuple<VALUE> newValue, ValueValidator<VALUE> validator) {
-    return  ((ByteStore) rawStore).validateAndPut(key.getSerializedBytes(), newValue.getSerializedBytes(),
+    final boolean valid = ((ByteStore) rawStore).validateAndPut(key.getSerializedBytes(), newValue.getSerializedBytes(),
       (oldValue) -> {
         // run the validation one level up
         KVStoreTuple<VALUE> oldValueTuple = newValue().setSerializedBytes(oldValue);
         return validator.validate(oldValueTuple);
       }
     );
+    if (valid) {
+      listener.changed(key.getSerializedBytes(), newValue);
+    }
+    return valid;
   }
 
   @Override
@@ -93,6 +123,7 @@ public class CoreKVStoreImpl<KEY, VALUE> implements CoreKVStore<KEY, VALUE> {
   @Override
   public void delete(KVStoreTuple<KEY> key) {
     rawStore.delete(key.getSerializedBytes());
+    listener.changed(key.getSerializedBytes(), null);
   }
 
   /**
@@ -103,13 +134,17 @@ public class CoreKVStoreImpl<KEY, VALUE> implements CoreKVStore<KEY, VALUE> {
    * @return if the validation succeeded or not
    */
   public boolean validateAndDelete(KVStoreTuple<KEY> key, ValueValidator<VALUE> validator) {
-    return  ((ByteStore) rawStore).validateAndDelete(key.getSerializedBytes(),
+    final boolean valid = ((ByteStore) rawStore).validateAndDelete(key.getSerializedBytes(),
       (oldValue) -> {
         // run the validation one level up
         KVStoreTuple<VALUE> oldValueTuple = newValue().setSerializedBytes(oldValue);
         return validator.validate(oldValueTuple);
       }
     );
+    if (valid) {
+      listener.changed(key.getSerializedBytes(), null);
+    }
+    return valid;
   }
 
   @Override
@@ -129,6 +164,20 @@ public class CoreKVStoreImpl<KEY, VALUE> implements CoreKVStore<KEY, VALUE> {
   @Override
   public void delete(KVStoreTuple<KEY> key, String previousVersion) {
     rawStore.delete(key.getSerializedBytes(), previousVersion);
+    listener.changed(key.getSerializedBytes(), null);
+  }
+
+  /**
+   * Notified of the keys written to a store, once written.
+   */
+  public interface ChangeListener {
+    ChangeListener NO_OP = (key, value) -> {};
+
+    /**
+     * @param key the serialized key
+     * @param value the new value, or null if the key was deleted
+     */
+    void changed(byte[] key, KVStoreTuple<?> value);
   }
 
   final class CoreKVStoreEntry implements Map.Entry<KVStoreTuple<KEY>, KVStoreTuple<VALUE>> {
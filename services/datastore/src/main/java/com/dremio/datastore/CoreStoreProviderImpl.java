@@ -101,6 +101,7 @@ public class CoreStoreProviderImpl implements CoreStoreProviderRpcService, Itera
   private final boolean disableOCC;
   private final IndexManager indexManager;
   private final ByteStoreManager byteManager;
+  private final InvalidationPublisher invalidationPublisher = new InvalidationPublisher();
   private final String baseDirectory;
   private final File metaDataFilesDir;
 
@@ -268,6 +269,10 @@ public class CoreStoreProviderImpl implements CoreStoreProviderRpcService, Itera
     }
   }
 
+  InvalidationPublisher getInvalidationPublisher() {
+    return invalidationPublisher;
+  }
+
   @VisibleForTesting
   KVStore<byte[], byte[]> getDB(String name) {
     return byteManager.getStore(name);
@@ -281,7 +286,7 @@ public class CoreStoreProviderImpl implements CoreStoreProviderRpcService, Itera
   @Override
   public synchronized void close() throws Exception {
     if(closed.compareAndSet(false, true)) {
-      AutoCloseables.close(indexManager, byteManager);
+      AutoCloseables.close(invalidationPublisher, indexManager, byteManager);
       if (alarmFile != null && !alarmFile.delete()) {
         logger.warn("Failed to remove alarm file. Dremio will reindex internal stores on next start up.");
       } else {
@@ -417,7 +422,8 @@ public class CoreStoreProviderImpl implements CoreStoreProviderRpcService, Itera
             rawStore,
             builderConfig.keySerializer,
             builderConfig.valueSerializer,
-            builderConfig.versionExtractor);
+            builderConfig.versionExtractor,
+            invalidationPublisher.listener(builderConfig.name));
     if (!disableOCC && builderConfig.hasVersionExtractor()) {
       return new OCCStore<>(coreKVStore, !validateOCC);
     } else {
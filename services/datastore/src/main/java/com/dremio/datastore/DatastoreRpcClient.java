@@ -36,14 +36,18 @@ import com.dremio.datastore.RemoteDataStoreProtobuf.GetRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.GetResponse;
 import com.dremio.datastore.RemoteDataStoreProtobuf.GetStoreRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.GetStoreResponse;
+import com.dremio.datastore.RemoteDataStoreProtobuf.PutListRequest;
+import com.dremio.datastore.RemoteDataStoreProtobuf.PutListResponse;
 import com.dremio.datastore.RemoteDataStoreProtobuf.PutRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.PutResponse;
 import com.dremio.datastore.RemoteDataStoreProtobuf.SearchRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.SearchResponse;
 import com.dremio.datastore.SearchTypes.SearchQuery;
+import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 import com.dremio.exec.rpc.RpcException;
 import com.dremio.services.fabric.simple.ReceivedResponseMessage;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
 import com.google.protobuf.ByteString;
 
 /**
@@ -59,6 +63,30 @@ public class DatastoreRpcClient {
   }
 
   public String buildStore(StoreBuilderConfig config) {
+    try {
+      ReceivedResponseMessage<GetStoreResponse> response =
+        rpcService.getGetStoreEndpoint().send(newGetStoreRequest(config).build());
+      return response.getBody().getStoreId();
+    } catch (RpcException e) {
+      throw new DatastoreFatalException("Failed to create datastore for config " + config.toString(), e);
+    }
+  }
+
+  /**
+   * Get the store, registering the given node for the changes to the store. The master node keeps notifying the node
+   * until a notification fails, so the node is expected to call again regularly.
+   *
+   * @return the response, telling whether the node was already registered
+   */
+  public GetStoreResponse subscribe(StoreBuilderConfig config, NodeEndpoint invalidationEndpoint) throws RpcException {
+    final GetStoreRequest request = newGetStoreRequest(config)
+      .setInvalidationAddress(invalidationEndpoint.getAddress())
+      .setInvalidationPort(invalidationEndpoint.getFabricPort())
+      .build();
+    return rpcService.getGetStoreEndpoint().send(request).getBody();
+  }
+
+  private static GetStoreRequest.Builder newGetStoreRequest(StoreBuilderConfig config) {
     GetStoreRequest.Builder builder = GetStoreRequest.newBuilder()
       .setKeySerializerClass(config.getKeySerializerClassName())
       .setValueSerializerClass(config.getValueSerializerClassName())
@@ -69,12 +97,7 @@ public class DatastoreRpcClient {
     if (config.getDocumentConverterClassName() != null && !config.getDocumentConverterClassName().isEmpty()) {
       builder.setDocumentConverterClass(config.getDocumentConverterClassName());
     }
-    try {
-      ReceivedResponseMessage<GetStoreResponse> response = rpcService.getGetStoreEndpoint().send(builder.build());
-      return response.getBody().getStoreId();
-    } catch (RpcException e) {
-      throw new DatastoreFatalException("Failed to create datastore for config " + config.toString(), e);
-    }
+    return builder;
   }
 
   public ByteString get(String storeId, ByteString key) throws RpcException {
@@ -137,6 +160,18 @@ public class DatastoreRpcClient {
     return null;
   }
 
+  public List<String> put(String storeId, List<ByteString> keys, List<ByteString> values) throws RpcException {
+    final PutListRequest.Builder builder = PutListRequest.newBuilder();
+    builder.setStoreId(storeId);
+    builder.addAllKeys(keys);
+    builder.addAllValues(values);
+    ReceivedResponseMessage<PutListResponse> response = rpcService.getPutListEndpoint().send(builder.build());
+    if (response.getBody().hasConcurrentModificationError()) {
+      throw new ConcurrentModificationException(response.getBody().getConcurrentModificationError());
+    }
+    return Lists.transform(response.getBody().getVersionsList(), version -> version.isEmpty() ? null : version);
+  }
+
   public void delete(String storeId, ByteString key) throws RpcException {
     final DeleteRequest.Builder builder = DeleteRequest.newBuilder();
     builder.setStoreId(storeId);
@@ -31,6 +31,10 @@ import com.dremio.datastore.RemoteDataStoreProtobuf.GetRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.GetResponse;
 import com.dremio.datastore.RemoteDataStoreProtobuf.GetStoreRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.GetStoreResponse;
+import com.dremio.datastore.RemoteDataStoreProtobuf.InvalidateRequest;
+import com.dremio.datastore.RemoteDataStoreProtobuf.InvalidateResponse;
+import com.dremio.datastore.RemoteDataStoreProtobuf.PutListRequest;
+import com.dremio.datastore.RemoteDataStoreProtobuf.PutListResponse;
 import com.dremio.datastore.RemoteDataStoreProtobuf.PutRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.PutResponse;
 import com.dremio.datastore.RemoteDataStoreProtobuf.SearchRequest;
@@ -59,6 +63,8 @@ public class DatastoreRpcService {
   private static final int TYPE_PUT = 6;
   private static final int TYPE_DELETE = 7;
   private static final int TYPE_GET_STORE = 10;
+  private static final int TYPE_PUT_LIST = 11;
+  private static final int TYPE_INVALIDATE = 12;
 
   private final Provider<NodeEndpoint> master;
 
@@ -68,8 +74,10 @@ public class DatastoreRpcService {
   private SendEndpointCreator<FindRequest, FindResponse> findEndpointCreator;
   private SendEndpointCreator<SearchRequest, SearchResponse> searchEndpointCreator;
   private SendEndpointCreator<PutRequest, PutResponse> putEndpointCreator;
+  private SendEndpointCreator<PutListRequest, PutListResponse> putListEndpointCreator;
   private SendEndpointCreator<DeleteRequest, DeleteResponse> deleteEndpointCreator;
   private SendEndpointCreator<GetStoreRequest, GetStoreResponse> getStoreEndpointCreator;
+  private SendEndpointCreator<InvalidateRequest, InvalidateResponse> invalidateEndpointCreator;
 
   public DatastoreRpcService(Provider<NodeEndpoint> masterNode,
                              FabricService fabricService, BufferAllocator allocator,
@@ -126,6 +134,14 @@ public class DatastoreRpcService {
         }
       });
 
+    putListEndpointCreator = builder.register(TYPE_PUT_LIST,
+      new AbstractReceiveHandler<PutListRequest, PutListResponse>(PutListRequest.getDefaultInstance(), PutListResponse.getDefaultInstance()) {
+        @Override
+        public SentResponseMessage<PutListResponse> handle(PutListRequest request, ArrowBuf dBody) throws RpcException {
+          return new SentResponseMessage<>(handler.putList(request));
+        }
+      });
+
     deleteEndpointCreator = builder.register(TYPE_DELETE,
       new AbstractReceiveHandler<DeleteRequest, DeleteResponse>(DeleteRequest.getDefaultInstance(), DeleteResponse.getDefaultInstance()) {
         @Override
@@ -142,6 +158,14 @@ public class DatastoreRpcService {
         }
       });
 
+    invalidateEndpointCreator = builder.register(TYPE_INVALIDATE,
+      new AbstractReceiveHandler<InvalidateRequest, InvalidateResponse>(InvalidateRequest.getDefaultInstance(), InvalidateResponse.getDefaultInstance()) {
+        @Override
+        public SentResponseMessage<InvalidateResponse> handle(InvalidateRequest request, ArrowBuf dBody) throws RpcException {
+          return new SentResponseMessage<>(handler.invalidate(request));
+        }
+      });
+
     builder.register(fabricService);
   }
 
@@ -178,6 +202,10 @@ public class DatastoreRpcService {
     return newEndpoint(putEndpointCreator);
   }
 
+  public SendEndpoint<PutListRequest, PutListResponse> getPutListEndpoint() throws RpcException {
+    return newEndpoint(putListEndpointCreator);
+  }
+
   public SendEndpoint<DeleteRequest, DeleteResponse> getDeleteEndpoint() throws RpcException {
     return newEndpoint(deleteEndpointCreator);
   }
@@ -186,4 +214,11 @@ public class DatastoreRpcService {
     return newEndpoint(getStoreEndpointCreator);
   }
 
+  /**
+   * Invalidations are sent by the master node to the other nodes, so the endpoint is not created to the master.
+   */
+  public SendEndpoint<InvalidateRequest, InvalidateResponse> getInvalidateEndpoint(String address, int port) {
+    return invalidateEndpointCreator.getEndpoint(address, port);
+  }
+
 }
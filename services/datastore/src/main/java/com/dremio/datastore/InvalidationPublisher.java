@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.datastore;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.dremio.common.concurrent.NamedThreadFactory;
+import com.dremio.datastore.CoreKVStoreImpl.ChangeListener;
+import com.dremio.datastore.RemoteDataStoreProtobuf.InvalidateRequest;
+import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
+import com.dremio.exec.rpc.RpcException;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.protobuf.ByteString;
+
+/**
+ * Notifies the nodes caching entries of the stores of the master node (see {@link NearCache}) of the keys written to
+ * them.<br>
+ * <br>
+ * Writes are not held back by the notifications: the changed keys are queued for each node and sent in the
+ * background, the keys queued while a notification is being sent going together in the next one. Each node is
+ * notified independently of the others, so a slow node (each notification waits for at most the datastore rpc
+ * timeout) only delays its own notifications. A node that cannot be notified is no longer notified until it subscribes
+ * again: nodes renew their subscriptions regularly, and drop their cached entries when told they were not subscribed
+ * anymore.
+ */
+class InvalidationPublisher implements AutoCloseable {
+  private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(InvalidationPublisher.class);
+
+  private final ConcurrentMap<NodeEndpoint, Subscriber> subscribers = new ConcurrentHashMap<>();
+  // one thread at most for each subscriber
+  private final ExecutorService sender = Executors.newCachedThreadPool(
+    new NamedThreadFactory("kvstore-invalidations-"));
+
+  private volatile DatastoreRpcService rpcService;
+
+  void start(DatastoreRpcService rpcService) {
+    this.rpcService = rpcService;
+  }
+
+  @VisibleForTesting
+  DatastoreRpcService getRpcService() {
+    return rpcService;
+  }
+
+  /**
+   * Notify the given node of the changes to the store from now on.
+   *
+   * @return true if the node was already notified of the changes to the store, false if it may have missed some
+   */
+  boolean subscribe(String storeId, String address, int port) {
+    final NodeEndpoint endpoint = NodeEndpoint.newBuilder().setAddress(address).setFabricPort(port).build();
+    final AtomicBoolean wasSubscribed = new AtomicBoolean();
+    subscribers.compute(endpoint, (k, subscriber) -> {
+      final Subscriber current = subscriber == null ? new Subscriber(k) : subscriber;
+      wasSubscribed.set(!current.storeIds.add(storeId));
+      return current;
+    });
+    if (!wasSubscribed.get()) {
+      logger.debug("Node {}:{} caches entries of store {}", address, port, storeId);
+    }
+    return wasSubscribed.get();
+  }
+
+  /**
+   * @return the listener of the changes to a store
+   */
+  ChangeListener listener(String storeId) {
+    return (key, value) -> {
+      Invalidation invalidation = null;
+      for (Subscriber subscriber : subscribers.values()) {
+        if (!subscriber.storeIds.contains(storeId)) {
+          continue;
+        }
+        if (invalidation == null) {
+          final String tag = value == null ? null : value.getTag();
+          invalidation = new Invalidation(storeId, ByteString.copyFrom(key), tag == null ? "" : tag);
+        }
+        subscriber.add(invalidation);
+      }
+    };
+  }
+
+  @Override
+  public void close() throws Exception {
+    sender.shutdown();
+    if (!sender.awaitTermination(5, TimeUnit.SECONDS)) {
+      sender.shutdownNow();
+    }
+  }
+
+  /**
+   * A node caching entries of some of the stores, and its pending notifications.
+   */
+  private final class Subscriber {
+    private final NodeEndpoint endpoint;
+    private final Set<String> storeIds = ConcurrentHashMap.newKeySet();
+    private final ConcurrentLinkedQueue<Invalidation> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    private Subscriber(NodeEndpoint endpoint) {
+      this.endpoint = endpoint;
+    }
+
+    private void add(Invalidation invalidation) {
+      pending.add(invalidation);
+      if (scheduled.compareAndSet(false, true)) {
+        try {
+          sender.execute(this::send);
+        } catch (RejectedExecutionException e) {
+          // closing
+        }
+      }
+    }
+
+    private void send() {
+      scheduled.set(false);
+
+      final Map<String, InvalidateRequest.Builder> requests = new LinkedHashMap<>();
+      Invalidation invalidation;
+      while ((invalidation = pending.poll()) != null) {
+        final InvalidateRequest.Builder request = requests.computeIfAbsent(invalidation.storeId,
+          storeId -> InvalidateRequest.newBuilder().setStoreId(storeId));
+        request.addKeys(invalidation.key).addVersions(invalidation.tag);
+      }
+
+      final DatastoreRpcService service = rpcService;
+      if (service == null) {
+        return;
+      }
+      for (InvalidateRequest.Builder request : requests.values()) {
+        try {
+          service.getInvalidateEndpoint(endpoint.getAddress(), endpoint.getFabricPort()).send(request.build());
+        } catch (RpcException | RuntimeException e) {
+          logger.warn("Failure while notifying node {}:{} of changes to store {}, no longer notifying it until it "
+            + "subscribes again", endpoint.getAddress(), endpoint.getFabricPort(), request.getStoreId(), e);
+          subscribers.remove(endpoint, this);
+          return;
+        }
+      }
+    }
+  }
+
+  private static final class Invalidation {
+    private final String storeId;
+    private final ByteString key;
+    private final String tag;
+
+    private Invalidation(String storeId, ByteString key, String tag) {
+      this.storeId = storeId;
+      this.key = key;
+      this.tag = tag;
+    }
+  }
+}
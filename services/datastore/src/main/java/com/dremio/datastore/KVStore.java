@@ -58,6 +58,16 @@ public interface KVStore<K, V> {
    */
   void put(K key, V v);
 
+  /**
+   * Save the provided entries, as {@link #put(Object, Object)} would do for each of them.
+   * Possibly more efficient than looping over the entries in application code depending
+   * on the underlying storage system, which may also write them atomically.
+   *
+   * @param entries the entries to save, values can not be null.
+   * @throws NullPointerException when a value is null.
+   */
+  void put(List<Map.Entry<K, V>> entries);
+
   /**
    * Indicate if the store contains an entry associated with the key. Return {@code true}
    * if such a key exist, {@code false} otherwise.
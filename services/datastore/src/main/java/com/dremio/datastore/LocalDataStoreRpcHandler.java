@@ -15,6 +15,7 @@
  */
 package com.dremio.datastore;
 
+import java.util.ArrayList;
 import java.util.ConcurrentModificationException;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +34,8 @@ import com.dremio.datastore.RemoteDataStoreProtobuf.GetRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.GetResponse;
 import com.dremio.datastore.RemoteDataStoreProtobuf.GetStoreRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.GetStoreResponse;
+import com.dremio.datastore.RemoteDataStoreProtobuf.PutListRequest;
+import com.dremio.datastore.RemoteDataStoreProtobuf.PutListResponse;
 import com.dremio.datastore.RemoteDataStoreProtobuf.PutRequest;
 import com.dremio.datastore.RemoteDataStoreProtobuf.PutResponse;
 import com.dremio.datastore.RemoteDataStoreProtobuf.SearchRequest;
@@ -40,6 +43,7 @@ import com.dremio.datastore.RemoteDataStoreProtobuf.SearchResponse;
 import com.dremio.datastore.SearchTypes.SearchQuery;
 import com.google.common.base.Function;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.protobuf.ByteString;
 
 /**
@@ -48,10 +52,13 @@ import com.google.protobuf.ByteString;
 public class LocalDataStoreRpcHandler extends DefaultDataStoreRpcHandler {
 
   private final CoreStoreProviderRpcService coreStoreProvider;
+  private final InvalidationPublisher invalidationPublisher;
 
-  public LocalDataStoreRpcHandler(String hostName, CoreStoreProviderRpcService coreStoreProvider) {
+  LocalDataStoreRpcHandler(String hostName, CoreStoreProviderRpcService coreStoreProvider,
+      InvalidationPublisher invalidationPublisher) {
     super(hostName);
     this.coreStoreProvider = coreStoreProvider;
+    this.invalidationPublisher = invalidationPublisher;
   }
 
   @Override
@@ -153,6 +160,28 @@ public class LocalDataStoreRpcHandler extends DefaultDataStoreRpcHandler {
     return value.getTag() == null? PutResponse.getDefaultInstance() : PutResponse.newBuilder().setVersion(value.getTag()).build();
   }
 
+  @Override
+  public PutListResponse putList(PutListRequest request) {
+    final CoreKVStore<Object, Object> store = coreStoreProvider.getStore(request.getStoreId());
+    final List<Map.Entry<KVStoreTuple<Object>, KVStoreTuple<Object>>> entries = new ArrayList<>(request.getKeysCount());
+    for (int i = 0; i < request.getKeysCount(); i++) {
+      entries.add(Maps.immutableEntry(store.newKey().setSerializedBytes(request.getKeys(i).toByteArray()),
+        store.newValue().setSerializedBytes(request.getValues(i).toByteArray())));
+    }
+    try {
+      store.put(entries);
+    } catch (ConcurrentModificationException cme) {
+      return PutListResponse.newBuilder().setConcurrentModificationError(cme.getMessage()).build();
+    }
+
+    final PutListResponse.Builder builder = PutListResponse.newBuilder();
+    for (Map.Entry<KVStoreTuple<Object>, KVStoreTuple<Object>> entry : entries) {
+      final String version = entry.getValue().getTag();
+      builder.addVersions(version == null ? "" : version);
+    }
+    return builder.build();
+  }
+
   @Override
   public DeleteResponse delete(DeleteRequest request) {
     final CoreKVStore<Object, Object> store = coreStoreProvider.getStore(request.getStoreId());
@@ -182,6 +211,11 @@ public class LocalDataStoreRpcHandler extends DefaultDataStoreRpcHandler {
       config.setDocumentConverterClassName(request.getDocumentConverterClass());
     }
     String storeId = coreStoreProvider.getOrCreateStore(config);
-    return GetStoreResponse.newBuilder().setStoreId(storeId).build();
+    final GetStoreResponse.Builder response = GetStoreResponse.newBuilder().setStoreId(storeId);
+    if (request.hasInvalidationAddress()) {
+      response.setWasSubscribed(
+        invalidationPublisher.subscribe(storeId, request.getInvalidationAddress(), request.getInvalidationPort()));
+    }
+    return response.build();
   }
 }
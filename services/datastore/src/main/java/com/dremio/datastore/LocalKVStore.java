@@ -15,6 +15,7 @@
  */
 package com.dremio.datastore;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -22,6 +23,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 /**
  * Local KVStore implementation. (runs on master node)
@@ -83,6 +85,15 @@ public class LocalKVStore<K, V> implements KVStore<K, V> {
     coreKVStore.put(buildKey(key), buildValue(value));
   }
 
+  @Override
+  public void put(List<Map.Entry<K, V>> entries) {
+    final List<Map.Entry<KVStoreTuple<K>, KVStoreTuple<V>>> convertedEntries = new ArrayList<>(entries.size());
+    for (Map.Entry<K, V> entry : entries) {
+      convertedEntries.add(Maps.immutableEntry(buildKey(entry.getKey()), buildValue(entry.getValue())));
+    }
+    coreKVStore.put(convertedEntries);
+  }
+
   @Override
   public boolean contains(K key) {
     return coreKVStore.contains(buildKey(key));
@@ -136,15 +136,16 @@ public class LocalKVStoreProvider implements KVStoreProvider, Iterable<StoreWith
     logger.info("Starting LocalKVStoreProvider");
     coreStoreProvider.start();
     if (fabricService != null) {
-      final DefaultDataStoreRpcHandler rpcHandler = new LocalDataStoreRpcHandler(hostName, coreStoreProvider);
+      final DefaultDataStoreRpcHandler rpcHandler = new LocalDataStoreRpcHandler(hostName, coreStoreProvider,
+          coreStoreProvider.getInvalidationPublisher());
       final NodeEndpoint thisNode = NodeEndpoint.newBuilder()
           .setAddress(hostName)
           .setFabricPort(fabricService.get().getPort())
           .build();
       try {
         // DatastoreRpcService registers itself with fabric
-        //noinspection ResultOfObjectAllocationIgnored
-        new DatastoreRpcService(DirectProvider.wrap(thisNode), fabricService.get(), allocator, rpcHandler);
+        coreStoreProvider.getInvalidationPublisher().start(
+            new DatastoreRpcService(DirectProvider.wrap(thisNode), fabricService.get(), allocator, rpcHandler));
       } catch (RpcException e) {
         throw new DatastoreException("Failed to start rpc service", e);
       }
@@ -163,6 +164,11 @@ public class LocalKVStoreProvider implements KVStoreProvider, Iterable<StoreWith
     logger.info("LocalKVStoreProvider is up");
   }
 
+  @VisibleForTesting
+  InvalidationPublisher getInvalidationPublisher() {
+    return coreStoreProvider.getInvalidationPublisher();
+  }
+
   public void scan() throws Exception {
     coreStoreProvider.scan();
   }
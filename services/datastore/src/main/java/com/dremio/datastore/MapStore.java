@@ -62,6 +62,13 @@ class MapStore implements ByteStore {
     map.put(key, ByteBuffer.wrap(v));
   }
 
+  @Override
+  public void put(List<Entry<byte[], byte[]>> entries) {
+    for (Entry<byte[], byte[]> entry : entries) {
+      put(entry.getKey(), entry.getValue());
+    }
+  }
+
   @Override
   public boolean contains(byte[] key) {
     return map.containsKey(key);
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.datastore;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.codahale.metrics.MetricRegistry;
+import com.dremio.datastore.MetricUtils.MetricSetBuilder;
+import com.dremio.metrics.Metrics;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.protobuf.ByteString;
+
+/**
+ * Serialized entries of a store of the master node, cached by a node reading them remotely.<br>
+ * <br>
+ * The master node notifies the caching nodes of the keys written to the store (see {@link InvalidationPublisher}).
+ * Entries keep the version of their value, and a notification for the version already cached (like the one for a
+ * write made by this node) leaves them in place. As notifications are sent asynchronously, a value read from the
+ * master is only cached if no notification was received for the store while reading it.<br>
+ * <br>
+ * The cache is only used while the master node confirms notifying this node of the changes to the store: the node
+ * renews its subscription regularly, and entries are dropped when the master node had stopped notifying it (like
+ * after a failed notification, or a restart of the master node). Entries also expire after a while.
+ */
+class NearCache {
+  private static final String METRIC_PREFIX = "kvstore.remote.near_cache";
+
+  private final String metricPrefix;
+  private final Cache<ByteString, CachedValue> entries;
+  // number of notifications received, to tell values read while the store changed
+  private final AtomicLong generation = new AtomicLong();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong invalidations = new AtomicLong();
+  // time until which the master node is known to notify this node of the changes to the store
+  private volatile long subscribedUntilNanos = System.nanoTime();
+
+  NearCache(String storeName, long maxEntries, long expirationSeconds) {
+    this.metricPrefix = MetricRegistry.name(METRIC_PREFIX, storeName);
+    this.entries = CacheBuilder.newBuilder()
+      .maximumSize(maxEntries)
+      .expireAfterWrite(expirationSeconds, TimeUnit.SECONDS)
+      .build();
+  }
+
+  void registerMetrics() {
+    Metrics.getInstance().registerAll(new MetricSetBuilder(metricPrefix)
+      .gauge("entries", entries::size)
+      .gauge("hits", hits::get)
+      .gauge("misses", misses::get)
+      .gauge("invalidations", invalidations::get)
+      .build());
+  }
+
+  void removeMetrics() {
+    MetricUtils.removeAllMetricsThatStartWith(metricPrefix);
+  }
+
+  /**
+   * @return the serialized value, {@link ByteString#EMPTY} if the key is known to be missing, or null if not cached
+   */
+  ByteString get(ByteString key) {
+    if (!isSubscribed()) {
+      misses.incrementAndGet();
+      return null;
+    }
+    final CachedValue value = entries.getIfPresent(key);
+    if (value == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    return value.value;
+  }
+
+  /**
+   * @return the generation to give back when caching the values about to be read from the master
+   */
+  long getGeneration() {
+    return generation.get();
+  }
+
+  /**
+   * Cache a value read from (or written to) the master, unless the store was notified of changes since the read (or
+   * write) started.
+   *
+   * @param value the serialized value, or {@link ByteString#EMPTY} if missing
+   * @param tag the version of the value, or null if the store isn't versioned
+   */
+  void put(long generation, ByteString key, ByteString value, String tag) {
+    if (this.generation.get() != generation) {
+      return;
+    }
+    entries.put(key, new CachedValue(value, tag));
+    if (this.generation.get() != generation) {
+      // a notification may have been missed while caching
+      entries.invalidate(key);
+    }
+  }
+
+  /**
+   * Record that the master node notifies this node of the changes to the store, as told when (re)subscribing.
+   *
+   * @param wasSubscribed whether this node was already subscribed, false if notifications may have been missed
+   * @param durationNanos time during which the cache can be used, unless subscribed again
+   */
+  void subscribed(boolean wasSubscribed, long durationNanos) {
+    if (!wasSubscribed) {
+      generation.incrementAndGet();
+      entries.invalidateAll();
+    }
+    subscribedUntilNanos = System.nanoTime() + durationNanos;
+  }
+
+  private boolean isSubscribed() {
+    return System.nanoTime() - subscribedUntilNanos < 0;
+  }
+
+  /**
+   * Drop a key, like after a failed write.
+   */
+  void invalidate(ByteString key) {
+    generation.incrementAndGet();
+    entries.invalidate(key);
+  }
+
+  /**
+   * Drop the keys the master node notified changes for.
+   *
+   * @param versions versions of the new values, empty if the key was deleted or the store isn't versioned
+   */
+  void invalidate(List<ByteString> keys, List<String> versions) {
+    generation.incrementAndGet();
+    for (int i = 0; i < keys.size(); i++) {
+      final CachedValue value = entries.getIfPresent(keys.get(i));
+      if (value == null) {
+        continue;
+      }
+      final String version = i < versions.size() ? versions.get(i) : "";
+      if (version.isEmpty() || !version.equals(value.tag)) {
+        entries.asMap().remove(keys.get(i), value);
+        invalidations.incrementAndGet();
+      }
+    }
+  }
+
+  long getHits() {
+    return hits.get();
+  }
+
+  long getMisses() {
+    return misses.get();
+  }
+
+  long getInvalidations() {
+    return invalidations.get();
+  }
+
+  private static final class CachedValue {
+    private final ByteString value;
+    private final String tag;
+
+    private CachedValue(ByteString value, String tag) {
+      this.value = Objects.requireNonNull(value);
+      this.tag = tag;
+    }
+  }
+}
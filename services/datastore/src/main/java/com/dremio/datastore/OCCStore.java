@@ -17,11 +17,11 @@ package com.dremio.datastore;
 
 import static java.lang.String.format;
 
+import java.util.ArrayList;
 import java.util.ConcurrentModificationException;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 import com.dremio.common.AutoCloseables.RollbackCloseable;
@@ -125,6 +125,41 @@ class OCCStore<KEY, VALUE> implements CoreKVStore<KEY, VALUE> {
     }
   }
 
+  @Override
+  public void put(List<Entry<KVStoreTuple<KEY>, KVStoreTuple<VALUE>>> entries) {
+    if (!disableValidation) {
+      // each previous version has to be validated against what is currently stored
+      for (Entry<KVStoreTuple<KEY>, KVStoreTuple<VALUE>> entry : entries) {
+        put(entry.getKey(), entry.getValue());
+      }
+      return;
+    }
+
+    try (RollbackCloseable rollback = new RollbackCloseable()) {
+      for (Entry<KVStoreTuple<KEY>, KVStoreTuple<VALUE>> entry : entries) {
+        final KVStoreTuple<VALUE> newValue = entry.getValue();
+        // run pre-commit before we increment version
+        rollback.add(newValue.preCommit());
+
+        final String previousVersion = newValue.incrementVersion();
+        if (newValue.getTag() == null) {
+          throw new IllegalArgumentException("missing version in " + newValue);
+        }
+
+        rollback.add(() -> {
+          // manually rollback version
+          newValue.setTag(previousVersion);
+        });
+      }
+
+      store.put(entries);
+      rollback.commit();
+    } catch (Exception e) {
+      Throwables.throwIfUnchecked(e);
+      throw new RuntimeException(e);
+    }
+  }
+
   @Override
   public boolean validateAndPut(KVStoreTuple<KEY> key, KVStoreTuple<VALUE> newValue, ValueValidator<VALUE> validator) {
     return store.validateAndPut(key, newValue, validator);
@@ -160,7 +195,12 @@ class OCCStore<KEY, VALUE> implements CoreKVStore<KEY, VALUE> {
 
   @Override
   public List<KVStoreTuple<VALUE>> get(List<KVStoreTuple<KEY>> keys) {
-    return keys.stream().map(this::get).collect(Collectors.toList());
+    // values are copied so that their versions are updated in the returned tuples
+    final List<KVStoreTuple<VALUE>> values = new ArrayList<>(store.get(keys));
+    for (int i = 0; i < values.size(); i++) {
+      checkAndUpdateToStringVersion(keys.get(i), values.get(i));
+    }
+    return values;
   }
 
   @Override
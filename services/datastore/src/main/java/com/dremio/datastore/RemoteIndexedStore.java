@@ -36,6 +36,10 @@ public class RemoteIndexedStore<K, V> extends RemoteKVStore<K, V> implements Ind
     super(client, storeId, config);
   }
 
+  RemoteIndexedStore(DatastoreRpcClient client, String storeId, StoreBuilderConfig config, NearCache nearCache) {
+    super(client, storeId, config, nearCache);
+  }
+
   @Override
   public Iterable<Entry<K, V>> find(FindByCondition find) {
     try {
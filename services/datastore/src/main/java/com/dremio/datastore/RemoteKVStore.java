@@ -21,6 +21,7 @@ import static java.lang.String.format;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -30,6 +31,7 @@ import com.codahale.metrics.Timer;
 import com.dremio.datastore.MetricUtils.CloseableTimer;
 import com.dremio.exec.rpc.RpcException;
 import com.dremio.metrics.Metrics;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
@@ -47,6 +49,7 @@ public class RemoteKVStore <K, V> implements KVStore<K, V> {
     GET,
     GET_LIST,
     PUT,
+    PUT_LIST,
     CHECK_AND_PUT,
     CONTAINS,
     DELETE,
@@ -62,14 +65,23 @@ public class RemoteKVStore <K, V> implements KVStore<K, V> {
   private final Serializer<K> keySerializer;
   private final Serializer<V> valueSerializer;
   private final VersionExtractor<V> versionExtractor;
+  private final NearCache nearCache;
 
   private final Map<Stats, Timer> metrics;
 
-  @SuppressWarnings("unchecked")
   public RemoteKVStore(DatastoreRpcClient client, String storeId, StoreBuilderConfig config) {
+    this(client, storeId, config, null);
+  }
+
+  /**
+   * @param nearCache cache of the entries read, or null if they are always read from the master
+   */
+  @SuppressWarnings("unchecked")
+  RemoteKVStore(DatastoreRpcClient client, String storeId, StoreBuilderConfig config, NearCache nearCache) {
     this.client = client;
     this.storeId = storeId;
     this.config = config;
+    this.nearCache = nearCache;
 
     try {
       Constructor<?> constructor = Class.forName(config.getKeySerializerClassName()).getDeclaredConstructor();
@@ -126,7 +138,17 @@ public class RemoteKVStore <K, V> implements KVStore<K, V> {
   @Override
   public V get(K key) {
     try (CloseableTimer t = time(Stats.GET)) {
-      ByteString value = client.get(storeId, ByteString.copyFrom(keySerializer.serialize(key)));
+      final ByteString keyBytes = ByteString.copyFrom(keySerializer.serialize(key));
+      if (nearCache != null) {
+        final ByteString cached = nearCache.get(keyBytes);
+        if (cached != null) {
+          return cached.isEmpty() ? null : valueSerializer.deserialize(cached.toByteArray());
+        }
+        final long generation = nearCache.getGeneration();
+        return toCachedValue(generation, keyBytes, client.get(storeId, keyBytes));
+      }
+
+      ByteString value = client.get(storeId, keyBytes);
       if (value != null && !value.isEmpty()) {
         return valueSerializer.deserialize(value.toByteArray());
       } else {
@@ -171,6 +193,10 @@ public class RemoteKVStore <K, V> implements KVStore<K, V> {
         keyLists.add(ByteString.copyFrom(keySerializer.serialize(key)));
       }
 
+      if (nearCache != null) {
+        return getCached(keyLists);
+      }
+
       return Lists.transform(client.get(storeId, keyLists), new Function<ByteString, V>() {
         @Override
         public V apply(ByteString input) {
@@ -187,22 +213,72 @@ public class RemoteKVStore <K, V> implements KVStore<K, V> {
 
   @Override
   public void put(K key, V value) {
+    final ByteString keyBytes = ByteString.copyFrom(keySerializer.serialize(key));
+    final long generation = nearCache == null ? 0 : nearCache.getGeneration();
     try (CloseableTimer timer = time(Stats.PUT)) {
-      String version = client.put(storeId, ByteString.copyFrom(keySerializer.serialize(key)), ByteString.copyFrom(valueSerializer.serialize(value)));
+      final ByteString valueBytes = ByteString.copyFrom(valueSerializer.serialize(value));
+      String version = client.put(storeId, keyBytes, valueBytes);
       if (versionExtractor != null) {
         // the local value has not been modified since this was a remote call, so we have to call preCommit
         versionExtractor.preCommit(value);
         versionExtractor.setTag(value, version);
       }
+      cacheWritten(generation, keyBytes, value, valueBytes, version);
+    } catch (RuntimeException e) {
+      invalidateCached(keyBytes);
+      throw e;
     } catch (RpcException e) {
+      invalidateCached(keyBytes);
       throw new DatastoreException(format("Failed to put in store id: %s, config: %s", getStoreId(), getConfig().toString()), e);
     }
   }
 
+  @Override
+  public void put(List<Entry<K, V>> entries) {
+    try (CloseableTimer timer = time(Stats.PUT_LIST)) {
+      final List<ByteString> keys = Lists.newArrayListWithCapacity(entries.size());
+      final List<ByteString> values = Lists.newArrayListWithCapacity(entries.size());
+      for (Entry<K, V> entry : entries) {
+        keys.add(ByteString.copyFrom(keySerializer.serialize(entry.getKey())));
+        values.add(ByteString.copyFrom(valueSerializer.serialize(entry.getValue())));
+      }
+
+      final long generation = nearCache == null ? 0 : nearCache.getGeneration();
+      final List<String> versions;
+      try {
+        versions = client.put(storeId, keys, values);
+      } catch (RpcException | RuntimeException e) {
+        for (ByteString key : keys) {
+          invalidateCached(key);
+        }
+        throw e;
+      }
+
+      for (int i = 0; i < entries.size(); i++) {
+        final V value = entries.get(i).getValue();
+        if (versionExtractor != null) {
+          // the local values have not been modified since this was a remote call, so we have to call preCommit
+          versionExtractor.preCommit(value);
+          versionExtractor.setTag(value, versions.get(i));
+        }
+        cacheWritten(generation, keys.get(i), value, values.get(i), versionExtractor == null ? null : versions.get(i));
+      }
+    } catch (RpcException e) {
+      throw new DatastoreException(format("Failed to put mutiple values in store id: %s, config: %s", getStoreId(), getConfig().toString()), e);
+    }
+  }
+
   @Override
   public boolean contains(K key) {
     try (CloseableTimer timer = time(Stats.CONTAINS)) {
-      return client.contains(storeId, ByteString.copyFrom(keySerializer.serialize(key)));
+      final ByteString keyBytes = ByteString.copyFrom(keySerializer.serialize(key));
+      if (nearCache != null) {
+        final ByteString cached = nearCache.get(keyBytes);
+        if (cached != null) {
+          return !cached.isEmpty();
+        }
+      }
+      return client.contains(storeId, keyBytes);
     } catch (RpcException e) {
       throw new DatastoreException(format("Failed to check contains for store id: %s, config: %s", getStoreId(), getConfig().toString()), e);
     }
@@ -210,10 +286,13 @@ public class RemoteKVStore <K, V> implements KVStore<K, V> {
 
   @Override
   public void delete(K key) {
+    final ByteString keyBytes = ByteString.copyFrom(keySerializer.serialize(key));
     try (CloseableTimer timer = time(Stats.DELETE)) {
-      client.delete(storeId, ByteString.copyFrom(keySerializer.serialize(key)));
+      client.delete(storeId, keyBytes);
     } catch (RpcException e) {
       throw new DatastoreException(format("Failed to delete from store id: %s, config: %s", getStoreId(), getConfig().toString()), e);
+    } finally {
+      invalidateCached(keyBytes);
     }
   }
 
@@ -252,11 +331,77 @@ public class RemoteKVStore <K, V> implements KVStore<K, V> {
 
   @Override
   public void delete(K key, String previousVersion) {
+    final ByteString keyBytes = ByteString.copyFrom(keySerializer.serialize(key));
     try (CloseableTimer timer = time(Stats.DELETE_VERSION)) {
-      client.delete(storeId, ByteString.copyFrom(keySerializer.serialize(key)), previousVersion);
+      client.delete(storeId, keyBytes, previousVersion);
     } catch (RpcException e) {
       throw new DatastoreException(format("Failed to delete previous version from store id: %s, config: %s", getStoreId(), getConfig().toString()), e);
+    } finally {
+      invalidateCached(keyBytes);
+    }
+  }
+
+  /**
+   * Look up the keys in the near cache, reading the missing ones from the master in a single request.
+   */
+  private List<V> getCached(List<ByteString> keys) throws RpcException {
+    final List<V> values = new ArrayList<>(keys.size());
+    final List<Integer> missingIndices = new ArrayList<>();
+    final List<ByteString> missingKeys = new ArrayList<>();
+    for (int i = 0; i < keys.size(); i++) {
+      final ByteString cached = nearCache.get(keys.get(i));
+      if (cached == null) {
+        missingIndices.add(i);
+        missingKeys.add(keys.get(i));
+        values.add(null);
+      } else {
+        values.add(cached.isEmpty() ? null : valueSerializer.deserialize(cached.toByteArray()));
+      }
+    }
+
+    if (!missingKeys.isEmpty()) {
+      final long generation = nearCache.getGeneration();
+      final List<ByteString> missingValues = client.get(storeId, missingKeys);
+      for (int i = 0; i < missingKeys.size(); i++) {
+        values.set(missingIndices.get(i), toCachedValue(generation, missingKeys.get(i), missingValues.get(i)));
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Deserialize a value read from the master, caching it.
+   */
+  private V toCachedValue(long generation, ByteString key, ByteString value) {
+    if (value == null || value.isEmpty()) {
+      nearCache.put(generation, key, ByteString.EMPTY, null);
+      return null;
     }
+    final V deserialized = valueSerializer.deserialize(value.toByteArray());
+    nearCache.put(generation, key, value, versionExtractor == null ? null : versionExtractor.getTag(deserialized));
+    return deserialized;
   }
 
+  private void cacheWritten(long generation, ByteString key, V value, ByteString valueBytes, String version) {
+    if (nearCache == null) {
+      return;
+    }
+    if (versionExtractor == null) {
+      nearCache.put(generation, key, valueBytes, null);
+    } else {
+      // the value sent didn't have its new version yet
+      nearCache.put(generation, key, ByteString.copyFrom(valueSerializer.serialize(value)), version);
+    }
+  }
+
+  @VisibleForTesting
+  NearCache getNearCache() {
+    return nearCache;
+  }
+
+  private void invalidateCached(ByteString key) {
+    if (nearCache != null) {
+      nearCache.invalidate(key);
+    }
+  }
 }
@@ -16,12 +16,21 @@
 package com.dremio.datastore;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Provider;
 
 import org.apache.arrow.memory.BufferAllocator;
 
+import com.dremio.common.concurrent.NamedThreadFactory;
 import com.dremio.common.scanner.persistence.ScanResult;
+import com.dremio.datastore.RemoteDataStoreProtobuf.GetStoreResponse;
+import com.dremio.datastore.RemoteDataStoreProtobuf.InvalidateRequest;
+import com.dremio.datastore.RemoteDataStoreProtobuf.InvalidateResponse;
 import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 import com.dremio.exec.rpc.RpcException;
 import com.dremio.services.fabric.api.FabricService;
@@ -36,6 +45,10 @@ import com.google.common.collect.ImmutableMap;
 public class RemoteKVStoreProvider implements KVStoreProvider {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(RemoteKVStoreProvider.class);
   public static final String CONFIG_HOSTNAME = "hostName";
+  public static final String CONFIG_NEAR_CACHE_SIZE = "nearCacheSize";
+  public static final String CONFIG_NEAR_CACHE_EXPIRATION_SECONDS = "nearCacheExpirationSeconds";
+  public static final String CONFIG_NEAR_CACHE_RENEWAL_SECONDS = "nearCacheRenewalSeconds";
+  private static final long DEFAULT_NEAR_CACHE_RENEWAL_SECONDS = 10;
 
   private DatastoreRpcClient rpcClient;
   private final Provider<NodeEndpoint> masterNode;
@@ -43,14 +56,36 @@ public class RemoteKVStoreProvider implements KVStoreProvider {
   private final BufferAllocator allocator;
   private final String hostName;
   private final ScanResult scan;
+  private final long nearCacheSize;
+  private final long nearCacheExpirationSeconds;
+  private final long nearCacheRenewalSeconds;
+  private final ConcurrentMap<String, NearCache> nearCaches = new ConcurrentHashMap<>();
+  // stores this node subscribed to, to renew the subscriptions
+  private final ConcurrentMap<String, StoreBuilderConfig> subscriptions = new ConcurrentHashMap<>();
+  private ScheduledExecutorService subscriptionRenewer;
+  private NodeEndpoint thisNode;
   private ImmutableMap<Class<? extends StoreCreationFunction<?>>, KVStore<?, ?>> stores;
 
   public RemoteKVStoreProvider(ScanResult scan, Provider<NodeEndpoint> masterNode, Provider<FabricService> fabricService, BufferAllocator allocator, String hostName) {
+    this(scan, masterNode, fabricService, allocator, hostName, 0, 0, DEFAULT_NEAR_CACHE_RENEWAL_SECONDS);
+  }
+
+  /**
+   * @param nearCacheSize number of entries of each store cached by this node, 0 to read all entries from the master
+   * @param nearCacheExpirationSeconds time after which cached entries are read again from the master
+   * @param nearCacheRenewalSeconds interval at which this node subscribes again to the changes of the stores it caches
+   */
+  public RemoteKVStoreProvider(ScanResult scan, Provider<NodeEndpoint> masterNode, Provider<FabricService> fabricService,
+      BufferAllocator allocator, String hostName, long nearCacheSize, long nearCacheExpirationSeconds,
+      long nearCacheRenewalSeconds) {
     this.masterNode = masterNode;
     this.fabricService = fabricService;
     this.allocator = allocator;
     this.hostName = hostName;
     this.scan = scan;
+    this.nearCacheSize = nearCacheSize;
+    this.nearCacheExpirationSeconds = nearCacheExpirationSeconds;
+    this.nearCacheRenewalSeconds = nearCacheRenewalSeconds;
   }
 
   public RemoteKVStoreProvider(
@@ -66,7 +101,11 @@ public class RemoteKVStoreProvider implements KVStoreProvider {
          allocator,
          String.valueOf(Preconditions.checkNotNull(
            config.get(CONFIG_HOSTNAME), String.format("Missing services.datastore.config.%s in dremio.conf", CONFIG_HOSTNAME))
-         )
+         ),
+         Long.parseLong(String.valueOf(config.getOrDefault(CONFIG_NEAR_CACHE_SIZE, 0))),
+         Long.parseLong(String.valueOf(config.getOrDefault(CONFIG_NEAR_CACHE_EXPIRATION_SECONDS, 0))),
+         Long.parseLong(String.valueOf(
+           config.getOrDefault(CONFIG_NEAR_CACHE_RENEWAL_SECONDS, DEFAULT_NEAR_CACHE_RENEWAL_SECONDS)))
     );
   }
 
@@ -84,7 +123,11 @@ public class RemoteKVStoreProvider implements KVStoreProvider {
   @Override
   public void start() throws Exception {
     logger.info("Starting RemoteKVStoreProvider");
-    DefaultDataStoreRpcHandler rpcHandler = new DefaultDataStoreRpcHandler(hostName);
+    DefaultDataStoreRpcHandler rpcHandler = new NearCacheRpcHandler(hostName);
+    thisNode = NodeEndpoint.newBuilder()
+      .setAddress(hostName)
+      .setFabricPort(fabricService.get().getPort())
+      .build();
     try {
       DatastoreRpcService rpcService = new DatastoreRpcService(masterNode, fabricService.get(), allocator, rpcHandler);
       rpcClient = new DatastoreRpcClient(rpcService);
@@ -92,6 +135,13 @@ public class RemoteKVStoreProvider implements KVStoreProvider {
       throw new DatastoreFatalException("Failed to start rpc service", e);
     }
 
+    if (nearCacheSize > 0) {
+      subscriptionRenewer = Executors.newSingleThreadScheduledExecutor(
+        new NamedThreadFactory("kvstore-near-cache-subscriptions-"));
+      subscriptionRenewer.scheduleWithFixedDelay(this::renewSubscriptions, nearCacheRenewalSeconds,
+        nearCacheRenewalSeconds, TimeUnit.SECONDS);
+    }
+
     stores = StoreLoader.buildStores(scan, new StoreBuildingFactory() {
 
       @Override
@@ -105,9 +155,81 @@ public class RemoteKVStoreProvider implements KVStoreProvider {
 
   @Override
   public void close() throws Exception {
+    if (subscriptionRenewer != null) {
+      subscriptionRenewer.shutdownNow();
+    }
+    for (NearCache nearCache : nearCaches.values()) {
+      nearCache.removeMetrics();
+    }
     logger.info("Stopped RemoteKVStoreProvider");
   }
 
+  /**
+   * @return the id of the store, registering this node for the changes to the store if its entries are cached
+   */
+  private String buildStore(StoreBuilderConfig config) {
+    if (nearCacheSize <= 0) {
+      return rpcClient.buildStore(config);
+    }
+    final GetStoreResponse response;
+    try {
+      response = rpcClient.subscribe(config, thisNode);
+    } catch (RpcException e) {
+      throw new DatastoreFatalException("Failed to create datastore for config " + config.toString(), e);
+    }
+    final String storeId = response.getStoreId();
+    final NearCache nearCache = nearCaches.computeIfAbsent(storeId, id -> {
+      final NearCache newCache = new NearCache(id, nearCacheSize, nearCacheExpirationSeconds);
+      newCache.registerMetrics();
+      return newCache;
+    });
+    subscriptions.putIfAbsent(storeId, config);
+    nearCache.subscribed(response.getWasSubscribed(), getSubscriptionNanos());
+    return storeId;
+  }
+
+  /**
+   * Subscribe again to the changes of the stores cached by this node. The master node stops notifying a node it
+   * failed to notify, and loses the subscriptions when restarted, in which case the cached entries are dropped.
+   */
+  private void renewSubscriptions() {
+    for (Map.Entry<String, StoreBuilderConfig> subscription : subscriptions.entrySet()) {
+      final NearCache nearCache = nearCaches.get(subscription.getKey());
+      try {
+        final GetStoreResponse response = rpcClient.subscribe(subscription.getValue(), thisNode);
+        nearCache.subscribed(response.getWasSubscribed(), getSubscriptionNanos());
+      } catch (RpcException | RuntimeException e) {
+        // the cache isn't used once the previous subscription expires
+        logger.warn("Failure while renewing the subscription to store {}", subscription.getKey(), e);
+      }
+    }
+  }
+
+  /**
+   * @return time during which the cached entries can be used after subscribing, a few renewals to allow for delays
+   */
+  private long getSubscriptionNanos() {
+    return TimeUnit.SECONDS.toNanos(3 * nearCacheRenewalSeconds);
+  }
+
+  /**
+   * Handles the invalidations sent by the master to the near caches of this node.
+   */
+  private final class NearCacheRpcHandler extends DefaultDataStoreRpcHandler {
+    private NearCacheRpcHandler(String hostName) {
+      super(hostName);
+    }
+
+    @Override
+    public InvalidateResponse invalidate(InvalidateRequest request) {
+      final NearCache nearCache = nearCaches.get(request.getStoreId());
+      if (nearCache != null) {
+        nearCache.invalidate(request.getKeysList(), request.getVersionsList());
+      }
+      return InvalidateResponse.getDefaultInstance();
+    }
+  }
+
   /**
    * Store builder for remote kvstore provider.
    * @param <K>
@@ -142,13 +264,15 @@ public class RemoteKVStoreProvider implements KVStoreProvider {
 
     @Override
     public KVStore<K, V> build() {
-      return new RemoteKVStore<>(rpcClient, rpcClient.buildStore(config), config);
+      final String storeId = buildStore(config);
+      return new RemoteKVStore<>(rpcClient, storeId, config, nearCaches.get(storeId));
     }
 
     @Override
     public IndexedStore<K, V> buildIndexed(Class<? extends DocumentConverter<K, V>> documentConverterClass) {
       config.setDocumentConverterClassName(documentConverterClass.getName());
-      return new RemoteIndexedStore<>(rpcClient, rpcClient.buildStore(config), config);
+      final String storeId = buildStore(config);
+      return new RemoteIndexedStore<>(rpcClient, storeId, config, nearCaches.get(storeId));
     }
   }
 
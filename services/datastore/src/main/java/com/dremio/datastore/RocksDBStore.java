@@ -22,6 +22,8 @@ import java.lang.ref.PhantomReference;
 import java.lang.ref.ReferenceQueue;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -39,16 +41,20 @@ import org.rocksdb.FlushOptions;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
 
 import com.codahale.metrics.MetricRegistry;
 import com.dremio.common.AutoCloseables;
 import com.dremio.common.DeferredException;
 import com.dremio.common.concurrent.AutoCloseableLock;
+import com.dremio.common.util.Closeable;
 import com.dremio.datastore.MetricUtils.MetricSetBuilder;
 import com.dremio.metrics.Metrics;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.primitives.UnsignedBytes;
 
@@ -250,6 +256,28 @@ class RocksDBStore implements ByteStore {
     return lock;
   }
 
+  /**
+   * Acquire the shared locks of the stripes of several keys, in stripe order so that
+   * concurrent multi-key operations cannot deadlock.
+   */
+  private Closeable sharedLocks(List<byte[]> keys) {
+    final BitSet stripes = new BitSet(parallel);
+    for (byte[] key : keys) {
+      Preconditions.checkNotNull(key);
+      stripes.set(Math.abs(Arrays.hashCode(key) % parallel));
+    }
+
+    final List<AutoCloseableLock> locks = new ArrayList<>(stripes.cardinality());
+    for (int i = stripes.nextSetBit(0); i >= 0; i = stripes.nextSetBit(i + 1)) {
+      locks.add(sharedLocks[i].open());
+    }
+    return () -> {
+      for (AutoCloseableLock lock : Lists.reverse(locks)) {
+        lock.close();
+      }
+    };
+  }
+
   private AutoCloseableLock exclusiveLock(byte[] key) {
     Preconditions.checkNotNull(key);
     final int hash = Arrays.hashCode(key);
@@ -402,13 +430,44 @@ class RocksDBStore implements ByteStore {
 
   }
 
+  @Override
+  public void put(List<Entry<byte[], byte[]>> entries) {
+    final List<byte[]> keys = new ArrayList<>(entries.size());
+    for (Entry<byte[], byte[]> entry : entries) {
+      if (entry.getValue() == null) {
+        throw new NullPointerException("null values are not allowed in kvstore");
+      }
+      keys.add(entry.getKey());
+    }
+
+    try (Closeable ac = sharedLocks(keys);
+         WriteBatch batch = new WriteBatch();
+         WriteOptions options = new WriteOptions()) {
+      throwIfClosed();
+      for (Entry<byte[], byte[]> entry : entries) {
+        batch.put(handle, entry.getKey(), entry.getValue());
+      }
+      db.write(options, batch);
+    } catch (RocksDBException e) {
+      throw wrap(e);
+    }
+  }
+
   @Override
   public List<byte[]> get(List<byte[]> keys) {
-    List<byte[]> values = new ArrayList<>();
-    for (byte[] key : keys) {
-      values.add(get(key));
+    // keys are copied as values are returned by key instance
+    final List<byte[]> keyList = new ArrayList<>(keys);
+    try (Closeable ac = sharedLocks(keyList)) {
+      throwIfClosed();
+      final Map<byte[], byte[]> found = db.multiGet(Collections.nCopies(keyList.size(), handle), keyList);
+      final List<byte[]> values = new ArrayList<>(keyList.size());
+      for (byte[] key : keyList) {
+        values.add(found.get(key));
+      }
+      return values;
+    } catch (RocksDBException e) {
+      throw wrap(e);
     }
-    return values;
   }
 
   @Override
@@ -209,6 +209,14 @@ public class CoreIndexedStoreImpl<K, V> implements CoreIndexedStore<K, V> {
     index(key, v);
   }
 
+  @Override
+  public void put(List<Entry<KVStoreTuple<K>, KVStoreTuple<V>>> entries) {
+    base.put(entries);
+    for (Entry<KVStoreTuple<K>, KVStoreTuple<V>> entry : entries) {
+      index(entry.getKey(), entry.getValue());
+    }
+  }
+
   private void index(KVStoreTuple<K> key, KVStoreTuple<V> v) {
     final Document document = toDoc(key, v);
     if (document != null) {
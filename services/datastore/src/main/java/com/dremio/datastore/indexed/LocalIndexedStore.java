@@ -15,6 +15,7 @@
  */
 package com.dremio.datastore.indexed;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -27,6 +28,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 /**
  * Index store implementation (runs on master node).
@@ -103,6 +105,15 @@ public class LocalIndexedStore<K, V> implements IndexedStore<K, V> {
     coreIndexedStore.put(buildKey(key), buildValue(value));
   }
 
+  @Override
+  public void put(List<Map.Entry<K, V>> entries) {
+    final List<Map.Entry<KVStoreTuple<K>, KVStoreTuple<V>>> convertedEntries = new ArrayList<>(entries.size());
+    for (Map.Entry<K, V> entry : entries) {
+      convertedEntries.add(Maps.immutableEntry(buildKey(entry.getKey()), buildValue(entry.getValue())));
+    }
+    coreIndexedStore.put(convertedEntries);
+  }
+
   @Override
   public boolean contains(K key) {
     return coreIndexedStore.contains(buildKey(key));
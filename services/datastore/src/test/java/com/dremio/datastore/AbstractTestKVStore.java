@@ -36,6 +36,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 /**
  * Test kvstore + key value serde storage.
@@ -156,6 +157,26 @@ public abstract class AbstractTestKVStore {
     assertEquals("value1", backend.get("key1"));
   }
 
+  @Test
+  public void testGetList() {
+    backend.put("key1", "value1");
+    backend.put("key3", "value3");
+    assertEquals(Lists.newArrayList("value3", null, "value1", "value3"),
+        kvStore.get(ImmutableList.of("key3", "key2", "key1", "key3")));
+  }
+
+  @Test
+  public void testPutList() {
+    backend.put("key1", "value1");
+    kvStore.put(ImmutableList.of(
+        Maps.immutableEntry("key1", "value11"),
+        Maps.immutableEntry("key2", "value2"),
+        Maps.immutableEntry("key3", "value3")));
+    assertEquals("value11", backend.get("key1"));
+    assertEquals("value2", backend.get("key2"));
+    assertEquals("value3", backend.get("key3"));
+  }
+
   @Test
   public void testPutWithNullValue() throws Exception {
     try {
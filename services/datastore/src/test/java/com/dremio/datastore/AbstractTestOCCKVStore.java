@@ -31,6 +31,8 @@ import org.junit.rules.ExpectedException;
 import com.dremio.common.scanner.persistence.ScanResult;
 import com.dremio.test.DremioTest;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
 import com.google.common.primitives.Longs;
 
 /**
@@ -176,6 +178,18 @@ public abstract class AbstractTestOCCKVStore {
     assertEquals("2", v.getTag());
   }
 
+  @Test
+  public void testUpdateList() {
+    Value a = new Value(null);
+    Value b = new Value(null);
+    s.put(ImmutableList.of(Maps.immutableEntry("a", a), Maps.immutableEntry("b", b)));
+    assertEquals("0", a.getTag());
+    assertEquals("0", b.getTag());
+    s.put(ImmutableList.of(Maps.immutableEntry("a", a)));
+    assertEquals("1", a.getTag());
+    assertEquals("1", s.get("a").getTag());
+  }
+
   @Test
   public void testConcurrentUpdate() {
     Value v0 = new Value(null);
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.datastore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ByteString;
+
+/**
+ * Unit tests of {@link NearCache}
+ */
+public class TestNearCache {
+
+  private static final ByteString KEY = ByteString.copyFromUtf8("key");
+  private static final ByteString VALUE = ByteString.copyFromUtf8("value");
+
+  private static final long SUBSCRIPTION_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+  private static NearCache newCache() {
+    final NearCache cache = new NearCache("test", 10, 60);
+    cache.subscribed(false, SUBSCRIPTION_NANOS);
+    return cache;
+  }
+
+  @Test
+  public void hitAndMiss() {
+    final NearCache cache = newCache();
+    assertNull(cache.get(KEY));
+    cache.put(cache.getGeneration(), KEY, VALUE, null);
+    assertEquals(VALUE, cache.get(KEY));
+
+    // missing keys are cached too
+    final ByteString missing = ByteString.copyFromUtf8("missing");
+    cache.put(cache.getGeneration(), missing, ByteString.EMPTY, null);
+    assertEquals(ByteString.EMPTY, cache.get(missing));
+
+    assertEquals(2, cache.getHits());
+    assertEquals(1, cache.getMisses());
+  }
+
+  @Test
+  public void notCachedWhenChangedWhileReading() {
+    final NearCache cache = newCache();
+    final long generation = cache.getGeneration();
+    cache.invalidate(ImmutableList.of(KEY), ImmutableList.of(""));
+    cache.put(generation, KEY, VALUE, null);
+    assertNull(cache.get(KEY));
+  }
+
+  @Test
+  public void invalidatedByOtherVersion() {
+    final NearCache cache = newCache();
+    cache.put(cache.getGeneration(), KEY, VALUE, "1");
+
+    // notification of the version already cached
+    cache.invalidate(ImmutableList.of(KEY), ImmutableList.of("1"));
+    assertEquals(VALUE, cache.get(KEY));
+
+    cache.invalidate(ImmutableList.of(KEY), ImmutableList.of("2"));
+    assertNull(cache.get(KEY));
+    assertEquals(1, cache.getInvalidations());
+  }
+
+  @Test
+  public void invalidatedWhenDeleted() {
+    final NearCache cache = newCache();
+    cache.put(cache.getGeneration(), KEY, VALUE, "1");
+    cache.invalidate(ImmutableList.of(KEY), ImmutableList.of(""));
+    assertNull(cache.get(KEY));
+  }
+
+  @Test
+  public void droppedWhenSubscriptionLost() {
+    final NearCache cache = newCache();
+    cache.put(cache.getGeneration(), KEY, VALUE, null);
+
+    // still subscribed
+    cache.subscribed(true, SUBSCRIPTION_NANOS);
+    assertEquals(VALUE, cache.get(KEY));
+
+    // the master node stopped notifying this node in the meantime
+    final long generation = cache.getGeneration();
+    cache.subscribed(false, SUBSCRIPTION_NANOS);
+    assertNull(cache.get(KEY));
+    cache.put(generation, KEY, VALUE, null);
+    assertNull(cache.get(KEY));
+  }
+
+  @Test
+  public void notUsedWhenSubscriptionExpired() {
+    final NearCache cache = newCache();
+    cache.put(cache.getGeneration(), KEY, VALUE, null);
+    cache.subscribed(true, 0);
+    assertNull(cache.get(KEY));
+
+    cache.subscribed(true, SUBSCRIPTION_NANOS);
+    assertEquals(VALUE, cache.get(KEY));
+  }
+}
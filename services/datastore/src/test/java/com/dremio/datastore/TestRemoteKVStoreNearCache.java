@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.datastore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.datastore.RemoteDataStoreProtobuf.InvalidateRequest;
+import com.dremio.datastore.RemoteDataStoreProtobuf.InvalidateResponse;
+import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
+import com.dremio.exec.rpc.CloseableThreadPool;
+import com.dremio.exec.rpc.RpcException;
+import com.dremio.service.DirectProvider;
+import com.dremio.services.fabric.FabricServiceImpl;
+import com.dremio.services.fabric.api.FabricService;
+import com.dremio.services.fabric.simple.SendEndpoint;
+import com.dremio.test.DremioTest;
+
+/**
+ * Tests of the entries of {@link RemoteKVStore} cached by a node, and invalidated by the master node through
+ * {@link InvalidationPublisher}
+ */
+public class TestRemoteKVStoreNearCache {
+
+  private static final String HOSTNAME = "localhost";
+  private static final int THREAD_COUNT = 2;
+  private static final long RESERVATION = 0;
+  private static final long MAX_ALLOCATION = Long.MAX_VALUE;
+  private static final int TIMEOUT = 300;
+  private static final long WAIT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+  @ClassRule
+  public static final TemporaryFolder tmpFolder = new TemporaryFolder();
+
+  private FabricService localFabricService;
+  private FabricService remoteFabricService;
+  private LocalKVStoreProvider localKVStoreProvider;
+  private RemoteKVStoreProvider remoteKVStoreProvider;
+  private BufferAllocator allocator;
+  private CloseableThreadPool pool;
+
+  @Before
+  public void startProviders() throws Exception {
+    allocator = new RootAllocator(20 * 1024 * 1024);
+    pool = new CloseableThreadPool("test-remotekvstore-nearcache");
+
+    localFabricService = new FabricServiceImpl(HOSTNAME, 45678, true, THREAD_COUNT, allocator, RESERVATION,
+        MAX_ALLOCATION, TIMEOUT, pool);
+    localFabricService.start();
+
+    remoteFabricService = new FabricServiceImpl(HOSTNAME, 45679, true, THREAD_COUNT, allocator, RESERVATION,
+        MAX_ALLOCATION, TIMEOUT, pool);
+    remoteFabricService.start();
+
+    localKVStoreProvider = new LocalKVStoreProvider(DremioTest.CLASSPATH_SCAN_RESULT,
+        DirectProvider.wrap(localFabricService), allocator, HOSTNAME, tmpFolder.getRoot().toString(),
+        true, true, true, false);
+    localKVStoreProvider.start();
+
+    // entries cached for longer than the test runs, so only invalidations and renewals drop them
+    remoteKVStoreProvider = new RemoteKVStoreProvider(
+        DremioTest.CLASSPATH_SCAN_RESULT,
+        DirectProvider.wrap(NodeEndpoint.newBuilder()
+            .setAddress(HOSTNAME)
+            .setFabricPort(localFabricService.getPort())
+            .build()),
+        DirectProvider.wrap(remoteFabricService), allocator, HOSTNAME, 100, 3600, 1);
+    remoteKVStoreProvider.start();
+  }
+
+  @After
+  public void closeProviders() throws Exception {
+    AutoCloseables.close(remoteKVStoreProvider, localKVStoreProvider, remoteFabricService, localFabricService, pool,
+        allocator);
+  }
+
+  private static void waitFor(Supplier<Boolean> condition) throws InterruptedException {
+    final long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+    while (!condition.get()) {
+      assertTrue("Timed out", System.currentTimeMillis() < deadline);
+      Thread.sleep(50);
+    }
+  }
+
+  @Test
+  public void invalidatedByMasterWrite() throws Exception {
+    final String name = UUID.randomUUID().toString();
+    final KVStore<String, String> master = localKVStoreProvider.<String, String>newStore()
+      .name(name)
+      .keySerializer(StringSerializer.class)
+      .valueSerializer(StringSerializer.class).build();
+    final RemoteKVStore<String, String> remote = (RemoteKVStore<String, String>) remoteKVStoreProvider
+      .<String, String>newStore()
+      .name(name)
+      .keySerializer(StringSerializer.class)
+      .valueSerializer(StringSerializer.class).build();
+    final NearCache nearCache = remote.getNearCache();
+
+    master.put("key", "v1");
+    assertEquals("v1", remote.get("key"));
+    final long hits = nearCache.getHits();
+    assertEquals("v1", remote.get("key"));
+    assertEquals(hits + 1, nearCache.getHits());
+
+    // written on the master node, the cached entry is dropped once the node is notified
+    master.put("key", "v2");
+    waitFor(() -> "v2".equals(remote.get("key")));
+    assertTrue(nearCache.getInvalidations() > 0);
+  }
+
+  @Test
+  public void resubscribedAfterFailedNotification() throws Exception {
+    final String name = UUID.randomUUID().toString();
+    final KVStore<String, String> master = localKVStoreProvider.<String, String>newStore()
+      .name(name)
+      .keySerializer(StringSerializer.class)
+      .valueSerializer(StringSerializer.class).build();
+    final RemoteKVStore<String, String> remote = (RemoteKVStore<String, String>) remoteKVStoreProvider
+      .<String, String>newStore()
+      .name(name)
+      .keySerializer(StringSerializer.class)
+      .valueSerializer(StringSerializer.class).build();
+
+    master.put("key", "v1");
+    assertEquals("v1", remote.get("key"));
+
+    // the notification of the next write fails, and the master node stops notifying the node
+    final InvalidationPublisher publisher = localKVStoreProvider.getInvalidationPublisher();
+    final DatastoreRpcService rpcService = publisher.getRpcService();
+    final SendEndpoint<InvalidateRequest, InvalidateResponse> failing = (message, bufs) -> {
+      throw new RpcException("injected failure");
+    };
+    final DatastoreRpcService failingService = mock(DatastoreRpcService.class);
+    when(failingService.getInvalidateEndpoint(anyString(), anyInt())).thenReturn(failing);
+    publisher.start(failingService);
+    try {
+      master.put("key", "v2");
+      // the node finds out when renewing its subscription, and drops its cached entries
+      waitFor(() -> "v2".equals(remote.get("key")));
+    } finally {
+      publisher.start(rpcService);
+    }
+
+    // notified again once subscribed again
+    assertEquals("v2", remote.get("key"));
+    master.put("key", "v3");
+    waitFor(() -> "v3".equals(remote.get("key")));
+  }
+}
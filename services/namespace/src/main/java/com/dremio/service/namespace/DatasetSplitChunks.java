@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.namespace;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.dremio.datastore.KVStore.FindByRange;
+import com.dremio.service.namespace.dataset.proto.DatasetSplit;
+import com.dremio.service.namespace.dataset.proto.DatasetSplitChunk;
+import com.dremio.service.namespace.dataset.proto.PartitionValue;
+import com.dremio.service.namespace.dataset.proto.PartitionValueColumn;
+import com.dremio.service.namespace.proto.EntityId;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.google.common.primitives.Ints;
+
+import io.protostuff.ByteString;
+import io.protostuff.LinkedBuffer;
+import io.protostuff.ProtostuffIOUtil;
+
+/**
+ * Splits of a dataset version stored as {@link DatasetSplitChunk}s.<br>
+ * <br>
+ * Each chunk holds {@link #CHUNK_SIZE} consecutive splits (the last one possibly fewer), compressed together, along
+ * with their partition values by column. Reading a dataset version this way costs one entry per chunk instead of one
+ * per split, and the splits of a chunk can be selected on their partition values before being deserialized.
+ */
+public final class DatasetSplitChunks {
+  public static final int CHUNK_SIZE = 4096;
+
+  // chunk ids are zero padded so chunks are listed in order
+  private static final String CHUNK_ID_FORMAT = "%010d";
+
+  private DatasetSplitChunks() {
+  }
+
+  static DatasetSplitId getChunkId(EntityId datasetId, long splitVersion, int chunkIndex) {
+    return DatasetSplitId.of(datasetId, splitVersion, String.format(CHUNK_ID_FORMAT, chunkIndex));
+  }
+
+  /**
+   * @return the range of the chunks of a dataset version, starting with the given chunk
+   */
+  public static FindByRange<DatasetSplitId> getChunksRange(EntityId datasetId, long splitVersion, int firstChunk) {
+    return new FindByRange<DatasetSplitId>()
+      .setStart(getChunkId(datasetId, splitVersion, firstChunk), true)
+      .setEnd(DatasetSplitId.getSplitRange(datasetId, splitVersion).upperEndpoint(), false);
+  }
+
+  /**
+   * Check the chunks of a dataset version were written, which is not the case for versions written before chunks
+   * were introduced.
+   *
+   * @param splitCount the number of splits of the version
+   */
+  public static boolean hasChunks(NamespaceService namespaceService, EntityId datasetId, long splitVersion,
+      int splitCount) {
+    if (splitCount == 0) {
+      return false;
+    }
+    // chunks are written along with the splits, before the version is visible, so checking the last one is enough
+    final int lastChunk = (splitCount - 1) / CHUNK_SIZE;
+    final Iterator<Map.Entry<DatasetSplitId, DatasetSplitChunk>> chunks =
+      namespaceService.findSplitChunks(getChunksRange(datasetId, splitVersion, lastChunk)).iterator();
+    if (!chunks.hasNext()) {
+      return false;
+    }
+    final Map.Entry<DatasetSplitId, DatasetSplitChunk> last = chunks.next();
+    return last.getKey().equals(getChunkId(datasetId, splitVersion, lastChunk))
+      && last.getValue().getSplitCount() == splitCount - lastChunk * CHUNK_SIZE
+      && !chunks.hasNext();
+  }
+
+  /**
+   * Group splits into chunks.
+   */
+  public static List<DatasetSplitChunk> encode(List<DatasetSplit> splits) {
+    final List<DatasetSplitChunk> chunks = new ArrayList<>();
+    for (List<DatasetSplit> chunkSplits : Lists.partition(splits, CHUNK_SIZE)) {
+      chunks.add(encodeChunk(chunkSplits));
+    }
+    return chunks;
+  }
+
+  private static DatasetSplitChunk encodeChunk(List<DatasetSplit> splits) {
+    final Map<String, ColumnEncoder> columns = new LinkedHashMap<>();
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final LinkedBuffer buffer = LinkedBuffer.allocate();
+    try (DataOutputStream output = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+      for (int i = 0; i < splits.size(); i++) {
+        final DatasetSplit split = splits.get(i);
+        if (split.getPartitionValuesList() != null) {
+          for (PartitionValue value : split.getPartitionValuesList()) {
+            if (value.getColumn() != null) {
+              columns.computeIfAbsent(value.getColumn(), column -> new ColumnEncoder(splits.size())).add(i, value);
+            }
+          }
+        }
+
+        final byte[] serialized;
+        try {
+          serialized = ProtostuffIOUtil.toByteArray(split, DatasetSplit.getSchema(), buffer);
+        } finally {
+          buffer.clear();
+        }
+        output.writeInt(serialized.length);
+        output.write(serialized);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Failure while compressing splits", e);
+    }
+
+    final List<PartitionValueColumn> partitionColumns = new ArrayList<>(columns.size());
+    for (Map.Entry<String, ColumnEncoder> column : columns.entrySet()) {
+      partitionColumns.add(new PartitionValueColumn()
+        .setColumn(column.getKey())
+        .setDictionaryList(column.getValue().dictionary)
+        .setIndicesList(Ints.asList(column.getValue().indices)));
+    }
+
+    return new DatasetSplitChunk()
+      .setSplitCount(splits.size())
+      .setPartitionColumnsList(partitionColumns)
+      .setSplits(ByteString.copyFrom(bytes.toByteArray()));
+  }
+
+  /**
+   * Deserialize the splits of a chunk.
+   *
+   * @param selected the positions in the chunk of the splits to deserialize, or null for all of them
+   */
+  public static List<DatasetSplit> decode(DatasetSplitChunk chunk, BitSet selected) {
+    final int splitCount = chunk.getSplitCount() == null ? 0 : chunk.getSplitCount();
+    final int lastSelected = selected == null ? splitCount - 1 : Math.min(selected.length(), splitCount) - 1;
+    final List<DatasetSplit> splits = new ArrayList<>(selected == null ? splitCount : selected.cardinality());
+    if (lastSelected < 0) {
+      return splits;
+    }
+
+    try (DataInputStream input = new DataInputStream(
+        new InflaterInputStream(new ByteArrayInputStream(chunk.getSplits().toByteArray())))) {
+      for (int i = 0; i <= lastSelected; i++) {
+        final int length = input.readInt();
+        if (selected != null && !selected.get(i)) {
+          ByteStreams.skipFully(input, length);
+          continue;
+        }
+        final byte[] serialized = new byte[length];
+        input.readFully(serialized);
+        final DatasetSplit split = new DatasetSplit();
+        ProtostuffIOUtil.mergeFrom(serialized, split, DatasetSplit.getSchema());
+        splits.add(split);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Failure while reading splits", e);
+    }
+    return splits;
+  }
+
+  /**
+   * Dictionary encoder of the partition values of a column
+   */
+  private static final class ColumnEncoder {
+    private final Map<PartitionValue, Integer> positions = new HashMap<>();
+    private final List<PartitionValue> dictionary = new ArrayList<>();
+    private final int[] indices;
+
+    private ColumnEncoder(int splitCount) {
+      this.indices = new int[splitCount];
+      Arrays.fill(indices, -1);
+    }
+
+    private void add(int split, PartitionValue value) {
+      indices[split] = positions.computeIfAbsent(value, v -> {
+        dictionary.add(v);
+        return dictionary.size() - 1;
+      });
+    }
+  }
+}
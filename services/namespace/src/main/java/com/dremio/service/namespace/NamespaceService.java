@@ -24,6 +24,7 @@ import com.dremio.datastore.KVStore.FindByRange;
 import com.dremio.datastore.SearchTypes.SearchQuery;
 import com.dremio.service.namespace.dataset.proto.DatasetConfig;
 import com.dremio.service.namespace.dataset.proto.DatasetSplit;
+import com.dremio.service.namespace.dataset.proto.DatasetSplitChunk;
 import com.dremio.service.namespace.proto.NameSpaceContainer;
 import com.dremio.service.namespace.proto.NameSpaceContainer.Type;
 import com.dremio.service.namespace.source.proto.SourceConfig;
@@ -184,6 +185,11 @@ public interface NamespaceService {
 
   Iterable<Map.Entry<DatasetSplitId, DatasetSplit>> findSplits(FindByRange<DatasetSplitId> range);
 
+  /**
+   * Search for chunks of splits (see {@link DatasetSplitChunks}) for given range.
+   */
+  Iterable<Map.Entry<DatasetSplitId, DatasetSplitChunk>> findSplitChunks(FindByRange<DatasetSplitId> range);
+
   /**
    * Count total number of splits for given condition
    * @param condition
@@ -55,6 +55,7 @@ import com.dremio.common.exceptions.UserException;
 import com.dremio.common.utils.PathUtils;
 import com.dremio.datastore.IndexedStore;
 import com.dremio.datastore.IndexedStore.FindByCondition;
+import com.dremio.datastore.KVStore;
 import com.dremio.datastore.KVStore.FindByRange;
 import com.dremio.datastore.KVStoreProvider;
 import com.dremio.datastore.PassThroughSerializer;
@@ -65,6 +66,7 @@ import com.dremio.datastore.StoreCreationFunction;
 import com.dremio.datastore.indexed.IndexKey;
 import com.dremio.service.namespace.dataset.proto.DatasetConfig;
 import com.dremio.service.namespace.dataset.proto.DatasetSplit;
+import com.dremio.service.namespace.dataset.proto.DatasetSplitChunk;
 import com.dremio.service.namespace.dataset.proto.DatasetType;
 import com.dremio.service.namespace.dataset.proto.PhysicalDataset;
 import com.dremio.service.namespace.dataset.proto.ReadDefinition;
@@ -83,6 +85,7 @@ import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Range;
 
 /**
@@ -93,9 +96,14 @@ public class NamespaceServiceImpl implements NamespaceService {
 
   public static final String DAC_NAMESPACE = "dac-namespace";
   public static final String DATASET_SPLITS = "metadata-dataset-splits";
+  public static final String DATASET_SPLIT_CHUNKS = "metadata-dataset-split-chunks";
+
+  // number of splits written to the store at once
+  private static final int SPLITS_BATCH_SIZE = 1000;
 
   private final IndexedStore<byte[], NameSpaceContainer> namespace;
   private final IndexedStore<DatasetSplitId, DatasetSplit> splitsStore;
+  private final KVStore<DatasetSplitId, DatasetSplitChunk> splitChunksStore;
   private final boolean keyNormalization;
 
   /**
@@ -124,6 +132,7 @@ public class NamespaceServiceImpl implements NamespaceService {
   protected NamespaceServiceImpl(final KVStoreProvider kvStoreProvider, boolean keyNormalization) {
     this.namespace = kvStoreProvider.getStore(NamespaceStoreCreator.class);
     this.splitsStore = kvStoreProvider.getStore(DatasetSplitCreator.class);
+    this.splitChunksStore = kvStoreProvider.getStore(DatasetSplitChunkCreator.class);
     this.keyNormalization = keyNormalization;
   }
 
@@ -159,6 +168,21 @@ public class NamespaceServiceImpl implements NamespaceService {
     }
   }
 
+  /**
+   * KVStore creator for split chunks table
+   */
+  public static class DatasetSplitChunkCreator implements StoreCreationFunction<KVStore<DatasetSplitId, DatasetSplitChunk>> {
+
+    @Override
+    public KVStore<DatasetSplitId, DatasetSplitChunk> build(StoreBuildingFactory factory) {
+      return factory.<DatasetSplitId, DatasetSplitChunk>newStore()
+        .name(DATASET_SPLIT_CHUNKS)
+        .keySerializer(DatasetSplitIdSerializer.class)
+        .valueSerializer(DatasetSplitChunkSerializer.class)
+        .build();
+    }
+  }
+
   /**
    * Comparator for split ranges
    */
@@ -238,6 +262,12 @@ public class NamespaceServiceImpl implements NamespaceService {
     // Ranges need to be sorted for binary search to be working
     Collections.sort(ranges, SPLIT_RANGE_COMPARATOR);
 
+    // chunks are keyed like the splits they hold
+    deleteSplitOrphans(splitChunksStore, ranges);
+    return deleteSplitOrphans(splitsStore, ranges);
+  }
+
+  private static <V> int deleteSplitOrphans(KVStore<DatasetSplitId, V> store, List<Range<DatasetSplitId>> ranges) {
     // Some explanations:
     // ranges is setup to contain the current (exclusive) range of splits for each dataset.
     // The function then iterates over all splits present in the split tables and verify
@@ -247,7 +277,7 @@ public class NamespaceServiceImpl implements NamespaceService {
     // javadoc), which should be just after the corresponding dataset range as ranges items
     // are sorted based on their lower endpoint.
     int elementCount = 0;
-    for (Map.Entry<DatasetSplitId, DatasetSplit> e : splitsStore.find()) {
+    for (Map.Entry<DatasetSplitId, V> e : store.find()) {
       DatasetSplitId id = e.getKey();
       final int item = Collections.binarySearch(ranges, Range.singleton(id), SPLIT_RANGE_COMPARATOR);
 
@@ -259,7 +289,7 @@ public class NamespaceServiceImpl implements NamespaceService {
       final int consideredRange = insertionPoint - 1; // since a normal match would come directly after the start range, we need to check the range directly above the insertion point.
 
       if (consideredRange < 0 || !ranges.get(consideredRange).contains(id)) {
-        splitsStore.delete(e.getKey());
+        store.delete(e.getKey());
         ++elementCount;
       }
     }
@@ -458,12 +488,26 @@ public class NamespaceServiceImpl implements NamespaceService {
     final long nextSplitVersion = System.currentTimeMillis();
     final List<DatasetSplitId> splitIds = Lists.newArrayList();
     // only if splits have changed update splits version and retry read definition on concurrent modification.
+    final List<Map.Entry<DatasetSplitId, DatasetSplit>> splitEntries = Lists.newArrayListWithCapacity(splits.size());
     for (DatasetSplit split : splits) {
       final DatasetSplitId splitId = DatasetSplitId.of(dataset, split, nextSplitVersion);
       split.setSplitVersion(nextSplitVersion);
-      splitsStore.put(splitId, split);
+      splitEntries.add(Maps.immutableEntry(splitId, split));
       splitIds.add(splitId);
     }
+    // splits are written in batches, which keeps each write (or request to the master) bounded
+    for (List<Map.Entry<DatasetSplitId, DatasetSplit>> batch : Lists.partition(splitEntries, SPLITS_BATCH_SIZE)) {
+      splitsStore.put(batch);
+    }
+    // the splits are also stored in chunks, to be read without going through each split entry
+    final List<DatasetSplitChunk> chunks = DatasetSplitChunks.encode(splits);
+    final List<Map.Entry<DatasetSplitId, DatasetSplitChunk>> chunkEntries = Lists.newArrayListWithCapacity(chunks.size());
+    for (int i = 0; i < chunks.size(); i++) {
+      chunkEntries.add(Maps.immutableEntry(DatasetSplitChunks.getChunkId(dataset.getId(), nextSplitVersion, i), chunks.get(i)));
+    }
+    if (!chunkEntries.isEmpty()) {
+      splitChunksStore.put(chunkEntries);
+    }
     dataset.getReadDefinition().setSplitVersion(nextSplitVersion);
     while (true) {
       try {
@@ -478,6 +522,9 @@ public class NamespaceServiceImpl implements NamespaceService {
           // could end up delete the splits of the existing dataset (see DX-12232)
           existingDatasetConfig.getReadDefinition().getSplitVersion() > nextSplitVersion) {
           deleteSplits(splitIds);
+          for (Map.Entry<DatasetSplitId, DatasetSplitChunk> chunkEntry : chunkEntries) {
+            splitChunksStore.delete(chunkEntry.getKey());
+          }
           break;
         }
         // try again if read definition is not set or splits are not up-to-date.
@@ -1145,6 +1192,11 @@ public class NamespaceServiceImpl implements NamespaceService {
     return splitsStore.find(range);
   }
 
+  @Override
+  public Iterable<Map.Entry<DatasetSplitId, DatasetSplitChunk>> findSplitChunks(FindByRange<DatasetSplitId> range) {
+    return splitChunksStore.find(range);
+  }
+
   @Override
   public int getSplitCount(FindByCondition condition) {
     return splitsStore.getCounts(condition.getCondition()).get(0);
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2017-2018 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.namespace;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.dremio.service.namespace.dataset.proto.DatasetSplit;
+import com.dremio.service.namespace.dataset.proto.DatasetSplitChunk;
+import com.dremio.service.namespace.dataset.proto.PartitionValue;
+import com.dremio.service.namespace.dataset.proto.PartitionValueColumn;
+import com.dremio.service.namespace.dataset.proto.PartitionValueType;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+/**
+ * Tests for {@link DatasetSplitChunks}
+ */
+public class TestDatasetSplitChunks {
+
+  private static List<DatasetSplit> newSplits(int count) {
+    final List<DatasetSplit> splits = Lists.newArrayList();
+    for (int i = 0; i < count; i++) {
+      final DatasetSplit split = new DatasetSplit()
+        .setSplitKey(String.valueOf(i))
+        .setRowCount((long) i)
+        .setSplitVersion(1L);
+      // every other split has no value for "b"
+      final List<PartitionValue> values = Lists.newArrayList(
+        new PartitionValue().setColumn("a").setIntValue(i % 3).setType(PartitionValueType.IMPLICIT));
+      if (i % 2 == 0) {
+        values.add(new PartitionValue().setColumn("b").setStringValue("v" + (i % 5)).setType(PartitionValueType.IMPLICIT));
+      }
+      splits.add(split.setPartitionValuesList(values));
+    }
+    return splits;
+  }
+
+  @Test
+  public void roundTrip() {
+    final List<DatasetSplit> splits = newSplits(DatasetSplitChunks.CHUNK_SIZE + 10);
+    final List<DatasetSplitChunk> chunks = DatasetSplitChunks.encode(splits);
+    assertEquals(2, chunks.size());
+    assertEquals(DatasetSplitChunks.CHUNK_SIZE, (int) chunks.get(0).getSplitCount());
+    assertEquals(10, (int) chunks.get(1).getSplitCount());
+
+    final List<DatasetSplit> decoded = Lists.newArrayList();
+    for (DatasetSplitChunk chunk : chunks) {
+      decoded.addAll(DatasetSplitChunks.decode(chunk, null));
+    }
+    assertEquals(splits, decoded);
+  }
+
+  @Test
+  public void partitionColumns() {
+    final List<DatasetSplit> splits = newSplits(10);
+    final DatasetSplitChunk chunk = DatasetSplitChunks.encode(splits).get(0);
+    assertEquals(2, chunk.getPartitionColumnsList().size());
+
+    final PartitionValueColumn a = chunk.getPartitionColumnsList().get(0);
+    assertEquals("a", a.getColumn());
+    assertEquals(3, a.getDictionaryList().size());
+    final PartitionValueColumn b = chunk.getPartitionColumnsList().get(1);
+    assertEquals("b", b.getColumn());
+    assertEquals(5, b.getDictionaryList().size());
+
+    for (int i = 0; i < splits.size(); i++) {
+      assertEquals(i % 3, (int) a.getDictionaryList().get(a.getIndicesList().get(i)).getIntValue());
+      if (i % 2 == 0) {
+        assertEquals("v" + (i % 5), b.getDictionaryList().get(b.getIndicesList().get(i)).getStringValue());
+      } else {
+        assertEquals(-1, (int) b.getIndicesList().get(i));
+      }
+    }
+  }
+
+  @Test
+  public void decodeSelected() {
+    final List<DatasetSplit> splits = newSplits(10);
+    final DatasetSplitChunk chunk = DatasetSplitChunks.encode(splits).get(0);
+
+    final BitSet selected = new BitSet();
+    selected.set(1);
+    selected.set(7);
+    assertEquals(ImmutableList.of(splits.get(1), splits.get(7)), DatasetSplitChunks.decode(chunk, selected));
+    assertEquals(ImmutableList.of(), DatasetSplitChunks.decode(chunk, new BitSet()));
+  }
+}
@@ -829,6 +829,7 @@ public class TestNamespaceService {
         ns.findSplits(new IndexedStore.FindByCondition().setCondition(DatasetSplitId.getSplitsQuery(datasetConfig)))));
       Long newSplitVersion = datasetConfig.getReadDefinition().getSplitVersion();
       assertTrue(newSplitVersion > lastSplitVersion);
+      assertTrue(DatasetSplitChunks.hasChunks(ns, datasetConfig.getId(), newSplitVersion, 10));
       lastSplitVersion = newSplitVersion;
 
       // insert same splits again and make sure version does't change